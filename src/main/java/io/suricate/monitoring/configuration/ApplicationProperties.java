@@ -71,6 +71,31 @@ public class ApplicationProperties {
      */
     public final OAuth oauth = new OAuth();
 
+    /**
+     * The assets properties
+     */
+    public final Assets assets = new Assets();
+
+    /**
+     * The websocket properties
+     */
+    public final Websocket websocket = new Websocket();
+
+    /**
+     * The executors of the asynchronous tasks
+     */
+    public final Executors executors = new Executors();
+
+    /**
+     * The Server-Sent Events stream of the screens
+     */
+    public final ScreenStream screenStream = new ScreenStream();
+
+    /**
+     * The encryption of the widget secrets
+     */
+    public final Secrets secrets = new Secrets();
+
     /**
      * Hold the Authentication properties info
      */
@@ -257,6 +282,11 @@ public class ApplicationProperties {
          */
         @NotNull
         public boolean updateEnable;
+
+        /**
+         * The maximum size in bytes of the HTML rendered for the project widgets kept in memory
+         */
+        public long renderedHtmlCacheSize;
     }
 
     /**
@@ -331,4 +361,259 @@ public class ApplicationProperties {
         public String secret;
 
     }
+
+    /**
+     * Hold the assets properties
+     */
+    @Getter
+    @Setter
+    public static class Assets {
+        /**
+         * The file system blob store
+         */
+        public final BlobStore blobStore = new BlobStore();
+
+        /**
+         * The maximum size in bytes of the library bundles kept in memory
+         */
+        public long libraryBundlesCacheSize;
+    }
+
+    /**
+     * Hold the blob store properties
+     */
+    @Getter
+    @Setter
+    public static class BlobStore {
+        /**
+         * True if the asset contents are stored on the file system instead of the database
+         */
+        public boolean enabled;
+
+        /**
+         * The root directory of the blob store
+         */
+        public String path;
+
+        /**
+         * The time in milliseconds a blob no longer referenced by an asset is kept, it covers the assets being saved
+         */
+        public long orphanRetention;
+    }
+
+    /**
+     * Hold the websocket properties
+     */
+    @Getter
+    @Setter
+    public static class Websocket {
+        /**
+         * The time in milliseconds during which the widget updates of a project are merged in one frame
+         * 0 to push every widget update on its own
+         */
+        public long coalescingWindow;
+
+        /**
+         * The maximum time in milliseconds a screen can take to receive a message before its session is closed
+         */
+        public int sendTimeLimit;
+
+        /**
+         * The maximum size in bytes of the messages waiting to be sent to a screen
+         * Beyond it, the oldest messages are dropped
+         */
+        public int sendBufferSizeLimit;
+
+        /**
+         * True to compress the frames of the websocket transport when the client supports permessage-deflate
+         * Turning it off saves the CPU of the compression and the deflater kept by each session
+         */
+        public boolean perMessageDeflate;
+
+        /**
+         * True to open the raw STOMP endpoint on which the clients can receive CBOR or Smile payloads
+         */
+        public boolean binaryPayloads;
+
+        /**
+         * The relay to an external STOMP broker
+         */
+        public final BrokerRelay brokerRelay = new BrokerRelay();
+    }
+
+    /**
+     * Hold the STOMP broker relay properties
+     */
+    @Getter
+    @Setter
+    public static class BrokerRelay {
+        /**
+         * True to relay the messages to an external broker shared by every node, instead of the in-memory broker
+         */
+        public boolean enabled;
+
+        /**
+         * The broker host
+         */
+        public String host;
+
+        /**
+         * The broker STOMP port
+         */
+        public int port;
+
+        /**
+         * The login used to connect to the broker
+         */
+        public String login;
+
+        /**
+         * The passcode used to connect to the broker
+         */
+        public String passcode;
+    }
+
+    /**
+     * Hold the Server-Sent Events stream properties
+     */
+    @Getter
+    @Setter
+    public static class ScreenStream {
+        /**
+         * The time in milliseconds after which a stream is closed, the browser then reconnects with its last event id
+         */
+        public long timeout;
+
+        /**
+         * The time in milliseconds between two heartbeats, used to detect the screens gone
+         */
+        public long heartbeatInterval;
+
+        /**
+         * The number of events kept by project to resume the streams
+         */
+        public int replayBufferSize;
+
+        /**
+         * The time in milliseconds the events of a project are kept once its last screen is gone
+         */
+        public long replayRetention;
+
+        /**
+         * The number of events queued to a screen, beyond it the screen is closed and resumes its stream
+         */
+        public int queueSize;
+
+        /**
+         * The maximum time in milliseconds a screen can take to receive an event, beyond it the screen is evicted by the next heartbeat
+         */
+        public long sendTimeLimit;
+    }
+
+    /**
+     * Hold the widget secrets properties
+     */
+    @Getter
+    @Setter
+    public static class Secrets {
+        /**
+         * The codec encrypting the new secrets (jasypt or aes-gcm), the secrets of both codecs are always decrypted
+         */
+        public String codec = "jasypt";
+
+        /**
+         * True to encrypt again on startup the secrets encrypted by another codec than the current one
+         * One way: once re-encrypted with aes-gcm, the secrets cannot be read by a version without the aes-gcm codec
+         */
+        public boolean reEncrypt;
+
+        /**
+         * The salt of the aes-gcm key derivation, changing it makes the aes-gcm secrets already stored unreadable
+         */
+        public String keySalt = "suricate-widget-secrets";
+
+        /**
+         * The time in milliseconds a decrypted secret is kept in memory
+         */
+        public long cacheTtl;
+
+        /**
+         * The maximum number of decrypted secrets kept in memory
+         */
+        public long cacheSize;
+    }
+
+    /**
+     * Hold the executors of the asynchronous tasks, by subsystem
+     */
+    @Getter
+    @Setter
+    public static class Executors {
+        /**
+         * The executor of the asynchronous tasks without a dedicated executor
+         */
+        public final Executor async = new Executor();
+
+        /**
+         * The executor pushing the events to the screens
+         */
+        public final Executor websocket = new Executor();
+
+        /**
+         * The executor updating the widgets from the repositories
+         */
+        public final Executor git = new Executor();
+
+        /**
+         * The executor indexing the search engine
+         */
+        public final Executor search = new Executor();
+
+        /**
+         * The executor running the data migrations
+         */
+        public final Executor migration = new Executor();
+
+        /**
+         * The executor rendering the widgets of a dashboard, its maximum pool size caps the parallelism
+         */
+        public final Executor render = new Executor();
+
+        /**
+         * The scheduler of the websocket tasks, its core pool size is its number of threads
+         */
+        public final Executor websocketScheduler = new Executor();
+
+        /**
+         * The executor writing the queued messages to the websocket sessions, its maximum pool size caps the sessions written at once
+         */
+        public final Executor websocketOutbound = new Executor();
+
+        /**
+         * The executor sending the queued events to the Server-Sent Events streams, its maximum pool size caps the streams sent at once
+         */
+        public final Executor screenStream = new Executor();
+    }
+
+    /**
+     * Hold the sizes of an executor
+     */
+    @Getter
+    @Setter
+    public static class Executor {
+        /**
+         * The number of threads kept
+         */
+        public int corePoolSize = 1;
+
+        /**
+         * The maximum number of threads, reached when the queue is full
+         */
+        public int maxPoolSize = 1;
+
+        /**
+         * The number of tasks waiting for a thread, beyond it the tasks are rejected
+         */
+        public int queueCapacity = 100;
+    }
 }
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration of the executors running the asynchronous tasks
+ * Every subsystem has its own bounded pool, exported in the executor.* metrics tagged by name
+ */
+@Configuration
+public class AsyncConfiguration implements AsyncConfigurer {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncConfiguration.class);
+
+    /**
+     * The executor of the asynchronous tasks without a dedicated executor
+     */
+    public static final String ASYNC_EXECUTOR = "asyncExecutor";
+
+    /**
+     * The executor pushing the events to the screens
+     */
+    public static final String WEBSOCKET_EXECUTOR = "websocketExecutor";
+
+    /**
+     * The executor updating the widgets from the repositories
+     */
+    public static final String GIT_EXECUTOR = "gitExecutor";
+
+    /**
+     * The executor indexing the search engine
+     */
+    public static final String SEARCH_EXECUTOR = "searchExecutor";
+
+    /**
+     * The executor running the data migrations
+     */
+    public static final String MIGRATION_EXECUTOR = "migrationExecutor";
+
+    /**
+     * The executor rendering the widgets of a dashboard
+     */
+    public static final String RENDER_EXECUTOR = "renderExecutor";
+
+    /**
+     * The scheduler of the websocket tasks: merged widget updates, blocked sessions and heartbeats
+     */
+    public static final String WEBSOCKET_SCHEDULER = "websocketScheduler";
+
+    /**
+     * The executor writing the queued messages to the websocket sessions
+     */
+    public static final String WEBSOCKET_OUTBOUND_EXECUTOR = "websocketOutboundExecutor";
+
+    /**
+     * The executor sending the queued events to the Server-Sent Events streams
+     */
+    public static final String SCREEN_STREAM_EXECUTOR = "screenStreamExecutor";
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The registry of the metrics
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties to inject
+     * @param meterRegistry         The registry of the metrics to inject
+     */
+    public AsyncConfiguration(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * The executor of the asynchronous tasks without a dedicated executor
+     *
+     * @return The executor, failing the tasks beyond its queue
+     */
+    @Bean(ASYNC_EXECUTOR)
+    public ThreadPoolTaskExecutor asyncExecutor() {
+        return createExecutor("async", applicationProperties.executors.async, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The executor pushing the events to the screens
+     * Beyond its queue, the events are pushed by the calling thread, slowing down the producers instead of losing updates
+     *
+     * @return The executor
+     */
+    @Bean(WEBSOCKET_EXECUTOR)
+    public ThreadPoolTaskExecutor websocketExecutor() {
+        return createExecutor("websocket", applicationProperties.executors.websocket, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * The executor updating the widgets from the repositories
+     * Beyond its queue, the updates are discarded and logged, they can be triggered again from the repositories screen
+     *
+     * @return The executor
+     */
+    @Bean(GIT_EXECUTOR)
+    public ThreadPoolTaskExecutor gitExecutor() {
+        return createExecutor("git", applicationProperties.executors.git, discardPolicy("git"));
+    }
+
+    /**
+     * The executor indexing the search engine
+     * Beyond its queue, the indexations are discarded, the pending ones index every entity
+     *
+     * @return The executor
+     */
+    @Bean(SEARCH_EXECUTOR)
+    public ThreadPoolTaskExecutor searchExecutor() {
+        return createExecutor("search", applicationProperties.executors.search, discardPolicy("search"));
+    }
+
+    /**
+     * The executor running the data migrations
+     *
+     * @return The executor, failing the migrations beyond its queue
+     */
+    @Bean(MIGRATION_EXECUTOR)
+    public ThreadPoolTaskExecutor migrationExecutor() {
+        return createExecutor("migration", applicationProperties.executors.migration, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The executor rendering the widgets of a dashboard
+     * Beyond its queue, the widgets are rendered by the request thread, so a request is never failed for lack of threads
+     *
+     * @return The executor
+     */
+    @Bean(RENDER_EXECUTOR)
+    public ThreadPoolTaskExecutor renderExecutor() {
+        return createExecutor("render", applicationProperties.executors.render, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * The scheduler of the websocket tasks
+     * Its tasks are periodic or one per project, they are only rejected on shutdown
+     *
+     * @return The scheduler
+     */
+    @Bean(WEBSOCKET_SCHEDULER)
+    public ThreadPoolTaskScheduler websocketScheduler() {
+        return createScheduler("websocket-scheduler", applicationProperties.executors.websocketScheduler);
+    }
+
+    /**
+     * The executor writing the queued messages to the websocket sessions, a session is written by one thread at a time
+     * Beyond its queue, the messages stay queued in their session and are written once the watchdog retries the session
+     *
+     * @return The executor
+     */
+    @Bean(WEBSOCKET_OUTBOUND_EXECUTOR)
+    public ThreadPoolTaskExecutor websocketOutboundExecutor() {
+        return createExecutor("websocket-outbound", applicationProperties.executors.websocketOutbound, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The executor sending the queued events to the Server-Sent Events streams, a stream is sent by one thread at a time
+     * Beyond its queue, the events stay queued in their stream and are sent with the next heartbeat
+     *
+     * @return The executor
+     */
+    @Bean(SCREEN_STREAM_EXECUTOR)
+    public ThreadPoolTaskExecutor screenStreamExecutor() {
+        return createExecutor("screen-stream", applicationProperties.executors.screenStream, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The executor used by the @Async methods not naming one
+     *
+     * @return The default asynchronous executor
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return asyncExecutor();
+    }
+
+    /**
+     * Create a bounded executor exporting its metrics
+     *
+     * @param name               The name of the executor, used by its threads and its metrics
+     * @param executorProperties The sizes of the executor
+     * @param rejectionPolicy    The policy applied to the tasks beyond the queue
+     * @return The executor
+     */
+    private ThreadPoolTaskExecutor createExecutor(final String name,
+                                                  final ApplicationProperties.Executor executorProperties,
+                                                  final RejectedExecutionHandler rejectionPolicy) {
+        Counter rejectedCounter = createRejectedCounter(name);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor() {
+            @Override
+            protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+                ExecutorService executorService = super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+                new ExecutorServiceMetrics(executorService, name, Collections.emptyList()).bindTo(meterRegistry);
+                return executorService;
+            }
+        };
+
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(executorProperties.corePoolSize);
+        executor.setMaxPoolSize(Math.max(executorProperties.corePoolSize, executorProperties.maxPoolSize));
+        executor.setQueueCapacity(executorProperties.queueCapacity);
+        executor.setRejectedExecutionHandler((runnable, threadPoolExecutor) -> {
+            rejectedCounter.increment();
+            rejectionPolicy.rejectedExecution(runnable, threadPoolExecutor);
+        });
+
+        return executor;
+    }
+
+    /**
+     * Create a scheduler exporting its metrics
+     *
+     * @param name               The name of the scheduler, used by its threads and its metrics
+     * @param executorProperties The sizes of the scheduler, only its core pool size is used
+     * @return The scheduler
+     */
+    private ThreadPoolTaskScheduler createScheduler(final String name, final ApplicationProperties.Executor executorProperties) {
+        Counter rejectedCounter = createRejectedCounter(name);
+        RejectedExecutionHandler rejectionPolicy = new ThreadPoolExecutor.AbortPolicy();
+
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler() {
+            @Override
+            protected ExecutorService initializeExecutor(ThreadFactory threadFactory, RejectedExecutionHandler rejectedExecutionHandler) {
+                ExecutorService executorService = super.initializeExecutor(threadFactory, rejectedExecutionHandler);
+                new ExecutorServiceMetrics(executorService, name, Collections.emptyList()).bindTo(meterRegistry);
+                return executorService;
+            }
+        };
+
+        scheduler.setThreadNamePrefix(name + "-");
+        scheduler.setPoolSize(executorProperties.corePoolSize);
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setRejectedExecutionHandler((runnable, threadPoolExecutor) -> {
+            rejectedCounter.increment();
+            rejectionPolicy.rejectedExecution(runnable, threadPoolExecutor);
+        });
+
+        return scheduler;
+    }
+
+    /**
+     * Create the counter of the tasks rejected by an executor
+     *
+     * @param name The name of the executor
+     * @return The counter
+     */
+    private Counter createRejectedCounter(final String name) {
+        return Counter.builder("executor.rejected")
+            .tag("name", name)
+            .description("The number of tasks rejected by the executor because its queue is full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Policy discarding the tasks beyond the queue
+     * The future of a discarded task is cancelled, so a caller waiting for it is not blocked forever
+     *
+     * @param name The name of the executor
+     * @return The policy
+     */
+    private static RejectedExecutionHandler discardPolicy(final String name) {
+        return (runnable, threadPoolExecutor) -> {
+            LOGGER.warn("The {} executor is full, a task has been discarded", name);
+
+            if (runnable instanceof Future) {
+                ((Future<?>) runnable).cancel(false);
+            }
+        };
+    }
+}
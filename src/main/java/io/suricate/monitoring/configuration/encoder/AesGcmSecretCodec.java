@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.encoder;
+
+import org.jasypt.exceptions.EncryptionInitializationException;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Codec of the secrets encrypted with AES-GCM (authenticated encryption)
+ * The key is derived once from the encryptor password and the configured salt, each secret is then encrypted with a random IV.
+ * The salt is shared by every secret, so the key is only as strong as the encryptor password
+ * An encrypted secret is the prefix followed by the Base64 of the IV and the cipher text with its tag
+ */
+public class AesGcmSecretCodec implements SecretCodec {
+
+    /**
+     * The name of the codec
+     */
+    public static final String NAME = "aes-gcm";
+
+    /**
+     * The prefix of the secrets encrypted by this codec
+     */
+    public static final String PREFIX = "{aes-gcm}";
+
+    /**
+     * The transformation used by the ciphers
+     */
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    /**
+     * The number of iterations of the key derivation
+     */
+    private static final int KEY_ITERATIONS = 65536;
+
+    /**
+     * The length in bits of the key
+     */
+    private static final int KEY_LENGTH = 256;
+
+    /**
+     * The length in bytes of the IV
+     */
+    private static final int IV_LENGTH = 12;
+
+    /**
+     * The length in bits of the authentication tag
+     */
+    private static final int TAG_LENGTH = 128;
+
+    /**
+     * The random generator of the IVs
+     */
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * The key derived from the password
+     */
+    private final SecretKey secretKey;
+
+    /**
+     * Constructor, derive the key
+     *
+     * @param password The encryptor password
+     * @param keySalt  The salt of the key derivation
+     */
+    public AesGcmSecretCodec(final String password, final String keySalt) {
+        try {
+            SecretKeyFactory secretKeyFactory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            byte[] key = secretKeyFactory.generateSecret(new PBEKeySpec(password.toCharArray(), keySalt.getBytes(StandardCharsets.UTF_8), KEY_ITERATIONS, KEY_LENGTH)).getEncoded();
+            secretKey = new SecretKeySpec(key, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionInitializationException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(final String encryptedValue) {
+        return encryptedValue.startsWith(PREFIX);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encrypt(final String value) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            byte[] cipherText = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+
+            return PREFIX + Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + cipherText.length).put(iv).put(cipherText).array());
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String decrypt(final String encryptedValue) {
+        try {
+            byte[] payload = Base64.getDecoder().decode(encryptedValue.substring(PREFIX.length()));
+            if (payload.length <= IV_LENGTH) {
+                throw new EncryptionOperationNotPossibleException();
+            }
+
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, payload, 0, IV_LENGTH));
+            return new String(cipher.doFinal(payload, IV_LENGTH, payload.length - IV_LENGTH), StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+}
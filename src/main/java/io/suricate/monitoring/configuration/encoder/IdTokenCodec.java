@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.encoder;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.suricate.monitoring.utils.IdUtils;
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.exceptions.EncryptionInitializationException;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Codec of the tokens identifying the assets in the URLs
+ * A token is a single AES block holding the id and a truncated HMAC-SHA256 of the id, in URL safe Base64:
+ * the id is not readable from the token, and a token cannot be forged from another one.
+ * The tokens encrypted by Jasypt before are still decoded, their ids are kept in memory once decrypted
+ * A Mac and a Cipher are not thread safe and costly to initialize, so each thread keeps its own: every Tomcat worker thread
+ * pins one Mac and two Ciphers (a few KB) for its life, including after the context is closed
+ */
+public class IdTokenCodec {
+
+    /**
+     * The name of the bean
+     */
+    public static final String NAME = "idTokenCodec";
+
+    /**
+     * The length in bytes of the truncated signature, the id and the signature fill one AES block
+     */
+    private static final int SIGNATURE_LENGTH = 8;
+
+    /**
+     * The length of a token, never the one of a Jasypt token (hexadecimal blocks of 16 characters)
+     */
+    private static final int TOKEN_LENGTH = 22;
+
+    /**
+     * The algorithm of the signature
+     */
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * The transformation of the ciphers, a token is a single block so no IV nor padding is needed
+     */
+    private static final String TRANSFORMATION = "AES/ECB/NoPadding";
+
+    /**
+     * The length in bytes of the AES key
+     */
+    private static final int CIPHER_KEY_LENGTH = 16;
+
+    /**
+     * The maximum number of Jasypt tokens kept in memory
+     */
+    private static final int LEGACY_TOKENS_CACHE_SIZE = 10000;
+
+    /**
+     * The key of the signature, derived from the encryptor password
+     */
+    private final SecretKeySpec secretKey;
+
+    /**
+     * The signature generators, a Mac is not thread safe
+     */
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * The ciphers encrypting the tokens, a Cipher is not thread safe
+     */
+    private final ThreadLocal<Cipher> encryptCiphers;
+
+    /**
+     * The ciphers decrypting the tokens
+     */
+    private final ThreadLocal<Cipher> decryptCiphers;
+
+    /**
+     * The Jasypt encryptor of the tokens generated before
+     */
+    private final StringEncryptor legacyStringEncryptor;
+
+    /**
+     * The ids of the Jasypt tokens already decrypted
+     */
+    private final Cache<String, Long> legacyTokens = CacheBuilder.newBuilder().maximumSize(LEGACY_TOKENS_CACHE_SIZE).build();
+
+    /**
+     * Constructor, derive the keys
+     *
+     * @param password              The encryptor password
+     * @param legacyStringEncryptor The Jasypt encryptor of the tokens generated before
+     */
+    public IdTokenCodec(final String password, final StringEncryptor legacyStringEncryptor) {
+        this.legacyStringEncryptor = legacyStringEncryptor;
+
+        SecretKeySpec cipherKey;
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(password.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            this.secretKey = new SecretKeySpec(mac.doFinal("suricate-id-tokens".getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+            cipherKey = new SecretKeySpec(
+                Arrays.copyOf(mac.doFinal("suricate-id-tokens-cipher".getBytes(StandardCharsets.UTF_8)), CIPHER_KEY_LENGTH), "AES");
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionInitializationException(e);
+        }
+
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new EncryptionInitializationException(e);
+            }
+        });
+        this.encryptCiphers = ThreadLocal.withInitial(() -> createCipher(Cipher.ENCRYPT_MODE, cipherKey));
+        this.decryptCiphers = ThreadLocal.withInitial(() -> createCipher(Cipher.DECRYPT_MODE, cipherKey));
+    }
+
+    /**
+     * Make this codec the one of {@link IdUtils}
+     */
+    @PostConstruct
+    public void register() {
+        IdUtils.setIdTokenCodec(this);
+    }
+
+    /**
+     * Release this codec from {@link IdUtils} when the context is closed
+     */
+    @PreDestroy
+    public void unregister() {
+        IdUtils.clearIdTokenCodec(this);
+    }
+
+    /**
+     * Create a cipher of the tokens
+     *
+     * @param mode The cipher mode
+     * @param key  The AES key
+     * @return The cipher
+     */
+    private static Cipher createCipher(final int mode, final SecretKeySpec key) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionInitializationException(e);
+        }
+    }
+
+    /**
+     * Encode an id
+     *
+     * @param id The id
+     * @return The token
+     */
+    public String encode(final long id) {
+        byte[] block = ByteBuffer.allocate(Long.BYTES + SIGNATURE_LENGTH).putLong(id).put(sign(id)).array();
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(encryptCiphers.get().doFinal(block));
+        } catch (GeneralSecurityException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+
+    /**
+     * Decode a token, signed or encrypted by Jasypt
+     *
+     * @param token The token
+     * @return The id
+     * @throws EncryptionOperationNotPossibleException When the token is invalid
+     */
+    public long decode(final String token) {
+        if (token.length() != TOKEN_LENGTH) {
+            return decodeLegacy(token);
+        }
+
+        try {
+            ByteBuffer block = ByteBuffer.wrap(decryptCiphers.get().doFinal(Base64.getUrlDecoder().decode(token)));
+            long id = block.getLong();
+            byte[] signature = new byte[SIGNATURE_LENGTH];
+            block.get(signature);
+            if (!MessageDigest.isEqual(sign(id), signature)) {
+                throw new EncryptionOperationNotPossibleException();
+            }
+            return id;
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            throw new EncryptionOperationNotPossibleException(e);
+        }
+    }
+
+    /**
+     * Decode a token encrypted by Jasypt
+     *
+     * @param token The token
+     * @return The id
+     */
+    private long decodeLegacy(final String token) {
+        Long id = legacyTokens.getIfPresent(token);
+        if (id == null) {
+            try {
+                id = Long.parseLong(legacyStringEncryptor.decrypt(token));
+            } catch (NumberFormatException e) {
+                throw new EncryptionOperationNotPossibleException(e);
+            }
+            legacyTokens.put(token, id);
+        }
+
+        return id;
+    }
+
+    /**
+     * Compute the truncated signature of an id
+     *
+     * @param id The id
+     * @return The signature
+     */
+    private byte[] sign(final long id) {
+        return Arrays.copyOf(macs.get().doFinal(ByteBuffer.allocate(Long.BYTES).putLong(id).array()), SIGNATURE_LENGTH);
+    }
+}
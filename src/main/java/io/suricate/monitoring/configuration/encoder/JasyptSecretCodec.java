@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.encoder;
+
+import org.jasypt.encryption.StringEncryptor;
+
+/**
+ * Codec of the secrets encrypted by Jasypt (password based encryption)
+ * Every secret without the prefix of another codec has been encrypted by Jasypt
+ */
+public class JasyptSecretCodec implements SecretCodec {
+
+    /**
+     * The name of the codec
+     */
+    public static final String NAME = "jasypt";
+
+    /**
+     * The Jasypt encryptor
+     */
+    private final StringEncryptor stringEncryptor;
+
+    /**
+     * Constructor
+     *
+     * @param stringEncryptor The Jasypt encryptor
+     */
+    public JasyptSecretCodec(final StringEncryptor stringEncryptor) {
+        this.stringEncryptor = stringEncryptor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supports(final String encryptedValue) {
+        return !encryptedValue.startsWith(AesGcmSecretCodec.PREFIX);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encrypt(final String value) {
+        return stringEncryptor.encrypt(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String decrypt(final String encryptedValue) {
+        return stringEncryptor.decrypt(encryptedValue);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.encoder;
+
+/**
+ * Codec encrypting the secrets of the widgets (the PASSWORD params and configurations)
+ * The encrypted values of a codec are recognizable, so several codecs can be read during a migration
+ */
+public interface SecretCodec {
+
+    /**
+     * Get the name of the codec, used in the application properties
+     *
+     * @return The name of the codec
+     */
+    String getName();
+
+    /**
+     * Test if an encrypted value has been produced by this codec
+     *
+     * @param encryptedValue The encrypted value
+     * @return True if this codec can decrypt the value
+     */
+    boolean supports(String encryptedValue);
+
+    /**
+     * Encrypt a value
+     *
+     * @param value The value to encrypt
+     * @return The encrypted value
+     */
+    String encrypt(String value);
+
+    /**
+     * Decrypt a value
+     *
+     * @param encryptedValue The encrypted value
+     * @return The decrypted value
+     */
+    String decrypt(String encryptedValue);
+}
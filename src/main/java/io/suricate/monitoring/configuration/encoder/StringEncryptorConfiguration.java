@@ -17,6 +17,7 @@
 package io.suricate.monitoring.configuration.encoder;
 
 import com.ulisesbocchio.jasyptspringboot.annotation.EnableEncryptableProperties;
+import io.suricate.monitoring.configuration.ApplicationProperties;
 import org.jasypt.encryption.StringEncryptor;
 import org.jasypt.encryption.pbe.PooledPBEStringEncryptor;
 import org.jasypt.encryption.pbe.config.SimpleStringPBEConfig;
@@ -57,6 +58,37 @@ public class StringEncryptorConfiguration {
         return getPooledPBEStringEncryptor(encryptorPassword, "org.jasypt.salt.RandomSaltGenerator");
     }
 
+    /**
+     * Codec of the tokens identifying the assets, reading the tokens encrypted without salt before
+     *
+     * @return The codec
+     */
+    @Bean(IdTokenCodec.NAME)
+    public IdTokenCodec idTokenCodec() {
+        return new IdTokenCodec(encryptorPassword, stringEncryptor());
+    }
+
+    /**
+     * Codec of the widget secrets encrypted with AES-GCM, its key is derived once from the encryptor password
+     *
+     * @param applicationProperties The application properties
+     * @return The codec
+     */
+    @Bean
+    public AesGcmSecretCodec aesGcmSecretCodec(final ApplicationProperties applicationProperties) {
+        return new AesGcmSecretCodec(encryptorPassword, applicationProperties.secrets.keySalt);
+    }
+
+    /**
+     * Codec of the widget secrets encrypted with Jasypt
+     *
+     * @return The codec
+     */
+    @Bean
+    public JasyptSecretCodec jasyptSecretCodec() {
+        return new JasyptSecretCodec(defaultStringEncryptor());
+    }
+
     /**
      * Method used to create a String encryptor
      *
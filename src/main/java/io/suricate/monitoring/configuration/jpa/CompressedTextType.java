@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.jpa;
+
+import io.suricate.monitoring.utils.CompressionUtils;
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.StringTypeDescriptor;
+import org.hibernate.type.descriptor.sql.LongVarcharTypeDescriptor;
+import org.hibernate.usertype.ParameterizedType;
+
+import java.util.Properties;
+
+/**
+ * Hibernate type mapping a text column like {@link org.hibernate.type.TextType}
+ * but storing the values longer than a threshold compressed (deflate + base64)
+ * Values written before the compression are read as is
+ */
+public class CompressedTextType extends AbstractSingleColumnStandardBasicType<String> implements ParameterizedType {
+
+    /**
+     * Name of the type parameter holding the compression threshold
+     */
+    public static final String THRESHOLD_PARAMETER = "threshold";
+
+    /**
+     * The java type descriptor
+     */
+    private final CompressedStringTypeDescriptor compressedStringTypeDescriptor;
+
+    /**
+     * Constructor
+     */
+    public CompressedTextType() {
+        this(new CompressedStringTypeDescriptor());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param compressedStringTypeDescriptor The java type descriptor
+     */
+    private CompressedTextType(final CompressedStringTypeDescriptor compressedStringTypeDescriptor) {
+        super(LongVarcharTypeDescriptor.INSTANCE, compressedStringTypeDescriptor);
+        this.compressedStringTypeDescriptor = compressedStringTypeDescriptor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName() {
+        return "compressed_text";
+    }
+
+    /**
+     * Read the threshold given by the mapping
+     *
+     * @param parameters The mapping parameters
+     */
+    @Override
+    public void setParameterValues(Properties parameters) {
+        if (parameters != null && parameters.getProperty(THRESHOLD_PARAMETER) != null) {
+            compressedStringTypeDescriptor.threshold = Integer.parseInt(parameters.getProperty(THRESHOLD_PARAMETER));
+        }
+    }
+
+    /**
+     * String descriptor compressing the values sent to the database and decompressing the values read
+     */
+    private static class CompressedStringTypeDescriptor extends StringTypeDescriptor {
+
+        /**
+         * The minimal length of a value to compress
+         */
+        private int threshold = CompressionUtils.DEFAULT_THRESHOLD;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+            return super.unwrap(CompressionUtils.compress(value, threshold), type, options);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public <X> String wrap(X value, WrapperOptions options) {
+            return CompressionUtils.decompress(super.wrap(value, options));
+        }
+    }
+}
@@ -1,10 +1,16 @@
 package io.suricate.monitoring.configuration.jpa;
 
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
+import java.io.IOException;
+
 /**
  * JPA configurations
  */
@@ -21,4 +27,18 @@ public class JPAConfiguration{
     public AuditorAware<String> auditorProvider() {
         return new JPAAuditorAwareImpl();
     }
+
+    /**
+     * Share the JCache configuration of the application with the hibernate second level cache
+     * Hibernate cannot resolve a "classpath:" location, so the resolved URI is given
+     *
+     * @param jcacheConfig The ehcache configuration file
+     * @return The hibernate properties customizer
+     * @throws IOException When the configuration file cannot be resolved
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(@Value("${spring.cache.jcache.config}") final Resource jcacheConfig) throws IOException {
+        final String configUri = jcacheConfig.getURI().toString();
+        return hibernateProperties -> hibernateProperties.put(JCacheRegionFactory.CONFIG_URI, configUri);
+    }
 }
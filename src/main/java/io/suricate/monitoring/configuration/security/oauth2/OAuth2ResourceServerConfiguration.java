@@ -93,11 +93,14 @@ public class OAuth2ResourceServerConfiguration extends ResourceServerConfigurerA
             .antMatchers("/api/*/projects/{projectToken}").permitAll()
             .antMatchers("/api/*/projects/{projectToken}/projectWidgets").permitAll()
             .antMatchers("/api/*/projectWidgets/{projectWidgetId}").permitAll()
+            .antMatchers("/api/*/projectWidgets/{projectWidgetId}/resync").permitAll()
             .antMatchers("/api/*/widgets/{widgetId}").permitAll()
             .antMatchers("/api/swagger-ui.html").permitAll()
             .antMatchers("/api/*/settings").permitAll()
             .antMatchers("/api/*/assets/**").permitAll()
+            .antMatchers("/api/*/screens/{projectToken}/stream").permitAll()
             .antMatchers("/ws/**").permitAll()
+            .antMatchers("/ws-binary").permitAll()
             .antMatchers("/api/**").authenticated();
     }
 }
@@ -16,13 +16,17 @@
 
 package io.suricate.monitoring.configuration.web;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.resource.PathResourceResolver;
 
+import javax.persistence.EntityManagerFactory;
 import java.io.IOException;
 
 /**
@@ -31,6 +35,41 @@ import java.io.IOException;
 @Configuration
 public class SuricateWebMvcConfigurer implements WebMvcConfigurer {
 
+    /**
+     * The long-lived requests, which must not hold a database connection while they are open
+     */
+    private static final String[] STREAMING_PATHS = {"/api/*/screens/*/stream"};
+
+    /**
+     * The JPA entity manager factory
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Constructor
+     *
+     * @param entityManagerFactory The JPA entity manager factory
+     */
+    @Autowired
+    public SuricateWebMvcConfigurer(final EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Keep the entity manager open during the requests, except the streaming ones
+     * It replaces the Spring Boot open-in-view interceptor, which cannot exclude paths
+     *
+     * @param registry Store the interceptors
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor = new OpenEntityManagerInViewInterceptor();
+        openEntityManagerInViewInterceptor.setEntityManagerFactory(entityManagerFactory);
+
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor)
+            .excludePathPatterns(STREAMING_PATHS);
+    }
+
     /**
      * The view resolver
      *
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.websocket;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.HandshakeFailureException;
+import org.springframework.web.socket.server.standard.TomcatRequestUpgradeStrategy;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.websocket.Endpoint;
+import javax.websocket.Extension;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Websocket upgrade on Tomcat, with the permessage-deflate extension only when enabled
+ * Tomcat negotiates the extensions it supports by itself, so they are hidden from the upgrade request when disabled
+ */
+public class TomcatWebsocketUpgradeStrategy extends TomcatRequestUpgradeStrategy {
+
+    /**
+     * The name of the compression extension
+     */
+    private static final String PER_MESSAGE_DEFLATE = "permessage-deflate";
+
+    /**
+     * The header holding the extensions asked by the client
+     */
+    private static final String SEC_WEBSOCKET_EXTENSIONS = "Sec-WebSocket-Extensions";
+
+    /**
+     * True to compress the frames when the client supports it
+     */
+    private final boolean perMessageDeflate;
+
+    /**
+     * Constructor
+     *
+     * @param perMessageDeflate True to compress the frames when the client supports it
+     */
+    public TomcatWebsocketUpgradeStrategy(final boolean perMessageDeflate) {
+        this.perMessageDeflate = perMessageDeflate;
+    }
+
+    /**
+     * Get the extensions supported by the server
+     *
+     * @param request The upgrade request
+     * @return The supported extensions, without permessage-deflate when disabled
+     */
+    @Override
+    public List<WebSocketExtension> getSupportedExtensions(ServerHttpRequest request) {
+        if (perMessageDeflate) {
+            return super.getSupportedExtensions(request);
+        }
+
+        return super.getSupportedExtensions(request)
+            .stream()
+            .filter(extension -> !PER_MESSAGE_DEFLATE.equals(extension.getName()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Upgrade the connection
+     *
+     * @param request            The upgrade request
+     * @param response           The upgrade response
+     * @param selectedProtocol   The selected sub protocol
+     * @param selectedExtensions The selected extensions
+     * @param endpoint           The websocket endpoint
+     * @throws HandshakeFailureException When the upgrade fails
+     */
+    @Override
+    public void upgradeInternal(ServerHttpRequest request, ServerHttpResponse response, String selectedProtocol,
+                                List<Extension> selectedExtensions, Endpoint endpoint) throws HandshakeFailureException {
+        if (perMessageDeflate) {
+            super.upgradeInternal(request, response, selectedProtocol, selectedExtensions, endpoint);
+            return;
+        }
+
+        HttpServletRequest servletRequest = new HttpServletRequestWrapper(getHttpServletRequest(request)) {
+            @Override
+            public String getHeader(String name) {
+                return SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name) ? null : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return SEC_WEBSOCKET_EXTENSIONS.equalsIgnoreCase(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+            }
+        };
+
+        super.upgradeInternal(new ServletServerHttpRequest(servletRequest), response, selectedProtocol, selectedExtensions, endpoint);
+    }
+}
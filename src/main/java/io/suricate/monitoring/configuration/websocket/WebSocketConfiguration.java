@@ -16,10 +16,33 @@
 
 package io.suricate.monitoring.configuration.websocket;
 
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.service.websocket.WebsocketOutboundQueueService;
+import io.suricate.monitoring.service.websocket.WebsocketPayloadFormatService;
+import io.suricate.monitoring.utils.WebsocketUtils;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.Map;
 
 /**
  * Configuration for websocket
@@ -27,13 +50,162 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfiguration implements WebSocketMessageBrokerConfigurer {
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The outbound queue service
+     */
+    private final WebsocketOutboundQueueService websocketOutboundQueueService;
+
+    /**
+     * The payload format service
+     */
+    private final WebsocketPayloadFormatService websocketPayloadFormatService;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties         The application properties to inject
+     * @param websocketOutboundQueueService The outbound queue service to inject
+     * @param websocketPayloadFormatService The payload format service to inject
+     */
+    public WebSocketConfiguration(final ApplicationProperties applicationProperties,
+                                  final WebsocketOutboundQueueService websocketOutboundQueueService,
+                                  final WebsocketPayloadFormatService websocketPayloadFormatService) {
+        this.applicationProperties = applicationProperties;
+        this.websocketOutboundQueueService = websocketOutboundQueueService;
+        this.websocketPayloadFormatService = websocketPayloadFormatService;
+    }
+
     /**
      * Websocket endpoints (open a new flow)
+     * The binary endpoint is a raw websocket, SockJS only carries text frames
      *
      * @param registry The endpoint registry
      */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws").setAllowedOrigins("*").withSockJS();
+        DefaultHandshakeHandler handshakeHandler = new DefaultHandshakeHandler(new TomcatWebsocketUpgradeStrategy(applicationProperties.websocket.perMessageDeflate));
+
+        registry.addEndpoint("/ws").setAllowedOrigins("*").setHandshakeHandler(handshakeHandler).withSockJS();
+
+        if (applicationProperties.websocket.binaryPayloads) {
+            registry.addEndpoint("/ws-binary")
+                .setAllowedOrigins("*")
+                .setHandshakeHandler(handshakeHandler)
+                .addInterceptors(new HandshakeInterceptor() {
+                    @Override
+                    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                        attributes.put(WebsocketPayloadFormatService.BINARY_TRANSPORT_ATTRIBUTE, true);
+                        return true;
+                    }
+
+                    @Override
+                    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
+                        // Nothing to do
+                    }
+                });
+        }
+    }
+
+    /**
+     * Every session writes its messages from a bounded queue, so a slow screen does not hold the broadcasts
+     *
+     * @param registration The websocket transport registration
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration
+            .setSendTimeLimit(applicationProperties.websocket.sendTimeLimit)
+            .setSendBufferSizeLimit(applicationProperties.websocket.sendBufferSizeLimit)
+            .addDecoratorFactory(handler -> new WebSocketHandlerDecorator(handler) {
+                @Override
+                public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                    super.afterConnectionEstablished(websocketOutboundQueueService.decorate(session));
+                }
+
+                @Override
+                public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                    websocketOutboundQueueService.remove(session.getId());
+                    super.afterConnectionClosed(session, closeStatus);
+                }
+            });
+    }
+
+    /**
+     * Relay the messages to an external broker when enabled, otherwise keep the in-memory broker
+     * With the relay, the connected users are broadcast to the other nodes
+     * The user destinations are never left unresolved, they are mapped to broker topics by {@link WebsocketUtils#toBrokerDestination(String)}
+     * The destinations starting with /app are answered by the websocket controllers
+     *
+     * @param registry The message broker registry
+     */
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.setApplicationDestinationPrefixes("/app");
+
+        ApplicationProperties.BrokerRelay brokerRelay = applicationProperties.websocket.brokerRelay;
+        if (!brokerRelay.enabled) {
+            return;
+        }
+
+        registry.enableStompBrokerRelay("/queue", "/topic")
+            .setRelayHost(brokerRelay.host)
+            .setRelayPort(brokerRelay.port)
+            .setClientLogin(brokerRelay.login)
+            .setClientPasscode(brokerRelay.passcode)
+            .setSystemLogin(brokerRelay.login)
+            .setSystemPasscode(brokerRelay.passcode)
+            .setUserRegistryBroadcast("/topic/simp-user-registry");
+    }
+
+    /**
+     * Read the payload format asked by the clients
+     * With the relay, the screens subscribe to user destinations without being authenticated,
+     * their subscriptions are redirected to the broker topics the updates are sent to
+     *
+     * @param registration The client inbound channel registration
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        boolean brokerRelay = applicationProperties.websocket.brokerRelay.enabled;
+
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+
+                if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    websocketPayloadFormatService.negotiate(accessor);
+                } else if (StompCommand.DISCONNECT.equals(accessor.getCommand())) {
+                    websocketPayloadFormatService.forget(accessor.getSessionId());
+                } else if (brokerRelay && StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+                    // Copy the headers, the subscription event is published with the original destination
+                    accessor.setDestination(WebsocketUtils.toBrokerDestination(accessor.getDestination()));
+                    return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+                }
+
+                return message;
+            }
+        });
+    }
+
+    /**
+     * Encode the messages in the payload format of each client
+     *
+     * @param registration The client outbound channel registration
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return websocketPayloadFormatService.encode(message);
+            }
+        });
     }
 }
@@ -51,6 +51,11 @@ public class WebSocketEventEndpointsConfiguration {
      */
     private static final int SCREEN_CODE_REGEX_GROUP = 2;
 
+    /**
+     * The destination subscribed by a screen for its unique events
+     */
+    private static final Pattern UNIQUE_SCREEN_DESTINATION_PATTERN = Pattern.compile("/user/([A-Z0-9]+)-([0-9]+)/queue/unique");
+
     /**
      * The dashboard websocket service
      */
@@ -76,8 +81,7 @@ public class WebSocketEventEndpointsConfiguration {
         String simpDestination = (String) stompHeaderAccessor.getHeader("simpDestination");
 
         if (simpDestination != null) {
-            Pattern pattern = Pattern.compile("/user/([A-Z0-9]+)-([0-9]+)/queue/unique");
-            Matcher matcher = pattern.matcher(simpDestination);
+            Matcher matcher = UNIQUE_SCREEN_DESTINATION_PATTERN.matcher(simpDestination);
 
             if (matcher.find()) {
                 WebsocketClient websocketClient = new WebsocketClient(
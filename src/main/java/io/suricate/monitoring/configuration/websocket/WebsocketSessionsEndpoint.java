@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.configuration.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.WebsocketOutboundQueueDto;
+import io.suricate.monitoring.service.websocket.WebsocketOutboundQueueService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Management endpoint exposing the outbound queue of every websocket session
+ */
+@Component
+@Endpoint(id = "websocketsessions")
+public class WebsocketSessionsEndpoint {
+
+    /**
+     * The outbound queue service
+     */
+    private final WebsocketOutboundQueueService websocketOutboundQueueService;
+
+    /**
+     * Constructor
+     *
+     * @param websocketOutboundQueueService The outbound queue service
+     */
+    public WebsocketSessionsEndpoint(final WebsocketOutboundQueueService websocketOutboundQueueService) {
+        this.websocketOutboundQueueService = websocketOutboundQueueService;
+    }
+
+    /**
+     * Get the outbound queue of every websocket session
+     *
+     * @return The list of queues
+     */
+    @ReadOperation
+    public List<WebsocketOutboundQueueDto> outboundQueues() {
+        return websocketOutboundQueueService.getOutboundQueues();
+    }
+}
@@ -17,23 +17,39 @@
 package io.suricate.monitoring.controllers.api;
 
 import io.suricate.monitoring.model.dto.api.error.ApiErrorDto;
+import io.suricate.monitoring.model.dto.asset.AssetMetadataDto;
 import io.suricate.monitoring.model.entity.Asset;
 import io.suricate.monitoring.service.api.AssetService;
+import io.suricate.monitoring.service.library.LibraryBundle;
+import io.suricate.monitoring.service.library.LibraryBundleService;
+import io.suricate.monitoring.utils.CompressionUtils;
 import io.suricate.monitoring.utils.IdUtils;
 import io.suricate.monitoring.utils.exception.ObjectNotFoundException;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.PathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 import springfox.documentation.annotations.ApiIgnore;
 
+import javax.servlet.http.HttpServletRequest;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
 /**
  * Asset controller
  */
@@ -42,51 +58,194 @@ import springfox.documentation.annotations.ApiIgnore;
 @Api(value = "Asset Controller", tags = {"Assets"})
 public class AssetController {
 
+    /**
+     * Request attribute set by Tomcat when the connector can send a file without copying it in the JVM
+     */
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Request attributes used to ask Tomcat to send a file
+     */
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * The gzip content encoding
+     */
+    private static final String GZIP_ENCODING = "gzip";
+
+    /**
+     * The suffix of the ETag of the gzip variant of a content
+     */
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+
+    /**
+     * Cache control of the contents addressed by their hash, they never change for a given URL
+     */
+    private static final String IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue() + ", immutable";
+
     /**
      * Asset Service
      */
     private final AssetService assetService;
 
+    /**
+     * The library bundle service
+     */
+    private final LibraryBundleService libraryBundleService;
+
     /**
      * The constructor
      *
-     * @param assetService The asset service
+     * @param assetService         The asset service
+     * @param libraryBundleService The library bundle service
      */
     @Autowired
-    public AssetController(final AssetService assetService) {
+    public AssetController(final AssetService assetService, final LibraryBundleService libraryBundleService) {
         this.assetService = assetService;
+        this.libraryBundleService = libraryBundleService;
     }
 
     /**
      * Get asset for the specified token
+     * The content is only read when the client copy is outdated, and it is streamed from the blob store file (sent by the connector
+     * when it is supported, or in its gzip variant when the client accepts it). A content held by the database is copied there on its first read,
+     * so no database connection is held during the transfer. Without blob store directory, it is streamed from the database
+     * A versioned token identifies one content, so the asset is cached by the client until the content changes
      *
-     * @param token the asset token used to identify the asset
-     * @return the asset data
+     * @param webRequest The web request
+     * @param request    The http request
+     * @param token      the asset token used to identify the asset
+     * @return the asset data, or the requested range of it
      */
     @ApiOperation(value = "Get an asset by its token", response = byte.class)
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "Ok"),
+        @ApiResponse(code = 206, message = "Partial content"),
+        @ApiResponse(code = 304, message = "Not modified"),
         @ApiResponse(code = 400, response = ApiErrorDto.class, message = "Cannot decrypt token"),
         @ApiResponse(code = 401, response = ApiErrorDto.class, message = "Invalid token")
     })
     @GetMapping(path = "/v1/assets/{token}/content")
-    public ResponseEntity<byte[]> getAsset(@ApiIgnore WebRequest webRequest,
-                                           @ApiParam(name = "token", value = "The asset Token", required = true)
-                                           @PathVariable("token") String token) {
-        Asset asset = assetService.findOne(IdUtils.decrypt(token));
-        if (asset == null) {
-            throw new ObjectNotFoundException(Asset.class, token);
-
-        } else if (webRequest.checkNotModified(asset.getLastModifiedDate().getTime())) {
+    public ResponseEntity<Resource> getAsset(@ApiIgnore WebRequest webRequest,
+                                             @ApiIgnore HttpServletRequest request,
+                                             @ApiParam(name = "token", value = "The asset Token", required = true)
+                                             @PathVariable("token") String token) {
+        AssetMetadataDto asset = assetService
+            .getMetadata(IdUtils.decrypt(token))
+            .orElseThrow(() -> new ObjectNotFoundException(Asset.class, token));
+
+        // The ranges are served from the original content by the message converter
+        Optional<Path> gzipContentFile = webRequest.getHeader(HttpHeaders.RANGE) == null && acceptsGzip(webRequest)
+            ? assetService.getGzipContentFile(asset.getContentHash())
+            : Optional.empty();
+
+        // Both variants are cached under the same URL, so the gzip variant has its own ETag
+        String eTag = asset.getContentHash() != null
+            ? "\"" + asset.getContentHash() + (gzipContentFile.isPresent() ? GZIP_ETAG_SUFFIX : "") + "\""
+            : null;
+        if (webRequest.checkNotModified(eTag, asset.getLastModifiedDate().getTime())) {
             return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
         }
 
-        return ResponseEntity
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity
             .ok()
             .contentType(MediaType.parseMediaType(asset.getContentType()))
-            .contentLength(asset.getSize())
             .lastModified(asset.getLastModifiedDate().getTime())
-            .cacheControl(CacheControl.noCache())
-            .body(asset.getContent());
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (eTag != null) {
+            responseBuilder.eTag(eTag);
+        }
+
+        if (IdUtils.isCurrentVersion(token, asset.getContentHash())) {
+            responseBuilder.header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL);
+        } else {
+            responseBuilder.cacheControl(CacheControl.noCache());
+        }
+
+        if (gzipContentFile.isPresent()) {
+            return responseBuilder
+                .header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING)
+                .body(new PathResource(gzipContentFile.get()));
+        }
+
+        Optional<Path> contentFile = assetService.getContentFile(asset);
+        if (!contentFile.isPresent()) {
+            if (!assetService.hasDatabaseContent(asset.getId())) {
+                throw new ObjectNotFoundException(Asset.class, token);
+            }
+
+            // Without blob store directory, the content is streamed from the database instead of being read in memory
+            return responseBuilder.body(assetService.getDatabaseContentResource(asset));
+        }
+
+        if (webRequest.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, contentFile.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, asset.getSize());
+            return responseBuilder.contentLength(asset.getSize()).build();
+        }
+
+        return responseBuilder.body(new PathResource(contentFile.get()));
+    }
+
+    /**
+     * Get the bundle of the libraries of a dashboard
+     * The URL holds the hash of the bundle, so the bundle is cached by the browsers until the libraries change
+     *
+     * @param webRequest The web request
+     * @param hash       The hash of the bundle
+     * @param libraries  The tokens of the library assets of the bundle
+     * @return The libraries concatenated in one script, compressed with gzip when the client accepts it
+     */
+    @ApiOperation(value = "Get the bundle of the libraries of a dashboard", response = byte.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Ok"),
+        @ApiResponse(code = 400, response = ApiErrorDto.class, message = "Cannot decrypt token"),
+        @ApiResponse(code = 404, response = ApiErrorDto.class, message = "The libraries have changed")
+    })
+    @GetMapping(path = "/v1/assets/libraries/{hash}")
+    public ResponseEntity<Resource> getLibraryBundle(@ApiIgnore WebRequest webRequest,
+                                                     @ApiParam(name = "hash", value = "The hash of the bundle", required = true)
+                                                     @PathVariable("hash") String hash,
+                                                     @ApiParam(name = "libraries", value = "The tokens of the library assets", required = true)
+                                                     @RequestParam("libraries") List<String> libraries) {
+        boolean gzip = acceptsGzip(webRequest);
+        String eTag = "\"" + hash + (gzip ? GZIP_ETAG_SUFFIX : "") + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        List<Long> assetIds = libraries.stream().map(IdUtils::decrypt).collect(Collectors.toList());
+        LibraryBundle libraryBundle = libraryBundleService
+            .getLibraryBundle(hash, assetIds)
+            .orElseThrow(() -> new ObjectNotFoundException(LibraryBundle.class, hash));
+
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity
+            .ok()
+            .contentType(MediaType.parseMediaType("application/javascript"))
+            .eTag(eTag)
+            .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE_CACHE_CONTROL)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return responseBuilder
+                .header(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING)
+                .body(new ByteArrayResource(libraryBundle.getGzipContent()));
+        }
+
+        return responseBuilder.body(new ByteArrayResource(libraryBundle.getContent()));
+    }
+
+    /**
+     * Test if the client accepts the contents compressed with gzip
+     *
+     * @param webRequest The web request
+     * @return True if gzip is accepted with a quality value above 0
+     */
+    private static boolean acceptsGzip(final WebRequest webRequest) {
+        return CompressionUtils.acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
     }
 }
@@ -20,6 +20,7 @@ import io.suricate.monitoring.configuration.swagger.ApiPageable;
 import io.suricate.monitoring.model.dto.api.error.ApiErrorDto;
 import io.suricate.monitoring.model.dto.api.project.ProjectRequestDto;
 import io.suricate.monitoring.model.dto.api.project.ProjectResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetField;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetPositionRequestDto;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetRequestDto;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
@@ -62,6 +63,7 @@ import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Project controller
@@ -212,7 +214,7 @@ public class ProjectController {
     @Transactional
     public ResponseEntity<ProjectResponseDto> getOneByToken(@ApiParam(name = "projectToken", value = "The project token", required = true)
                                                             @PathVariable("projectToken") String projectToken) {
-        Optional<Project> projectOptional = projectService.getOneByToken(projectToken);
+        Optional<Project> projectOptional = projectService.getOneByTokenWithWidgets(projectToken);
         if (!projectOptional.isPresent()) {
             throw new ObjectNotFoundException(Project.class, projectToken);
         }
@@ -375,11 +377,16 @@ public class ProjectController {
 
     /**
      * Get the list of project widgets for a project
+     *
+     * @param projectToken The project token
+     * @param fields       The comma separated fields to return, every field when absent
+     * @return The project widgets
      */
     @ApiOperation(value = "Get the full list of projectWidgets for a project", response = ProjectWidgetResponseDto.class, nickname = "getProjectWidgetsForProject")
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "Ok", response = ProjectWidgetResponseDto.class, responseContainer = "List"),
         @ApiResponse(code = 204, message = "No Content"),
+        @ApiResponse(code = 400, message = "Unknown field", response = ApiErrorDto.class),
         @ApiResponse(code = 401, message = "Authentication error, token expired or invalid", response = ApiErrorDto.class),
         @ApiResponse(code = 403, message = "You don't have permission to access to this resource", response = ApiErrorDto.class)
     })
@@ -387,8 +394,12 @@ public class ProjectController {
     @PermitAll
     @Transactional
     public ResponseEntity<List<ProjectWidgetResponseDto>> getProjectWidgetsForProject(@ApiParam(name = "projectToken", value = "The project token", required = true)
-                                                                                      @PathVariable("projectToken") String projectToken) {
-        Optional<Project> projectOptional = projectService.getOneByToken(projectToken);
+                                                                                      @PathVariable("projectToken") String projectToken,
+                                                                                      @ApiParam(name = "fields", value = "The comma separated fields to return, every field when absent")
+                                                                                      @RequestParam(value = "fields", required = false) String fields) {
+        Set<ProjectWidgetField> projectWidgetFields = ProjectWidgetField.parse(fields);
+
+        Optional<Project> projectOptional = projectService.getOneByTokenWithWidgets(projectToken);
         if (!projectOptional.isPresent()) {
             return ResponseEntity.notFound().build();
         }
@@ -401,7 +412,7 @@ public class ProjectController {
         return ResponseEntity
             .ok()
             .contentType(MediaType.APPLICATION_JSON)
-            .body(projectWidgetMapper.toProjectWidgetDtosDefault(project.getWidgets()));
+            .body(projectWidgetMapper.toProjectWidgetDtos(project.getWidgets(), projectWidgetFields));
     }
 
     /**
@@ -1,6 +1,7 @@
 package io.suricate.monitoring.controllers.api;
 
 import io.suricate.monitoring.model.dto.api.error.ApiErrorDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetField;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetRequestDto;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
@@ -8,6 +9,7 @@ import io.suricate.monitoring.model.enums.ApiErrorEnum;
 import io.suricate.monitoring.service.api.ProjectService;
 import io.suricate.monitoring.service.api.ProjectWidgetService;
 import io.suricate.monitoring.service.mapper.ProjectWidgetMapper;
+import io.suricate.monitoring.service.websocket.ProjectWidgetDeltaService;
 import io.suricate.monitoring.utils.exception.ApiException;
 import io.suricate.monitoring.utils.exception.ObjectNotFoundException;
 import io.swagger.annotations.*;
@@ -20,6 +22,7 @@ import springfox.documentation.annotations.ApiIgnore;
 
 import javax.annotation.security.PermitAll;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * The widget controller
@@ -41,31 +44,40 @@ public class ProjectWidgetController {
      * The project service
      */
     private final ProjectService projectService;
+    /**
+     * The project widget delta service
+     */
+    private final ProjectWidgetDeltaService projectWidgetDeltaService;
 
     /**
      * Constructor
      *
-     * @param projectWidgetService The project widget service
-     * @param projectWidgetMapper  The mapper to inject
-     * @param projectService       The project service to inject
+     * @param projectWidgetService      The project widget service
+     * @param projectWidgetMapper       The mapper to inject
+     * @param projectService            The project service to inject
+     * @param projectWidgetDeltaService The project widget delta service to inject
      */
     public ProjectWidgetController(final ProjectWidgetService projectWidgetService,
                                    final ProjectWidgetMapper projectWidgetMapper,
-                                   final ProjectService projectService) {
+                                   final ProjectService projectService,
+                                   final ProjectWidgetDeltaService projectWidgetDeltaService) {
         this.projectWidgetService = projectWidgetService;
         this.projectWidgetMapper = projectWidgetMapper;
         this.projectService = projectService;
+        this.projectWidgetDeltaService = projectWidgetDeltaService;
     }
 
     /**
      * Get a project widget
      *
      * @param projectWidgetId The project widget id
+     * @param fields          The comma separated fields to return, every field when absent
      * @return The project updated
      */
     @ApiOperation(value = "Retrieve a project widget", response = ProjectWidgetResponseDto.class)
     @ApiResponses(value = {
         @ApiResponse(code = 200, message = "Ok", response = ProjectWidgetResponseDto.class),
+        @ApiResponse(code = 400, message = "Unknown field", response = ApiErrorDto.class),
         @ApiResponse(code = 401, message = "Authentication error, token expired or invalid", response = ApiErrorDto.class),
         @ApiResponse(code = 403, message = "You don't have permission to access to this resource", response = ApiErrorDto.class),
         @ApiResponse(code = 404, message = "Project widget not found", response = ApiErrorDto.class)
@@ -73,7 +85,38 @@ public class ProjectWidgetController {
     @GetMapping(value = "/v1/projectWidgets/{projectWidgetId}")
     @PermitAll
     public ResponseEntity<ProjectWidgetResponseDto> getProjectWidgetFromProject(@ApiParam(name = "projectWidgetId", value = "The project widget id", required = true)
-                                                                                @PathVariable("projectWidgetId") Long projectWidgetId) {
+                                                                                @PathVariable("projectWidgetId") Long projectWidgetId,
+                                                                                @ApiParam(name = "fields", value = "The comma separated fields to return, every field when absent")
+                                                                                @RequestParam(value = "fields", required = false) String fields) {
+        Set<ProjectWidgetField> projectWidgetFields = ProjectWidgetField.parse(fields);
+
+        Optional<ProjectWidget> projectWidgetOptional = projectWidgetService.getOne(projectWidgetId);
+        if (!projectWidgetOptional.isPresent()) {
+            throw new ObjectNotFoundException(ProjectWidget.class, projectWidgetId);
+        }
+
+        return ResponseEntity
+            .ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(projectWidgetMapper.toProjectWidgetDto(projectWidgetOptional.get(), projectWidgetFields));
+    }
+
+    /**
+     * Get the current version of a project widget with the sequence of the last version pushed to the screens
+     * Used by the screens to resync when a gap is detected in the sequence of the deltas
+     *
+     * @param projectWidgetId The project widget id
+     * @return The project widget with its sequence
+     */
+    @ApiOperation(value = "Retrieve the last version of a project widget pushed to the screens", response = ProjectWidgetResponseDto.class)
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Ok", response = ProjectWidgetResponseDto.class),
+        @ApiResponse(code = 404, message = "Project widget not found", response = ApiErrorDto.class)
+    })
+    @GetMapping(value = "/v1/projectWidgets/{projectWidgetId}/resync")
+    @PermitAll
+    public ResponseEntity<ProjectWidgetResponseDto> resyncProjectWidget(@ApiParam(name = "projectWidgetId", value = "The project widget id", required = true)
+                                                                        @PathVariable("projectWidgetId") Long projectWidgetId) {
         Optional<ProjectWidget> projectWidgetOptional = projectWidgetService.getOne(projectWidgetId);
         if (!projectWidgetOptional.isPresent()) {
             throw new ObjectNotFoundException(ProjectWidget.class, projectWidgetId);
@@ -82,7 +125,7 @@ public class ProjectWidgetController {
         return ResponseEntity
             .ok()
             .contentType(MediaType.APPLICATION_JSON)
-            .body(projectWidgetMapper.toProjectWidgetDtoDefault(projectWidgetOptional.get()));
+            .body(projectWidgetDeltaService.getLastVersion(projectWidgetId, () -> projectWidgetMapper.toProjectWidgetDtoDefault(projectWidgetOptional.get())));
     }
 
     /**
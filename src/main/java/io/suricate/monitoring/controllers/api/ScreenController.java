@@ -20,12 +20,14 @@ import io.suricate.monitoring.model.dto.api.error.ApiErrorDto;
 import io.suricate.monitoring.model.entity.project.Project;
 import io.suricate.monitoring.service.api.ProjectService;
 import io.suricate.monitoring.service.websocket.DashboardWebSocketService;
+import io.suricate.monitoring.service.websocket.ScreenStreamService;
 import io.suricate.monitoring.utils.exception.ObjectNotFoundException;
 import io.swagger.annotations.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Optional;
 
@@ -47,17 +49,51 @@ public class ScreenController {
      */
     private final DashboardWebSocketService dashboardWebSocketService;
 
+    /**
+     * The screen stream service
+     */
+    private final ScreenStreamService screenStreamService;
 
     /**
      * Constructor
      *
      * @param projectService            The project service to inject
      * @param dashboardWebSocketService The dashboard websocket to inject
+     * @param screenStreamService       The screen stream service to inject
      */
     public ScreenController(final ProjectService projectService,
-                            final DashboardWebSocketService dashboardWebSocketService) {
+                            final DashboardWebSocketService dashboardWebSocketService,
+                            final ScreenStreamService screenStreamService) {
         this.projectService = projectService;
         this.dashboardWebSocketService = dashboardWebSocketService;
+        this.screenStreamService = screenStreamService;
+    }
+
+    /**
+     * Stream the events of a dashboard to a read-only screen, through Server-Sent Events
+     *
+     * @param projectToken The project token
+     * @param screenCode   The screen code
+     * @param lastEventId  The id of the last event received, sent by the browser when it reconnects
+     * @return The stream of events
+     */
+    @ApiOperation(value = "Stream the events of a dashboard to a screen, with Server-Sent Events")
+    @ApiResponses(value = {
+        @ApiResponse(code = 200, message = "Ok"),
+        @ApiResponse(code = 404, message = "Project not found", response = ApiErrorDto.class)
+    })
+    @GetMapping(value = "/v1/screens/{projectToken}/stream")
+    public SseEmitter streamProjectToScreen(@ApiParam(name = "projectToken", value = "The project token", required = true)
+                                            @PathVariable("projectToken") String projectToken,
+                                            @ApiParam(name = "screenCode", value = "The screen code")
+                                            @RequestParam(value = "screenCode", required = false) String screenCode,
+                                            @ApiParam(name = "Last-Event-ID", value = "The id of the last event received")
+                                            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (!projectService.getOneByToken(projectToken).isPresent()) {
+            throw new ObjectNotFoundException(Project.class, projectToken);
+        }
+
+        return screenStreamService.open(projectToken, screenCode, lastEventId);
     }
 
     /**
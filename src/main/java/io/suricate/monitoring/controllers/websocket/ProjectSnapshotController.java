@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.controllers.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.service.websocket.ProjectSnapshotService;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Websocket controller answering the subscriptions of the screens
+ */
+@Controller
+public class ProjectSnapshotController {
+
+    /**
+     * The project snapshot service
+     */
+    private final ProjectSnapshotService projectSnapshotService;
+
+    /**
+     * Constructor
+     *
+     * @param projectSnapshotService The project snapshot service to inject
+     */
+    public ProjectSnapshotController(final ProjectSnapshotService projectSnapshotService) {
+        this.projectSnapshotService = projectSnapshotService;
+    }
+
+    /**
+     * Send the snapshot of a project to the screen subscribing, in a single frame
+     * The frame is sent to the session only, without going through the broker
+     *
+     * @param projectToken The project token
+     * @return The snapshot, or a disconnection when the project does not exist anymore
+     */
+    @SubscribeMapping("/projects/{projectToken}/snapshot")
+    public UpdateEvent getSnapshot(@DestinationVariable("projectToken") String projectToken) {
+        return projectSnapshotService.getSnapshot(projectToken)
+            .orElseGet(() -> new UpdateEvent(UpdateType.DISCONNECT));
+    }
+}
@@ -60,4 +60,9 @@ public class ProjectResponseDto extends AbstractDto {
      */
     @ApiModelProperty(value = "The list of the related JS libraries used for the execution of the widgets", dataType = "java.util.List")
     private List<String> librariesToken = new ArrayList<>();
+    /**
+     * The bundle holding every related library
+     */
+    @ApiModelProperty(value = "The token of the bundle holding every related JS library")
+    private String librariesBundleToken;
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.model.dto.api.projectwidget;
+
+import io.suricate.monitoring.model.enums.ApiErrorEnum;
+import io.suricate.monitoring.utils.exception.ApiException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The fields of a {@link ProjectWidgetResponseDto} that can be selected by the clients
+ * The expensive fields (the instantiated HTML and the decrypted backend config) are only computed when selected
+ */
+public enum ProjectWidgetField {
+    ID("id", projectWidgetResponseDto -> projectWidgetResponseDto.setId(null)),
+    DATA("data", projectWidgetResponseDto -> projectWidgetResponseDto.setData(null)),
+    WIDGET_POSITION("widgetPosition", projectWidgetResponseDto -> projectWidgetResponseDto.setWidgetPosition(null)),
+    CUSTOM_STYLE("customStyle", projectWidgetResponseDto -> projectWidgetResponseDto.setCustomStyle(null)),
+    INSTANTIATE_HTML("instantiateHtml", projectWidgetResponseDto -> projectWidgetResponseDto.setInstantiateHtml(null)),
+    BACKEND_CONFIG("backendConfig", projectWidgetResponseDto -> projectWidgetResponseDto.setBackendConfig(null)),
+    LOG("log", projectWidgetResponseDto -> projectWidgetResponseDto.setLog(null)),
+    LAST_EXECUTION_DATE("lastExecutionDate", projectWidgetResponseDto -> projectWidgetResponseDto.setLastExecutionDate(null)),
+    LAST_SUCCESS_DATE("lastSuccessDate", projectWidgetResponseDto -> projectWidgetResponseDto.setLastSuccessDate(null)),
+    STATE("state", projectWidgetResponseDto -> projectWidgetResponseDto.setState(null)),
+    PROJECT_TOKEN("projectToken", projectWidgetResponseDto -> projectWidgetResponseDto.setProjectToken(null)),
+    WIDGET_ID("widgetId", projectWidgetResponseDto -> projectWidgetResponseDto.setWidgetId(null)),
+    SEQUENCE("sequence", projectWidgetResponseDto -> projectWidgetResponseDto.setSequence(null));
+
+    /**
+     * Every field, the default projection
+     */
+    public static final Set<ProjectWidgetField> ALL = Collections.unmodifiableSet(EnumSet.allOf(ProjectWidgetField.class));
+
+    /**
+     * The name of the field in the DTO
+     */
+    private final String fieldName;
+
+    /**
+     * Remove the field from a DTO
+     */
+    private final Consumer<ProjectWidgetResponseDto> clearer;
+
+    /**
+     * Constructor
+     *
+     * @param fieldName The name of the field in the DTO
+     * @param clearer   Remove the field from a DTO
+     */
+    ProjectWidgetField(String fieldName, Consumer<ProjectWidgetResponseDto> clearer) {
+        this.fieldName = fieldName;
+        this.clearer = clearer;
+    }
+
+    /**
+     * Get the name of the field in the DTO
+     *
+     * @return The name of the field
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Parse the fields selected by a client
+     * The id is always selected, the clients need it to match the project widgets
+     *
+     * @param fields The comma separated names of the fields, every field when blank
+     * @return The selected fields
+     * @throws ApiException When a field is unknown
+     */
+    public static Set<ProjectWidgetField> parse(final String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return ALL;
+        }
+
+        Set<ProjectWidgetField> projectWidgetFields = EnumSet.of(ID);
+        for (String fieldName : StringUtils.split(fields, ',')) {
+            String trimmedFieldName = fieldName.trim();
+            projectWidgetFields.add(Arrays.stream(values())
+                .filter(projectWidgetField -> projectWidgetField.fieldName.equals(trimmedFieldName))
+                .findFirst()
+                .orElseThrow(() -> new ApiException("Unknown project widget field " + trimmedFieldName, ApiErrorEnum.BAD_REQUEST)));
+        }
+
+        return projectWidgetFields;
+    }
+
+    /**
+     * Get the names of fields
+     *
+     * @param projectWidgetFields The fields
+     * @return The names of the fields in the DTO
+     */
+    public static List<String> toFieldNames(final Set<ProjectWidgetField> projectWidgetFields) {
+        return projectWidgetFields.stream().map(ProjectWidgetField::getFieldName).collect(Collectors.toList());
+    }
+
+    /**
+     * Remove from a DTO the fields not selected
+     *
+     * @param projectWidgetResponseDto The DTO
+     * @param projectWidgetFields      The selected fields
+     * @return The DTO
+     */
+    public static ProjectWidgetResponseDto retain(final ProjectWidgetResponseDto projectWidgetResponseDto, final Set<ProjectWidgetField> projectWidgetFields) {
+        for (ProjectWidgetField projectWidgetField : values()) {
+            if (!projectWidgetFields.contains(projectWidgetField)) {
+                projectWidgetField.clearer.accept(projectWidgetResponseDto);
+            }
+        }
+
+        return projectWidgetResponseDto;
+    }
+}
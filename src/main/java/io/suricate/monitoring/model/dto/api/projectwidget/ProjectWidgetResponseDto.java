@@ -111,4 +111,10 @@ public class ProjectWidgetResponseDto extends AbstractDto {
      */
     @ApiModelProperty(value = "The related widget id")
     private Long widgetId;
+
+    /**
+     * The version of this instance pushed to the screens, used to apply the next deltas
+     */
+    @ApiModelProperty(value = "The version of the widget instance pushed through websockets")
+    private Long sequence;
 }
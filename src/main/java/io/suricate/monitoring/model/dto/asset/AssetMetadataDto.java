@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.model.dto.asset;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * The metadata of an asset, read without its content
+ */
+@Data
+@AllArgsConstructor
+public class AssetMetadataDto {
+
+    /**
+     * The asset id
+     */
+    private Long id;
+
+    /**
+     * The SHA-256 hash of the content (hexadecimal)
+     */
+    private String contentHash;
+
+    /**
+     * The content type
+     */
+    private String contentType;
+
+    /**
+     * The size of the content
+     */
+    private long size;
+
+    /**
+     * The last modification date
+     */
+    private Date lastModifiedDate;
+}
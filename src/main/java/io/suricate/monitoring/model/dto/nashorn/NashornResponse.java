@@ -20,8 +20,11 @@ import io.suricate.monitoring.model.dto.api.AbstractDto;
 import io.suricate.monitoring.model.enums.NashornErrorTypeEnum;
 import io.suricate.monitoring.utils.JsonUtils;
 import lombok.*;
+import org.apache.commons.lang3.StringUtils;
 
+import java.io.IOException;
 import java.util.Date;
+import java.util.Map;
 
 /**
  * Represent the response after nashorn execution
@@ -59,12 +62,63 @@ public class NashornResponse extends AbstractDto {
      */
     private NashornErrorTypeEnum error;
 
+    /**
+     * True once the data has been checked as valid JSON, so it is not tokenized again
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean dataValidated;
+
+    /**
+     * The fields of the data read while it was validated, so the renderer does not parse it again
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient Map<String, Object> parsedData;
+
+    /**
+     * Set the data
+     * @param data the new calculated data
+     */
+    public void setData(String data) {
+        this.data = data;
+        this.dataValidated = false;
+        this.parsedData = null;
+    }
+
+    /**
+     * Check if the data is a valid JSON, the result is kept until the data changes
+     * A JSON object is read once here and kept for the rendering, any other JSON value is only tokenized
+     * Validating an object therefore costs one full parse into a map, which the rendering does not repeat
+     * @return true if the data is valid
+     */
+    public boolean isDataValid() {
+        if (!dataValidated && StringUtils.isNotBlank(data)) {
+            try {
+                parsedData = JsonUtils.readMap(data);
+                dataValidated = true;
+            } catch (IOException e) {
+                dataValidated = JsonUtils.isJsonValid(data);
+            }
+        }
+        return dataValidated;
+    }
+
+    /**
+     * Get the fields of the data read while it was validated
+     * @return the fields of the data, null when the data is not a valid JSON object
+     */
+    public Map<String, Object> getParsedData() {
+        return isDataValid() ? parsedData : null;
+    }
+
     /**
      * Method used to check if the object is isValid
      * @return true if this object is isValid, false otherwise
      */
     public boolean isValid(){
-        return JsonUtils.isJsonValid(data) && projectId != null && projectWidgetId != null && error == null;
+        return isDataValid() && projectId != null && projectWidgetId != null && error == null;
     }
 
     public boolean isFatal() {
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.model.dto.websocket;
+
+import io.suricate.monitoring.model.dto.api.AbstractDto;
+import io.suricate.monitoring.model.dto.api.project.ProjectResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Everything a screen needs to display a project, pushed when it subscribes
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@ToString
+@ApiModel(value = "ProjectSnapshot", description = "The state of a project displayed by a screen")
+public class ProjectSnapshotDto extends AbstractDto {
+
+    /**
+     * The project, with its grid and its libraries
+     */
+    @ApiModelProperty(value = "The project, with its grid and its libraries")
+    private ProjectResponseDto project;
+
+    /**
+     * The URL of the bundle holding the libraries of the project, null when it has no library
+     */
+    @ApiModelProperty(value = "The URL of the bundle holding the libraries of the project")
+    private String librariesBundleUrl;
+
+    /**
+     * The project widgets in their last pushed version
+     */
+    @ApiModelProperty(value = "The project widgets in their last pushed version", dataType = "java.util.List")
+    private List<ProjectWidgetResponseDto> projectWidgets = new ArrayList<>();
+}
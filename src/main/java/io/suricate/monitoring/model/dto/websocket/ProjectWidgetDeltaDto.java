@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.suricate.monitoring.model.dto.websocket;
+
+import io.suricate.monitoring.model.dto.api.AbstractDto;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.*;
+
+import java.util.LinkedHashMap;
+
+/**
+ * The fields of a project widget changed since the previous version pushed to the screens
+ * Applied like a JSON merge patch : a field set to null has been cleared
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@ToString
+@ApiModel(value = "ProjectWidgetDelta", description = "The changes of a project widget since its previous version")
+public class ProjectWidgetDeltaDto extends AbstractDto {
+
+    /**
+     * The project widget id
+     */
+    @ApiModelProperty(value = "The project widget id")
+    private Long id;
+
+    /**
+     * The version of the project widget once the changes applied
+     */
+    @ApiModelProperty(value = "The version once the changes applied")
+    private Long sequence;
+
+    /**
+     * The version the changes apply to, the client should resync when it holds another one
+     */
+    @ApiModelProperty(value = "The version the changes apply to")
+    private Long previousSequence;
+
+    /**
+     * The changed fields by name
+     */
+    @ApiModelProperty(value = "The changed fields by name")
+    private LinkedHashMap<String, Object> changes = new LinkedHashMap<>();
+}
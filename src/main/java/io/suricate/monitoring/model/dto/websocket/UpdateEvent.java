@@ -22,6 +22,7 @@ import lombok.*;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.List;
 
 /**
  * WebSocket update event
@@ -44,6 +45,12 @@ public class UpdateEvent extends AbstractDto {
      */
     private Serializable content;
 
+    /**
+     * The fields of the project widgets held by the content when they are projected, the other fields are unchanged
+     * Null when the content is complete
+     */
+    private List<String> fields;
+
     /**
      * Default constructor
      * @param type the update type
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.model.dto.websocket;
+
+import io.suricate.monitoring.model.dto.api.AbstractDto;
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.*;
+
+/**
+ * State of the queue of messages waiting to be sent to a websocket session
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+@ToString
+@ApiModel(value = "WebsocketOutboundQueue", description = "Messages waiting to be sent to a websocket session")
+public class WebsocketOutboundQueueDto extends AbstractDto {
+
+    /**
+     * The websocket session id
+     */
+    @ApiModelProperty(value = "The websocket session id")
+    private String sessionId;
+
+    /**
+     * The number of messages waiting
+     */
+    @ApiModelProperty(value = "The number of messages waiting")
+    private int depth;
+
+    /**
+     * The size in bytes of the messages waiting
+     */
+    @ApiModelProperty(value = "The size in bytes of the messages waiting")
+    private long bufferSize;
+
+    /**
+     * The number of messages replaced by a newer update of the same widget before being sent
+     */
+    @ApiModelProperty(value = "The number of messages replaced by a newer update of the same widget")
+    private long replaced;
+
+    /**
+     * The number of messages dropped because of the buffer size limit
+     */
+    @ApiModelProperty(value = "The number of messages dropped because of the buffer size limit")
+    private long dropped;
+}
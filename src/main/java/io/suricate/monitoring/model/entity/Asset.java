@@ -18,7 +18,6 @@ package io.suricate.monitoring.model.entity;
 
 
 import lombok.*;
-import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
 
@@ -41,13 +40,19 @@ public class Asset extends AbstractAuditingEntity<Long> {
     private Long id;
 
     /**
-     * The content of this asset
+     * The new content of this asset, written by the asset service in the blob store or in the database
+     * Never loaded with the asset, the stored contents are read through the asset service
      */
-    @Type(type = "org.hibernate.type.BinaryType")
-    @Basic(fetch = FetchType.LAZY)
-    @Column(name = "content", nullable = false)
+    @Transient
     private byte[] content;
 
+    /**
+     * The SHA-256 hash of the content (hexadecimal)
+     * Also used as key in the blob store
+     */
+    @Column(length = 64)
+    private String contentHash;
+
     /**
      * The content type
      */
@@ -63,6 +68,8 @@ public class Asset extends AbstractAuditingEntity<Long> {
 
     public void setContent(byte[] content) {
         this.content = content;
-        this.size = content.length;
+        if (content != null) {
+            this.size = content.length;
+        }
     }
 }
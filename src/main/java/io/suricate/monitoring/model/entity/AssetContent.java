@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.model.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Content of an asset, mapped on the asset table apart from the asset entity so that loading an asset never loads its content
+ * The contents are read and written by the asset content repository
+ */
+@Entity
+@Table(name = "asset")
+@Getter
+@Setter
+@NoArgsConstructor
+public class AssetContent extends AbstractEntity<Long> {
+
+    /**
+     * The id of the asset, generated as the one of the asset entity since both entities describe the same table
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The content of the asset
+     * Null when the content is held by the blob store
+     */
+    @Type(type = "org.hibernate.type.BinaryType")
+    @Column(name = "content")
+    private byte[] content;
+}
@@ -18,6 +18,8 @@ package io.suricate.monitoring.model.entity;
 
 import io.suricate.monitoring.model.entity.widget.Widget;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -27,6 +29,7 @@ import java.util.List;
  * Library entity
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,6 +19,8 @@ package io.suricate.monitoring.model.entity;
 import io.suricate.monitoring.model.entity.widget.Category;
 import io.suricate.monitoring.model.enums.DataType;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 
@@ -27,6 +29,7 @@ import javax.persistence.*;
  */
 @Entity(name = "configuration")
 @Table(name = "configuration")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
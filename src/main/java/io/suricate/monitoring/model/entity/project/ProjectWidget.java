@@ -45,10 +45,11 @@ public class ProjectWidget extends AbstractAuditingEntity<Long> {
 
     /**
      * The data of the widget (result of nashorn execution)
+     * Compressed in database when it exceeds the threshold
      */
     @Column
     @Lob
-    @Type(type = "org.hibernate.type.TextType")
+    @Type(type = "io.suricate.monitoring.configuration.jpa.CompressedTextType")
     private String data;
 
     /**
@@ -20,6 +20,8 @@ import io.suricate.monitoring.model.entity.AbstractAuditingEntity;
 import io.suricate.monitoring.model.entity.Asset;
 import io.suricate.monitoring.model.entity.WidgetConfiguration;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.search.annotations.Field;
 import org.hibernate.search.annotations.Indexed;
 
@@ -33,6 +35,7 @@ import java.util.List;
  */
 @Entity
 @Indexed
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -75,6 +78,7 @@ public class Category extends AbstractAuditingEntity<Long> {
     /**
      * The associated categories for this configuration
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "category", cascade = CascadeType.REMOVE)
     private List<WidgetConfiguration> widgetConfigurations = new ArrayList<>();
 }
@@ -22,6 +22,8 @@ import io.suricate.monitoring.model.entity.Library;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
 import io.suricate.monitoring.model.enums.WidgetAvailabilityEnum;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 import org.hibernate.search.annotations.*;
 
@@ -35,6 +37,7 @@ import java.util.List;
  */
 @Entity
 @Indexed
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -125,6 +128,7 @@ public class Widget extends AbstractAuditingEntity<Long> {
     /**
      * The related JS librairie used for displaying it on the clients
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JoinTable(name = "widget_library", joinColumns = {@JoinColumn(name = "widget_id")}, inverseJoinColumns = {@JoinColumn(name = "library_id")})
     private List<Library> libraries = new ArrayList<>();
@@ -154,6 +158,7 @@ public class Widget extends AbstractAuditingEntity<Long> {
     /**
      * The list of params for this widget
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "widget", cascade = CascadeType.ALL)
     private List<WidgetParam> widgetParams = new ArrayList<>();
 
@@ -22,6 +22,8 @@ package io.suricate.monitoring.model.entity.widget;
 import io.suricate.monitoring.model.entity.AbstractAuditingEntity;
 import io.suricate.monitoring.model.enums.DataType;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 import javax.persistence.*;
@@ -32,6 +34,7 @@ import java.util.List;
  * Entity representing a param for a widget in database
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -93,6 +96,7 @@ public class WidgetParam extends AbstractAuditingEntity<Long> {
     /**
      * The list of possible values (if the type is COMBO or MULTIPLE)
      */
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "widgetParam", cascade = CascadeType.ALL)
     private List<WidgetParamValue> possibleValuesMap = new ArrayList<>();
 
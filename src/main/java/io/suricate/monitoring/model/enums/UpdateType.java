@@ -26,5 +26,8 @@ public enum UpdateType {
     DISCONNECT,
     CONNECT,
     DISPLAY_NUMBER,
-    RELOAD
+    RELOAD,
+    WIDGET_DELTA,
+    WIDGETS,
+    SNAPSHOT
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.repository;
+
+import io.suricate.monitoring.model.entity.AssetContent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository used to read and write the asset contents held by the database
+ * The content column is mapped by {@link AssetContent} only, so loading an asset never loads its content
+ */
+public interface AssetContentRepository extends JpaRepository<AssetContent, Long> {
+
+    /**
+     * Test if an asset holds its content in database
+     *
+     * @param id The asset id
+     * @return 1 if the content is held by the database, 0 otherwise
+     */
+    @Query("SELECT COUNT(ac.id) FROM AssetContent ac WHERE ac.id = :id AND ac.content IS NOT NULL")
+    long countContent(@Param("id") Long id);
+
+    /**
+     * Write the content of an asset
+     *
+     * @param content The content
+     * @param id      The asset id
+     * @return State of the query
+     */
+    @Modifying
+    @Query("UPDATE AssetContent " +
+        "SET content = :content " +
+        "WHERE id = :id")
+    int updateContent(@Param("content") byte[] content, @Param("id") Long id);
+
+    /**
+     * Remove the content of an asset from the database
+     *
+     * @param id The asset id
+     * @return State of the query
+     */
+    @Modifying
+    @Query("UPDATE AssetContent " +
+        "SET content = NULL " +
+        "WHERE id = :id")
+    int clearContent(@Param("id") Long id);
+
+    /**
+     * Get the next assets holding their content in database
+     *
+     * @param lastId   The last asset id already processed
+     * @param pageable The size of the batch
+     * @return The list of asset ids ordered by id
+     */
+    @Query("SELECT ac.id FROM AssetContent ac " +
+        "WHERE ac.id > :lastId " +
+        "AND ac.content IS NOT NULL " +
+        "ORDER BY ac.id")
+    List<Long> findIdsWithContent(@Param("lastId") Long lastId, Pageable pageable);
+
+    /**
+     * Get the next assets holding their content in database without content hash
+     *
+     * @param lastId   The last asset id already processed
+     * @param pageable The size of the batch
+     * @return The list of asset ids ordered by id
+     */
+    @Query("SELECT ac.id FROM AssetContent ac, Asset a " +
+        "WHERE a.id = ac.id " +
+        "AND ac.id > :lastId " +
+        "AND a.contentHash IS NULL " +
+        "AND ac.content IS NOT NULL " +
+        "ORDER BY ac.id")
+    List<Long> findIdsWithContentWithoutHash(@Param("lastId") Long lastId, Pageable pageable);
+}
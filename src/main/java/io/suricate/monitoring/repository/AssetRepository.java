@@ -16,11 +16,49 @@
 
 package io.suricate.monitoring.repository;
 
+import io.suricate.monitoring.model.dto.asset.AssetMetadataDto;
 import io.suricate.monitoring.model.entity.Asset;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 /**
  * Repository used to manage Asset data
  */
 public interface AssetRepository extends JpaRepository<Asset, Long> {
+
+    /**
+     * Get the metadata of an asset, without loading its content
+     *
+     * @param id The asset id
+     * @return The metadata of the asset
+     */
+    @Query("SELECT new io.suricate.monitoring.model.dto.asset.AssetMetadataDto(a.id, a.contentHash, a.contentType, a.size, a.lastModifiedDate) " +
+        "FROM Asset a " +
+        "WHERE a.id = :id")
+    Optional<AssetMetadataDto> findMetadataById(@Param("id") Long id);
+
+    /**
+     * Test if a content is referenced by an asset
+     *
+     * @param contentHash The hash of the content
+     * @return True if an asset holds this content
+     */
+    boolean existsByContentHash(String contentHash);
+
+    /**
+     * Set the hash of the content of an asset
+     *
+     * @param contentHash The hash of the content
+     * @param id          The asset id
+     * @return State of the query
+     */
+    @Modifying
+    @Query("UPDATE Asset " +
+        "SET contentHash = :contentHash " +
+        "WHERE id = :id")
+    int updateContentHash(@Param("contentHash") String contentHash, @Param("id") Long id);
 }
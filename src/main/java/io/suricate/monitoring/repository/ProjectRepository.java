@@ -46,6 +46,20 @@ public interface ProjectRepository extends CrudRepository<Project, Long>, JpaSpe
 	 */
 	Optional<Project> findProjectByToken(final String token);
 
+	/**
+	 * Find a project by token with its widget instances, their widget and category
+	 * loaded in the same query
+	 *
+	 * @param token The token to find
+	 * @return The project as Optionals
+	 */
+	@Query("SELECT DISTINCT p FROM Project p " +
+		"LEFT JOIN FETCH p.widgets pw " +
+		"LEFT JOIN FETCH pw.widget w " +
+		"LEFT JOIN FETCH w.category " +
+		"WHERE p.token = :token")
+	Optional<Project> findProjectWithWidgetsByToken(@Param("token") final String token);
+
 	/**
 	 * Method used to get Project token from it's id
 	 *
@@ -18,13 +18,18 @@ package io.suricate.monitoring.repository;
 
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
 import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.utils.CompressionUtils;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.LockModeType;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -42,6 +47,47 @@ public interface ProjectWidgetRepository extends JpaRepository<ProjectWidget, Lo
         "state = 'STOPPED'")
     void resetProjectWidgetsState();
 
+    /**
+     * Update the state of a list of project widgets
+     *
+     * @param widgetState The new widget state
+     * @param ids         The project widget ids
+     * @return The number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE ProjectWidget " +
+        "SET state = :state " +
+        "WHERE id IN (:ids)")
+    int updateStateByIdIn(@Param("state") WidgetState widgetState, @Param("ids") List<Long> ids);
+
+    /**
+     * Update the state and the last execution date of a list of project widgets
+     *
+     * @param widgetState The new widget state
+     * @param date        The last execution date
+     * @param ids         The project widget ids
+     * @return The number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE ProjectWidget " +
+        "SET state = :state, " +
+        "lastExecutionDate = :lastExecutionDate " +
+        "WHERE id IN (:ids)")
+    int updateStateAndLastExecutionDateByIdIn(@Param("state") WidgetState widgetState, @Param("lastExecutionDate") Date date, @Param("ids") List<Long> ids);
+
+    /**
+     * Update the state of every project widgets of a project
+     *
+     * @param widgetState The new widget state
+     * @param projectId   The project id
+     * @return The number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE ProjectWidget " +
+        "SET state = :state " +
+        "WHERE project.id = :projectId")
+    int updateStateByProjectId(@Param("state") WidgetState widgetState, @Param("projectId") Long projectId);
+
     /**
      * Update the position in the grid of a widget
      *
@@ -97,6 +143,58 @@ public interface ProjectWidgetRepository extends JpaRepository<ProjectWidget, Lo
         "WHERE id = :id")
     int updateExecutionLog(@Param("lastExecutionDate") Date date, @Param("log") String log, @Param("id") Long id, @Param("state") WidgetState widgetState);
 
+    /**
+     * Get the next project widgets holding data not compressed yet
+     *
+     * @param lastId    The last project widget id already processed
+     * @param threshold The minimal length of the data to compress
+     * @param pageable  The size of the batch
+     * @return The list of project widgets ordered by id
+     */
+    @Query("SELECT pw FROM ProjectWidget pw " +
+        "WHERE pw.id > :lastId " +
+        "AND length(pw.data) > :threshold " +
+        "AND pw.data NOT LIKE '" + CompressionUtils.DEFLATE_MARKER + "%' " +
+        "ORDER BY pw.id")
+    List<ProjectWidget> findUncompressedData(@Param("lastId") Long lastId, @Param("threshold") int threshold, Pageable pageable);
+
+    /**
+     * Rewrite the data of a project widget
+     *
+     * @param data The data to write
+     * @param id   The project widget id
+     * @return State of the query
+     */
+    @Modifying
+    @Query("UPDATE ProjectWidget " +
+        "SET data = :data " +
+        "WHERE id = :id")
+    int updateData(@Param("data") String data, @Param("id") Long id);
+
+    /**
+     * Get and lock the next project widgets holding a backend config
+     * The rows stay locked until the end of the transaction, so a backend config edited meanwhile is not overwritten
+     *
+     * @param lastId   The last project widget id already processed
+     * @param pageable The size of the batch
+     * @return The list of project widgets ordered by id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ProjectWidget> findByIdGreaterThanAndBackendConfigIsNotNullOrderByIdAsc(Long lastId, Pageable pageable);
+
+    /**
+     * Rewrite the backend config of a project widget
+     *
+     * @param backendConfig The backend config to write
+     * @param id            The project widget id
+     * @return State of the query
+     */
+    @Modifying
+    @Query("UPDATE ProjectWidget " +
+        "SET backendConfig = :backendConfig " +
+        "WHERE id = :id")
+    int updateBackendConfig(@Param("backendConfig") String backendConfig, @Param("id") Long id);
+
     /**
      * Method used to delete a widget instance by it's id and the project id
      *
@@ -17,11 +17,16 @@
 package io.suricate.monitoring.repository;
 
 import io.suricate.monitoring.model.entity.WidgetConfiguration;
+import io.suricate.monitoring.model.enums.DataType;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +50,17 @@ public interface WidgetConfigurationRepository extends JpaRepository<WidgetConfi
      * @param categoryId The category to find
      * @return The list of related configurations
      */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<List<WidgetConfiguration>> findConfigurationByCategoryId(Long categoryId);
 
+    /**
+     * Get and lock the configurations of a type
+     * The rows stay locked until the end of the transaction, so a configuration edited meanwhile is not overwritten
+     *
+     * @param dataType The type of the configurations
+     * @return The list of configurations
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<WidgetConfiguration> findByDataType(DataType dataType);
+
 }
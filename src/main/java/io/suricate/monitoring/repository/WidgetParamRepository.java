@@ -20,11 +20,24 @@
 package io.suricate.monitoring.repository;
 
 import io.suricate.monitoring.model.entity.widget.WidgetParam;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository used for request widget params in database
  */
 public interface WidgetParamRepository extends CrudRepository<WidgetParam, Long> {
 
+    /**
+     * Load the possible values of widget params, initializing their list of values in the session
+     *
+     * @param ids The widget param ids
+     * @return The widget params with their possible values
+     */
+    @Query("SELECT DISTINCT wp FROM WidgetParam wp LEFT JOIN FETCH wp.possibleValuesMap WHERE wp.id IN :ids")
+    List<WidgetParam> fetchPossibleValues(@Param("ids") Collection<Long> ids);
 }
@@ -23,8 +23,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -40,6 +43,15 @@ public interface WidgetRepository extends JpaRepository<Widget, Long>, JpaSpecif
      */
     Widget findByTechnicalName(String technicalname);
 
+    /**
+     * Load the params of widgets, initializing their list of params in the session
+     *
+     * @param ids The widget ids
+     * @return The widgets with their params
+     */
+    @Query("SELECT DISTINCT w FROM Widget w LEFT JOIN FETCH w.widgetParams WHERE w.id IN :ids")
+    List<Widget> fetchWidgetParams(@Param("ids") Collection<Long> ids);
+
     /**
      * Method used to get image content from widget id
      *
@@ -120,6 +132,7 @@ public interface WidgetRepository extends JpaRepository<Widget, Long>, JpaSpecif
      * @param categoryId The category id
      * @return The list of related widgets ordered by name
      */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     List<Widget> findAllByCategory_IdOrderByNameAsc(final Long categoryId);
 
 }
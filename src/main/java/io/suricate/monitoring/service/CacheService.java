@@ -23,6 +23,8 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.EntityManagerFactory;
+
 @Service
 public class CacheService {
 
@@ -33,19 +35,29 @@ public class CacheService {
 
     private final CacheManager cacheManager;
 
+    /**
+     * The entity manager factory holding the hibernate second level cache
+     */
+    private final EntityManagerFactory entityManagerFactory;
+
     /**
      * Default constructor
      * @param cacheManager application cache manager instance
+     * @param entityManagerFactory the entity manager factory
      */
     @Autowired
-    public CacheService(final CacheManager cacheManager) {
+    public CacheService(final CacheManager cacheManager, final EntityManagerFactory entityManagerFactory) {
         this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
     }
 
     /**
      * Method used to clear all cache
      */
     public void clearAllCache(){
+        // Clear the second level cache (entities, collections and queries)
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictAllRegions();
+
         // Clear cache
         for (String name : cacheManager.getCacheNames()) {
             cacheManager.getCache(name).clear();
@@ -17,6 +17,7 @@
 package io.suricate.monitoring.service;
 
 import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
 import io.suricate.monitoring.model.entity.Library;
 import io.suricate.monitoring.model.entity.widget.Category;
 import io.suricate.monitoring.model.entity.widget.Repository;
@@ -122,7 +123,7 @@ public class GitService {
      *
      * @return True as Future when the process has been done
      */
-    @Async
+    @Async(AsyncConfiguration.GIT_EXECUTOR)
     @Transactional
     public Future<Boolean> updateWidgetFromEnabledGitRepositories() {
         LOGGER.info("Update widgets from Git repo");
@@ -146,7 +147,7 @@ public class GitService {
      * @param repository The repository to update
      * @return True if the update has been done correctly, false otherwise
      */
-    @Async
+    @Async(AsyncConfiguration.GIT_EXECUTOR)
     @Transactional
     public Future<Boolean> updateWidgetFromGitRepository(Repository repository) {
         if (repository == null) {
@@ -260,6 +261,9 @@ public class GitService {
                 List<Category> list = WidgetUtils.parseWidgetFolder(widgetFolder);
                 widgetService.updateWidgetInDatabase(list, mapLib, repository);
 
+                // The libraries may have changed, the bundles are built again on the next request
+                libraryService.clearLibrariesBundles();
+
             } finally {
                 if (!isLocalRepository) {
                     FileUtils.deleteQuietly(folder);
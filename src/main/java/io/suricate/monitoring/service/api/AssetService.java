@@ -16,48 +16,395 @@
 
 package io.suricate.monitoring.service.api;
 
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import io.suricate.monitoring.model.dto.asset.AssetMetadataDto;
 import io.suricate.monitoring.model.entity.Asset;
+import io.suricate.monitoring.repository.AssetContentRepository;
 import io.suricate.monitoring.repository.AssetRepository;
+import io.suricate.monitoring.service.storage.DatabaseContentResource;
+import io.suricate.monitoring.service.storage.FileSystemBlobStore;
+import io.suricate.monitoring.utils.exception.ObjectNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
+
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 /**
  * Manage the assets
  */
 @Service
 public class AssetService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetService.class);
+
     /**
      * The asset repository
      */
     private final AssetRepository assetRepository;
 
+    /**
+     * The repository of the asset contents held by the database
+     */
+    private final AssetContentRepository assetContentRepository;
+
+    /**
+     * The blob store holding the asset contents
+     */
+    private final FileSystemBlobStore fileSystemBlobStore;
+
+    /**
+     * The JDBC template, used to stream the contents held by the database
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * The read-only transaction in which a content is streamed from the database
+     */
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
     /**
      * Constructor
      *
-     * @param assetRepository The asset repository to inject
+     * @param assetRepository        The asset repository to inject
+     * @param assetContentRepository The asset content repository to inject
+     * @param fileSystemBlobStore    The blob store to inject
+     * @param jdbcTemplate           The JDBC template to inject
+     * @param transactionManager     The transaction manager to inject
      */
     @Autowired
-    public AssetService(final AssetRepository assetRepository) {
+    public AssetService(final AssetRepository assetRepository,
+                        final AssetContentRepository assetContentRepository,
+                        final FileSystemBlobStore fileSystemBlobStore,
+                        final JdbcTemplate jdbcTemplate,
+                        final PlatformTransactionManager transactionManager) {
         this.assetRepository = assetRepository;
+        this.assetContentRepository = assetContentRepository;
+        this.fileSystemBlobStore = fileSystemBlobStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Get the file holding the content of an asset, when it has been moved to the blob store
+     *
+     * @param asset The asset
+     * @return The file of the content
+     */
+    public Optional<Path> getContentFile(final Asset asset) {
+        return getContentFile(asset.getContentHash());
+    }
+
+    /**
+     * Get the file holding a content of the blob store
+     *
+     * @param contentHash The hash of the content
+     * @return The file of the content
+     */
+    public Optional<Path> getContentFile(final String contentHash) {
+        return fileSystemBlobStore.get(contentHash);
     }
 
     /**
-     * Find an asset by id
+     * Get the file holding the gzip variant of a content of the blob store
+     *
+     * @param contentHash The hash of the content
+     * @return The file of the compressed content, when the content has been precompressed
+     */
+    public Optional<Path> getGzipContentFile(final String contentHash) {
+        return fileSystemBlobStore.getGzip(contentHash);
+    }
+
+    /**
+     * Get the metadata of an asset, without loading its content
+     *
+     * @param id The asset id
+     * @return The metadata of the asset
+     */
+    public Optional<AssetMetadataDto> getMetadata(final Long id) {
+        return assetRepository.findMetadataById(id);
+    }
+
+    /**
+     * Test if an asset holds its content in database
      *
      * @param id The asset id
-     * @return The related asset
+     * @return True if the content is held by the database
+     */
+    public boolean hasDatabaseContent(final Long id) {
+        return assetContentRepository.countContent(id) > 0;
+    }
+
+    /**
+     * Copy the content of an asset held by the database to a stream, without reading it in memory
+     * The content is read through a bounded buffer in a read-only transaction, which lasts the copy
+     *
+     * @param id           The asset id
+     * @param outputStream The stream receiving the content
+     * @return False when the content is not held by the database
+     * @throws IOException When the content cannot be written
+     */
+    public boolean copyDatabaseContent(final Long id, final OutputStream outputStream) throws IOException {
+        try {
+            Boolean copied = readOnlyTransactionTemplate.execute(status -> jdbcTemplate.query(DatabaseContentResource.CONTENT_QUERY, resultSet -> {
+                if (!resultSet.next()) {
+                    return false;
+                }
+
+                try (InputStream inputStream = resultSet.getBinaryStream(1)) {
+                    if (inputStream == null) {
+                        return false;
+                    }
+
+                    StreamUtils.copy(inputStream, outputStream);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, id));
+
+            return Boolean.TRUE.equals(copied);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get the content of an asset held by the database as a resource, streamed from the database when it is served
+     *
+     * @param asset The metadata of the asset
+     * @return The resource
+     */
+    public Resource getDatabaseContentResource(final AssetMetadataDto asset) {
+        return new DatabaseContentResource(jdbcTemplate.getDataSource(), asset.getId(), asset.getSize());
+    }
+
+    /**
+     * Get the file holding the content of an asset, to serve it without holding a database connection during the transfer
+     * When the blob store is enabled, a content held by the database is streamed to it on its first read, and stays in database
+     *
+     * @param asset The metadata of the asset
+     * @return The file of the content, empty when the content can only be read from the database
+     */
+    public Optional<Path> getContentFile(final AssetMetadataDto asset) {
+        Optional<Path> contentFile = getContentFile(asset.getContentHash());
+        if (contentFile.isPresent() || asset.getContentHash() == null || !fileSystemBlobStore.isEnabled()) {
+            return contentFile;
+        }
+
+        try {
+            return fileSystemBlobStore
+                .put(outputStream -> copyDatabaseContent(asset.getId(), outputStream), isCompressible(asset.getContentType()))
+                .filter(contentHash -> contentHash.equals(asset.getContentHash()))
+                .flatMap(this::getContentFile);
+        } catch (IOException e) {
+            LOGGER.error("Cannot copy the content of the asset {} in the blob store directory", asset.getId(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Copy the content of an asset to a stream, from its file or from the database, without reading it in memory
+     *
+     * @param id           The asset id
+     * @param outputStream The stream receiving the content
+     * @throws IOException When the content cannot be read
      */
-    public Asset findOne(final Long id) {
-        return assetRepository.getOne(id);
+    public void copyContent(final Long id, final OutputStream outputStream) throws IOException {
+        AssetMetadataDto asset = getMetadata(id).orElseThrow(() -> new ObjectNotFoundException(Asset.class, id));
+
+        Optional<Path> contentFile = getContentFile(asset);
+        if (contentFile.isPresent()) {
+            Files.copy(contentFile.get(), outputStream);
+        } else if (!copyDatabaseContent(id, outputStream)) {
+            throw new ObjectNotFoundException(Asset.class, id);
+        }
     }
 
     /**
      * Save a new asset in database
+     * When the blob store is enabled, only the metadata and the hash are saved in database
+     * The blob of the content replaced is deleted after the commit, if no other asset holds it
      *
      * @param asset The asset to save
      * @return The asset saved
      */
+    @Transactional
     public Asset save(Asset asset) {
-        return assetRepository.save(asset);
+        byte[] content = asset.getContent();
+        boolean contentInDatabase = content != null;
+        String previousContentHash = content != null && asset.getId() != null
+            ? getMetadata(asset.getId()).map(AssetMetadataDto::getContentHash).orElse(null)
+            : null;
+
+        if (content != null) {
+            asset.setContentHash(FileSystemBlobStore.hash(content));
+
+            if (fileSystemBlobStore.isEnabled()) {
+                try {
+                    fileSystemBlobStore.put(content, isCompressible(asset.getContentType()));
+                    asset.setContent(null);
+                    contentInDatabase = false;
+                } catch (IOException e) {
+                    LOGGER.error("Cannot write the asset content in the blob store, keeping it in database", e);
+                }
+            }
+        }
+
+        Asset savedAsset = assetRepository.save(asset);
+
+        if (contentInDatabase) {
+            assetContentRepository.updateContent(content, savedAsset.getId());
+        } else if (content != null) {
+            assetContentRepository.clearContent(savedAsset.getId());
+        }
+
+        if (previousContentHash != null && !previousContentHash.equals(savedAsset.getContentHash())) {
+            deleteContentAfterCommit(previousContentHash);
+        }
+
+        return savedAsset;
+    }
+
+    /**
+     * Delete a content of the blob store once the current transaction is committed, if no asset holds it anymore
+     *
+     * @param contentHash The hash of the content
+     */
+    private void deleteContentAfterCommit(final String contentHash) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteContentIfUnreferenced(contentHash);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                deleteContentIfUnreferenced(contentHash);
+            }
+        });
+    }
+
+    /**
+     * Delete a content of the blob store if no asset holds it
+     *
+     * @param contentHash The hash of the content
+     */
+    public void deleteContentIfUnreferenced(final String contentHash) {
+        if (assetRepository.existsByContentHash(contentHash)) {
+            return;
+        }
+
+        try {
+            if (fileSystemBlobStore.delete(contentHash)) {
+                LOGGER.debug("Content {} deleted from the blob store", contentHash);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot delete the content {} from the blob store", contentHash, e);
+        }
+    }
+
+    /**
+     * Delete the contents of the blob store no asset holds anymore, such as the images of the deleted widgets
+     *
+     * @return The number of contents deleted
+     * @throws IOException When the blob store cannot be read
+     */
+    public int deleteUnreferencedContents() throws IOException {
+        if (!fileSystemBlobStore.isConfigured()) {
+            return 0;
+        }
+
+        return fileSystemBlobStore.sweep(assetRepository::existsByContentHash);
+    }
+
+    /**
+     * Move a batch of asset contents from the database to the blob store
+     *
+     * @param lastId    The last asset id already processed
+     * @param batchSize The number of assets to process
+     * @return The id of the last asset processed, null when there is nothing left to move
+     * @throws IOException When a blob cannot be written
+     */
+    @Transactional
+    public Long moveContentsToBlobStore(final Long lastId, final int batchSize) throws IOException {
+        List<Long> assetIds = assetContentRepository.findIdsWithContent(lastId, PageRequest.of(0, batchSize));
+
+        for (Long assetId : assetIds) {
+            Optional<AssetMetadataDto> assetOptional = getMetadata(assetId);
+            if (!assetOptional.isPresent()) {
+                continue;
+            }
+
+            Optional<String> contentHash = fileSystemBlobStore.put(outputStream -> copyDatabaseContent(assetId, outputStream),
+                isCompressible(assetOptional.get().getContentType()));
+            if (contentHash.isPresent()) {
+                assetRepository.updateContentHash(contentHash.get(), assetId);
+                assetContentRepository.clearContent(assetId);
+            }
+        }
+
+        return assetIds.isEmpty() ? null : assetIds.get(assetIds.size() - 1);
+    }
+
+    /**
+     * Compute the hash of a batch of asset contents stored before the hashes were kept
+     *
+     * @param lastId    The last asset id already processed
+     * @param batchSize The number of assets to process
+     * @return The id of the last asset processed, null when every asset has a hash
+     * @throws IOException When a content cannot be read
+     */
+    @Transactional
+    public Long computeContentHashes(final Long lastId, final int batchSize) throws IOException {
+        List<Long> assetIds = assetContentRepository.findIdsWithContentWithoutHash(lastId, PageRequest.of(0, batchSize));
+
+        for (Long assetId : assetIds) {
+            HashingOutputStream hashingOutputStream = new HashingOutputStream(Hashing.sha256(), ByteStreams.nullOutputStream());
+            if (copyDatabaseContent(assetId, hashingOutputStream)) {
+                assetRepository.updateContentHash(hashingOutputStream.hash().toString(), assetId);
+            }
+        }
+
+        return assetIds.isEmpty() ? null : assetIds.get(assetIds.size() - 1);
+    }
+
+    /**
+     * Test if a content is worth compressing, the images (except SVG) and archives are already compressed
+     *
+     * @param contentType The content type
+     * @return True for the text contents
+     */
+    public static boolean isCompressible(final String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+
+        String type = contentType.toLowerCase(Locale.ENGLISH);
+        return type.startsWith("text/") || type.contains("javascript") || type.contains("json") || type.contains("xml");
     }
 }
@@ -19,14 +19,19 @@ package io.suricate.monitoring.service.api;
 import io.suricate.monitoring.model.entity.Library;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
 import io.suricate.monitoring.repository.LibraryRepository;
+import io.suricate.monitoring.service.library.LibraryBundleService;
 import io.suricate.monitoring.utils.IdUtils;
 import io.suricate.monitoring.utils.logging.LogExecutionTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -34,6 +39,11 @@ import java.util.stream.Collectors;
  */
 @Service
 public class LibraryService {
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LibraryService.class);
+
     /**
      * Library repository
      */
@@ -44,16 +54,23 @@ public class LibraryService {
      */
     private final AssetService assetService;
 
+    /**
+     * The library bundle service
+     */
+    private final LibraryBundleService libraryBundleService;
+
     /**
      * The constructor
      *
-     * @param libraryRepository Inject the library repository
-     * @param assetService      Inject the asset service
+     * @param libraryRepository    Inject the library repository
+     * @param assetService         Inject the asset service
+     * @param libraryBundleService Inject the library bundle service
      */
     @Autowired
-    public LibraryService(final LibraryRepository libraryRepository, final AssetService assetService) {
+    public LibraryService(final LibraryRepository libraryRepository, final AssetService assetService, final LibraryBundleService libraryBundleService) {
         this.libraryRepository = libraryRepository;
         this.assetService = assetService;
+        this.libraryBundleService = libraryBundleService;
     }
 
     /**
@@ -72,6 +89,39 @@ public class LibraryService {
         return ids.stream().map(IdUtils::encrypt).collect(Collectors.toList());
     }
 
+    /**
+     * Method used to get the token of the bundle holding every library of the displayed widgets
+     * The bundle is never built here: when it's unknown, it's built in the background and the libraries are loaded one by one meanwhile
+     *
+     * @param projectWidgets The list of project widget
+     * @return The hash of the bundle, null when the widgets use no library or the bundle is not built yet
+     */
+    @LogExecutionTime
+    public String getLibrariesBundleToken(List<ProjectWidget> projectWidgets) {
+        List<Long> assetIds = libraryBundleService.getLibraryAssetIds(projectWidgets);
+        if (assetIds.isEmpty()) {
+            return null;
+        }
+
+        Optional<String> libraryBundleHash = libraryBundleService.findLibraryBundleHash(assetIds);
+        if (!libraryBundleHash.isPresent()) {
+            try {
+                libraryBundleService.prepareLibraryBundle(assetIds);
+            } catch (TaskRejectedException e) {
+                LOGGER.warn("Cannot build the bundle of the libraries {}: {}", assetIds, e.getMessage());
+            }
+        }
+
+        return libraryBundleHash.orElse(null);
+    }
+
+    /**
+     * Method used to drop the library bundles, they are built again from the libraries in database on the next request
+     */
+    public void clearLibrariesBundles() {
+        libraryBundleService.clearCache();
+    }
+
 
     /**
      * Method used to update library in database
@@ -20,8 +20,12 @@ import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
 import io.suricate.monitoring.model.entity.Asset;
 import io.suricate.monitoring.model.entity.project.Project;
 import io.suricate.monitoring.model.entity.user.User;
+import io.suricate.monitoring.model.entity.widget.WidgetParam;
+import io.suricate.monitoring.model.enums.DataType;
 import io.suricate.monitoring.model.enums.UpdateType;
 import io.suricate.monitoring.repository.ProjectRepository;
+import io.suricate.monitoring.repository.WidgetParamRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
 import io.suricate.monitoring.service.specification.ProjectSearchSpecification;
 import io.suricate.monitoring.service.websocket.DashboardWebSocketService;
 import io.suricate.monitoring.utils.SecurityUtils;
@@ -38,9 +42,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import javax.transaction.Transactional;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service used to manage projects
@@ -58,6 +65,16 @@ public class ProjectService {
      */
     private final ProjectRepository projectRepository;
 
+    /**
+     * Widget repository
+     */
+    private final WidgetRepository widgetRepository;
+
+    /**
+     * Widget param repository
+     */
+    private final WidgetParamRepository widgetParamRepository;
+
     /**
      * dashboard Socket service
      */
@@ -73,17 +90,23 @@ public class ProjectService {
      *
      * @param stringEncryptor           The string encryptor to inject
      * @param projectRepository         The project repository to inject
+     * @param widgetRepository          The widget repository to inject
+     * @param widgetParamRepository     The widget param repository to inject
      * @param dashboardWebSocketService The dashboard web socket service to inject
      * @param assetService              The asset service
      */
     @Autowired
     public ProjectService(@Qualifier("jasyptStringEncryptor") final StringEncryptor stringEncryptor,
                           final ProjectRepository projectRepository,
+                          final WidgetRepository widgetRepository,
+                          final WidgetParamRepository widgetParamRepository,
                           final DashboardWebSocketService dashboardWebSocketService,
                           final AssetService assetService) {
 
         this.stringEncryptor = stringEncryptor;
         this.projectRepository = projectRepository;
+        this.widgetRepository = widgetRepository;
+        this.widgetParamRepository = widgetParamRepository;
         this.dashboardWebsocketService = dashboardWebSocketService;
         this.assetService = assetService;
     }
@@ -133,6 +156,37 @@ public class ProjectService {
         return projectRepository.findProjectByToken(token);
     }
 
+    /**
+     * Get a project by token with its whole widget graph fetched in a few queries
+     * Should be used when every widget instance of the project is read (rendering, scheduling)
+     * The params of the widgets are loaded in one more query, and their possible values in another one when a param has some
+     *
+     * @param token The token
+     * @return The project
+     */
+    @Transactional
+    public Optional<Project> getOneByTokenWithWidgets(final String token) {
+        Optional<Project> project = projectRepository.findProjectWithWidgetsByToken(token);
+
+        Set<Long> widgetIds = project
+            .map(currentProject -> currentProject.getWidgets().stream().map(projectWidget -> projectWidget.getWidget().getId()).collect(Collectors.toSet()))
+            .orElse(Collections.emptySet());
+        if (!widgetIds.isEmpty()) {
+            Set<Long> listParamIds = widgetRepository.fetchWidgetParams(widgetIds)
+                .stream()
+                .flatMap(widget -> widget.getWidgetParams().stream())
+                .filter(widgetParam -> widgetParam.getType() == DataType.COMBO || widgetParam.getType() == DataType.MULTIPLE)
+                .map(WidgetParam::getId)
+                .collect(Collectors.toSet());
+
+            if (!listParamIds.isEmpty()) {
+                widgetParamRepository.fetchPossibleValues(listParamIds);
+            }
+        }
+
+        return project;
+    }
+
     /**
      * Create a new project for a user
      *
@@ -16,12 +16,12 @@
 
 package io.suricate.monitoring.service.api;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheException;
-import com.github.mustachejava.MustacheFactory;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetField;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetPositionRequestDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetPositionResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
 import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
 import io.suricate.monitoring.model.entity.project.Project;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
@@ -33,26 +33,33 @@ import io.suricate.monitoring.model.enums.WidgetState;
 import io.suricate.monitoring.repository.ProjectWidgetRepository;
 import io.suricate.monitoring.service.mapper.ProjectMapper;
 import io.suricate.monitoring.service.mapper.ProjectWidgetMapper;
+import io.suricate.monitoring.service.mustache.RenderedHtmlService;
+import io.suricate.monitoring.service.mustache.WidgetTemplateService;
 import io.suricate.monitoring.service.scheduler.DashboardScheduleService;
 import io.suricate.monitoring.service.scheduler.NashornWidgetScheduler;
+import io.suricate.monitoring.service.secret.SecretStringEncryptor;
 import io.suricate.monitoring.service.websocket.DashboardWebSocketService;
+import io.suricate.monitoring.utils.CompressionUtils;
 import io.suricate.monitoring.utils.JavascriptUtils;
+import io.suricate.monitoring.utils.JsonUtils;
 import io.suricate.monitoring.utils.PropertiesUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jasypt.encryption.StringEncryptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.io.IOException;
-import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -90,9 +97,14 @@ public class ProjectWidgetService {
     private final WidgetService widgetService;
 
     /**
-     * The mustacheFactory
+     * The compiled templates of the widgets
      */
-    private final MustacheFactory mustacheFactory;
+    private final WidgetTemplateService widgetTemplateService;
+
+    /**
+     * The HTML rendered for the project widgets
+     */
+    private final RenderedHtmlService renderedHtmlService;
 
     /**
      * The project mapper used for manage model/dto object
@@ -105,9 +117,9 @@ public class ProjectWidgetService {
     private final ApplicationContext ctx;
 
     /**
-     * The string encryptor
+     * The encryptor of the widget secrets
      */
-    private StringEncryptor stringEncryptor;
+    private final SecretStringEncryptor stringEncryptor;
 
     /**
      * Constructor
@@ -116,25 +128,28 @@ public class ProjectWidgetService {
      * @param dashboardWebSocketService The dashboard websocket service
      * @param dashboardScheduleService  The dashboard scheduler
      * @param widgetService             The widget service
-     * @param mustacheFactory           The mustache factory (HTML template)
+     * @param widgetTemplateService     The compiled templates of the widgets (HTML template)
+     * @param renderedHtmlService       The HTML rendered for the project widgets
      * @param projectMapper             The project mapper
      * @param ctx                       The application context
-     * @param stringEncryptor           The string encryptor
+     * @param stringEncryptor           The encryptor of the widget secrets
      */
     @Autowired
     public ProjectWidgetService(final ProjectWidgetRepository projectWidgetRepository,
-                                final MustacheFactory mustacheFactory,
+                                final WidgetTemplateService widgetTemplateService,
+                                final RenderedHtmlService renderedHtmlService,
                                 final DashboardWebSocketService dashboardWebSocketService,
                                 @Lazy final DashboardScheduleService dashboardScheduleService,
                                 final WidgetService widgetService,
                                 final ProjectMapper projectMapper,
                                 final ApplicationContext ctx,
-                                @Qualifier("jasyptStringEncryptor") final StringEncryptor stringEncryptor) {
+                                final SecretStringEncryptor stringEncryptor) {
         this.projectWidgetRepository = projectWidgetRepository;
         this.dashboardWebsocketService = dashboardWebSocketService;
         this.dashboardScheduleService = dashboardScheduleService;
         this.widgetService = widgetService;
-        this.mustacheFactory = mustacheFactory;
+        this.widgetTemplateService = widgetTemplateService;
+        this.renderedHtmlService = renderedHtmlService;
         this.projectMapper = projectMapper;
         this.ctx = ctx;
         this.stringEncryptor = stringEncryptor;
@@ -149,6 +164,16 @@ public class ProjectWidgetService {
         return this.projectWidgetRepository.findAll();
     }
 
+    /**
+     * Get the project widgets by id
+     *
+     * @param projectWidgetIds The project widget ids
+     * @return The list of project widget
+     */
+    public List<ProjectWidget> getAllByIds(final List<Long> projectWidgetIds) {
+        return this.projectWidgetRepository.findAllById(projectWidgetIds);
+    }
+
     /**
      * Test if a project widget exists
      *
@@ -225,12 +250,37 @@ public class ProjectWidgetService {
             );
         }
         projectWidgetRepository.flush();
-        // notify clients
+        // notify clients with the new positions only, nothing has to be rendered
+        ArrayList<ProjectWidgetResponseDto> projectWidgetPositions = positions
+            .stream()
+            .map(ProjectWidgetService::toProjectWidgetPosition)
+            .collect(Collectors.toCollection(ArrayList::new));
+
         UpdateEvent updateEvent = new UpdateEvent(UpdateType.POSITION);
-        updateEvent.setContent(projectMapper.toProjectDtoDefault(project));
+        updateEvent.setContent(projectWidgetPositions);
+        updateEvent.setFields(ProjectWidgetField.toFieldNames(EnumSet.of(ProjectWidgetField.ID, ProjectWidgetField.WIDGET_POSITION)));
         dashboardWebsocketService.updateGlobalScreensByProjectToken(project.getToken(), updateEvent);
     }
 
+    /**
+     * Create the projection of a project widget on its position
+     *
+     * @param projectWidgetPositionRequestDto The new position of the project widget
+     * @return The project widget holding its id and its position
+     */
+    private static ProjectWidgetResponseDto toProjectWidgetPosition(final ProjectWidgetPositionRequestDto projectWidgetPositionRequestDto) {
+        ProjectWidgetPositionResponseDto projectWidgetPositionResponseDto = new ProjectWidgetPositionResponseDto();
+        projectWidgetPositionResponseDto.setCol(projectWidgetPositionRequestDto.getCol());
+        projectWidgetPositionResponseDto.setRow(projectWidgetPositionRequestDto.getRow());
+        projectWidgetPositionResponseDto.setWidth(projectWidgetPositionRequestDto.getWidth());
+        projectWidgetPositionResponseDto.setHeight(projectWidgetPositionRequestDto.getHeight());
+
+        ProjectWidgetResponseDto projectWidgetResponseDto = new ProjectWidgetResponseDto();
+        projectWidgetResponseDto.setId(projectWidgetPositionRequestDto.getProjectWidgetId());
+        projectWidgetResponseDto.setWidgetPosition(projectWidgetPositionResponseDto);
+        return projectWidgetResponseDto;
+    }
+
     /**
      * Method used to remove widget from the dashboard
      *
@@ -245,6 +295,8 @@ public class ProjectWidgetService {
 
             projectWidgetRepository.deleteByProjectIdAndId(projectWidgetOptional.get().getProject().getId(), projectWidgetId);
             projectWidgetRepository.flush();
+            renderedHtmlService.invalidate(projectWidgetId);
+            stringEncryptor.clearCache();
 
             // notify client
             UpdateEvent updateEvent = new UpdateEvent(UpdateType.GRID);
@@ -294,33 +346,110 @@ public class ProjectWidgetService {
         }
     }
 
+    /**
+     * Method used to update the state of a list of project widgets in one query
+     *
+     * @param widgetState widget state
+     * @param ids         project widget ids
+     * @param date        The last execution date
+     */
+    @Transactional
+    public void updateState(WidgetState widgetState, List<Long> ids, Date date) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+
+        if (date != null) {
+            projectWidgetRepository.updateStateAndLastExecutionDateByIdIn(widgetState, date, ids);
+        } else {
+            projectWidgetRepository.updateStateByIdIn(widgetState, ids);
+        }
+    }
+
+    /**
+     * Method used to update the state of every project widgets of a project in one query
+     *
+     * @param widgetState widget state
+     * @param projectId   project id
+     */
+    @Transactional
+    public void updateStateByProjectId(WidgetState widgetState, Long projectId) {
+        projectWidgetRepository.updateStateByProjectId(widgetState, projectId);
+    }
+
     /**
      * Method used to get instantiate html for a projectwidget
      * Call inside {@link ProjectWidgetMapper}
+     * The HTML is rendered once by version of the project widget
      *
      * @param projectWidget the project widget
      * @return The html instantiate
      */
     @Transactional
     public String instantiateProjectWidgetHtml(ProjectWidget projectWidget) {
-        ObjectMapper objectMapper = new ObjectMapper();
+        return renderedHtmlService.getHtml(projectWidget, () -> renderProjectWidgetHtml(projectWidget, widgetService.getFullListOfParams(projectWidget.getWidget())));
+    }
+
+    /**
+     * Instantiate the HTML of a project widget with the params of its widget already loaded
+     * Does not touch the JPA session, so it can be called outside of the request thread
+     *
+     * @param projectWidget the project widget, with its widget loaded
+     * @param widgetParams  The full list of params of the widget
+     * @return The html instantiate
+     */
+    public String instantiateProjectWidgetHtml(ProjectWidget projectWidget, List<WidgetParam> widgetParams) {
+        return renderedHtmlService.getHtml(projectWidget, () -> renderProjectWidgetHtml(projectWidget, widgetParams));
+    }
+
+    /**
+     * Instantiate the HTML of a project widget from the fields of its data already read, to skip their parsing
+     * The fields must be the ones of the current data of the project widget
+     *
+     * @param projectWidget the project widget
+     * @param parsedData    The fields of the data of the project widget
+     * @return The html instantiate
+     */
+    @Transactional
+    public String instantiateProjectWidgetHtml(ProjectWidget projectWidget, Map<String, Object> parsedData) {
+        return renderedHtmlService.getHtml(projectWidget,
+            () -> renderProjectWidgetHtml(projectWidget, widgetService.getFullListOfParams(projectWidget.getWidget()), parsedData));
+    }
+
+    /**
+     * Render the HTML of a project widget from its data, its backend config and the params of its widget
+     *
+     * @param projectWidget the project widget
+     * @param widgetParams  The full list of params of the widget
+     * @return The html instantiate
+     */
+    private String renderProjectWidgetHtml(ProjectWidget projectWidget, List<WidgetParam> widgetParams) {
+        return renderProjectWidgetHtml(projectWidget, widgetParams, null);
+    }
+
+    /**
+     * Render the HTML of a project widget from its data, its backend config and the params of its widget
+     *
+     * @param projectWidget the project widget
+     * @param widgetParams  The full list of params of the widget
+     * @param parsedData    The fields of the data already read, null to read them from the data
+     * @return The html instantiate
+     */
+    private String renderProjectWidgetHtml(ProjectWidget projectWidget, List<WidgetParam> widgetParams, Map<String, Object> parsedData) {
         Map<String, Object> map = null;
         Widget widget = projectWidget.getWidget();
 
         String instantiateHtml = widget.getHtmlContent();
         if (StringUtils.isNotEmpty(projectWidget.getData())) {
             try {
-                map = objectMapper.readValue(
-                    projectWidget.getData(),
-                    new TypeReference<Map<String, Object>>() {
-                    }
-                );
+                // The fields already read are copied, the rendering adds its own variables
+                map = parsedData != null ? new LinkedHashMap<>(parsedData) : JsonUtils.readMap(projectWidget.getData());
                 // Add backend config
                 map.putAll(PropertiesUtils.getMap(projectWidget.getBackendConfig()));
                 map.put(JavascriptUtils.INSTANCE_ID_VARIABLE, projectWidget.getId());
 
                 // Add global variables if needed
-                for (WidgetParam widgetParam : widgetService.getFullListOfParams(projectWidget.getWidget())) {
+                for (WidgetParam widgetParam : widgetParams) {
                     if (!map.containsKey(widgetParam.getName()) && widgetParam.isRequired()) {
                         map.put(widgetParam.getName(), widgetParam.getDefaultValue());
                     }
@@ -332,7 +461,7 @@ public class ProjectWidgetService {
 
             StringWriter stringWriter = new StringWriter();
             try {
-                Mustache mustache = mustacheFactory.compile(new StringReader(instantiateHtml), widget.getTechnicalName());
+                Mustache mustache = widgetTemplateService.getTemplate(widget, instantiateHtml);
                 mustache.execute(stringWriter, map);
             } catch (MustacheException me) {
                 LOGGER.error("Error with mustache template for widget {}", widget.getTechnicalName(), me);
@@ -362,6 +491,7 @@ public class ProjectWidgetService {
             projectWidget.setBackendConfig(
                 encryptSecretParamsIfNeeded(projectWidget.getWidget(), backendConfig)
             );
+            stringEncryptor.clearCache();
         }
         projectWidgetRepository.save(projectWidget);
 
@@ -398,6 +528,67 @@ public class ProjectWidgetService {
         projectWidgetRepository.updateSuccessExecution(executionDate, executionLog, data, projectWidgetId, widgetState);
     }
 
+    /**
+     * Rewrite a batch of project widget data stored before the compression
+     * The data is compressed by the hibernate type while writing
+     *
+     * @param lastId    The last project widget id already processed
+     * @param batchSize The number of project widgets to process
+     * @return The id of the last project widget processed, null when there is nothing left to compress
+     */
+    @Transactional
+    public Long compressLegacyData(final Long lastId, final int batchSize) {
+        List<ProjectWidget> projectWidgets = projectWidgetRepository.findUncompressedData(lastId, CompressionUtils.DEFAULT_THRESHOLD, PageRequest.of(0, batchSize));
+        if (projectWidgets.isEmpty()) {
+            return null;
+        }
+
+        for (ProjectWidget projectWidget : projectWidgets) {
+            projectWidgetRepository.updateData(projectWidget.getData(), projectWidget.getId());
+        }
+
+        return projectWidgets.get(projectWidgets.size() - 1).getId();
+    }
+
+    /**
+     * Encrypt again a batch of project widget secrets encrypted by another codec than the current one
+     *
+     * @param lastId    The last project widget id already processed
+     * @param batchSize The number of project widgets to process
+     * @return The id of the last project widget processed, null when there is nothing left to process
+     */
+    @Transactional
+    public Long reEncryptSecrets(final Long lastId, final int batchSize) {
+        List<ProjectWidget> projectWidgets = projectWidgetRepository.findByIdGreaterThanAndBackendConfigIsNotNullOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+        if (projectWidgets.isEmpty()) {
+            return null;
+        }
+
+        Map<Long, List<WidgetParam>> widgetParamsByWidgetId = new HashMap<>();
+        for (ProjectWidget projectWidget : projectWidgets) {
+            Map<String, String> backendConfigAsMap = PropertiesUtils.getMap(projectWidget.getBackendConfig());
+            List<WidgetParam> widgetParams = widgetParamsByWidgetId.computeIfAbsent(
+                projectWidget.getWidget().getId(),
+                widgetId -> widgetService.getFullListOfParams(projectWidget.getWidget())
+            );
+
+            boolean reEncrypted = false;
+            for (WidgetParam widgetParam : widgetParams) {
+                String encryptedValue = backendConfigAsMap.get(widgetParam.getName());
+                if (widgetParam.getType() == DataType.PASSWORD && stringEncryptor.isReEncryptionNeeded(encryptedValue)) {
+                    backendConfigAsMap.put(widgetParam.getName(), stringEncryptor.reEncrypt(encryptedValue));
+                    reEncrypted = true;
+                }
+            }
+
+            if (reEncrypted) {
+                projectWidgetRepository.updateBackendConfig(toBackendConfig(backendConfigAsMap), projectWidget.getId());
+            }
+        }
+
+        return projectWidgets.get(projectWidgets.size() - 1).getId();
+    }
+
     /**
      * decrypt the secret params if exists
      *
@@ -406,9 +597,19 @@ public class ProjectWidgetService {
      * @return The list of param decrypted
      */
     public String decryptSecretParamsIfNeeded(final Widget widget, String backendConfig) {
+        return decryptSecretParamsIfNeeded(widgetService.getFullListOfParams(widget), backendConfig);
+    }
+
+    /**
+     * decrypt the secret params if exists, with the params of the widget already loaded
+     *
+     * @param widgetParams  The full list of params of the widget related to project widget
+     * @param backendConfig The related backend config
+     * @return The list of param decrypted
+     */
+    public String decryptSecretParamsIfNeeded(final List<WidgetParam> widgetParams, String backendConfig) {
         Map<String, String> backendConfigAsMap = PropertiesUtils.getMap(backendConfig);
 
-        List<WidgetParam> widgetParams = widgetService.getFullListOfParams(widget);
         for (WidgetParam widgetParam : widgetParams) {
             if (widgetParam.getType() == DataType.PASSWORD) {
                 String valueToEncrypt = StringUtils.trimToNull(backendConfigAsMap.get(widgetParam.getName()));
@@ -419,11 +620,7 @@ public class ProjectWidgetService {
             }
         }
 
-        return backendConfigAsMap
-            .entrySet()
-            .stream()
-            .map(backendConfigEntrySet -> backendConfigEntrySet.getKey() + "=" + backendConfigEntrySet.getValue())
-            .collect(Collectors.joining("\n"));
+        return toBackendConfig(backendConfigAsMap);
     }
 
     /**
@@ -447,6 +644,16 @@ public class ProjectWidgetService {
             }
         }
 
+        return toBackendConfig(backendConfigAsMap);
+    }
+
+    /**
+     * Write the backend config of a project widget
+     *
+     * @param backendConfigAsMap The values of the params by name
+     * @return The backend config
+     */
+    private static String toBackendConfig(final Map<String, String> backendConfigAsMap) {
         return backendConfigAsMap
             .entrySet()
             .stream()
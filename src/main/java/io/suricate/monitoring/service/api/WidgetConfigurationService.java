@@ -23,10 +23,10 @@ import io.suricate.monitoring.model.entity.widget.Category;
 import io.suricate.monitoring.model.entity.widget.WidgetParam;
 import io.suricate.monitoring.model.enums.DataType;
 import io.suricate.monitoring.repository.WidgetConfigurationRepository;
+import io.suricate.monitoring.service.mustache.RenderedHtmlService;
+import io.suricate.monitoring.service.secret.SecretStringEncryptor;
 import io.suricate.monitoring.service.specification.WidgetConfigurationSearchSpecification;
-import org.jasypt.encryption.StringEncryptor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -51,24 +51,32 @@ public class WidgetConfigurationService {
     private final ApplicationProperties applicationProperties;
 
     /**
-     * The string encryptor
+     * The encryptor of the widget secrets
      */
-    private StringEncryptor stringEncryptor;
+    private final SecretStringEncryptor stringEncryptor;
+
+    /**
+     * The HTML rendered for the project widgets, depending on the configurations
+     */
+    private final RenderedHtmlService renderedHtmlService;
 
     /**
      * Constructor
      *
      * @param widgetConfigurationRepository Inject the configuration repository
      * @param applicationProperties         The application properties to inject
-     * @param stringEncryptor               The string encryptor
+     * @param stringEncryptor               The encryptor of the widget secrets
+     * @param renderedHtmlService           The HTML rendered for the project widgets
      */
     @Autowired
     public WidgetConfigurationService(final WidgetConfigurationRepository widgetConfigurationRepository,
                                       final ApplicationProperties applicationProperties,
-                                      @Qualifier("jasyptStringEncryptor") final StringEncryptor stringEncryptor) {
+                                      final SecretStringEncryptor stringEncryptor,
+                                      final RenderedHtmlService renderedHtmlService) {
         this.widgetConfigurationRepository = widgetConfigurationRepository;
         this.applicationProperties = applicationProperties;
         this.stringEncryptor = stringEncryptor;
+        this.renderedHtmlService = renderedHtmlService;
     }
 
     /**
@@ -115,6 +123,8 @@ public class WidgetConfigurationService {
     public void updateConfiguration(WidgetConfiguration widgetConfiguration, final String newValue) {
         widgetConfiguration.setValue(widgetConfiguration.getDataType() == DataType.PASSWORD ? stringEncryptor.encrypt(newValue) : newValue);
         widgetConfigurationRepository.save(widgetConfiguration);
+        renderedHtmlService.invalidateAll();
+        stringEncryptor.clearCache();
     }
 
     /**
@@ -124,6 +134,8 @@ public class WidgetConfigurationService {
      */
     public void deleteOneByKey(String key) {
         widgetConfigurationRepository.deleteById(key);
+        renderedHtmlService.invalidateAll();
+        stringEncryptor.clearCache();
     }
 
     /**
@@ -167,6 +179,8 @@ public class WidgetConfigurationService {
         }
 
         widgetConfigurationRepository.save(widgetConfiguration);
+        renderedHtmlService.invalidateAll();
+        stringEncryptor.clearCache();
     }
 
     /**
@@ -179,4 +193,24 @@ public class WidgetConfigurationService {
     public void addOrUpdateConfigurations(List<WidgetConfiguration> widgetConfigurations, Category category) {
         widgetConfigurations.forEach(configuration -> this.addOrUpdateConfiguration(configuration, category));
     }
+
+    /**
+     * Encrypt again the secret configurations encrypted by another codec than the current one
+     *
+     * @return The number of configurations encrypted again
+     */
+    @Transactional
+    public int reEncryptSecrets() {
+        int reEncrypted = 0;
+
+        for (WidgetConfiguration widgetConfiguration : widgetConfigurationRepository.findByDataType(DataType.PASSWORD)) {
+            if (stringEncryptor.isReEncryptionNeeded(widgetConfiguration.getValue())) {
+                widgetConfiguration.setValue(stringEncryptor.reEncrypt(widgetConfiguration.getValue()));
+                widgetConfigurationRepository.save(widgetConfiguration);
+                reEncrypted++;
+            }
+        }
+
+        return reEncrypted;
+    }
 }
@@ -24,6 +24,8 @@ import io.suricate.monitoring.model.entity.widget.*;
 import io.suricate.monitoring.model.enums.WidgetAvailabilityEnum;
 import io.suricate.monitoring.repository.WidgetRepository;
 import io.suricate.monitoring.service.CacheService;
+import io.suricate.monitoring.service.mustache.RenderedHtmlService;
+import io.suricate.monitoring.service.mustache.WidgetTemplateService;
 import io.suricate.monitoring.service.specification.WidgetSearchSpecification;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -76,6 +78,16 @@ public class WidgetService {
      */
     private final AssetService assetService;
 
+    /**
+     * The compiled templates of the widgets
+     */
+    private final WidgetTemplateService widgetTemplateService;
+
+    /**
+     * The HTML rendered for the project widgets
+     */
+    private final RenderedHtmlService renderedHtmlService;
+
     /**
      * Constructor
      *
@@ -84,19 +96,25 @@ public class WidgetService {
      * @param widgetConfigurationService The configuration service
      * @param cacheService               The cache service
      * @param assetService               The asset service
+     * @param widgetTemplateService      The compiled templates of the widgets
+     * @param renderedHtmlService        The HTML rendered for the project widgets
      */
     @Autowired
     public WidgetService(final WidgetRepository widgetRepository,
                          final CategoryService categoryService,
                          final WidgetConfigurationService widgetConfigurationService,
                          final CacheService cacheService,
-                         final AssetService assetService) {
+                         final AssetService assetService,
+                         final WidgetTemplateService widgetTemplateService,
+                         final RenderedHtmlService renderedHtmlService) {
 
         this.widgetRepository = widgetRepository;
         this.categoryService = categoryService;
         this.widgetConfigurationService = widgetConfigurationService;
         this.cacheService = cacheService;
         this.assetService = assetService;
+        this.widgetTemplateService = widgetTemplateService;
+        this.renderedHtmlService = renderedHtmlService;
     }
 
     /**
@@ -341,6 +359,14 @@ public class WidgetService {
             widget.setCategory(category);
 
             widgetRepository.save(widget);
+
+            // The templates compiled from the previous HTML are no longer used
+            if (currentWidget != null) {
+                widgetTemplateService.invalidate(currentWidget.getId());
+            }
         }
+
+        // The params of the widgets may have changed
+        renderedHtmlService.invalidateAll();
     }
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.library;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The libraries of a set of widgets concatenated in one script
+ * The bundle is immutable, a new one is built when the libraries change
+ */
+@Getter
+@AllArgsConstructor
+public class LibraryBundle {
+
+    /**
+     * The hexadecimal SHA-256 of the content, used in the bundle URL
+     */
+    private final String hash;
+
+    /**
+     * The ids of the library assets, in the order of the bundle
+     */
+    private final List<Long> assetIds;
+
+    /**
+     * The concatenated libraries
+     */
+    private final byte[] content;
+
+    /**
+     * The content compressed with gzip
+     */
+    private final byte[] gzipContent;
+
+    /**
+     * Get the size of the bundle in memory
+     *
+     * @return The size in bytes
+     */
+    public int getWeight() {
+        return content.length + gzipContent.length;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.library;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.repository.LibraryRepository;
+import io.suricate.monitoring.service.api.AssetService;
+import io.suricate.monitoring.service.storage.FileSystemBlobStore;
+import io.suricate.monitoring.utils.CompressionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Build the library bundles, one script holding every library used by the widgets of a dashboard
+ * A bundle is built once per distinct set of libraries and kept until the next synchronization of the widget repositories
+ */
+@Service
+public class LibraryBundleService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LibraryBundleService.class);
+
+    /**
+     * Inserted between two libraries, so that a library without a final semicolon cannot break the next one
+     */
+    private static final byte[] SEPARATOR = "\n;\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The library repository
+     */
+    private final LibraryRepository libraryRepository;
+
+    /**
+     * The asset service
+     */
+    private final AssetService assetService;
+
+    /**
+     * The bundles by sorted list of asset ids
+     */
+    private final Cache<List<Long>, LibraryBundle> libraryBundles;
+
+    /**
+     * The hashes of the built bundles by sorted list of asset ids, kept when a bundle is evicted from memory
+     */
+    private final Map<List<Long>, String> libraryBundleHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     * @param libraryRepository     The library repository
+     * @param assetService          The asset service
+     * @param meterRegistry         The registry of the metrics
+     */
+    @Autowired
+    public LibraryBundleService(final ApplicationProperties applicationProperties,
+                                final LibraryRepository libraryRepository,
+                                final AssetService assetService,
+                                final MeterRegistry meterRegistry) {
+        this.libraryRepository = libraryRepository;
+        this.assetService = assetService;
+
+        this.libraryBundles = GuavaCacheMetrics.monitor(meterRegistry, CacheBuilder.newBuilder()
+            .maximumWeight(applicationProperties.assets.libraryBundlesCacheSize)
+            .weigher((List<Long> assetIds, LibraryBundle libraryBundle) -> libraryBundle.getWeight())
+            .recordStats()
+            .build(), "libraryBundles");
+    }
+
+    /**
+     * Get the ids of the library assets used by a list of project widgets
+     *
+     * @param projectWidgets The project widgets
+     * @return The sorted ids of the library assets
+     */
+    public List<Long> getLibraryAssetIds(final List<ProjectWidget> projectWidgets) {
+        List<Long> widgetIds = projectWidgets.stream().map(projectWidget -> projectWidget.getWidget().getId()).distinct().collect(Collectors.toList());
+        if (widgetIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return libraryRepository.getLibs(widgetIds).stream().distinct().sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Get the hash of the bundle of a list of library assets, without building it
+     *
+     * @param assetIds The ids of the library assets, in any order
+     * @return The hash, empty when the bundle has not been built since the last synchronization of the widget repositories
+     */
+    public Optional<String> findLibraryBundleHash(final List<Long> assetIds) {
+        List<Long> sortedAssetIds = assetIds.stream().distinct().sorted().collect(Collectors.toList());
+        return Optional.ofNullable(libraryBundleHashes.get(sortedAssetIds));
+    }
+
+    /**
+     * Build the bundle of a list of library assets in the background, when it's not in memory
+     *
+     * @param assetIds The ids of the library assets, in any order
+     */
+    @Async(AsyncConfiguration.ASYNC_EXECUTOR)
+    public void prepareLibraryBundle(final List<Long> assetIds) {
+        getLibraryBundle(assetIds);
+    }
+
+    /**
+     * Get the bundle of a list of library assets, building it if needed
+     *
+     * @param assetIds The ids of the library assets, in any order
+     * @return The bundle, empty when the list is empty or an asset cannot be read
+     */
+    public Optional<LibraryBundle> getLibraryBundle(final List<Long> assetIds) {
+        List<Long> sortedAssetIds = assetIds.stream().distinct().sorted().collect(Collectors.toList());
+        if (sortedAssetIds.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(libraryBundles.get(sortedAssetIds, () -> buildLibraryBundle(sortedAssetIds)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOGGER.error("Cannot build the bundle of the libraries {}", sortedAssetIds, e.getCause());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get a bundle by its hash
+     *
+     * @param hash     The hash of the bundle
+     * @param assetIds The ids of the library assets of the bundle, used to build it again when it's no longer in memory
+     * @return The bundle, empty when the libraries have changed since the hash was computed
+     */
+    public Optional<LibraryBundle> getLibraryBundle(final String hash, final List<Long> assetIds) {
+        return getLibraryBundle(assetIds).filter(libraryBundle -> libraryBundle.getHash().equals(hash));
+    }
+
+    /**
+     * Drop every bundle, called when the libraries are updated
+     */
+    public void clearCache() {
+        libraryBundles.invalidateAll();
+        libraryBundleHashes.clear();
+    }
+
+    /**
+     * Concatenate the libraries and compress the result
+     *
+     * @param sortedAssetIds The sorted ids of the library assets
+     * @return The bundle
+     * @throws IOException When a library cannot be read
+     */
+    private LibraryBundle buildLibraryBundle(final List<Long> sortedAssetIds) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (Long assetId : sortedAssetIds) {
+            assetService.copyContent(assetId, outputStream);
+            outputStream.write(SEPARATOR);
+        }
+
+        byte[] content = outputStream.toByteArray();
+        LOGGER.debug("Bundle of the libraries {} built ({} bytes)", sortedAssetIds, content.length);
+
+        LibraryBundle libraryBundle = new LibraryBundle(FileSystemBlobStore.hash(content), sortedAssetIds, content, CompressionUtils.gzip(content));
+        libraryBundleHashes.put(sortedAssetIds, libraryBundle.getHash());
+        return libraryBundle;
+    }
+}
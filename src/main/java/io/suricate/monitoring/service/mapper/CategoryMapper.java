@@ -41,6 +41,6 @@ public interface CategoryMapper {
      * @return The related category DTO
      */
     @Named("toCategoryDtoDefault")
-    @Mapping(target = "assetToken", expression = "java( category.getImage() != null ? io.suricate.monitoring.utils.IdUtils.encrypt(category.getImage().getId()) : null )")
+    @Mapping(target = "assetToken", expression = "java( category.getImage() != null ? io.suricate.monitoring.utils.IdUtils.encrypt(category.getImage().getId(), category.getImage().getContentHash()) : null )")
     CategoryResponseDto toCategoryDtoDefault(Category category);
 }
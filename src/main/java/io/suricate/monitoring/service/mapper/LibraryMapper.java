@@ -41,6 +41,6 @@ public interface LibraryMapper {
      * @return The related library DTO
      */
     @Named("toLibraryDtoDefault")
-    @Mapping(target = "assetToken", expression = "java( library.getAsset() != null ? io.suricate.monitoring.utils.IdUtils.encrypt(library.getAsset().getId()) : null )")
+    @Mapping(target = "assetToken", expression = "java( library.getAsset() != null ? io.suricate.monitoring.utils.IdUtils.encrypt(library.getAsset().getId(), library.getAsset().getContentHash()) : null )")
     LibraryResponseDto toLibraryDtoDefault(Library library);
 }
@@ -16,20 +16,30 @@
 
 package io.suricate.monitoring.service.mapper;
 
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetField;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetRequestDto;
 import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.WidgetParam;
 import io.suricate.monitoring.service.api.ProjectService;
 import io.suricate.monitoring.service.api.ProjectWidgetService;
 import io.suricate.monitoring.service.api.WidgetService;
-import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Interface that manage the generation DTO/Model objects for project widget class
@@ -56,6 +66,13 @@ public abstract class ProjectWidgetMapper {
     @Autowired
     protected WidgetService widgetService;
 
+    /**
+     * The executor rendering the widgets of a dashboard
+     */
+    @Autowired
+    @Qualifier(AsyncConfiguration.RENDER_EXECUTOR)
+    protected Executor renderExecutor;
+
     /* ************************* TO DTO ********************************************** */
 
     /* ******************************************************* */
@@ -79,13 +96,115 @@ public abstract class ProjectWidgetMapper {
     @Mapping(target = "widgetId", source = "projectWidget.widget.id")
     public abstract ProjectWidgetResponseDto toProjectWidgetDtoDefault(ProjectWidget projectWidget);
 
+    /**
+     * Tranform a project widget into a ProjectWidgetResponseDto, without its HTML and its backend config
+     *
+     * @param projectWidget The project widget to transform
+     * @return The related project widget DTO, to render
+     */
+    @Named("toProjectWidgetDtoWithoutRendering")
+    @Mapping(target = "widgetPosition.col", source = "projectWidget.col")
+    @Mapping(target = "widgetPosition.row", source = "projectWidget.row")
+    @Mapping(target = "widgetPosition.height", source = "projectWidget.height")
+    @Mapping(target = "widgetPosition.width", source = "projectWidget.width")
+    @Mapping(target = "instantiateHtml", ignore = true)
+    @Mapping(target = "backendConfig", ignore = true)
+    @Mapping(target = "projectToken", source = "projectWidget.project.token")
+    @Mapping(target = "widgetId", source = "projectWidget.widget.id")
+    protected abstract ProjectWidgetResponseDto toProjectWidgetDtoWithoutRendering(ProjectWidget projectWidget);
+
+    /**
+     * Tranform a project widget into a ProjectWidgetResponseDto holding only the selected fields
+     * The HTML and the backend config are only computed when selected
+     *
+     * @param projectWidget       The project widget to transform
+     * @param projectWidgetFields The selected fields
+     * @return The related project widget DTO
+     */
+    public ProjectWidgetResponseDto toProjectWidgetDto(ProjectWidget projectWidget, Set<ProjectWidgetField> projectWidgetFields) {
+        if (projectWidget == null) {
+            return null;
+        }
+
+        ProjectWidgetResponseDto projectWidgetResponseDto = toProjectWidgetDtoWithoutRendering(projectWidget);
+        if (projectWidgetFields.contains(ProjectWidgetField.INSTANTIATE_HTML)) {
+            projectWidgetResponseDto.setInstantiateHtml(projectWidgetService.instantiateProjectWidgetHtml(projectWidget));
+        }
+        if (projectWidgetFields.contains(ProjectWidgetField.BACKEND_CONFIG)) {
+            projectWidgetResponseDto.setBackendConfig(projectWidgetService.decryptSecretParamsIfNeeded(projectWidget.getWidget(), projectWidget.getBackendConfig()));
+        }
+
+        return ProjectWidgetField.retain(projectWidgetResponseDto, projectWidgetFields);
+    }
+
     /* ******************************************************* */
     /*                  List Mapping                         */
     /* ******************************************************* */
 
+    /**
+     * Tranform a list of project widgets into ProjectWidgetResponseDtos
+     *
+     * @param projectWidgets The project widgets to transform
+     * @return The related project widget DTOs, in the same order
+     */
     @Named("toProjectWidgetDtosDefault")
-    @IterableMapping(qualifiedByName = "toProjectWidgetDtoDefault")
-    public abstract List<ProjectWidgetResponseDto> toProjectWidgetDtosDefault(List<ProjectWidget> projectWidgets);
+    public List<ProjectWidgetResponseDto> toProjectWidgetDtosDefault(List<ProjectWidget> projectWidgets) {
+        return toProjectWidgetDtos(projectWidgets, ProjectWidgetField.ALL);
+    }
+
+    /**
+     * Tranform a list of project widgets into ProjectWidgetResponseDtos holding only the selected fields
+     * The widgets are rendered in parallel on the render executor. The params of the widgets are loaded first
+     * by the calling thread, bound to the JPA session, so the rendering threads never load a lazy association
+     *
+     * @param projectWidgets      The project widgets to transform
+     * @param projectWidgetFields The selected fields
+     * @return The related project widget DTOs, in the same order
+     */
+    public List<ProjectWidgetResponseDto> toProjectWidgetDtos(List<ProjectWidget> projectWidgets, Set<ProjectWidgetField> projectWidgetFields) {
+        if (projectWidgets == null) {
+            return null;
+        }
+
+        boolean instantiateHtml = projectWidgetFields.contains(ProjectWidgetField.INSTANTIATE_HTML);
+        boolean backendConfig = projectWidgetFields.contains(ProjectWidgetField.BACKEND_CONFIG);
+
+        Map<Long, List<WidgetParam>> widgetParamsByWidgetId = new HashMap<>();
+        List<ProjectWidgetResponseDto> projectWidgetResponseDtos = new ArrayList<>(projectWidgets.size());
+        List<CompletableFuture<Void>> renderings = new ArrayList<>(projectWidgets.size());
+
+        for (ProjectWidget projectWidget : projectWidgets) {
+            ProjectWidgetResponseDto projectWidgetResponseDto = ProjectWidgetField.retain(toProjectWidgetDtoWithoutRendering(projectWidget), projectWidgetFields);
+            projectWidgetResponseDtos.add(projectWidgetResponseDto);
+
+            if (instantiateHtml || backendConfig) {
+                List<WidgetParam> widgetParams = widgetParamsByWidgetId.computeIfAbsent(
+                    projectWidget.getWidget().getId(),
+                    widgetId -> widgetService.getFullListOfParams(projectWidget.getWidget())
+                );
+
+                renderings.add(CompletableFuture.runAsync(() -> {
+                    if (instantiateHtml) {
+                        projectWidgetResponseDto.setInstantiateHtml(projectWidgetService.instantiateProjectWidgetHtml(projectWidget, widgetParams));
+                    }
+                    if (backendConfig) {
+                        projectWidgetResponseDto.setBackendConfig(projectWidgetService.decryptSecretParamsIfNeeded(widgetParams, projectWidget.getBackendConfig()));
+                    }
+                }, renderExecutor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(renderings.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+
+        return projectWidgetResponseDtos;
+    }
 
     /* ************************* TO MODEL **************************************** */
 
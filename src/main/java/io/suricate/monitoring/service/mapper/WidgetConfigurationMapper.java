@@ -19,6 +19,7 @@ package io.suricate.monitoring.service.mapper;
 
 import io.suricate.monitoring.model.dto.api.widgetconfiguration.WidgetConfigurationResponseDto;
 import io.suricate.monitoring.model.entity.WidgetConfiguration;
+import io.suricate.monitoring.service.secret.SecretStringEncryptor;
 import org.jasypt.encryption.StringEncryptor;
 import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
@@ -43,7 +44,7 @@ import java.util.List;
 public abstract class WidgetConfigurationMapper {
 
     @Autowired
-    @Qualifier("jasyptStringEncryptor")
+    @Qualifier(SecretStringEncryptor.NAME)
     StringEncryptor stringEncryptor;
 
     /* ************************* TO DTO ********************************************** */
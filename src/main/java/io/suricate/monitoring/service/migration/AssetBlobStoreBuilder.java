@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.migration;
+
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.service.api.AssetService;
+import io.suricate.monitoring.service.storage.FileSystemBlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Move the asset contents stored in database to the blob store, when it is enabled
+ * Then delete the blobs no asset holds anymore, left by the assets removed with their widget, library or project
+ */
+@Component
+public class AssetBlobStoreBuilder implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetBlobStoreBuilder.class);
+
+    /**
+     * Number of assets moved by transaction
+     */
+    private static final int BATCH_SIZE = 20;
+
+    /**
+     * The asset service
+     */
+    private final AssetService assetService;
+
+    /**
+     * The blob store
+     */
+    private final FileSystemBlobStore fileSystemBlobStore;
+
+    /**
+     * Constructor
+     *
+     * @param assetService        The asset service
+     * @param fileSystemBlobStore The blob store
+     */
+    @Autowired
+    public AssetBlobStoreBuilder(final AssetService assetService, final FileSystemBlobStore fileSystemBlobStore) {
+        this.assetService = assetService;
+        this.fileSystemBlobStore = fileSystemBlobStore;
+    }
+
+    /**
+     * Move the asset contents on startup, batch by batch, on a separate thread
+     */
+    @Async(AsyncConfiguration.MIGRATION_EXECUTOR)
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        if (fileSystemBlobStore.isEnabled()) {
+            try {
+                Long lastId = assetService.moveContentsToBlobStore(0L, BATCH_SIZE);
+                while (lastId != null) {
+                    LOGGER.debug("Asset contents moved to the blob store until id {}", lastId);
+                    lastId = assetService.moveContentsToBlobStore(lastId, BATCH_SIZE);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error while moving the asset contents to the blob store", e);
+            }
+        }
+
+        try {
+            LOGGER.info("{} contents no longer used deleted from the blob store", assetService.deleteUnreferencedContents());
+        } catch (Exception e) {
+            LOGGER.error("Error while deleting the contents no longer used from the blob store", e);
+        }
+    }
+}
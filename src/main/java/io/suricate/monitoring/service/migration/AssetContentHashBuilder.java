@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.migration;
+
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.service.api.AssetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compute the hash of the asset contents stored before the hashes were kept, the hash is the ETag of the asset
+ */
+@Component
+public class AssetContentHashBuilder implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetContentHashBuilder.class);
+
+    /**
+     * Number of assets processed by transaction
+     */
+    private static final int BATCH_SIZE = 20;
+
+    /**
+     * The asset service
+     */
+    private final AssetService assetService;
+
+    /**
+     * Constructor
+     *
+     * @param assetService The asset service
+     */
+    @Autowired
+    public AssetContentHashBuilder(final AssetService assetService) {
+        this.assetService = assetService;
+    }
+
+    /**
+     * Compute the missing hashes on startup, batch by batch, on a separate thread
+     */
+    @Async(AsyncConfiguration.MIGRATION_EXECUTOR)
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        try {
+            Long lastId = assetService.computeContentHashes(0L, BATCH_SIZE);
+            while (lastId != null) {
+                LOGGER.debug("Asset content hashes computed until id {}", lastId);
+                lastId = assetService.computeContentHashes(lastId, BATCH_SIZE);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error while computing the asset content hashes", e);
+        }
+    }
+}
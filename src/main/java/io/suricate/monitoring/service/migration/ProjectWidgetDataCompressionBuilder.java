@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.migration;
+
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.service.api.ProjectWidgetService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compress the project widget data stored before the compression was enabled
+ */
+@Component
+public class ProjectWidgetDataCompressionBuilder implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectWidgetDataCompressionBuilder.class);
+
+    /**
+     * Number of project widgets rewritten by transaction
+     */
+    private static final int BATCH_SIZE = 50;
+
+    /**
+     * The project widget service
+     */
+    private final ProjectWidgetService projectWidgetService;
+
+    /**
+     * Constructor
+     *
+     * @param projectWidgetService The project widget service
+     */
+    @Autowired
+    public ProjectWidgetDataCompressionBuilder(final ProjectWidgetService projectWidgetService) {
+        this.projectWidgetService = projectWidgetService;
+    }
+
+    /**
+     * Compress the legacy data on startup, batch by batch, on a separate thread
+     */
+    @Async(AsyncConfiguration.MIGRATION_EXECUTOR)
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        try {
+            Long lastId = projectWidgetService.compressLegacyData(0L, BATCH_SIZE);
+            while (lastId != null) {
+                LOGGER.debug("Project widget data compressed until id {}", lastId);
+                lastId = projectWidgetService.compressLegacyData(lastId, BATCH_SIZE);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error while compressing the project widget data", e);
+        }
+    }
+}
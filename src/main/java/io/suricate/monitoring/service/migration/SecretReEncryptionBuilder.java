@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.migration;
+
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.service.api.ProjectWidgetService;
+import io.suricate.monitoring.service.api.WidgetConfigurationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypt again the widget secrets encrypted by another codec than the current one, when enabled in the application properties
+ * The secrets of both codecs can be read meanwhile, so the application is usable during the migration.
+ * Every node must read both codecs before the migration to AES-GCM. Migrating back to Jasypt is the way to roll back
+ */
+@Component
+public class SecretReEncryptionBuilder implements ApplicationListener<ApplicationReadyEvent> {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SecretReEncryptionBuilder.class);
+
+    /**
+     * Number of project widgets processed by transaction
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The project widget service
+     */
+    private final ProjectWidgetService projectWidgetService;
+
+    /**
+     * The widget configuration service
+     */
+    private final WidgetConfigurationService widgetConfigurationService;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties      The application properties
+     * @param projectWidgetService       The project widget service
+     * @param widgetConfigurationService The widget configuration service
+     */
+    @Autowired
+    public SecretReEncryptionBuilder(final ApplicationProperties applicationProperties,
+                                     final ProjectWidgetService projectWidgetService,
+                                     final WidgetConfigurationService widgetConfigurationService) {
+        this.applicationProperties = applicationProperties;
+        this.projectWidgetService = projectWidgetService;
+        this.widgetConfigurationService = widgetConfigurationService;
+    }
+
+    /**
+     * Encrypt again the secrets on startup, batch by batch, on a separate thread
+     */
+    @Async(AsyncConfiguration.MIGRATION_EXECUTOR)
+    @Override
+    public void onApplicationEvent(final ApplicationReadyEvent event) {
+        if (!applicationProperties.secrets.reEncrypt) {
+            return;
+        }
+
+        try {
+            int reEncryptedConfigurations = widgetConfigurationService.reEncryptSecrets();
+            LOGGER.debug("{} secret configurations encrypted again", reEncryptedConfigurations);
+
+            Long lastId = projectWidgetService.reEncryptSecrets(0L, BATCH_SIZE);
+            while (lastId != null) {
+                LOGGER.debug("Project widget secrets encrypted again until id {}", lastId);
+                lastId = projectWidgetService.reEncryptSecrets(lastId, BATCH_SIZE);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error while encrypting again the widget secrets", e);
+        }
+    }
+}
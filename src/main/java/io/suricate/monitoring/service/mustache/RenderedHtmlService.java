@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.mustache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Keep the HTML rendered for the project widgets
+ * A project widget is rendered once by version of its data, backend config and widget HTML,
+ * and the same HTML is then served to the dashboard loads and the websocket pushes
+ */
+@Service
+public class RenderedHtmlService {
+
+    /**
+     * Separator between the project widget id and the version in the keys
+     */
+    private static final String KEY_SEPARATOR = ":";
+
+    /**
+     * The rendered HTML by project widget id and version
+     */
+    private final Cache<String, String> renderedHtml;
+
+    /**
+     * The key of the last version rendered by project widget id, used to drop the previous versions
+     */
+    private final Map<Long, String> lastKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     * @param meterRegistry         The registry of the metrics
+     */
+    @Autowired
+    public RenderedHtmlService(final ApplicationProperties applicationProperties, final MeterRegistry meterRegistry) {
+        this.renderedHtml = CacheBuilder.newBuilder()
+            .maximumWeight(applicationProperties.widgets.renderedHtmlCacheSize)
+            .weigher((String key, String html) -> 2 * (key.length() + html.length()))
+            .recordStats()
+            .build();
+
+        GuavaCacheMetrics.monitor(meterRegistry, renderedHtml, "renderedWidgetHtml");
+    }
+
+    /**
+     * Get the HTML of a project widget, rendering it when its version has not been rendered yet
+     *
+     * @param projectWidget The project widget
+     * @param renderer      The rendering of the project widget
+     * @return The rendered HTML
+     */
+    public String getHtml(final ProjectWidget projectWidget, final Supplier<String> renderer) {
+        if (projectWidget.getId() == null || projectWidget.getWidget() == null) {
+            return renderer.get();
+        }
+
+        String key = projectWidget.getId() + KEY_SEPARATOR + getVersion(projectWidget);
+        try {
+            return renderedHtml.get(key, () -> {
+                String previousKey = lastKeys.put(projectWidget.getId(), key);
+                if (previousKey != null && !previousKey.equals(key)) {
+                    renderedHtml.invalidate(previousKey);
+                }
+
+                return renderer.get();
+            });
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            throw new IllegalStateException("Cannot render the project widget " + projectWidget.getId(), e.getCause());
+        }
+    }
+
+    /**
+     * Forget the HTML of a project widget
+     *
+     * @param projectWidgetId The project widget id
+     */
+    public void invalidate(final Long projectWidgetId) {
+        String key = lastKeys.remove(projectWidgetId);
+        if (key != null) {
+            renderedHtml.invalidate(key);
+        }
+    }
+
+    /**
+     * Forget every HTML, after a change of the widgets or of their global configuration
+     */
+    public void invalidateAll() {
+        lastKeys.clear();
+        renderedHtml.invalidateAll();
+    }
+
+    /**
+     * Compute the version of a project widget, from everything its HTML is rendered from
+     *
+     * @param projectWidget The project widget
+     * @return The version
+     */
+    private static String getVersion(final ProjectWidget projectWidget) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putString(hasher, projectWidget.getData());
+        putString(hasher, projectWidget.getBackendConfig());
+        putString(hasher, projectWidget.getWidget().getHtmlContent());
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Add a string to a hash, prefixed by its length so two strings cannot be confused with their concatenation
+     *
+     * @param hasher The hash
+     * @param value  The string, can be null
+     */
+    private static void putString(final Hasher hasher, final String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.mustache;
+
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import com.github.mustachejava.MustacheFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keep the compiled HTML templates of the widgets
+ * A template is compiled once by version of the widget HTML, and shared by every rendering of the widget instances
+ */
+@Service
+public class WidgetTemplateService {
+
+    /**
+     * The maximum number of compiled templates kept
+     */
+    private static final int MAXIMUM_TEMPLATES = 1000;
+
+    /**
+     * Separator between the widget id and the content hash in the keys
+     */
+    private static final String KEY_SEPARATOR = ":";
+
+    /**
+     * The mustache factory
+     */
+    private final MustacheFactory mustacheFactory;
+
+    /**
+     * The compiled templates by widget id and content hash
+     * A widget updated with a new HTML gets a new key, so a stale template is never returned
+     */
+    private final Cache<String, Mustache> templates = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_TEMPLATES)
+        .recordStats()
+        .build();
+
+    /**
+     * Constructor
+     *
+     * @param mustacheFactory The mustache factory
+     * @param meterRegistry   The registry of the metrics
+     */
+    @Autowired
+    public WidgetTemplateService(final MustacheFactory mustacheFactory, final MeterRegistry meterRegistry) {
+        this.mustacheFactory = mustacheFactory;
+        GuavaCacheMetrics.monitor(meterRegistry, templates, "widgetTemplates");
+    }
+
+    /**
+     * Get the compiled template of a widget HTML
+     *
+     * @param widget      The widget
+     * @param htmlContent The HTML of the widget
+     * @return The compiled template
+     * @throws MustacheException When the HTML is not a valid template
+     */
+    public Mustache getTemplate(final Widget widget, final String htmlContent) {
+        if (widget.getId() == null) {
+            return compile(widget, htmlContent);
+        }
+
+        try {
+            return templates.get(getKey(widget.getId(), htmlContent), () -> compile(widget, htmlContent));
+        } catch (UncheckedExecutionException | ExecutionException e) {
+            if (e.getCause() instanceof MustacheException) {
+                throw (MustacheException) e.getCause();
+            }
+
+            throw new IllegalStateException("Cannot compile the template of the widget " + widget.getTechnicalName(), e.getCause());
+        }
+    }
+
+    /**
+     * Forget the templates of a widget, after its import
+     *
+     * @param widgetId The widget id
+     */
+    public void invalidate(final Long widgetId) {
+        String keyPrefix = widgetId + KEY_SEPARATOR;
+        templates.asMap().keySet().removeIf(key -> key.startsWith(keyPrefix));
+    }
+
+    /**
+     * Compile a widget HTML
+     *
+     * @param widget      The widget
+     * @param htmlContent The HTML of the widget
+     * @return The compiled template
+     */
+    private Mustache compile(final Widget widget, final String htmlContent) {
+        return mustacheFactory.compile(new StringReader(htmlContent), widget.getTechnicalName());
+    }
+
+    /**
+     * Build the key of a template
+     *
+     * @param widgetId    The widget id
+     * @param htmlContent The HTML of the widget
+     * @return The widget id and the hash of the HTML
+     */
+    private static String getKey(final Long widgetId, final String htmlContent) {
+        return widgetId + KEY_SEPARATOR + Hashing.murmur3_128().hashString(htmlContent, StandardCharsets.UTF_8);
+    }
+}
@@ -25,7 +25,6 @@ import io.suricate.monitoring.model.enums.DataType;
 import io.suricate.monitoring.model.enums.NashornErrorTypeEnum;
 import io.suricate.monitoring.service.nashorn.JavaClassFilter;
 import io.suricate.monitoring.utils.JavascriptUtils;
-import io.suricate.monitoring.utils.JsonUtils;
 import io.suricate.monitoring.utils.PropertiesUtils;
 import io.suricate.monitoring.utils.ToStringUtils;
 import jdk.nashorn.api.scripting.NashornScriptEngineFactory;
@@ -127,12 +126,13 @@ public class NashornWidgetExecuteAsyncTask implements Callable<NashornResponse>
                 // Result
                 String json = (String) invocable.invokeFunction("run");
 
-                if (JsonUtils.isJsonValid(json)) {
-                    ret.setData(json);
+                ret.setData(json);
+                if (ret.isDataValid()) {
                     ret.setLog(ToStringUtils.hideConfig(sw.toString(), mapProperties.values()));
                 } else {
                     LOGGER.debug("JSON returned not isValid - widgetInstance {}", nashornRequest.getProjectWidgetId());
                     LOGGER.debug(json);
+                    ret.setData(null);
                     ret.setLog(ToStringUtils.hideConfig(sw.toString() + "\nReturned json not isValid - " + json, mapProperties.values()));
                     ret.setError(nashornRequest.isAlreadySuccess() ? NashornErrorTypeEnum.ERROR : NashornErrorTypeEnum.FATAL);
                 }
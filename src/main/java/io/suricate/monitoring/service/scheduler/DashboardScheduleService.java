@@ -16,17 +16,20 @@
 
 package io.suricate.monitoring.service.scheduler;
 
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
 import io.suricate.monitoring.model.dto.nashorn.NashornRequest;
 import io.suricate.monitoring.model.dto.nashorn.NashornResponse;
 import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
 import io.suricate.monitoring.model.entity.project.ProjectWidget;
 import io.suricate.monitoring.model.enums.NashornErrorTypeEnum;
-import io.suricate.monitoring.model.enums.UpdateType;
 import io.suricate.monitoring.model.enums.WidgetState;
 import io.suricate.monitoring.service.api.ProjectWidgetService;
 import io.suricate.monitoring.service.mapper.ProjectWidgetMapper;
 import io.suricate.monitoring.service.nashorn.NashornService;
 import io.suricate.monitoring.service.websocket.DashboardWebSocketService;
+import io.suricate.monitoring.service.websocket.ProjectWidgetDeltaService;
+import io.suricate.monitoring.service.websocket.ProjectWidgetUpdateCoalescingService;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +39,7 @@ import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.util.Date;
+import java.util.Map;
 
 @Service
 public class DashboardScheduleService {
@@ -60,6 +64,16 @@ public class DashboardScheduleService {
      */
     private final ProjectWidgetMapper projectWidgetMapper;
 
+    /**
+     * The project widget delta service
+     */
+    private final ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    /**
+     * The project widget update coalescing service
+     */
+    private final ProjectWidgetUpdateCoalescingService projectWidgetUpdateCoalescingService;
+
     /**
      * The nashorn service
      */
@@ -73,21 +87,27 @@ public class DashboardScheduleService {
     /**
      * Constructor
      *
-     * @param dashboardWebSocketService The dashboard websocket service
-     * @param projectWidgetService      The project widget service
-     * @param projectWidgetMapper       The project widget mapper
-     * @param nashornService            The nashorn service to inject
-     * @param applicationContext        The application context to inject
+     * @param dashboardWebSocketService            The dashboard websocket service
+     * @param projectWidgetService                 The project widget service
+     * @param projectWidgetMapper                  The project widget mapper
+     * @param projectWidgetDeltaService            The project widget delta service
+     * @param projectWidgetUpdateCoalescingService The project widget update coalescing service
+     * @param nashornService                       The nashorn service to inject
+     * @param applicationContext                   The application context to inject
      */
     @Autowired
     public DashboardScheduleService(final DashboardWebSocketService dashboardWebSocketService,
                                     final ProjectWidgetService projectWidgetService,
                                     final ProjectWidgetMapper projectWidgetMapper,
+                                    final ProjectWidgetDeltaService projectWidgetDeltaService,
+                                    final ProjectWidgetUpdateCoalescingService projectWidgetUpdateCoalescingService,
                                     final NashornService nashornService,
                                     final ApplicationContext applicationContext) {
         this.dashboardWebSocketService = dashboardWebSocketService;
         this.projectWidgetService = projectWidgetService;
         this.projectWidgetMapper = projectWidgetMapper;
+        this.projectWidgetDeltaService = projectWidgetDeltaService;
+        this.projectWidgetUpdateCoalescingService = projectWidgetUpdateCoalescingService;
         this.nashornService = nashornService;
         this.applicationContext = applicationContext;
     }
@@ -111,7 +131,7 @@ public class DashboardScheduleService {
             NashornRequest newNashornRequest = nashornService.getNashornRequestByProjectWidgetId(nashornResponse.getProjectWidgetId());
             callBack.schedule(newNashornRequest, false, false);
         }
-        notifyWidgetUpdate(nashornResponse.getProjectWidgetId(), nashornResponse.getProjectId());
+        notifyWidgetUpdate(nashornResponse.getProjectWidgetId(), nashornResponse.getProjectId(), nashornResponse);
     }
 
 
@@ -120,14 +140,44 @@ public class DashboardScheduleService {
      *
      * @param projectWidgetId project widget Id
      * @param projectId       project Id
+     * @param nashornResponse the nashorn response which updated the widget, null when there is none
      */
-    private void notifyWidgetUpdate(Long projectWidgetId, Long projectId) {
-        // Notify the dashboard
-        UpdateEvent event = new UpdateEvent(UpdateType.WIDGET);
+    private void notifyWidgetUpdate(Long projectWidgetId, Long projectId, NashornResponse nashornResponse) {
         ProjectWidget projectWidget = projectWidgetService.getOne(projectWidgetId).orElse(null);
-        event.setContent(projectWidgetMapper.toProjectWidgetDtoDefault(projectWidget));
 
-        dashboardWebSocketService.updateGlobalScreensByIdAndProjectWidgetId(projectId, projectWidgetId, event);
+        // Render the HTML from the data read when the response was validated, the mapper then finds it already rendered
+        if (projectWidget != null && nashornResponse != null && nashornResponse.isValid()
+            && StringUtils.equals(projectWidget.getData(), nashornResponse.getData())) {
+            Map<String, Object> parsedData = nashornResponse.getParsedData();
+            if (parsedData != null) {
+                projectWidgetService.instantiateProjectWidgetHtml(projectWidget, parsedData);
+            }
+        }
+
+        ProjectWidgetResponseDto projectWidgetResponseDto = projectWidgetMapper.toProjectWidgetDtoDefault(projectWidget);
+
+        // Let the other widgets of the project join the same frame
+        if (projectWidgetResponseDto != null && projectWidgetUpdateCoalescingService.isEnabled()) {
+            projectWidgetUpdateCoalescingService.add(projectWidgetResponseDto);
+            return;
+        }
+
+        if (projectWidgetResponseDto == null || projectWidgetResponseDto.getProjectToken() == null) {
+            dashboardWebSocketService.updateGlobalScreensByIdAndProjectWidgetId(projectId, projectWidgetId, projectWidgetDeltaService.toUpdateEvent(projectWidgetResponseDto));
+            return;
+        }
+
+        // Notify the dashboard with the fields changed since the last push, the delta is built in the lane of the project so the sequences are pushed in order
+        String projectToken = projectWidgetResponseDto.getProjectToken();
+        dashboardWebSocketService.executeInProjectLane(projectToken, () -> {
+            UpdateEvent event = projectWidgetDeltaService.toUpdateEvent(projectWidgetResponseDto);
+            if (event == null) {
+                LOGGER.debug("Widget instance {} unchanged, nothing to push", projectWidgetId);
+                return;
+            }
+
+            dashboardWebSocketService.updateGlobalScreensByProjectTokenAndProjectWidgetId(projectToken, projectWidgetId, event);
+        });
     }
 
     /**
@@ -151,7 +201,7 @@ public class DashboardScheduleService {
     @Transactional
     public void updateLogException(Exception exception, Long projectWidgetId, Long projectId) {
         projectWidgetService.updateLogExecution(new Date(), ExceptionUtils.getMessage(exception), projectWidgetId, WidgetState.STOPPED);
-        notifyWidgetUpdate(projectWidgetId, projectId);
+        notifyWidgetUpdate(projectWidgetId, projectId, null);
     }
 
 
@@ -27,6 +27,7 @@ import io.suricate.monitoring.service.api.WidgetService;
 import io.suricate.monitoring.service.nashorn.NashornService;
 import io.suricate.monitoring.service.nashorn.task.NashornResultAsyncTask;
 import io.suricate.monitoring.service.nashorn.task.NashornWidgetExecuteAsyncTask;
+import io.suricate.monitoring.service.secret.SecretStringEncryptor;
 import org.apache.commons.lang3.RandomUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -42,9 +43,13 @@ import org.springframework.stereotype.Service;
 import javax.transaction.Transactional;
 import java.lang.ref.WeakReference;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class NashornWidgetScheduler implements Schedulable {
@@ -106,13 +111,13 @@ public class NashornWidgetScheduler implements Schedulable {
      * @param applicationContext         The application context to inject
      * @param projectWidgetService       The project widget service to inject
      * @param nashornService             The nashorn service to inject
-     * @param stringEncryptor            The string encryptor to inject
+     * @param stringEncryptor            The encryptor of the widget secrets to inject
      */
     @Autowired
     public NashornWidgetScheduler(final ApplicationContext applicationContext,
                                   @Lazy final ProjectWidgetService projectWidgetService,
                                   final NashornService nashornService,
-                                  @Qualifier("jasyptStringEncryptor") final StringEncryptor stringEncryptor) {
+                                  @Qualifier(SecretStringEncryptor.NAME) final StringEncryptor stringEncryptor) {
         this.ctx = applicationContext;
         this.projectWidgetService = projectWidgetService;
         this.nashornService = nashornService;
@@ -161,6 +166,7 @@ public class NashornWidgetScheduler implements Schedulable {
 
     /**
      * Schedule a list of nashorn request
+     * The state transitions and the project widget loading are done by batch for the whole list
      *
      * @param nashornRequests The list of nashorn requests to schedule
      * @param start           If the scheduling should start now
@@ -168,13 +174,66 @@ public class NashornWidgetScheduler implements Schedulable {
      */
     public void scheduleList(final List<NashornRequest> nashornRequests, boolean start, boolean init) {
         try {
-            nashornRequests.forEach(nashornRequest -> schedule(nashornRequest, start, init));
+            if (nashornRequests == null || nashornRequests.isEmpty()) {
+                return;
+            }
+
+            // Get the beans inside schedule
+            ProjectWidgetService projectWidgetServiceInjected = ctx.getBean(ProjectWidgetService.class);
+            WidgetService widgetService = ctx.getBean(WidgetService.class);
+
+            Map<Boolean, List<NashornRequest>> nashornRequestsByExecutable = nashornRequests
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.partitioningBy(nashornService::isNashornRequestExecutable));
+
+            List<NashornRequest> executableRequests = nashornRequestsByExecutable.get(Boolean.TRUE);
+            Date now = new Date();
+
+            // Update the status if necessary
+            projectWidgetServiceInjected.updateState(WidgetState.STOPPED, getProjectWidgetIds(nashornRequestsByExecutable.get(Boolean.FALSE)), now);
+            projectWidgetServiceInjected.updateState(WidgetState.RUNNING, getProjectWidgetIds(executableRequests
+                .stream()
+                .filter(nashornRequest -> WidgetState.STOPPED == nashornRequest.getWidgetState())
+                .collect(Collectors.toList())), now);
+
+            if (executableRequests.isEmpty()) {
+                return;
+            }
+
+            Map<Long, ProjectWidget> projectWidgetsById = projectWidgetServiceInjected
+                .getAllByIds(getProjectWidgetIds(executableRequests))
+                .stream()
+                .collect(Collectors.toMap(ProjectWidget::getId, Function.identity()));
+
+            Map<Long, List<WidgetVariableResponse>> widgetVariablesByWidgetId = new HashMap<>();
+            executableRequests.forEach(nashornRequest -> {
+                ProjectWidget projectWidget = projectWidgetsById.getOrDefault(nashornRequest.getProjectWidgetId(), new ProjectWidget());
+                List<WidgetVariableResponse> widgetVariableResponses = projectWidget.getWidget() == null
+                    ? widgetService.getWidgetVariables(null)
+                    : widgetVariablesByWidgetId.computeIfAbsent(projectWidget.getWidget().getId(), widgetId -> widgetService.getWidgetVariables(projectWidget.getWidget()));
+
+                scheduleTasks(nashornRequest, start, init, widgetVariableResponses);
+            });
 
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
     }
 
+    /**
+     * Get the project widget ids of a list of nashorn requests
+     *
+     * @param nashornRequests The nashorn requests
+     * @return The project widget ids
+     */
+    private static List<Long> getProjectWidgetIds(final List<NashornRequest> nashornRequests) {
+        return nashornRequests
+            .stream()
+            .map(NashornRequest::getProjectWidgetId)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Method used to schedule widget update
      *
@@ -201,6 +260,21 @@ public class NashornWidgetScheduler implements Schedulable {
             projectWidgetServiceInjected.updateState(WidgetState.RUNNING, nashornRequest.getProjectWidgetId(), new Date());
         }
 
+        ProjectWidget projectWidget = projectWidgetServiceInjected.getOne(nashornRequest.getProjectWidgetId()).orElse(new ProjectWidget());
+        List<WidgetVariableResponse> widgetVariableResponses = widgetService.getWidgetVariables(projectWidget.getWidget());
+
+        scheduleTasks(nashornRequest, start, init, widgetVariableResponses);
+    }
+
+    /**
+     * Method used to create the scheduled tasks of an executable nashorn request
+     *
+     * @param nashornRequest          nashorn request
+     * @param start                   force widget update to start now
+     * @param init                    force widget to update randomly between START_DELAY_INCLUSIVE and END_DELAY_EXCLUSIVE
+     * @param widgetVariableResponses The variables of the widget
+     */
+    private void scheduleTasks(final NashornRequest nashornRequest, boolean start, boolean init, final List<WidgetVariableResponse> widgetVariableResponses) {
         Long delay = nashornRequest.getDelay();
         if (start) {
             delay = RandomUtils.nextLong(START_DELAY_INCLUSIVE, END_DELAY_EXCLUSIVE);
@@ -208,9 +282,6 @@ public class NashornWidgetScheduler implements Schedulable {
             delay = SMALL_DELAY;
         }
 
-        ProjectWidget projectWidget = projectWidgetServiceInjected.getOne(nashornRequest.getProjectWidgetId()).orElse(new ProjectWidget());
-        List<WidgetVariableResponse> widgetVariableResponses = widgetService.getWidgetVariables(projectWidget.getWidget());
-
         // Create scheduled future task
         ScheduledFuture<NashornResponse> future = scheduledExecutorService.schedule(new NashornWidgetExecuteAsyncTask(nashornRequest, stringEncryptor, widgetVariableResponses), delay, TimeUnit.SECONDS);
 
@@ -245,7 +316,9 @@ public class NashornWidgetScheduler implements Schedulable {
     public void cancelProjectScheduling(final Project project) {
         project
             .getWidgets()
-            .forEach(projectWidget -> cancelWidgetInstance(projectWidget.getId()));
+            .forEach(projectWidget -> cancelScheduledTasks(projectWidget.getId()));
+
+        projectWidgetService.updateStateByProjectId(WidgetState.STOPPED, project.getId());
     }
 
     /**
@@ -254,11 +327,20 @@ public class NashornWidgetScheduler implements Schedulable {
      * @param projectWidgetId the widget instance id
      */
     public void cancelWidgetInstance(Long projectWidgetId) {
+        cancelScheduledTasks(projectWidgetId);
+        projectWidgetService.updateState(WidgetState.STOPPED, projectWidgetId);
+    }
+
+    /**
+     * Method used to cancel the scheduled tasks of a widget instance without updating its state
+     *
+     * @param projectWidgetId the widget instance id
+     */
+    private void cancelScheduledTasks(Long projectWidgetId) {
         Pair<WeakReference<ScheduledFuture<NashornResponse>>, WeakReference<ScheduledFuture<Void>>> pair = jobs.get(projectWidgetId);
         if (pair != null) {
             cancel(projectWidgetId, pair.getLeft());
             cancel(projectWidgetId, pair.getRight());
         }
-        projectWidgetService.updateState(WidgetState.STOPPED, projectWidgetId);
     }
 }
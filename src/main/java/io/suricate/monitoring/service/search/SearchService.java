@@ -16,6 +16,7 @@
 
 package io.suricate.monitoring.service.search;
 
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
 import io.suricate.monitoring.model.entity.widget.Widget;
 import io.suricate.monitoring.model.enums.WidgetAvailabilityEnum;
 import org.apache.commons.lang3.StringUtils;
@@ -84,7 +85,7 @@ public class SearchService {
      * Create an initial Lucene index for the data already present in the database.
      * Run on a separate thread.
      */
-    @Async
+    @Async(AsyncConfiguration.SEARCH_EXECUTOR)
     @Transactional
     public void runSearchIndexer() {
         try {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.secret;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.encoder.SecretCodec;
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.exceptions.EncryptionInitializationException;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encryptor of the widget secrets (the PASSWORD params and configurations)
+ * The new secrets are encrypted by the codec of the application properties, the secrets are decrypted by the codec
+ * that produced them. The decrypted secrets are kept in memory for a short time, they are read on every execution
+ */
+@Service(SecretStringEncryptor.NAME)
+public class SecretStringEncryptor implements StringEncryptor {
+
+    /**
+     * The name of the bean
+     */
+    public static final String NAME = "secretStringEncryptor";
+
+    /**
+     * Every available codec
+     */
+    private final List<SecretCodec> secretCodecs;
+
+    /**
+     * The codec encrypting the new secrets
+     */
+    private final SecretCodec currentCodec;
+
+    /**
+     * The decrypted secrets by encrypted secret
+     */
+    private final Cache<String, String> decryptedSecrets;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     * @param secretCodecs          Every available codec
+     * @param meterRegistry         The registry of the metrics
+     */
+    @Autowired
+    public SecretStringEncryptor(final ApplicationProperties applicationProperties,
+                                 final List<SecretCodec> secretCodecs,
+                                 final MeterRegistry meterRegistry) {
+        this.secretCodecs = secretCodecs;
+        this.currentCodec = secretCodecs
+            .stream()
+            .filter(secretCodec -> secretCodec.getName().equals(applicationProperties.secrets.codec))
+            .findFirst()
+            .orElseThrow(() -> new EncryptionInitializationException("Unknown secret codec " + applicationProperties.secrets.codec));
+
+        this.decryptedSecrets = GuavaCacheMetrics.monitor(meterRegistry, CacheBuilder.newBuilder()
+            .maximumSize(applicationProperties.secrets.cacheSize)
+            .expireAfterWrite(applicationProperties.secrets.cacheTtl, TimeUnit.MILLISECONDS)
+            .recordStats()
+            .build(), "decryptedSecrets");
+    }
+
+    /**
+     * Encrypt a secret with the current codec
+     *
+     * @param message The secret
+     * @return The encrypted secret
+     */
+    @Override
+    public String encrypt(final String message) {
+        return message == null ? null : currentCodec.encrypt(message);
+    }
+
+    /**
+     * Decrypt a secret with the codec that produced it
+     *
+     * @param encryptedMessage The encrypted secret
+     * @return The secret
+     */
+    @Override
+    public String decrypt(final String encryptedMessage) {
+        if (encryptedMessage == null) {
+            return null;
+        }
+
+        String message = decryptedSecrets.getIfPresent(encryptedMessage);
+        if (message == null) {
+            message = getCodec(encryptedMessage).decrypt(encryptedMessage);
+            decryptedSecrets.put(encryptedMessage, message);
+        }
+
+        return message;
+    }
+
+    /**
+     * Test if a secret has been encrypted by another codec than the current one
+     *
+     * @param encryptedMessage The encrypted secret
+     * @return True if the secret should be encrypted again
+     */
+    public boolean isReEncryptionNeeded(final String encryptedMessage) {
+        return encryptedMessage != null && !currentCodec.supports(encryptedMessage);
+    }
+
+    /**
+     * Encrypt a secret again with the current codec
+     *
+     * @param encryptedMessage The secret encrypted by any codec
+     * @return The secret encrypted by the current codec
+     */
+    public String reEncrypt(final String encryptedMessage) {
+        return isReEncryptionNeeded(encryptedMessage) ? encrypt(getCodec(encryptedMessage).decrypt(encryptedMessage)) : encryptedMessage;
+    }
+
+    /**
+     * Wipe the decrypted secrets kept in memory
+     */
+    public void clearCache() {
+        decryptedSecrets.invalidateAll();
+    }
+
+    /**
+     * Get the codec that produced a secret
+     *
+     * @param encryptedMessage The encrypted secret
+     * @return The codec
+     */
+    private SecretCodec getCodec(final String encryptedMessage) {
+        return secretCodecs
+            .stream()
+            .filter(secretCodec -> secretCodec.supports(encryptedMessage))
+            .findFirst()
+            .orElseThrow(EncryptionOperationNotPossibleException::new);
+    }
+}
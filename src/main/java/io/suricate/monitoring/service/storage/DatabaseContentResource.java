@@ -0,0 +1,187 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Content of an asset held by the database, streamed from its column when it is read
+ * Each stream holds a read-only connection until it is closed, the content is never loaded in memory by the application
+ */
+public class DatabaseContentResource extends AbstractResource {
+
+    /**
+     * Query reading the content of an asset
+     */
+    public static final String CONTENT_QUERY = "SELECT content FROM asset WHERE id = ?";
+
+    /**
+     * The data source
+     */
+    private final DataSource dataSource;
+
+    /**
+     * The asset id
+     */
+    private final Long id;
+
+    /**
+     * The size of the content
+     */
+    private final long size;
+
+    /**
+     * Constructor
+     *
+     * @param dataSource The data source
+     * @param id         The asset id
+     * @param size       The size of the content
+     */
+    public DatabaseContentResource(final DataSource dataSource, final Long id, final long size) {
+        this.dataSource = dataSource;
+        this.id = id;
+        this.size = size;
+    }
+
+    /**
+     * Open a stream on the content, the connection is released when the stream is closed
+     *
+     * @return The stream of the content
+     * @throws IOException When the content cannot be read
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = dataSource.getConnection();
+            connection.setReadOnly(true);
+            statement = connection.prepareStatement(CONTENT_QUERY);
+            statement.setLong(1, id);
+            resultSet = statement.executeQuery();
+
+            InputStream inputStream = resultSet.next() ? resultSet.getBinaryStream(1) : null;
+            if (inputStream == null) {
+                throw new FileNotFoundException(getDescription() + " has no content in database");
+            }
+
+            return new DatabaseInputStream(inputStream, connection, statement, resultSet);
+        } catch (SQLException e) {
+            close(connection, statement, resultSet);
+            throw new IOException("Cannot read the content of the asset " + id, e);
+        } catch (IOException | RuntimeException e) {
+            close(connection, statement, resultSet);
+            throw e;
+        }
+    }
+
+    /**
+     * Release the connection of a stream
+     *
+     * @param connection The connection
+     * @param statement  The statement
+     * @param resultSet  The result set
+     */
+    private static void close(final Connection connection, final PreparedStatement statement, final ResultSet resultSet) {
+        JdbcUtils.closeResultSet(resultSet);
+        JdbcUtils.closeStatement(statement);
+        JdbcUtils.closeConnection(connection);
+    }
+
+    /**
+     * Get the size of the content, without reading it
+     *
+     * @return The size in bytes
+     */
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    /**
+     * Describe the resource
+     *
+     * @return The description
+     */
+    @Override
+    public String getDescription() {
+        return "Asset " + id;
+    }
+
+    /**
+     * Stream of a content releasing its connection once closed
+     */
+    private static final class DatabaseInputStream extends FilterInputStream {
+        /**
+         * The connection
+         */
+        private final Connection connection;
+
+        /**
+         * The statement
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * The result set
+         */
+        private final ResultSet resultSet;
+
+        /**
+         * Constructor
+         *
+         * @param inputStream The stream of the content column
+         * @param connection  The connection
+         * @param statement   The statement
+         * @param resultSet   The result set
+         */
+        private DatabaseInputStream(final InputStream inputStream, final Connection connection,
+                                    final PreparedStatement statement, final ResultSet resultSet) {
+            super(inputStream);
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        /**
+         * Close the stream and release the connection
+         *
+         * @throws IOException When the stream cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                DatabaseContentResource.close(connection, statement, resultSet);
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.storage;
+
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.utils.CompressionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content addressed blob store on the local file system
+ * Every blob is stored once under its SHA-256 hash, so the same content shared by several assets is written once
+ * The compressible blobs also have a gzip variant stored next to them, served as is to the clients accepting it
+ * A blob is deleted once no asset references it, the blobs written or reused recently are kept to cover the assets being saved
+ */
+@Service
+public class FileSystemBlobStore {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemBlobStore.class);
+
+    /**
+     * Format of a blob key (hexadecimal SHA-256)
+     */
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * Extension of the gzip variant of a blob
+     */
+    private static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     */
+    @Autowired
+    public FileSystemBlobStore(final ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Compute the key of a content
+     *
+     * @param content The content
+     * @return The hexadecimal SHA-256 of the content
+     */
+    public static String hash(final byte[] content) {
+        return Hashing.sha256().hashBytes(content).toString();
+    }
+
+    /**
+     * Test if the new contents should be written in the blob store
+     *
+     * @return True if the blob store is enabled
+     */
+    public boolean isEnabled() {
+        return applicationProperties.assets.blobStore.enabled && isConfigured();
+    }
+
+    /**
+     * Test if the blob store has a directory, its blobs can be read even when the blob store is disabled
+     *
+     * @return True if the directory of the blob store is set
+     */
+    public boolean isConfigured() {
+        return StringUtils.isNotBlank(applicationProperties.assets.blobStore.path);
+    }
+
+    /**
+     * Write a content in the blob store, if not already present
+     *
+     * @param content     The content to write
+     * @param precompress True to store a gzip variant of the content next to it, when it is smaller
+     * @return The key of the content
+     * @throws IOException When the blob cannot be written
+     */
+    public String put(final byte[] content, final boolean precompress) throws IOException {
+        String hash = hash(content);
+        Path blobPath = resolve(hash);
+
+        if (!Files.exists(blobPath)) {
+            write(blobPath, content);
+        } else {
+            touch(blobPath);
+        }
+
+        Path gzipPath = blobPath.resolveSibling(hash + GZIP_EXTENSION);
+        if (precompress && !Files.exists(gzipPath)) {
+            byte[] gzipContent = CompressionUtils.gzip(content);
+            if (gzipContent.length < content.length) {
+                write(gzipPath, gzipContent);
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * Write a content in the blob store while it is produced, without holding it in memory
+     * The content is hashed while it is written in a temporary file, then moved under its key
+     *
+     * @param contentWriter Write the content
+     * @param precompress   True to store a gzip variant of the content next to it, when it is smaller
+     * @return The key of the content, empty when there is no content to write
+     * @throws IOException When the blob cannot be written
+     */
+    public Optional<String> put(final ContentWriter contentWriter, final boolean precompress) throws IOException {
+        Path rootPath = Paths.get(applicationProperties.assets.blobStore.path);
+        Files.createDirectories(rootPath);
+
+        Path tempPath = Files.createTempFile(rootPath, "blob", ".tmp");
+        try {
+            HashingOutputStream hashingOutputStream;
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempPath))) {
+                hashingOutputStream = new HashingOutputStream(Hashing.sha256(), outputStream);
+                if (!contentWriter.write(hashingOutputStream)) {
+                    return Optional.empty();
+                }
+            }
+
+            String hash = hashingOutputStream.hash().toString();
+            Path blobPath = resolve(hash);
+            if (!Files.exists(blobPath)) {
+                move(tempPath, blobPath);
+            } else {
+                touch(blobPath);
+            }
+
+            Path gzipPath = blobPath.resolveSibling(hash + GZIP_EXTENSION);
+            if (precompress && !Files.exists(gzipPath)) {
+                writeGzip(blobPath, gzipPath);
+            }
+
+            return Optional.of(hash);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Write the gzip variant of a blob from its file, kept only when it is smaller
+     *
+     * @param blobPath The file of the blob
+     * @param gzipPath The file of the gzip variant
+     * @throws IOException When the gzip variant cannot be written
+     */
+    private static void writeGzip(final Path blobPath, final Path gzipPath) throws IOException {
+        Path tempPath = Files.createTempFile(gzipPath.getParent(), gzipPath.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(tempPath))) {
+                Files.copy(blobPath, outputStream);
+            }
+
+            if (Files.size(tempPath) < Files.size(blobPath)) {
+                move(tempPath, gzipPath);
+            }
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Move a temporary file under its final name, a reader should never see a partial blob
+     *
+     * @param tempPath The temporary file
+     * @param path     The final file
+     * @throws IOException When the file cannot be moved
+     */
+    private static void move(final Path tempPath, final Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        try {
+            Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            LOGGER.debug("Blob {} written concurrently", path.getFileName());
+        }
+    }
+
+    /**
+     * Write a file of the blob store
+     * The content is written in a temporary file first, a reader should never see a partial blob
+     *
+     * @param path    The file to write
+     * @param content The content of the file
+     * @throws IOException When the file cannot be written
+     */
+    private static void write(final Path path, final byte[] content) throws IOException {
+        Files.createDirectories(path.getParent());
+
+        Path tempPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempPath, content);
+            move(tempPath, path);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Mark a blob as reused, so that it is not deleted while the asset reusing it is being saved
+     *
+     * @param path The file of the blob
+     */
+    private static void touch(final Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.warn("Cannot touch the blob {}: {}", path.getFileName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Delete a blob and its gzip variant, unless it has been written or reused within the retention
+     *
+     * @param hash The key of the blob
+     * @return True if the blob has been deleted
+     * @throws IOException When the blob cannot be deleted
+     */
+    public boolean delete(final String hash) throws IOException {
+        Optional<Path> blobPath = get(hash);
+        if (!blobPath.isPresent() || isRecent(blobPath.get())) {
+            return false;
+        }
+
+        Files.deleteIfExists(blobPath.get().resolveSibling(hash + GZIP_EXTENSION));
+        return Files.deleteIfExists(blobPath.get());
+    }
+
+    /**
+     * Delete the blobs no longer referenced, and the temporary files left by an interrupted write
+     *
+     * @param isReferenced Test if a blob key is referenced by an asset
+     * @return The number of blobs deleted
+     * @throws IOException When the blob store cannot be read
+     */
+    public int sweep(final Predicate<String> isReferenced) throws IOException {
+        Path rootPath = Paths.get(applicationProperties.assets.blobStore.path);
+        if (!Files.isDirectory(rootPath)) {
+            return 0;
+        }
+
+        List<Path> paths;
+        try (Stream<Path> files = Files.walk(rootPath, 2)) {
+            paths = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        int deletedBlobs = 0;
+        for (Path path : paths) {
+            String fileName = path.getFileName().toString();
+            if (HASH_PATTERN.matcher(fileName).matches()) {
+                if (!isRecent(path) && !isReferenced.test(fileName) && delete(fileName)) {
+                    deletedBlobs++;
+                }
+            } else if (fileName.endsWith(".tmp") && !isRecent(path)) {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        return deletedBlobs;
+    }
+
+    /**
+     * Test if a file has been written or reused within the retention of the blobs no longer referenced
+     *
+     * @param path The file
+     * @return True if the file is recent
+     * @throws IOException When the file cannot be read
+     */
+    private boolean isRecent(final Path path) throws IOException {
+        return Files.getLastModifiedTime(path).toMillis() > System.currentTimeMillis() - applicationProperties.assets.blobStore.orphanRetention;
+    }
+
+    /**
+     * Get the file holding a blob
+     *
+     * @param hash The key of the blob
+     * @return The file if the blob is present
+     */
+    public Optional<Path> get(final String hash) {
+        if (hash == null || !HASH_PATTERN.matcher(hash).matches() || !isConfigured()) {
+            return Optional.empty();
+        }
+
+        Path blobPath = resolve(hash);
+        return Files.isRegularFile(blobPath) ? Optional.of(blobPath) : Optional.empty();
+    }
+
+    /**
+     * Get the file holding the gzip variant of a blob
+     *
+     * @param hash The key of the blob
+     * @return The file if the blob has been precompressed
+     */
+    public Optional<Path> getGzip(final String hash) {
+        return get(hash)
+            .map(blobPath -> blobPath.resolveSibling(hash + GZIP_EXTENSION))
+            .filter(Files::isRegularFile);
+    }
+
+    /**
+     * Get the location of a blob, blobs are spread in sub directories by the first two characters of their key
+     *
+     * @param hash The key of the blob
+     * @return The path of the blob
+     */
+    private Path resolve(final String hash) {
+        return Paths.get(applicationProperties.assets.blobStore.path, hash.substring(0, 2), hash);
+    }
+
+    /**
+     * Write a content produced on the fly, such as a content read from the database
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        /**
+         * Write the content
+         *
+         * @param outputStream The stream receiving the content
+         * @return False when there is no content
+         * @throws IOException When the content cannot be read or written
+         */
+        boolean write(OutputStream outputStream) throws IOException;
+    }
+}
@@ -16,28 +16,49 @@
 
 package io.suricate.monitoring.service.websocket;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Striped;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
 import io.suricate.monitoring.model.dto.nashorn.NashornRequest;
 import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
 import io.suricate.monitoring.model.dto.websocket.WebsocketClient;
 import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
 import io.suricate.monitoring.model.enums.UpdateType;
 import io.suricate.monitoring.service.api.ProjectService;
 import io.suricate.monitoring.service.mapper.ProjectMapper;
 import io.suricate.monitoring.service.nashorn.NashornService;
 import io.suricate.monitoring.service.scheduler.NashornWidgetScheduler;
+import io.suricate.monitoring.utils.WebsocketUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.MultiValueMap;
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 /**
  * Manage the dashboards messaging through websockets
@@ -51,11 +72,36 @@ public class DashboardWebSocketService {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(DashboardWebSocketService.class);
 
+    /**
+     * Number of stripes of the project locks
+     */
+    private static final int PROJECT_LOCK_STRIPES = 1024;
+
+    /**
+     * The STOMP header holding the type of the update events
+     */
+    public static final String UPDATE_TYPE_HEADER = "update-type";
+
+    /**
+     * The STOMP header holding the ids of the project widgets updated by a widget event, separated by commas
+     */
+    public static final String PROJECT_WIDGET_IDS_HEADER = "project-widget-ids";
+
     /**
      * The stomp websocket message template
      */
     private final SimpMessagingTemplate simpMessagingTemplate;
 
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The JSON mapper used to serialize the payloads
+     */
+    private final ObjectMapper objectMapper;
+
     /**
      * The project service
      */
@@ -77,14 +123,40 @@ public class DashboardWebSocketService {
     private final NashornWidgetScheduler nashornWidgetScheduler;
 
     /**
-     * MultiMap containing the projectToken as Key and the list of the WebsocketClient connected as value
+     * The project widget delta service
+     */
+    private final ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    /**
+     * The project snapshot service
+     */
+    private final ProjectSnapshotService projectSnapshotService;
+
+    /**
+     * The screen stream service, pushing the events to the screens connected through Server-Sent Events
+     */
+    private final ScreenStreamService screenStreamService;
+
+    /**
+     * The connected clients, by project token, websocket session id and screen code
+     */
+    private final WebsocketClientRegistry websocketClientRegistry = new WebsocketClientRegistry();
+
+    /**
+     * The lanes pushing the events of each project in order
+     */
+    private final ProjectLaneExecutor projectLaneExecutor;
+
+    /**
+     * The locks running the first and last client actions of a project one after the other, until their commit
+     * Two projects only wait for each other when they share a stripe
      */
-    private Multimap<String, WebsocketClient> projectClients = Multimaps.synchronizedListMultimap(ArrayListMultimap.create());
+    private final Striped<Lock> projectLocks = Striped.lazyWeakLock(PROJECT_LOCK_STRIPES);
 
     /**
-     * SynchronizedMap containing the websocket session ID as key and the related WebsocketClient
+     * The transactions of the first and last client actions, committed before the lock of the project is released
      */
-    private Map<String, WebsocketClient> sessionClient = Collections.synchronizedMap(new HashMap<>());
+    private final TransactionTemplate projectClientTransactionTemplate;
 
     /**
      * Constructor
@@ -93,40 +165,68 @@ public class DashboardWebSocketService {
      * @param projectService         The project service
      * @param projectMapper          The project mapper
      * @param nashornService         The nashorn service
-     * @param nashornWidgetScheduler The nashorn scheduler
+     * @param nashornWidgetScheduler    The nashorn scheduler
+     * @param projectWidgetDeltaService The project widget delta service
+     * @param applicationProperties     The application properties
+     * @param projectSnapshotService    The project snapshot service
+     * @param screenStreamService       The screen stream service
+     * @param websocketExecutor         The executor pushing the events to the screens
+     * @param transactionManager        The transaction manager
      */
     @Autowired
     public DashboardWebSocketService(final SimpMessagingTemplate simpMessagingTemplate,
                                      @Lazy final ProjectService projectService,
                                      @Lazy final ProjectMapper projectMapper,
                                      final NashornService nashornService,
-                                     final NashornWidgetScheduler nashornWidgetScheduler) {
+                                     final NashornWidgetScheduler nashornWidgetScheduler,
+                                     final ProjectWidgetDeltaService projectWidgetDeltaService,
+                                     final ApplicationProperties applicationProperties,
+                                     @Lazy final ProjectSnapshotService projectSnapshotService,
+                                     @Lazy final ScreenStreamService screenStreamService,
+                                     @Qualifier(AsyncConfiguration.WEBSOCKET_EXECUTOR) final Executor websocketExecutor,
+                                     final PlatformTransactionManager transactionManager) {
         this.simpMessagingTemplate = simpMessagingTemplate;
+        this.objectMapper = getWebsocketObjectMapper(simpMessagingTemplate);
         this.projectService = projectService;
         this.projectMapper = projectMapper;
         this.nashornService = nashornService;
         this.nashornWidgetScheduler = nashornWidgetScheduler;
+        this.projectWidgetDeltaService = projectWidgetDeltaService;
+        this.applicationProperties = applicationProperties;
+        this.projectSnapshotService = projectSnapshotService;
+        this.screenStreamService = screenStreamService;
+        this.projectLaneExecutor = new ProjectLaneExecutor(websocketExecutor);
+        this.projectClientTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.projectClientTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     /**
      * Add a new link between the projectToken and a WebsocketClient
      * Used when a new Websocket connection is done
+     * The widgets of the project are scheduled with its first client and committed before a concurrent last client can cancel them
      *
      * @param projectToken    The connected projectToken
      * @param websocketClient The related websocket client
      */
-    @Transactional
     public void addProjectClient(final String projectToken, final WebsocketClient websocketClient) {
-        boolean shouldInstantiateProject = !projectClients.containsKey(projectToken);
-        projectClients.put(projectToken, websocketClient);
-
-        if (shouldInstantiateProject) {
-            Optional<Project> projectOpt = projectService.getOneByToken(projectToken);
-
-            if (projectOpt.isPresent()) {
-                List<NashornRequest> nashornRequest = nashornService.getNashornRequestsByProject(projectOpt.get());
-                nashornWidgetScheduler.scheduleList(nashornRequest, true, false);
+        Lock projectLock = projectLocks.get(projectToken);
+        projectLock.lock();
+        try {
+            if (!websocketClientRegistry.addProjectClient(projectToken, websocketClient)) {
+                return;
             }
+
+            projectClientTransactionTemplate.execute(status -> {
+                Optional<Project> projectOpt = projectService.getOneByTokenWithWidgets(projectToken);
+
+                if (projectOpt.isPresent()) {
+                    List<NashornRequest> nashornRequest = nashornService.getNashornRequestsByProject(projectOpt.get());
+                    nashornWidgetScheduler.scheduleList(nashornRequest, true, false);
+                }
+                return null;
+            });
+        } finally {
+            projectLock.unlock();
         }
     }
 
@@ -138,21 +238,35 @@ public class DashboardWebSocketService {
      */
     @Transactional
     public List<WebsocketClient> getWebsocketClientsByProjectToken(final String projectToken) {
-        return new ArrayList<>(projectClients.get(projectToken));
+        return websocketClientRegistry.getProjectClients(projectToken);
     }
 
     /**
      * Remove a link between a projectToken and WebsocketClient
      *
+     * The widgets of the project are cancelled with its last client and committed before a next first client can schedule them
+     *
      * @param projectToken    The projectToken
      * @param websocketClient The websocket client
      */
-    @Transactional
     public void removeProjectClient(final String projectToken, final WebsocketClient websocketClient) {
-        projectClients.remove(projectToken, websocketClient);
+        Lock projectLock = projectLocks.get(projectToken);
+        projectLock.lock();
+        try {
+            if (!websocketClientRegistry.removeProjectClient(projectToken, websocketClient)) {
+                return;
+            }
 
-        if (!projectClients.containsKey(projectToken)) {
-            projectService.getOneByToken(projectToken).ifPresent(nashornWidgetScheduler::cancelProjectScheduling);
+            projectClientTransactionTemplate.execute(status -> {
+                projectService.getOneByToken(projectToken).ifPresent(project -> {
+                    nashornWidgetScheduler.cancelProjectScheduling(project);
+                    // The next screen will receive every widget entirely
+                    projectWidgetDeltaService.forget(project.getWidgets().stream().map(ProjectWidget::getId).collect(Collectors.toList()));
+                });
+                return null;
+            });
+        } finally {
+            projectLock.unlock();
         }
     }
 
@@ -163,16 +277,7 @@ public class DashboardWebSocketService {
      * @param websocketClient    The related websocket client
      */
     public void addSessionClient(final String websocketSessionId, final WebsocketClient websocketClient) {
-        if (sessionClient.containsKey(websocketSessionId)) {
-            sessionClient.replace(websocketSessionId, websocketClient);
-        } else {
-            sessionClient.values().stream()
-                .filter(wsClient -> wsClient.getScreenCode().equals(websocketClient.getScreenCode()))
-                .findAny()
-                .ifPresent(sessionClientWithSameScreenCode -> sessionClient.remove(sessionClientWithSameScreenCode.getScreenCode()));
-
-            sessionClient.put(websocketSessionId, websocketClient);
-        }
+        websocketClientRegistry.addSessionClient(websocketSessionId, websocketClient);
     }
 
     /**
@@ -183,14 +288,7 @@ public class DashboardWebSocketService {
      * @return The websocket session removed
      */
     public WebsocketClient removeSessionClientByWebsocketSessionIdAndSubscriptionId(final String websocketSessionId, final String websocketSubscriptionId) {
-        WebsocketClient websocketClient = null;
-
-        if (sessionClient.containsKey(websocketSessionId) &&
-            sessionClient.get(websocketSessionId).getSubscriptionId().equals(websocketSubscriptionId)) {
-            websocketClient = sessionClient.remove(websocketSessionId);
-        }
-
-        return websocketClient;
+        return websocketClientRegistry.removeSessionClient(websocketSessionId, websocketSubscriptionId);
     }
 
     /**
@@ -200,13 +298,7 @@ public class DashboardWebSocketService {
      * @return The websocket session removed
      */
     public WebsocketClient removeSessionClientByWebsocketSessionId(final String websocketSessionId) {
-        WebsocketClient websocketClient = null;
-
-        if (sessionClient.containsKey(websocketSessionId)) {
-            websocketClient = sessionClient.remove(websocketSessionId);
-        }
-
-        return websocketClient;
+        return websocketClientRegistry.removeSessionClient(websocketSessionId, null);
     }
 
     /**
@@ -219,13 +311,24 @@ public class DashboardWebSocketService {
         updateGlobalScreensByProjectToken(projectService.getTokenByProjectId(projectId), payload);
     }
 
+    /**
+     * Run a task in the lane of a project, after the events of the project already submitted
+     * A task building widget events assigns their sequences in the order the events are pushed
+     *
+     * @param projectToken The project token
+     * @param task         The task
+     */
+    public void executeInProjectLane(final String projectToken, final Runnable task) {
+        projectLaneExecutor.execute(projectToken.trim(), task);
+    }
+
     /**
      * Method used for updates by project token every screens connected to this project
+     * The events of a project are pushed in order
      *
      * @param projectToken the project token
      * @param payload      the payload content
      */
-    @Async
     public void updateGlobalScreensByProjectToken(String projectToken, Object payload) {
         LOGGER.debug("Update project's screen {}", projectToken);
         LOGGER.trace("Update project's screen {}, data: {}", projectToken, payload);
@@ -235,11 +338,13 @@ public class DashboardWebSocketService {
             return;
         }
 
-        simpMessagingTemplate.convertAndSendToUser(
-            projectToken.trim(),
-            "/queue/live",
-            payload
-        );
+        executeInProjectLane(projectToken, () -> {
+            if (!ProjectWidgetDeltaService.isSequenced(payload)) {
+                projectSnapshotService.invalidate(projectToken);
+            }
+            sendToUsers(Collections.singletonList(projectToken.trim()), "/queue/live", payload);
+            screenStreamService.publish(projectToken.trim(), payload);
+        });
     }
 
     /**
@@ -255,12 +360,12 @@ public class DashboardWebSocketService {
 
     /**
      * Method used to update widget by project token, projectWidgetId for every screens connected to this widget
+     * The events of a project are pushed in order
      *
      * @param projectToken    the project token
      * @param projectWidgetId The project widget id
      * @param payload         the payload content
      */
-    @Async
     public void updateGlobalScreensByProjectTokenAndProjectWidgetId(final String projectToken, final Long projectWidgetId, final Object payload) {
         LOGGER.debug("Update project's screen {}, project widget {}", projectToken, projectWidgetId);
         LOGGER.trace("Update project's screen {}, , project widget {}, data: {}", projectToken, projectWidgetId, payload);
@@ -274,11 +379,13 @@ public class DashboardWebSocketService {
             return;
         }
 
-        simpMessagingTemplate.convertAndSendToUser(
-            projectToken.trim() + "-projectWidget-" + projectWidgetId,
-            "/queue/live",
-            payload
-        );
+        executeInProjectLane(projectToken, () -> {
+            if (!ProjectWidgetDeltaService.isSequenced(payload)) {
+                projectSnapshotService.invalidate(projectToken);
+            }
+            sendToUsers(Collections.singletonList(projectToken.trim() + "-projectWidget-" + projectWidgetId), "/queue/live", payload);
+            screenStreamService.publish(projectToken.trim(), payload);
+        });
     }
 
     /**
@@ -288,16 +395,24 @@ public class DashboardWebSocketService {
      * @param screenCode   The screen code
      * @param payload      data to send
      */
-    @Async
     public void updateUniqueScreen(String projectToken, int screenCode, Object payload) {
         LOGGER.debug("screen unique");
         LOGGER.debug("Update project's screen {} for user {}, data: {}", projectToken, screenCode, payload);
 
-        simpMessagingTemplate.convertAndSendToUser(
-            projectToken.trim() + "-" + screenCode,
-            "/queue/unique",
-            payload
-        );
+        List<WebsocketClient> screenClients = websocketClientRegistry.getScreenClients(projectToken, String.valueOf(screenCode));
+        if (screenClients.isEmpty()) {
+            LOGGER.debug("The screen {} of the project {} is not connected", screenCode, projectToken);
+            return;
+        }
+
+        executeInProjectLane(projectToken, () -> {
+            if (screenClients.stream().anyMatch(screenClient -> !ScreenStreamService.isStreamClient(screenClient))) {
+                sendToUsers(Collections.singletonList(projectToken.trim() + "-" + screenCode), "/queue/unique", payload);
+            }
+            if (screenClients.stream().anyMatch(ScreenStreamService::isStreamClient)) {
+                screenStreamService.publishToScreen(projectToken.trim(), String.valueOf(screenCode), payload);
+            }
+        });
     }
 
     /**
@@ -310,11 +425,7 @@ public class DashboardWebSocketService {
         UpdateEvent updateEvent = new UpdateEvent(UpdateType.CONNECT);
         updateEvent.setContent(projectMapper.toProjectDtoDefault(project));
 
-        simpMessagingTemplate.convertAndSendToUser(
-            screenCode,
-            "/queue/connect",
-            updateEvent
-        );
+        sendToUsers(Collections.singletonList(screenCode), "/queue/connect", updateEvent);
     }
 
     /**
@@ -340,11 +451,84 @@ public class DashboardWebSocketService {
      * Method used to force reload all connected client
      */
     public void reloadAllConnectedDashboard() {
-        Iterator<String> it = projectClients.keySet().iterator();
+        List<String> projectTokens = websocketClientRegistry.getProjectTokens().stream().map(String::trim).collect(Collectors.toList());
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.RELOAD);
+
+        projectSnapshotService.invalidateAll();
+        sendToUsers(projectTokens, "/queue/live", updateEvent);
+        projectTokens.forEach(projectToken -> screenStreamService.publish(projectToken, updateEvent));
+    }
 
-        while (it.hasNext()) {
-            updateGlobalScreensByProjectToken(it.next(), new UpdateEvent(UpdateType.RELOAD));
+    /**
+     * Send the same payload to several user destinations
+     * The payload is serialized once, and the same buffer is shared by every destination and every session behind them
+     * With an external broker, the user destinations are sent to the matching topics
+     * The type of an update event and its project widgets are sent in headers, so the outbound queues know which frames can be merged or dropped
+     *
+     * @param users       The users (project token, screen code...) of the destinations
+     * @param destination The destination
+     * @param payload     The payload to send
+     */
+    public void sendToUsers(final Collection<String> users, final String destination, final Object payload) {
+        byte[] serializedPayload;
+        try {
+            serializedPayload = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Cannot serialize the payload: {}", payload, e);
+            return;
+        }
+
+        Message<byte[]> message = MessageBuilder
+            .withPayload(serializedPayload)
+            .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+            .setHeader(NativeMessageHeaderAccessor.NATIVE_HEADERS, getNativeHeaders(payload))
+            .build();
+
+        boolean brokerRelay = applicationProperties.websocket.brokerRelay.enabled;
+        for (String user : users) {
+            String userDestination = simpMessagingTemplate.getUserDestinationPrefix() + StringUtils.replace(user, "/", "%2F") + destination;
+            simpMessagingTemplate.send(brokerRelay ? WebsocketUtils.toBrokerDestination(userDestination) : userDestination, message);
+        }
+    }
+
+    /**
+     * Build the STOMP headers describing a payload
+     *
+     * @param payload The payload to send
+     * @return The type of the update event, and the project widgets it updates
+     */
+    static MultiValueMap<String, String> getNativeHeaders(final Object payload) {
+        MultiValueMap<String, String> nativeHeaders = new LinkedMultiValueMap<>();
+        if (payload instanceof UpdateEvent && ((UpdateEvent) payload).getType() != null) {
+            nativeHeaders.add(UPDATE_TYPE_HEADER, ((UpdateEvent) payload).getType().name());
+
+            Set<Long> projectWidgetIds = ProjectWidgetDeltaService.getProjectWidgetIds(payload);
+            if (!projectWidgetIds.isEmpty()) {
+                nativeHeaders.add(PROJECT_WIDGET_IDS_HEADER, StringUtils.join(projectWidgetIds, ','));
+            }
         }
+
+        return nativeHeaders;
+    }
+
+    /**
+     * Get the JSON mapper used by the websocket message converters, so the payloads are serialized as before
+     *
+     * @param simpMessagingTemplate The stomp websocket message template
+     * @return The JSON mapper
+     */
+    static ObjectMapper getWebsocketObjectMapper(final SimpMessagingTemplate simpMessagingTemplate) {
+        MessageConverter messageConverter = simpMessagingTemplate.getMessageConverter();
+        List<MessageConverter> messageConverters = messageConverter instanceof CompositeMessageConverter
+            ? ((CompositeMessageConverter) messageConverter).getConverters()
+            : Collections.singletonList(messageConverter);
+
+        return messageConverters.stream()
+            .filter(MappingJackson2MessageConverter.class::isInstance)
+            .map(converter -> ((MappingJackson2MessageConverter) converter).getObjectMapper())
+            .findFirst()
+            .orElseGet(ObjectMapper::new);
     }
 
     /**
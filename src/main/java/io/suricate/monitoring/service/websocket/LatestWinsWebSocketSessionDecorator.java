@@ -0,0 +1,486 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.suricate.monitoring.model.dto.websocket.WebsocketOutboundQueueDto;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue the messages sent to a websocket session, and write them from a separate executor, one message at a time
+ * The queue is bounded in bytes: a widget frame is merged into the unsent widget frame of its destination, project widget by project widget,
+ * and the oldest widget updates are dropped beyond the limit, the screens resync the widgets when they detect the gap.
+ * The other messages (reload, disconnect, grid...) are never dropped, the session is closed when they do not fit
+ */
+public class LatestWinsWebSocketSessionDecorator extends WebSocketSessionDecorator {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LatestWinsWebSocketSessionDecorator.class);
+
+    /**
+     * The STOMP headers read to classify a frame
+     */
+    private static final String DESTINATION_HEADER = "destination";
+    private static final String SUBSCRIPTION_HEADER = "subscription";
+
+    /**
+     * The update types a screen can miss, it resyncs the widgets when it detects the gap
+     */
+    private static final Set<String> DROPPABLE_UPDATE_TYPES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        UpdateType.WIDGET.name(), UpdateType.WIDGET_DELTA.name(), UpdateType.WIDGETS.name()
+    )));
+
+    /**
+     * The executor writing the messages
+     */
+    private final Executor executor;
+
+    /**
+     * The maximum time in milliseconds to write a message
+     */
+    private final int sendTimeLimit;
+
+    /**
+     * The maximum size in bytes of the queue
+     */
+    private final int bufferSizeLimit;
+
+    /**
+     * Counter of the messages replaced on every session
+     */
+    private final Counter replacedCounter;
+
+    /**
+     * Counter of the messages dropped on every session
+     */
+    private final Counter droppedCounter;
+
+    /**
+     * The messages waiting, by arrival order
+     */
+    private final Map<Long, QueuedMessage> queue = new LinkedHashMap<>();
+
+    /**
+     * The key of the last message waiting, by destination and subscription
+     */
+    private final Map<String, Long> lastMessageKeys = new HashMap<>();
+
+    /**
+     * The size in bytes of the messages waiting
+     */
+    private long bufferSize;
+
+    /**
+     * Key of the next message
+     */
+    private long nextMessageKey;
+
+    /**
+     * True while a flush is scheduled or running
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * The start time of the message being written, 0 when none
+     */
+    private volatile long sendStartTime;
+
+    /**
+     * True when the session has been closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * The number of messages replaced on this session
+     */
+    private final AtomicLong replaced = new AtomicLong();
+
+    /**
+     * The number of messages dropped on this session
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param session         The websocket session to decorate
+     * @param executor        The executor writing the messages
+     * @param sendTimeLimit   The maximum time in milliseconds to write a message
+     * @param bufferSizeLimit The maximum size in bytes of the queue
+     * @param replacedCounter Counter of the messages replaced on every session
+     * @param droppedCounter  Counter of the messages dropped on every session
+     */
+    public LatestWinsWebSocketSessionDecorator(final WebSocketSession session,
+                                               final Executor executor,
+                                               final int sendTimeLimit,
+                                               final int bufferSizeLimit,
+                                               final Counter replacedCounter,
+                                               final Counter droppedCounter) {
+        super(session);
+        this.executor = executor;
+        this.sendTimeLimit = sendTimeLimit;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.replacedCounter = replacedCounter;
+        this.droppedCounter = droppedCounter;
+    }
+
+    /**
+     * Queue a message, it is written later by the executor
+     *
+     * @param message The message to send
+     * @throws IOException When the session blocked beyond the time limit cannot be closed
+     */
+    @Override
+    public void sendMessage(final WebSocketMessage<?> message) throws IOException {
+        if (closed || closeIfBlocked()) {
+            return;
+        }
+
+        QueuedMessage queuedMessage = new QueuedMessage(message);
+        boolean overflow;
+        synchronized (queue) {
+            Long key = merge(queuedMessage);
+            if (key == null) {
+                key = nextMessageKey++;
+                queue.put(key, queuedMessage);
+                bufferSize += message.getPayloadLength();
+                if (queuedMessage.destination != null) {
+                    lastMessageKeys.put(queuedMessage.destination, key);
+                }
+            }
+
+            // Drop the oldest widget updates, the message holding the new one is always kept
+            Iterator<Map.Entry<Long, QueuedMessage>> iterator = queue.entrySet().iterator();
+            while (bufferSize > bufferSizeLimit && iterator.hasNext()) {
+                Map.Entry<Long, QueuedMessage> oldestMessage = iterator.next();
+                if (!oldestMessage.getKey().equals(key) && oldestMessage.getValue().droppable) {
+                    bufferSize -= oldestMessage.getValue().message.getPayloadLength();
+                    lastMessageKeys.remove(oldestMessage.getValue().destination, oldestMessage.getKey());
+                    iterator.remove();
+                    dropped.incrementAndGet();
+                    droppedCounter.increment();
+                }
+            }
+
+            overflow = bufferSize > bufferSizeLimit && queue.size() > 1;
+        }
+
+        if (overflow) {
+            LOGGER.warn("Session {} does not read its messages fast enough, closing it", getId());
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return;
+        }
+
+        scheduleFlush();
+    }
+
+    /**
+     * Merge a widget frame into the last frame waiting for its destination, when it is also a widget frame
+     * Merging the frames keeps the order of the destination, the other frames are not moved
+     *
+     * @param queuedMessage The new message
+     * @return The key of the merged message, null when the message has to be queued
+     */
+    private Long merge(final QueuedMessage queuedMessage) {
+        if (!queuedMessage.mergeable) {
+            return null;
+        }
+
+        Long key = lastMessageKeys.get(queuedMessage.destination);
+        QueuedMessage previousMessage = key == null ? null : queue.get(key);
+        if (previousMessage == null || !previousMessage.mergeable) {
+            return null;
+        }
+
+        ProjectWidgetFrameMerger.MergedFrame mergedFrame = ProjectWidgetFrameMerger.merge(previousMessage.message, queuedMessage.message);
+        if (mergedFrame == null) {
+            return null;
+        }
+
+        queue.put(key, new QueuedMessage(mergedFrame.message));
+        bufferSize += mergedFrame.message.getPayloadLength() - previousMessage.message.getPayloadLength();
+        replaced.addAndGet(mergedFrame.replaced);
+        replacedCounter.increment(mergedFrame.replaced);
+        return key;
+    }
+
+    /**
+     * Close the session when the message being written is blocked for longer than the time limit
+     * Closing the session releases the thread writing the message
+     *
+     * @return True if the session has been closed
+     * @throws IOException When the session cannot be closed
+     */
+    public boolean closeIfBlocked() throws IOException {
+        long currentSendStartTime = sendStartTime;
+        if (closed || currentSendStartTime == 0 || System.currentTimeMillis() - currentSendStartTime <= sendTimeLimit) {
+            return false;
+        }
+
+        LOGGER.warn("Session {} blocked for more than {} ms on a message, closing it", getId(), sendTimeLimit);
+        close(CloseStatus.SESSION_NOT_RELIABLE);
+        return true;
+    }
+
+    /**
+     * Close the session and forget the messages waiting
+     *
+     * @param status The close status
+     * @throws IOException When the session cannot be closed
+     */
+    @Override
+    public void close(final CloseStatus status) throws IOException {
+        closed = true;
+        synchronized (queue) {
+            queue.clear();
+            lastMessageKeys.clear();
+            bufferSize = 0;
+        }
+
+        super.close(status);
+    }
+
+    /**
+     * Get the state of the queue
+     *
+     * @return The state of the queue
+     */
+    public WebsocketOutboundQueueDto getOutboundQueue() {
+        WebsocketOutboundQueueDto websocketOutboundQueueDto = new WebsocketOutboundQueueDto();
+        websocketOutboundQueueDto.setSessionId(getId());
+        synchronized (queue) {
+            websocketOutboundQueueDto.setDepth(queue.size());
+            websocketOutboundQueueDto.setBufferSize(bufferSize);
+        }
+        websocketOutboundQueueDto.setReplaced(getReplaced());
+        websocketOutboundQueueDto.setDropped(getDropped());
+        return websocketOutboundQueueDto;
+    }
+
+    /**
+     * Get the number of messages waiting
+     *
+     * @return The number of messages waiting
+     */
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    /**
+     * Get the number of widget events replaced by a newer one on this session
+     *
+     * @return The number of events replaced
+     */
+    public long getReplaced() {
+        return replaced.get();
+    }
+
+    /**
+     * Get the number of messages dropped on this session
+     *
+     * @return The number of messages dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Schedule the write of the messages waiting, when the executor rejected the previous attempt
+     */
+    public void flushIfPending() {
+        if (!closed && getQueueDepth() > 0) {
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Schedule the write of the messages waiting, if not already scheduled
+     * When the executor is full, the messages stay queued until the next attempt
+     */
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("The writers are busy, the messages of the session {} are written later", getId());
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Write the messages waiting, in their order
+     */
+    private void flush() {
+        try {
+            WebSocketMessage<?> message;
+            while (!closed && (message = poll()) != null) {
+                sendStartTime = System.currentTimeMillis();
+                try {
+                    getDelegate().sendMessage(message);
+                } finally {
+                    sendStartTime = 0;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.debug("Cannot send a message to the session {}, closing it", getId(), e);
+            closeQuietly();
+        } finally {
+            flushScheduled.set(false);
+        }
+
+        // A message may have been queued after the last poll
+        flushIfPending();
+    }
+
+    /**
+     * Take the oldest message waiting
+     *
+     * @return The message, null if none
+     */
+    private WebSocketMessage<?> poll() {
+        synchronized (queue) {
+            Iterator<Map.Entry<Long, QueuedMessage>> iterator = queue.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+
+            Map.Entry<Long, QueuedMessage> oldestMessage = iterator.next();
+            iterator.remove();
+            lastMessageKeys.remove(oldestMessage.getValue().destination, oldestMessage.getKey());
+            bufferSize -= oldestMessage.getValue().message.getPayloadLength();
+            return oldestMessage.getValue().message;
+        }
+    }
+
+    /**
+     * Close the session after a failed write
+     */
+    private void closeQuietly() {
+        try {
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot close the session {}", getId(), e);
+        }
+    }
+
+    /**
+     * Read the headers of a STOMP frame
+     *
+     * @param message The message
+     * @return The command and the header lines, null if the message is not a STOMP frame
+     */
+    private static String getHeaders(final WebSocketMessage<?> message) {
+        if (message instanceof TextMessage) {
+            String payload = ((TextMessage) message).getPayload();
+            int headersEnd = payload.indexOf("\n\n");
+            return headersEnd < 0 ? payload : payload.substring(0, headersEnd);
+        }
+
+        if (message instanceof BinaryMessage) {
+            // The headers of a binary frame are text, only its body is binary
+            ByteBuffer payload = ((BinaryMessage) message).getPayload().duplicate();
+            int headersEnd = payload.position();
+            while (headersEnd < payload.limit() - 1 && !(payload.get(headersEnd) == '\n' && payload.get(headersEnd + 1) == '\n')) {
+                headersEnd++;
+            }
+            payload.limit(headersEnd);
+            return StandardCharsets.UTF_8.decode(payload).toString();
+        }
+
+        return null;
+    }
+
+    /**
+     * A message waiting, classified from the headers set when its event was sent
+     */
+    private static final class QueuedMessage {
+        /**
+         * The message
+         */
+        private final WebSocketMessage<?> message;
+
+        /**
+         * The destination and the subscription of a MESSAGE frame, null for the other frames
+         */
+        private final String destination;
+
+        /**
+         * True for the widget updates, which can be dropped beyond the limit
+         */
+        private final boolean droppable;
+
+        /**
+         * True for the widget updates holding their project widget ids, which can be merged
+         */
+        private final boolean mergeable;
+
+        /**
+         * Constructor
+         *
+         * @param message The message
+         */
+        private QueuedMessage(final WebSocketMessage<?> message) {
+            this.message = message;
+
+            String headers = getHeaders(message);
+            Map<String, String> values = new HashMap<>();
+            if (headers != null && headers.startsWith(StompCommand.MESSAGE.name() + "\n")) {
+                for (String header : headers.split("\n")) {
+                    int separator = header.indexOf(':');
+                    if (separator > 0) {
+                        values.putIfAbsent(header.substring(0, separator), header.substring(separator + 1));
+                    }
+                }
+            }
+
+            String updateType = values.get(DashboardWebSocketService.UPDATE_TYPE_HEADER);
+            this.destination = values.containsKey(DESTINATION_HEADER) ? values.get(DESTINATION_HEADER) + "\n" + values.get(SUBSCRIPTION_HEADER) : null;
+            this.droppable = updateType != null && DROPPABLE_UPDATE_TYPES.contains(updateType);
+            this.mergeable = droppable && values.containsKey(DashboardWebSocketService.PROJECT_WIDGET_IDS_HEADER);
+        }
+    }
+}
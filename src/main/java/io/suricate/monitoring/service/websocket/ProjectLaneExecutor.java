@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Run the tasks of a project one after the other, in the order they are submitted, on a shared executor
+ * The projects are run in parallel, a project holds a thread only while it has tasks waiting
+ */
+final class ProjectLaneExecutor {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectLaneExecutor.class);
+
+    /**
+     * The executor running the lanes
+     */
+    private final Executor executor;
+
+    /**
+     * The tasks waiting by project token, the first one is running
+     */
+    private final Map<String, Deque<Runnable>> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param executor The executor running the lanes
+     */
+    ProjectLaneExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Submit a task to the lane of a project
+     *
+     * @param projectToken The project token
+     * @param task         The task
+     */
+    void execute(final String projectToken, final Runnable task) {
+        AtomicBoolean first = new AtomicBoolean();
+        lanes.compute(projectToken, (token, tasks) -> {
+            if (tasks == null) {
+                tasks = new ArrayDeque<>();
+                first.set(true);
+            }
+
+            tasks.addLast(task);
+            return tasks;
+        });
+
+        if (first.get()) {
+            try {
+                executor.execute(() -> drain(projectToken, task));
+            } catch (RejectedExecutionException e) {
+                LOGGER.warn("The lane of the project {} is rejected, its waiting tasks are dropped", projectToken);
+                lanes.remove(projectToken);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Run the tasks of a lane until it is empty
+     *
+     * @param projectToken The project token
+     * @param firstTask    The first task of the lane
+     */
+    private void drain(final String projectToken, final Runnable firstTask) {
+        Runnable task = firstTask;
+        while (task != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOGGER.error("Error while running a task of the project {}", projectToken, e);
+            }
+
+            task = next(projectToken);
+        }
+    }
+
+    /**
+     * Remove the task run from its lane
+     *
+     * @param projectToken The project token
+     * @return The next task, null when the lane is empty and removed
+     */
+    private Runnable next(final String projectToken) {
+        AtomicReference<Runnable> nextTask = new AtomicReference<>();
+        lanes.computeIfPresent(projectToken, (token, tasks) -> {
+            tasks.pollFirst();
+            nextTask.set(tasks.peekFirst());
+            return tasks.isEmpty() ? null : tasks;
+        });
+
+        return nextTask.get();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.suricate.monitoring.model.dto.api.project.ProjectResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.ProjectSnapshotDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.service.api.ProjectService;
+import io.suricate.monitoring.service.api.ProjectWidgetService;
+import io.suricate.monitoring.service.library.LibraryBundleService;
+import io.suricate.monitoring.service.mapper.ProjectMapper;
+import io.suricate.monitoring.service.mapper.ProjectWidgetMapper;
+import io.suricate.monitoring.utils.exception.ObjectNotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keep the snapshot of the projects displayed by the screens
+ * A snapshot is built once and shared by every screen subscribing to the project, until the version of the project changes
+ * The version of a project only changes with its structure, the widgets updated since the build are refreshed one by one from their sequence
+ */
+@Service
+public class ProjectSnapshotService {
+
+    /**
+     * The maximum number of snapshots kept
+     */
+    private static final int MAXIMUM_SNAPSHOTS = 1000;
+
+    /**
+     * The time a snapshot is kept, it bounds the staleness of a snapshot built while a change was being committed
+     */
+    private static final long SNAPSHOT_TTL_SECONDS = 60;
+
+    /**
+     * The URL of the bundle of the libraries, see the asset controller
+     */
+    private static final String LIBRARIES_BUNDLE_URL = "/api/v1/assets/libraries/%s?libraries=%s";
+
+    /**
+     * The project service
+     */
+    private final ProjectService projectService;
+
+    /**
+     * The project widget service
+     */
+    private final ProjectWidgetService projectWidgetService;
+
+    /**
+     * The project mapper
+     */
+    private final ProjectMapper projectMapper;
+
+    /**
+     * The project widget mapper
+     */
+    private final ProjectWidgetMapper projectWidgetMapper;
+
+    /**
+     * The project widget delta service, holding the sequence of the widgets pushed to the screens
+     */
+    private final ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    /**
+     * The library bundle service
+     */
+    private final LibraryBundleService libraryBundleService;
+
+    /**
+     * The transaction used to build a snapshot, the cached snapshots are returned without touching the database
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The snapshots by project token
+     */
+    private final Cache<String, Snapshot> snapshots = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_SNAPSHOTS)
+        .expireAfterWrite(SNAPSHOT_TTL_SECONDS, TimeUnit.SECONDS)
+        .build();
+
+    /**
+     * The counter giving the versions
+     */
+    private final AtomicLong lastVersion = new AtomicLong();
+
+    /**
+     * The version of every project, updated by {@link #invalidateAll()}
+     */
+    private volatile long allProjectsVersion;
+
+    /**
+     * The version of the projects changed since, by project token
+     */
+    private final Map<String, Long> projectVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param projectService            The project service
+     * @param projectWidgetService      The project widget service
+     * @param projectMapper             The project mapper
+     * @param projectWidgetMapper       The project widget mapper
+     * @param projectWidgetDeltaService The project widget delta service
+     * @param libraryBundleService      The library bundle service
+     * @param transactionManager        The transaction manager
+     */
+    @Autowired
+    public ProjectSnapshotService(@Lazy final ProjectService projectService,
+                                  @Lazy final ProjectWidgetService projectWidgetService,
+                                  @Lazy final ProjectMapper projectMapper,
+                                  @Lazy final ProjectWidgetMapper projectWidgetMapper,
+                                  final ProjectWidgetDeltaService projectWidgetDeltaService,
+                                  @Lazy final LibraryBundleService libraryBundleService,
+                                  final PlatformTransactionManager transactionManager) {
+        this.projectService = projectService;
+        this.projectWidgetService = projectWidgetService;
+        this.projectMapper = projectMapper;
+        this.projectWidgetMapper = projectWidgetMapper;
+        this.projectWidgetDeltaService = projectWidgetDeltaService;
+        this.libraryBundleService = libraryBundleService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Get the snapshot of a project
+     * The screens subscribing at the same time wait for the same build
+     * The widgets pushed since the build are mapped again, the rest of the snapshot is reused
+     *
+     * @param projectToken The project token
+     * @return The snapshot event, empty if the project does not exist
+     */
+    public Optional<UpdateEvent> getSnapshot(final String projectToken) {
+        String token = projectToken.trim();
+        long version = getVersion(token);
+
+        try {
+            Snapshot snapshot = snapshots.get(token, () -> transactionTemplate.execute(status -> buildSnapshot(token, version)));
+            if (snapshot.version != version) {
+                snapshots.asMap().remove(token, snapshot);
+                snapshot = snapshots.get(token, () -> transactionTemplate.execute(status -> buildSnapshot(token, version)));
+            }
+
+            List<Long> updatedProjectWidgetIds = snapshot.projectSnapshotDto.getProjectWidgets().stream()
+                .filter(projectWidget -> !Objects.equals(projectWidget.getSequence(), projectWidgetDeltaService.getSequence(projectWidget.getId())))
+                .map(ProjectWidgetResponseDto::getId)
+                .collect(Collectors.toList());
+            if (updatedProjectWidgetIds.isEmpty()) {
+                return Optional.of(snapshot.updateEvent);
+            }
+
+            Optional<Snapshot> refreshedSnapshot = refreshSnapshot(snapshot, updatedProjectWidgetIds);
+            if (!refreshedSnapshot.isPresent()) {
+                // A widget has been deleted meanwhile, its grid event has not been published yet
+                snapshots.asMap().remove(token, snapshot);
+                return Optional.of(transactionTemplate.execute(status -> buildSnapshot(token, version)).updateEvent);
+            }
+
+            snapshots.asMap().replace(token, snapshot, refreshedSnapshot.get());
+            return Optional.of(refreshedSnapshot.get().updateEvent);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof ObjectNotFoundException) {
+                return Optional.empty();
+            }
+
+            throw new IllegalStateException("Cannot build the snapshot of the project " + projectToken, e.getCause());
+        }
+    }
+
+    /**
+     * Get the current version of project widgets with the sequence of the last version pushed, used to resume the streams
+     *
+     * @param projectWidgetIds The project widget ids
+     * @return The project widgets, empty if one of them no longer exists
+     */
+    public Optional<List<ProjectWidgetResponseDto>> getLastVersions(final Collection<Long> projectWidgetIds) {
+        return transactionTemplate.execute(status -> {
+            List<ProjectWidgetResponseDto> lastVersions = new ArrayList<>();
+            for (Long projectWidgetId : projectWidgetIds) {
+                Optional<ProjectWidget> projectWidget = projectWidgetService.getOne(projectWidgetId);
+                if (!projectWidget.isPresent()) {
+                    return Optional.empty();
+                }
+
+                lastVersions.add(projectWidgetDeltaService.getLastVersion(projectWidgetId, () -> projectWidgetMapper.toProjectWidgetDtoDefault(projectWidget.get())));
+            }
+
+            return Optional.of(lastVersions);
+        });
+    }
+
+    /**
+     * Move a project to its next version after a change of its structure, its next snapshot is built again
+     * The widget updates carrying their sequence do not change the version of the project
+     *
+     * @param projectToken The project token
+     */
+    public void invalidate(final String projectToken) {
+        if (projectToken != null) {
+            projectVersions.put(projectToken.trim(), lastVersion.incrementAndGet());
+        }
+    }
+
+    /**
+     * Move every project to its next version
+     */
+    public void invalidateAll() {
+        allProjectsVersion = lastVersion.incrementAndGet();
+        projectVersions.clear();
+    }
+
+    /**
+     * Get the current version of a project
+     *
+     * @param projectToken The project token
+     * @return The version
+     */
+    private long getVersion(final String projectToken) {
+        return Math.max(allProjectsVersion, projectVersions.getOrDefault(projectToken, 0L));
+    }
+
+    /**
+     * Build the snapshot of a project
+     * The widgets carry the sequence of their last version pushed to the screens, the next deltas follow it
+     * The bundle of the libraries is built with the snapshot, so that the screens never load the libraries one by one
+     *
+     * @param projectToken The project token
+     * @param version      The version of the project read before the build
+     * @return The snapshot
+     */
+    private Snapshot buildSnapshot(final String projectToken, final long version) {
+        Project project = projectService.getOneByTokenWithWidgets(projectToken)
+            .orElseThrow(() -> new ObjectNotFoundException(Project.class, projectToken));
+
+        ProjectResponseDto projectResponseDto = projectMapper.toProjectDtoDefault(project);
+        ProjectSnapshotDto projectSnapshotDto = new ProjectSnapshotDto();
+        projectSnapshotDto.setProject(projectResponseDto);
+        libraryBundleService.getLibraryBundle(libraryBundleService.getLibraryAssetIds(project.getWidgets())).ifPresent(libraryBundle -> {
+            projectResponseDto.setLibrariesBundleToken(libraryBundle.getHash());
+            projectSnapshotDto.setLibrariesBundleUrl(String.format(LIBRARIES_BUNDLE_URL, libraryBundle.getHash(), String.join(",", projectResponseDto.getLibrariesToken())));
+        });
+        for (ProjectWidget projectWidget : project.getWidgets()) {
+            projectSnapshotDto.getProjectWidgets().add(
+                projectWidgetDeltaService.getLastVersion(projectWidget.getId(), () -> projectWidgetMapper.toProjectWidgetDtoDefault(projectWidget))
+            );
+        }
+
+        return new Snapshot(version, projectSnapshotDto);
+    }
+
+    /**
+     * Copy a snapshot with the last version of some of its widgets
+     *
+     * @param snapshot         The snapshot
+     * @param projectWidgetIds The ids of the project widgets updated since the build
+     * @return The new snapshot, empty if one of the project widgets no longer exists
+     */
+    private Optional<Snapshot> refreshSnapshot(final Snapshot snapshot, final List<Long> projectWidgetIds) {
+        return getLastVersions(projectWidgetIds).map(lastVersions -> {
+            Map<Long, ProjectWidgetResponseDto> lastVersionsById = lastVersions.stream()
+                .collect(Collectors.toMap(ProjectWidgetResponseDto::getId, lastVersion -> lastVersion));
+
+            ProjectSnapshotDto projectSnapshotDto = new ProjectSnapshotDto();
+            projectSnapshotDto.setProject(snapshot.projectSnapshotDto.getProject());
+            projectSnapshotDto.setLibrariesBundleUrl(snapshot.projectSnapshotDto.getLibrariesBundleUrl());
+            snapshot.projectSnapshotDto.getProjectWidgets().forEach(projectWidget ->
+                projectSnapshotDto.getProjectWidgets().add(lastVersionsById.getOrDefault(projectWidget.getId(), projectWidget))
+            );
+
+            return new Snapshot(snapshot.version, projectSnapshotDto);
+        });
+    }
+
+    /**
+     * A snapshot of a project and the version of the project it was built for
+     */
+    private static final class Snapshot {
+        /**
+         * The version of the project
+         */
+        private final long version;
+
+        /**
+         * The snapshot, never updated once shared
+         */
+        private final ProjectSnapshotDto projectSnapshotDto;
+
+        /**
+         * The event sent to the screens
+         */
+        private final UpdateEvent updateEvent;
+
+        /**
+         * Constructor
+         *
+         * @param version            The version of the project
+         * @param projectSnapshotDto The snapshot
+         */
+        private Snapshot(final long version, final ProjectSnapshotDto projectSnapshotDto) {
+            this.version = version;
+            this.projectSnapshotDto = projectSnapshotDto;
+            this.updateEvent = new UpdateEvent(UpdateType.SNAPSHOT);
+            this.updateEvent.setContent(projectSnapshotDto);
+        }
+    }
+}
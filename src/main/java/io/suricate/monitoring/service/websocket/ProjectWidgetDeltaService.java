@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.ProjectWidgetDeltaDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keep the sequence and the fingerprint of the fields of the last version of every project widget pushed to the screens,
+ * and build the websocket events holding only the fields changed since this version
+ * With an external broker, the screens of a project can be served by several nodes numbering the versions on their own,
+ * so every version is pushed entirely and the screens never have to resync a delta
+ */
+@Service
+public class ProjectWidgetDeltaService {
+
+    /**
+     * The maximum number of project widgets whose last version is known, the next version of a forgotten one is pushed entirely
+     */
+    private static final int MAXIMUM_VERSIONS = 100000;
+
+    /**
+     * The hash function of the text fields
+     */
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * The fields compared between two versions, by JSON name
+     */
+    private static final Map<String, Function<ProjectWidgetResponseDto, Object>> FIELDS = ImmutableMap.<String, Function<ProjectWidgetResponseDto, Object>>builder()
+        .put("data", ProjectWidgetResponseDto::getData)
+        .put("widgetPosition", ProjectWidgetResponseDto::getWidgetPosition)
+        .put("customStyle", ProjectWidgetResponseDto::getCustomStyle)
+        .put("instantiateHtml", ProjectWidgetResponseDto::getInstantiateHtml)
+        .put("backendConfig", ProjectWidgetResponseDto::getBackendConfig)
+        .put("log", ProjectWidgetResponseDto::getLog)
+        .put("lastExecutionDate", ProjectWidgetResponseDto::getLastExecutionDate)
+        .put("lastSuccessDate", ProjectWidgetResponseDto::getLastSuccessDate)
+        .put("state", ProjectWidgetResponseDto::getState)
+        .put("projectToken", ProjectWidgetResponseDto::getProjectToken)
+        .put("widgetId", ProjectWidgetResponseDto::getWidgetId)
+        .build();
+
+    /**
+     * The getters of the compared fields, in the order of their fingerprints
+     */
+    private static final List<Function<ProjectWidgetResponseDto, Object>> GETTERS = ImmutableList.copyOf(FIELDS.values());
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The last version pushed by project widget id
+     */
+    private final Cache<Long, PushedVersion> lastVersions = CacheBuilder.newBuilder()
+        .maximumSize(MAXIMUM_VERSIONS)
+        .build();
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     */
+    @Autowired
+    public ProjectWidgetDeltaService(final ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Build the event to push for a new version of a project widget
+     * The first version is pushed entirely, the next ones as deltas
+     *
+     * @param projectWidgetResponseDto The new version of the project widget
+     * @return The event to push, null when nothing changed
+     */
+    public UpdateEvent toUpdateEvent(final ProjectWidgetResponseDto projectWidgetResponseDto) {
+        if (projectWidgetResponseDto == null || projectWidgetResponseDto.getId() == null) {
+            UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGET);
+            updateEvent.setContent(projectWidgetResponseDto);
+            return updateEvent;
+        }
+
+        AtomicReference<UpdateEvent> updateEvent = new AtomicReference<>();
+        lastVersions.asMap().compute(projectWidgetResponseDto.getId(), (projectWidgetId, lastVersion) -> {
+            PushedVersion newVersion = new PushedVersion(lastVersion == null ? 1L : lastVersion.sequence + 1, projectWidgetResponseDto);
+            if (lastVersion == null) {
+                projectWidgetResponseDto.setSequence(newVersion.sequence);
+                updateEvent.set(new UpdateEvent(UpdateType.WIDGET));
+                updateEvent.get().setContent(projectWidgetResponseDto);
+                return newVersion;
+            }
+
+            ProjectWidgetDeltaDto projectWidgetDeltaDto = diff(lastVersion, newVersion, projectWidgetResponseDto);
+            if (projectWidgetDeltaDto.getChanges().isEmpty()) {
+                return lastVersion;
+            }
+
+            projectWidgetResponseDto.setSequence(newVersion.sequence);
+            if (applicationProperties.websocket.brokerRelay.enabled) {
+                updateEvent.set(new UpdateEvent(UpdateType.WIDGET));
+                updateEvent.get().setContent(projectWidgetResponseDto);
+            } else {
+                updateEvent.set(new UpdateEvent(UpdateType.WIDGET_DELTA));
+                updateEvent.get().setContent(projectWidgetDeltaDto);
+            }
+            return newVersion;
+        });
+
+        return updateEvent.get();
+    }
+
+    /**
+     * Get the current version of a project widget with the sequence of the last version pushed, used by the clients to resync after a missed delta
+     * The current version can already hold the next delta : a delta holds the whole value of the fields changed, so applying it still leads to its version
+     * When nothing has been pushed yet, the current version becomes the first one
+     *
+     * @param projectWidgetId The project widget id
+     * @param currentVersion  Supplier of the current version of the project widget
+     * @return The current version with the sequence of the last version pushed
+     */
+    public ProjectWidgetResponseDto getLastVersion(final Long projectWidgetId, final Supplier<ProjectWidgetResponseDto> currentVersion) {
+        ProjectWidgetResponseDto projectWidgetResponseDto = currentVersion.get();
+        PushedVersion lastVersion = lastVersions.asMap().computeIfAbsent(projectWidgetId, id -> new PushedVersion(1L, projectWidgetResponseDto));
+
+        projectWidgetResponseDto.setSequence(lastVersion.sequence);
+        return projectWidgetResponseDto;
+    }
+
+    /**
+     * Get the sequence of the last version of a project widget pushed to the screens
+     *
+     * @param projectWidgetId The project widget id
+     * @return The sequence, null when nothing has been pushed yet
+     */
+    public Long getSequence(final Long projectWidgetId) {
+        PushedVersion lastVersion = lastVersions.getIfPresent(projectWidgetId);
+        return lastVersion == null ? null : lastVersion.sequence;
+    }
+
+    /**
+     * Forget the versions of project widgets no longer displayed, their next version will be pushed entirely
+     *
+     * @param projectWidgetIds The project widget ids
+     */
+    public void forget(final Collection<Long> projectWidgetIds) {
+        lastVersions.invalidateAll(projectWidgetIds);
+    }
+
+    /**
+     * Check whether an event only pushes new versions of project widgets, each one carrying its sequence
+     *
+     * @param payload The event
+     * @return True if the event is a sequenced widget update
+     */
+    public static boolean isSequenced(final Object payload) {
+        if (!(payload instanceof UpdateEvent)) {
+            return false;
+        }
+
+        Object content = ((UpdateEvent) payload).getContent();
+        switch (((UpdateEvent) payload).getType()) {
+            case WIDGET:
+                return content instanceof ProjectWidgetResponseDto && ((ProjectWidgetResponseDto) content).getSequence() != null;
+            case WIDGET_DELTA:
+                return content instanceof ProjectWidgetDeltaDto;
+            case WIDGETS:
+                return content instanceof Collection && ((Collection<?>) content).stream().allMatch(ProjectWidgetDeltaService::isSequenced);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Get the project widgets updated by an event
+     *
+     * @param payload The event
+     * @return The project widget ids, empty if the event is not a widget update
+     */
+    public static Set<Long> getProjectWidgetIds(final Object payload) {
+        if (!(payload instanceof UpdateEvent)) {
+            return Collections.emptySet();
+        }
+
+        Object content = ((UpdateEvent) payload).getContent();
+        switch (((UpdateEvent) payload).getType()) {
+            case WIDGET:
+                return content instanceof ProjectWidgetResponseDto && ((ProjectWidgetResponseDto) content).getId() != null
+                    ? Collections.singleton(((ProjectWidgetResponseDto) content).getId())
+                    : Collections.emptySet();
+            case WIDGET_DELTA:
+                return content instanceof ProjectWidgetDeltaDto
+                    ? Collections.singleton(((ProjectWidgetDeltaDto) content).getId())
+                    : Collections.emptySet();
+            case WIDGETS:
+                Set<Long> projectWidgetIds = new LinkedHashSet<>();
+                if (content instanceof Collection) {
+                    ((Collection<?>) content).forEach(updateEvent -> projectWidgetIds.addAll(getProjectWidgetIds(updateEvent)));
+                }
+                return projectWidgetIds;
+            default:
+                return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Build the delta between two versions of a project widget
+     *
+     * @param lastVersion              The version known by the clients
+     * @param newVersion               The new version
+     * @param projectWidgetResponseDto The fields of the new version
+     * @return The delta
+     */
+    private static ProjectWidgetDeltaDto diff(final PushedVersion lastVersion, final PushedVersion newVersion, final ProjectWidgetResponseDto projectWidgetResponseDto) {
+        ProjectWidgetDeltaDto projectWidgetDeltaDto = new ProjectWidgetDeltaDto();
+        projectWidgetDeltaDto.setId(projectWidgetResponseDto.getId());
+        projectWidgetDeltaDto.setPreviousSequence(lastVersion.sequence);
+        projectWidgetDeltaDto.setSequence(newVersion.sequence);
+
+        int index = 0;
+        for (String name : FIELDS.keySet()) {
+            if (!Objects.equals(lastVersion.fingerprints[index], newVersion.fingerprints[index])) {
+                projectWidgetDeltaDto.getChanges().put(name, GETTERS.get(index).apply(projectWidgetResponseDto));
+            }
+            index++;
+        }
+
+        return projectWidgetDeltaDto;
+    }
+
+    /**
+     * Compute the fingerprint of a field
+     * Only the texts, such as the data or the HTML, are reduced to a hash, the other values are small and kept as they are
+     *
+     * @param value The value of the field
+     * @return The 64 bits hash of a text, the value itself otherwise
+     */
+    private static Object fingerprint(final Object value) {
+        if (value instanceof CharSequence) {
+            return FINGERPRINT_FUNCTION.hashUnencodedChars((CharSequence) value).asLong();
+        }
+
+        return value;
+    }
+
+    /**
+     * A version of a project widget pushed to the screens, reduced to its sequence and the fingerprints of its fields
+     */
+    private static final class PushedVersion {
+        /**
+         * The sequence of the version
+         */
+        private final long sequence;
+
+        /**
+         * The fingerprints of the compared fields
+         */
+        private final Object[] fingerprints;
+
+        /**
+         * Constructor
+         *
+         * @param sequence                 The sequence of the version
+         * @param projectWidgetResponseDto The fields of the version
+         */
+        private PushedVersion(final long sequence, final ProjectWidgetResponseDto projectWidgetResponseDto) {
+            this.sequence = sequence;
+            this.fingerprints = new Object[GETTERS.size()];
+            for (int i = 0; i < fingerprints.length; i++) {
+                fingerprints[i] = fingerprint(GETTERS.get(i).apply(projectWidgetResponseDto));
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.model.enums.WebsocketPayloadFormat;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Merge two unsent STOMP frames of widget events sent to the same destination, project widget by project widget
+ * A full version replaces the previous event of its widget, a delta is applied to the full version or chained to the delta it follows,
+ * so the merged frame brings the screen to the same state as the two frames
+ */
+final class ProjectWidgetFrameMerger {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectWidgetFrameMerger.class);
+
+    /**
+     * The mappers reading the payloads, by payload format header value, JSON when the header is absent
+     */
+    private static final Map<String, ObjectMapper> MAPPERS = new LinkedHashMap<>();
+
+    static {
+        MAPPERS.put(WebsocketPayloadFormat.CBOR.name().toLowerCase(), new ObjectMapper(new CBORFactory()));
+        MAPPERS.put(WebsocketPayloadFormat.SMILE.name().toLowerCase(), new ObjectMapper(new SmileFactory()));
+    }
+
+    /**
+     * The mapper reading the JSON payloads
+     */
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+
+    /**
+     * The STOMP header holding the size of the body
+     */
+    private static final String CONTENT_LENGTH_HEADER = "content-length";
+
+    /**
+     * Constructor
+     */
+    private ProjectWidgetFrameMerger() {
+    }
+
+    /**
+     * Merge a frame into the previous unsent frame of its destination
+     *
+     * @param olderMessage The previous frame
+     * @param newerMessage The new frame
+     * @return The merged frame, null when the events of a widget cannot be chained (a frame has been dropped meanwhile)
+     */
+    static MergedFrame merge(final WebSocketMessage<?> olderMessage, final WebSocketMessage<?> newerMessage) {
+        Frame olderFrame = Frame.parse(olderMessage);
+        Frame newerFrame = Frame.parse(newerMessage);
+        if (olderFrame == null || newerFrame == null || !Objects.equals(olderFrame.getPayloadFormat(), newerFrame.getPayloadFormat())) {
+            return null;
+        }
+
+        try {
+            ObjectMapper objectMapper = MAPPERS.getOrDefault(olderFrame.getPayloadFormat(), JSON_MAPPER);
+            JsonNode olderEvent = objectMapper.readTree(olderFrame.body);
+            JsonNode newerEvent = objectMapper.readTree(newerFrame.body);
+
+            Map<Long, ObjectNode> events = getProjectWidgetEvents(olderEvent);
+            Map<Long, ObjectNode> newerEvents = getProjectWidgetEvents(newerEvent);
+            if (events == null || newerEvents == null) {
+                return null;
+            }
+
+            int replaced = 0;
+            for (Map.Entry<Long, ObjectNode> newerEntry : newerEvents.entrySet()) {
+                ObjectNode previousEvent = events.get(newerEntry.getKey());
+                if (previousEvent == null) {
+                    events.put(newerEntry.getKey(), newerEntry.getValue());
+                    continue;
+                }
+
+                ObjectNode chainedEvent = chain(previousEvent, newerEntry.getValue());
+                if (chainedEvent == null) {
+                    return null;
+                }
+                events.put(newerEntry.getKey(), chainedEvent);
+                replaced++;
+            }
+
+            JsonNode mergedEvent;
+            if (events.size() > 1 || isType(olderEvent, UpdateType.WIDGETS) || isType(newerEvent, UpdateType.WIDGETS)) {
+                ObjectNode widgetsEvent = JsonNodeFactory.instance.objectNode();
+                widgetsEvent.set("date", newerEvent.get("date"));
+                widgetsEvent.put("type", UpdateType.WIDGETS.name());
+                widgetsEvent.putArray("content").addAll(events.values());
+                mergedEvent = widgetsEvent;
+            } else {
+                mergedEvent = events.values().iterator().next();
+            }
+
+            String updateType = mergedEvent.path("type").asText();
+            String projectWidgetIds = StringUtils.join(events.keySet(), ',');
+            byte[] body = objectMapper.writeValueAsBytes(mergedEvent);
+
+            return new MergedFrame(olderFrame.toMessage(updateType, projectWidgetIds, body), replaced);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot merge the widget frames", e);
+            return null;
+        }
+    }
+
+    /**
+     * Get the widget events of a frame by project widget id
+     *
+     * @param event The event of the frame
+     * @return The widget events, null when the frame holds something else
+     */
+    private static Map<Long, ObjectNode> getProjectWidgetEvents(final JsonNode event) {
+        Map<Long, ObjectNode> events = new LinkedHashMap<>();
+        List<JsonNode> widgetEvents = new ArrayList<>();
+
+        if (isType(event, UpdateType.WIDGETS) && event.path("content").isArray()) {
+            event.path("content").forEach(widgetEvents::add);
+        } else {
+            widgetEvents.add(event);
+        }
+
+        for (JsonNode widgetEvent : widgetEvents) {
+            JsonNode content = widgetEvent.path("content");
+            boolean projected = !widgetEvent.path("fields").isMissingNode() && !widgetEvent.path("fields").isNull();
+            if (!(widgetEvent instanceof ObjectNode)
+                || !(isType(widgetEvent, UpdateType.WIDGET) || isType(widgetEvent, UpdateType.WIDGET_DELTA))
+                || projected
+                || !content.path("id").canConvertToLong()
+                || events.put(content.path("id").asLong(), (ObjectNode) widgetEvent) != null) {
+                return null;
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Chain two events of a project widget
+     *
+     * @param previousEvent The previous event
+     * @param event         The next event
+     * @return The event having the effect of both, null if the next event is a delta not following the previous event
+     */
+    private static ObjectNode chain(final ObjectNode previousEvent, final ObjectNode event) {
+        if (isType(event, UpdateType.WIDGET)) {
+            return event;
+        }
+
+        JsonNode previousSequence = event.path("content").path("previousSequence");
+        if (!previousSequence.canConvertToLong() || !previousSequence.equals(previousEvent.path("content").path("sequence"))) {
+            return null;
+        }
+
+        JsonNode changes = event.path("content").path("changes");
+        if (!(changes instanceof ObjectNode)) {
+            return null;
+        }
+
+        if (isType(previousEvent, UpdateType.WIDGET)) {
+            ObjectNode chainedEvent = previousEvent.deepCopy();
+            ObjectNode content = (ObjectNode) chainedEvent.get("content");
+            content.setAll((ObjectNode) changes);
+            content.set("sequence", event.path("content").get("sequence"));
+            chainedEvent.set("date", event.get("date"));
+            return chainedEvent;
+        }
+
+        JsonNode previousChanges = previousEvent.path("content").path("changes");
+        if (!(previousChanges instanceof ObjectNode)) {
+            return null;
+        }
+
+        ObjectNode chainedEvent = event.deepCopy();
+        ObjectNode chainedChanges = ((ObjectNode) previousChanges).deepCopy();
+        chainedChanges.setAll((ObjectNode) changes);
+        ((ObjectNode) chainedEvent.get("content")).set("previousSequence", previousEvent.path("content").get("previousSequence"));
+        ((ObjectNode) chainedEvent.get("content")).set("changes", chainedChanges);
+        return chainedEvent;
+    }
+
+    /**
+     * Test the type of an event
+     *
+     * @param event      The event
+     * @param updateType The type
+     * @return True if the event has this type
+     */
+    private static boolean isType(final JsonNode event, final UpdateType updateType) {
+        return updateType.name().equals(event.path("type").asText());
+    }
+
+    /**
+     * A frame merged from two frames
+     */
+    static final class MergedFrame {
+        /**
+         * The merged frame
+         */
+        final WebSocketMessage<?> message;
+
+        /**
+         * The number of widget events replaced by a newer one
+         */
+        final int replaced;
+
+        /**
+         * Constructor
+         *
+         * @param message  The merged frame
+         * @param replaced The number of widget events replaced by a newer one
+         */
+        private MergedFrame(final WebSocketMessage<?> message, final int replaced) {
+            this.message = message;
+            this.replaced = replaced;
+        }
+    }
+
+    /**
+     * A STOMP MESSAGE frame split in its headers and its body
+     */
+    private static final class Frame {
+        /**
+         * True for a binary websocket message
+         */
+        private final boolean binary;
+
+        /**
+         * The header lines, without the command
+         */
+        private final List<String> headers;
+
+        /**
+         * The body
+         */
+        private final byte[] body;
+
+        /**
+         * Constructor
+         *
+         * @param binary  True for a binary websocket message
+         * @param headers The header lines
+         * @param body    The body
+         */
+        private Frame(final boolean binary, final List<String> headers, final byte[] body) {
+            this.binary = binary;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        /**
+         * Split a frame
+         *
+         * @param message The websocket message
+         * @return The frame, null if the message is not a MESSAGE frame
+         */
+        private static Frame parse(final WebSocketMessage<?> message) {
+            byte[] payload;
+            if (message instanceof TextMessage) {
+                payload = ((TextMessage) message).getPayload().getBytes(StandardCharsets.UTF_8);
+            } else if (message instanceof BinaryMessage) {
+                ByteBuffer buffer = ((BinaryMessage) message).getPayload().duplicate();
+                payload = new byte[buffer.remaining()];
+                buffer.get(payload);
+            } else {
+                return null;
+            }
+
+            int headersEnd = 0;
+            while (headersEnd < payload.length - 1 && !(payload[headersEnd] == '\n' && payload[headersEnd + 1] == '\n')) {
+                headersEnd++;
+            }
+
+            List<String> lines = Arrays.asList(new String(payload, 0, headersEnd, StandardCharsets.UTF_8).split("\n"));
+            if (headersEnd >= payload.length - 1 || !StompCommand.MESSAGE.name().equals(lines.get(0))) {
+                return null;
+            }
+
+            // The body ends with a NULL octet, a binary body can hold others
+            int bodyStart = headersEnd + 2;
+            int bodyEnd = Math.max(bodyStart, payload.length - 1);
+            Frame frame = new Frame(message instanceof BinaryMessage, lines.subList(1, lines.size()), null);
+            String contentLength = frame.getHeader(CONTENT_LENGTH_HEADER);
+            if (StringUtils.isNumeric(contentLength)) {
+                bodyEnd = Math.min(payload.length, bodyStart + Integer.parseInt(contentLength));
+            }
+
+            return new Frame(frame.binary, frame.headers, Arrays.copyOfRange(payload, bodyStart, bodyEnd));
+        }
+
+        /**
+         * Get the value of a header
+         *
+         * @param name The header name
+         * @return The value of the first header with this name, null if absent
+         */
+        private String getHeader(final String name) {
+            String prefix = name + ":";
+            return headers.stream().filter(header -> header.startsWith(prefix)).map(header -> header.substring(prefix.length())).findFirst().orElse(null);
+        }
+
+        /**
+         * Get the payload format of the body
+         *
+         * @return The value of the payload format header, null for JSON
+         */
+        private String getPayloadFormat() {
+            return getHeader(WebsocketPayloadFormatService.PAYLOAD_FORMAT_HEADER);
+        }
+
+        /**
+         * Build the frame of a merged body, with the headers of this frame
+         *
+         * @param updateType       The type of the merged event
+         * @param projectWidgetIds The project widget ids of the merged event
+         * @param mergedBody       The merged body
+         * @return The websocket message
+         */
+        private WebSocketMessage<?> toMessage(final String updateType, final String projectWidgetIds, final byte[] mergedBody) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(mergedBody.length + 256);
+            StringBuilder frameHeaders = new StringBuilder(StompCommand.MESSAGE.name()).append('\n');
+
+            for (String header : headers) {
+                String name = header.substring(0, Math.max(0, header.indexOf(':')));
+                if (DashboardWebSocketService.UPDATE_TYPE_HEADER.equals(name)) {
+                    header = name + ":" + updateType;
+                } else if (DashboardWebSocketService.PROJECT_WIDGET_IDS_HEADER.equals(name)) {
+                    header = name + ":" + projectWidgetIds;
+                } else if (CONTENT_LENGTH_HEADER.equals(name)) {
+                    header = name + ":" + mergedBody.length;
+                }
+                frameHeaders.append(header).append('\n');
+            }
+            frameHeaders.append('\n');
+
+            byte[] frameHeadersBytes = frameHeaders.toString().getBytes(StandardCharsets.UTF_8);
+            outputStream.write(frameHeadersBytes, 0, frameHeadersBytes.length);
+            outputStream.write(mergedBody, 0, mergedBody.length);
+            outputStream.write(0);
+
+            return binary
+                ? new BinaryMessage(outputStream.toByteArray())
+                : new TextMessage(outputStream.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Merge the widget updates of a project received within a short window, and push them to the screens in one frame
+ * Only the last version of a widget is kept during the window, so the pushed delta covers every change of the window
+ */
+@Service
+public class ProjectWidgetUpdateCoalescingService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectWidgetUpdateCoalescingService.class);
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The dashboard websocket service
+     */
+    private final DashboardWebSocketService dashboardWebSocketService;
+
+    /**
+     * The project widget delta service
+     */
+    private final ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    /**
+     * The number of widget updates pushed in each frame
+     */
+    private final DistributionSummary batchSizeSummary;
+
+    /**
+     * The versions waiting for the end of the window, by project token then by project widget id
+     */
+    private final Map<String, Map<Long, ProjectWidgetResponseDto>> pendingVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Scheduler pushing the frames at the end of the windows
+     */
+    private final TaskScheduler websocketScheduler;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties     The application properties
+     * @param dashboardWebSocketService The dashboard websocket service
+     * @param projectWidgetDeltaService The project widget delta service
+     * @param websocketScheduler        The scheduler of the websocket tasks
+     * @param meterRegistry             The registry of the metrics
+     */
+    @Autowired
+    public ProjectWidgetUpdateCoalescingService(final ApplicationProperties applicationProperties,
+                                                final DashboardWebSocketService dashboardWebSocketService,
+                                                final ProjectWidgetDeltaService projectWidgetDeltaService,
+                                                @Qualifier(AsyncConfiguration.WEBSOCKET_SCHEDULER) final TaskScheduler websocketScheduler,
+                                                final MeterRegistry meterRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.dashboardWebSocketService = dashboardWebSocketService;
+        this.projectWidgetDeltaService = projectWidgetDeltaService;
+        this.websocketScheduler = websocketScheduler;
+        this.batchSizeSummary = DistributionSummary.builder("suricate.websocket.batch.size")
+            .description("Number of widget updates pushed in one websocket frame")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Test if the widget updates should be merged
+     *
+     * @return True if a coalescing window is configured
+     */
+    public boolean isEnabled() {
+        return applicationProperties.websocket.coalescingWindow > 0;
+    }
+
+    /**
+     * Add a new version of a project widget to the current window of its project
+     * The first version of a window schedules the push of the frame
+     *
+     * @param projectWidgetResponseDto The new version of the project widget
+     */
+    public void add(final ProjectWidgetResponseDto projectWidgetResponseDto) {
+        pendingVersions.compute(projectWidgetResponseDto.getProjectToken(), (projectToken, versions) -> {
+            if (versions == null) {
+                versions = new LinkedHashMap<>();
+                websocketScheduler.schedule(() -> flush(projectToken), new Date(System.currentTimeMillis() + applicationProperties.websocket.coalescingWindow));
+            }
+
+            versions.put(projectWidgetResponseDto.getId(), projectWidgetResponseDto);
+            return versions;
+        });
+    }
+
+    /**
+     * Push the widget updates of a project in one frame
+     * The deltas are built in the lane of the project, so the sequences are pushed in order
+     *
+     * @param projectToken The project token
+     */
+    void flush(final String projectToken) {
+        Map<Long, ProjectWidgetResponseDto> versions = pendingVersions.remove(projectToken);
+        if (versions == null) {
+            return;
+        }
+
+        try {
+            dashboardWebSocketService.executeInProjectLane(projectToken, () -> push(projectToken, versions));
+        } catch (Exception e) {
+            LOGGER.error("Error while pushing the widget updates of the project {}", projectToken, e);
+        }
+    }
+
+    /**
+     * Build the frame of the widget updates of a project and push it
+     *
+     * @param projectToken The project token
+     * @param versions     The new versions of the project widgets
+     */
+    private void push(final String projectToken, final Map<Long, ProjectWidgetResponseDto> versions) {
+        ArrayList<UpdateEvent> updateEvents = versions.values().stream()
+            .map(projectWidgetDeltaService::toUpdateEvent)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toCollection(ArrayList::new));
+
+        if (updateEvents.isEmpty()) {
+            return;
+        }
+
+        batchSizeSummary.record(updateEvents.size());
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGETS);
+        updateEvent.setContent(updateEvents);
+        dashboardWebSocketService.updateGlobalScreensByProjectToken(projectToken, updateEvent);
+    }
+}
@@ -0,0 +1,854 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.dto.websocket.WebsocketClient;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Push the screen events through Server-Sent Events, for the read-only screens not needing a websocket
+ * The events of a project are numbered and kept for a while, so a screen reconnecting with its last event id
+ * receives the events it missed and the last version of the widgets changed meanwhile, instead of the whole project
+ * Every screen has its own bounded queue, sent by the sender threads : a slow screen never delays the others,
+ * and it is closed when its queue is full or when a send is blocked for too long, its browser then reconnects and resumes from its last event
+ */
+@Service
+public class ScreenStreamService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenStreamService.class);
+
+    /**
+     * Prefix of the session ids given to the streams in the connected clients
+     */
+    private static final String STREAM_SESSION_PREFIX = "sse-";
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The dashboard websocket service, holding the connected clients
+     */
+    private final DashboardWebSocketService dashboardWebSocketService;
+
+    /**
+     * The project snapshot service
+     */
+    private final ProjectSnapshotService projectSnapshotService;
+
+    /**
+     * The JSON mapper used to serialize the events, the same as the websocket one
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The id of the last event, starting from the current time so the ids of a previous run are not resumed
+     */
+    private final AtomicLong lastEventId = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * The streams by project token
+     */
+    private final Map<String, ProjectStream> projectStreams = new ConcurrentHashMap<>();
+
+    /**
+     * Scheduler sending the heartbeats
+     */
+    private final TaskScheduler websocketScheduler;
+
+    /**
+     * Executor sending the queued events, a screen is sent by one thread at a time
+     * When it is full, the events stay queued and are sent with the next heartbeat
+     */
+    private final Executor screenStreamExecutor;
+
+    /**
+     * The number of screens closed because their queue was full
+     */
+    private final Counter evictedScreens;
+
+    /**
+     * The number of screens evicted because a send was blocked for longer than the time limit
+     */
+    private final Counter blockedScreens;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties     The application properties
+     * @param dashboardWebSocketService The dashboard websocket service
+     * @param projectSnapshotService    The project snapshot service
+     * @param simpMessagingTemplate     The stomp websocket message template, holding the JSON mapper
+     * @param websocketScheduler        The scheduler of the websocket tasks
+     * @param screenStreamExecutor      The executor sending the queued events
+     * @param meterRegistry             The registry of the metrics
+     */
+    @Autowired
+    public ScreenStreamService(final ApplicationProperties applicationProperties,
+                               final DashboardWebSocketService dashboardWebSocketService,
+                               final ProjectSnapshotService projectSnapshotService,
+                               final SimpMessagingTemplate simpMessagingTemplate,
+                               @Qualifier(AsyncConfiguration.WEBSOCKET_SCHEDULER) final TaskScheduler websocketScheduler,
+                               @Qualifier(AsyncConfiguration.SCREEN_STREAM_EXECUTOR) final Executor screenStreamExecutor,
+                               final MeterRegistry meterRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.dashboardWebSocketService = dashboardWebSocketService;
+        this.projectSnapshotService = projectSnapshotService;
+        this.objectMapper = DashboardWebSocketService.getWebsocketObjectMapper(simpMessagingTemplate);
+        this.websocketScheduler = websocketScheduler;
+        this.screenStreamExecutor = screenStreamExecutor;
+
+        Gauge.builder("suricate.screens.streams", this, ScreenStreamService::getScreenCount)
+            .description("Number of screens connected through Server-Sent Events")
+            .register(meterRegistry);
+        this.evictedScreens = Counter.builder("suricate.screens.streams.evicted")
+            .description("Number of screens closed because they did not read their events fast enough")
+            .register(meterRegistry);
+        this.blockedScreens = Counter.builder("suricate.screens.streams.blocked")
+            .description("Number of screens evicted because a send was blocked for longer than the time limit")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Schedule the heartbeats
+     */
+    @PostConstruct
+    public void init() {
+        long heartbeatInterval = applicationProperties.screenStream.heartbeatInterval;
+        websocketScheduler.scheduleWithFixedDelay(this::heartbeat, new Date(System.currentTimeMillis() + heartbeatInterval), heartbeatInterval);
+    }
+
+    /**
+     * Open the stream of a screen
+     * The screen first receives the snapshot of the project, or only what it missed when it resumes a stream
+     * These first events are built before locking the stream of the project, the events published meanwhile are queued after them
+     *
+     * @param projectToken The project token
+     * @param screenCode   The screen code, can be null
+     * @param lastEventId  The id of the last event received by the screen, null for a new screen
+     * @return The stream
+     */
+    public SseEmitter open(final String projectToken, final String screenCode, final Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(applicationProperties.screenStream.timeout);
+        Screen screen = new Screen(emitter, new WebsocketClient(projectToken, STREAM_SESSION_PREFIX + UUID.randomUUID(), null, screenCode),
+            applicationProperties.screenStream.queueSize);
+
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(() -> close(screen));
+        dashboardWebSocketService.addProjectClient(projectToken, screen.client);
+
+        try {
+            ProjectStream projectStream;
+            FirstEvents firstEvents;
+            do {
+                projectStream = getOrCreateProjectStream(projectToken);
+                firstEvents = resume(projectStream, screen, lastEventId);
+            } while (!projectStream.addScreen(screen, firstEvents));
+            flush(screen);
+        } catch (RuntimeException e) {
+            close(screen);
+            throw e;
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Push an event to the screens of a project
+     *
+     * @param projectToken The project token
+     * @param payload      The event
+     */
+    public void publish(final String projectToken, final Object payload) {
+        ProjectStream projectStream = projectStreams.get(projectToken);
+        if (projectStream == null) {
+            return;
+        }
+
+        String data = serialize(payload);
+        if (data != null) {
+            projectStream.publish(lastEventId, ProjectWidgetDeltaService.getProjectWidgetIds(payload), data, applicationProperties.screenStream.replayBufferSize)
+                .forEach(this::flush);
+        }
+    }
+
+    /**
+     * Push an event to a screen of a project, the event is not kept for the resumed streams
+     *
+     * @param projectToken The project token
+     * @param screenCode   The screen code
+     * @param payload      The event
+     */
+    public void publishToScreen(final String projectToken, final String screenCode, final Object payload) {
+        ProjectStream projectStream = projectStreams.get(projectToken);
+        if (projectStream == null) {
+            return;
+        }
+
+        String data = serialize(payload);
+        if (data != null) {
+            projectStream.send(screen -> screenCode.equals(screen.client.getScreenCode()), () -> SseEmitter.event().data(data))
+                .forEach(this::flush);
+        }
+    }
+
+    /**
+     * Check whether a client is a screen connected through Server-Sent Events
+     *
+     * @param websocketClient The client
+     * @return True if the client is a stream
+     */
+    static boolean isStreamClient(final WebsocketClient websocketClient) {
+        return websocketClient.getSessionId().startsWith(STREAM_SESSION_PREFIX);
+    }
+
+    /**
+     * Get the number of screens connected through Server-Sent Events
+     *
+     * @return The number of screens
+     */
+    public int getScreenCount() {
+        return projectStreams.values().stream().mapToInt(ProjectStream::getScreenCount).sum();
+    }
+
+    /**
+     * Queue a heartbeat to every screen, evict the screens blocked on a send, and drop the projects without screen for longer than the retention
+     * The heartbeats also retry the sends rejected by the full executor
+     */
+    void heartbeat() {
+        long now = System.currentTimeMillis();
+        long idleLimit = now - applicationProperties.screenStream.replayRetention;
+        long blockedLimit = now - applicationProperties.screenStream.sendTimeLimit;
+
+        projectStreams.values().forEach(projectStream -> {
+            try {
+                projectStream.evictBlockedSince(blockedLimit).forEach(screen -> {
+                    LOGGER.debug("The screen {} of the project {} is blocked on a send, it is evicted", screen.client.getScreenCode(), screen.client.getProjectToken());
+                    blockedScreens.increment();
+                    close(screen);
+                });
+
+                projectStream.send(screen -> true, () -> SseEmitter.event().comment("heartbeat")).forEach(this::flush);
+
+                if (projectStream.closeIfIdleSince(idleLimit)) {
+                    projectStreams.remove(projectStream.projectToken, projectStream);
+                    dashboardWebSocketService.removeProjectClient(projectStream.projectToken, projectStream.client);
+                }
+            } catch (Exception e) {
+                LOGGER.error("Error while sending the heartbeat of the project {}", projectStream.projectToken, e);
+            }
+        });
+    }
+
+    /**
+     * Close the streams on shutdown
+     */
+    @PreDestroy
+    public void destroy() {
+        projectStreams.values().forEach(ProjectStream::complete);
+    }
+
+    /**
+     * Close every stream and drop the projects, the events kept are lost
+     */
+    void reset() {
+        projectStreams.values().forEach(projectStream -> {
+            projectStreams.remove(projectStream.projectToken, projectStream);
+            projectStream.drop().forEach(screen -> {
+                screen.emitter.complete();
+                close(screen);
+            });
+            dashboardWebSocketService.removeProjectClient(projectStream.projectToken, projectStream.client);
+        });
+    }
+
+    /**
+     * Get the stream of a project, creating it with the first screen
+     * The stream is registered as a client of the project, so the project stays scheduled during the retention
+     *
+     * @param projectToken The project token
+     * @return The stream of the project
+     */
+    private ProjectStream getOrCreateProjectStream(final String projectToken) {
+        ProjectStream projectStream = projectStreams.get(projectToken);
+        if (projectStream != null) {
+            return projectStream;
+        }
+
+        ProjectStream newProjectStream = new ProjectStream(projectToken, lastEventId.get());
+        projectStream = projectStreams.putIfAbsent(projectToken, newProjectStream);
+        if (projectStream != null) {
+            return projectStream;
+        }
+
+        dashboardWebSocketService.addProjectClient(projectToken, newProjectStream.client);
+        return newProjectStream;
+    }
+
+    /**
+     * Remove a screen gone
+     *
+     * @param screen The screen
+     */
+    private void close(final Screen screen) {
+        ProjectStream projectStream = projectStreams.get(screen.client.getProjectToken());
+        if (projectStream != null) {
+            projectStream.removeScreen(screen);
+        }
+
+        if (screen.closed.compareAndSet(false, true)) {
+            dashboardWebSocketService.removeProjectClient(screen.client.getProjectToken(), screen.client);
+        }
+    }
+
+    /**
+     * Make the sender threads send the events queued to a screen, unless a thread is already sending them
+     *
+     * @param screen The screen
+     */
+    private void flush(final Screen screen) {
+        if (screen.sending.compareAndSet(false, true)) {
+            try {
+                screenStreamExecutor.execute(() -> drain(screen));
+            } catch (RejectedExecutionException e) {
+                screen.sending.set(false);
+            }
+        }
+    }
+
+    /**
+     * Send the events queued to a screen, called by a sender thread
+     * An evicted screen is completed by this thread, so it never waits for a send in progress
+     * A screen blocked on a send is evicted by the heartbeat, the blocked write then ends with the write timeout of the connector
+     *
+     * @param screen The screen
+     */
+    private void drain(final Screen screen) {
+        try {
+            Supplier<SseEmitter.SseEventBuilder> sseEvent;
+            while (!screen.evicted.get() && (sseEvent = screen.queue.poll()) != null) {
+                screen.sendStartTime = System.currentTimeMillis();
+                try {
+                    screen.emitter.send(sseEvent.get());
+                } finally {
+                    screen.sendStartTime = 0;
+                }
+            }
+
+            if (screen.evicted.get()) {
+                if (!screen.blocked) {
+                    LOGGER.debug("The screen {} of the project {} is too slow, its stream is closed", screen.client.getScreenCode(), screen.client.getProjectToken());
+                    evictedScreens.increment();
+                }
+                screen.emitter.complete();
+                return;
+            }
+        } catch (IOException | IllegalStateException e) {
+            LOGGER.debug("The screen {} of the project {} is gone", screen.client.getScreenCode(), screen.client.getProjectToken());
+            screen.evicted.set(true);
+            screen.emitter.completeWithError(e);
+            close(screen);
+            return;
+        }
+
+        screen.sending.set(false);
+        if (!screen.queue.isEmpty()) {
+            flush(screen);
+        }
+    }
+
+    /**
+     * Build the first events sent to a screen, without locking the stream of the project while building them
+     * When every event missed by the screen is still kept, the screen receives these events, the widget updates
+     * being replaced by the last version of each widget changed, otherwise it receives the snapshot of the project
+     *
+     * @param projectStream The stream of the project
+     * @param screen        The screen
+     * @param lastEventId   The id of the last event received by the screen, null for a new screen
+     * @return The events to send
+     */
+    private FirstEvents resume(final ProjectStream projectStream, final Screen screen, final Long lastEventId) {
+        String projectToken = projectStream.projectToken;
+
+        List<StreamEvent> events;
+        long evictedEventId;
+        synchronized (projectStream) {
+            events = new ArrayList<>(projectStream.events);
+            evictedEventId = projectStream.evictedEventId;
+        }
+        long coveredEventId = events.isEmpty() ? evictedEventId : events.get(events.size() - 1).id;
+
+        if (lastEventId != null && lastEventId >= evictedEventId && lastEventId <= this.lastEventId.get()) {
+            List<StreamEvent> missedEvents = new ArrayList<>();
+            Set<Long> changedProjectWidgetIds = new LinkedHashSet<>();
+            long lastWidgetEventId = 0;
+
+            for (StreamEvent streamEvent : events) {
+                if (streamEvent.id <= lastEventId) {
+                    continue;
+                }
+
+                if (streamEvent.projectWidgetIds.isEmpty()) {
+                    missedEvents.add(streamEvent);
+                } else {
+                    changedProjectWidgetIds.addAll(streamEvent.projectWidgetIds);
+                    lastWidgetEventId = streamEvent.id;
+                }
+            }
+
+            Optional<StreamEvent> widgetsEvent = getLastVersionsEvent(changedProjectWidgetIds, lastWidgetEventId);
+            if (changedProjectWidgetIds.isEmpty() || widgetsEvent.isPresent()) {
+                widgetsEvent.ifPresent(missedEvents::add);
+                missedEvents.sort(Comparator.comparingLong(streamEvent -> streamEvent.id));
+                LOGGER.debug("Resume the stream of the screen {} of the project {} with {} events", screen.client.getScreenCode(), projectToken, missedEvents.size());
+                return new FirstEvents(missedEvents, coveredEventId);
+            }
+        }
+
+        List<StreamEvent> snapshotEvents = projectSnapshotService.getSnapshot(projectToken)
+            .map(this::serialize)
+            .map(data -> Collections.singletonList(new StreamEvent(coveredEventId, Collections.emptySet(), data)))
+            .orElseGet(Collections::emptyList);
+        return new FirstEvents(snapshotEvents, coveredEventId);
+    }
+
+    /**
+     * Build the event holding the last version of project widgets
+     *
+     * @param projectWidgetIds The project widget ids
+     * @param eventId          The id of the event
+     * @return The event, empty if there is no widget or one of them has been deleted
+     */
+    private Optional<StreamEvent> getLastVersionsEvent(final Set<Long> projectWidgetIds, final long eventId) {
+        if (projectWidgetIds.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<List<ProjectWidgetResponseDto>> lastVersions = projectSnapshotService.getLastVersions(projectWidgetIds);
+        if (!lastVersions.isPresent()) {
+            return Optional.empty();
+        }
+
+        ArrayList<UpdateEvent> updateEvents = new ArrayList<>();
+        for (ProjectWidgetResponseDto lastVersion : lastVersions.get()) {
+            UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGET);
+            updateEvent.setContent(lastVersion);
+            updateEvents.add(updateEvent);
+        }
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGETS);
+        updateEvent.setContent(updateEvents);
+
+        String data = serialize(updateEvent);
+        return data == null ? Optional.empty() : Optional.of(new StreamEvent(eventId, Collections.emptySet(), data));
+    }
+
+    /**
+     * Serialize an event
+     *
+     * @param payload The event
+     * @return The JSON event, null if it cannot be serialized
+     */
+    private String serialize(final Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Cannot serialize the payload: {}", payload, e);
+            return null;
+        }
+    }
+
+    /**
+     * An event kept to resume the streams
+     */
+    private static final class StreamEvent {
+        /**
+         * The event id
+         */
+        private final long id;
+
+        /**
+         * The project widgets updated by the event
+         */
+        private final Set<Long> projectWidgetIds;
+
+        /**
+         * The JSON event
+         */
+        private final String data;
+
+        /**
+         * Constructor
+         *
+         * @param id               The event id
+         * @param projectWidgetIds The project widgets updated by the event
+         * @param data             The JSON event
+         */
+        private StreamEvent(final long id, final Set<Long> projectWidgetIds, final String data) {
+            this.id = id;
+            this.projectWidgetIds = projectWidgetIds;
+            this.data = data;
+        }
+
+        /**
+         * Build the Server-Sent Event
+         *
+         * @return The Server-Sent Event
+         */
+        private SseEmitter.SseEventBuilder toSseEvent() {
+            return SseEmitter.event().id(String.valueOf(id)).data(data);
+        }
+    }
+
+    /**
+     * The first events of a screen, built before the screen is added to the stream of its project
+     */
+    private static final class FirstEvents {
+        /**
+         * The events
+         */
+        private final List<StreamEvent> events;
+
+        /**
+         * The id of the last event published covered by these events, the next ones are queued after them
+         */
+        private final long coveredEventId;
+
+        /**
+         * Constructor
+         *
+         * @param events         The events
+         * @param coveredEventId The id of the last event published covered by these events
+         */
+        private FirstEvents(final List<StreamEvent> events, final long coveredEventId) {
+            this.events = events;
+            this.coveredEventId = coveredEventId;
+        }
+    }
+
+    /**
+     * A screen connected to a stream
+     */
+    private static final class Screen {
+        /**
+         * The stream of the screen
+         */
+        private final SseEmitter emitter;
+
+        /**
+         * The screen as a client of the project
+         */
+        private final WebsocketClient client;
+
+        /**
+         * The events waiting to be sent, built by the sender thread as an event builder cannot be shared between screens
+         */
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> queue = new LinkedBlockingQueue<>();
+
+        /**
+         * The number of events the queue can hold, beyond it the screen is evicted
+         */
+        private final int queueSize;
+
+        /**
+         * True while a sender thread is sending the queued events
+         */
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        /**
+         * True once the screen is evicted, its queue is no longer sent
+         */
+        private final AtomicBoolean evicted = new AtomicBoolean();
+
+        /**
+         * The time the send in progress started, 0 when no event is being sent
+         */
+        private volatile long sendStartTime;
+
+        /**
+         * True when the screen has been evicted because a send was blocked
+         */
+        private volatile boolean blocked;
+
+        /**
+         * True once the screen is no longer a client of the project
+         */
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Constructor
+         *
+         * @param emitter   The stream of the screen
+         * @param client    The screen as a client of the project
+         * @param queueSize The number of events the queue can hold
+         */
+        private Screen(final SseEmitter emitter, final WebsocketClient client, final int queueSize) {
+            this.emitter = emitter;
+            this.client = client;
+            this.queueSize = queueSize;
+        }
+    }
+
+    /**
+     * The stream of a project : its screens and its last events
+     * The events are numbered and queued to the screens while the stream is locked, so every screen receives them in order,
+     * they are sent once the stream is unlocked
+     */
+    private static final class ProjectStream {
+        /**
+         * The project token
+         */
+        private final String projectToken;
+
+        /**
+         * The stream as a client of the project, kept until the stream is dropped
+         */
+        private final WebsocketClient client;
+
+        /**
+         * The connected screens
+         */
+        private final List<Screen> screens = new ArrayList<>();
+
+        /**
+         * The last events
+         */
+        private final Deque<StreamEvent> events = new ArrayDeque<>();
+
+        /**
+         * The id of the last event no longer kept, the screens having missed it receive a snapshot
+         */
+        private long evictedEventId;
+
+        /**
+         * The time from which the project has no screen
+         */
+        private long idleSince = System.currentTimeMillis();
+
+        /**
+         * True once the stream is dropped
+         */
+        private boolean closed;
+
+        /**
+         * Constructor
+         *
+         * @param projectToken   The project token
+         * @param evictedEventId The id of the last event published before the stream
+         */
+        private ProjectStream(final String projectToken, final long evictedEventId) {
+            this.projectToken = projectToken;
+            this.client = new WebsocketClient(projectToken, STREAM_SESSION_PREFIX + projectToken, null, null);
+            this.evictedEventId = evictedEventId;
+        }
+
+        /**
+         * Add a screen and queue its first events, followed by the events published since they were built
+         *
+         * @param screen      The screen
+         * @param firstEvents The first events of the screen
+         * @return False if the stream has been dropped meanwhile, or if events published since are no longer kept
+         */
+        private synchronized boolean addScreen(final Screen screen, final FirstEvents firstEvents) {
+            if (closed || firstEvents.coveredEventId < evictedEventId) {
+                return false;
+            }
+
+            firstEvents.events.forEach(streamEvent -> screen.queue.add(streamEvent::toSseEvent));
+            events.stream()
+                .filter(streamEvent -> streamEvent.id > firstEvents.coveredEventId)
+                .forEach(streamEvent -> screen.queue.add(streamEvent::toSseEvent));
+            screens.add(screen);
+
+            return true;
+        }
+
+        /**
+         * Remove a screen
+         *
+         * @param screen The screen
+         */
+        private synchronized void removeScreen(final Screen screen) {
+            if (screens.remove(screen) && screens.isEmpty()) {
+                idleSince = System.currentTimeMillis();
+            }
+        }
+
+        /**
+         * Number and keep an event, then queue it to the screens
+         *
+         * @param lastEventId      The id of the last event
+         * @param projectWidgetIds The project widgets updated by the event
+         * @param data             The JSON event
+         * @param bufferSize       The number of events kept
+         * @return The screens the event is queued to, or evicted from the stream, to flush
+         */
+        private synchronized List<Screen> publish(final AtomicLong lastEventId, final Set<Long> projectWidgetIds, final String data, final int bufferSize) {
+            if (closed) {
+                return Collections.emptyList();
+            }
+
+            StreamEvent streamEvent = new StreamEvent(lastEventId.incrementAndGet(), projectWidgetIds, data);
+            events.addLast(streamEvent);
+            while (events.size() > bufferSize) {
+                evictedEventId = events.removeFirst().id;
+            }
+
+            return send(screen -> true, streamEvent::toSseEvent);
+        }
+
+        /**
+         * Queue an event to some screens
+         * The screens whose queue is full are evicted from the stream, they are closed by their sender thread
+         *
+         * @param filter   The screens to queue the event to
+         * @param sseEvent Builder of the event, called for each screen
+         * @return The screens the event is queued to, or evicted from the stream, to flush
+         */
+        private synchronized List<Screen> send(final Predicate<Screen> filter, final Supplier<SseEmitter.SseEventBuilder> sseEvent) {
+            List<Screen> flushedScreens = new ArrayList<>();
+
+            Iterator<Screen> iterator = screens.iterator();
+            while (iterator.hasNext()) {
+                Screen screen = iterator.next();
+                if (!filter.test(screen)) {
+                    continue;
+                }
+
+                if (screen.queue.size() >= screen.queueSize) {
+                    iterator.remove();
+                    if (screens.isEmpty()) {
+                        idleSince = System.currentTimeMillis();
+                    }
+                    screen.evicted.set(true);
+                    screen.queue.clear();
+                } else {
+                    screen.queue.add(sseEvent);
+                }
+                flushedScreens.add(screen);
+            }
+
+            return flushedScreens;
+        }
+
+        /**
+         * Evict the screens blocked on a send started before a time
+         * Their sender thread completes them once the send ends, the events queued meanwhile are dropped
+         *
+         * @param blockedLimit The time
+         * @return The screens evicted from the stream
+         */
+        private synchronized List<Screen> evictBlockedSince(final long blockedLimit) {
+            List<Screen> blockedScreens = new ArrayList<>();
+
+            Iterator<Screen> iterator = screens.iterator();
+            while (iterator.hasNext()) {
+                Screen screen = iterator.next();
+                long sendStartTime = screen.sendStartTime;
+                if (sendStartTime != 0 && sendStartTime < blockedLimit) {
+                    iterator.remove();
+                    screen.blocked = true;
+                    screen.evicted.set(true);
+                    screen.queue.clear();
+                    blockedScreens.add(screen);
+                }
+            }
+
+            if (!blockedScreens.isEmpty() && screens.isEmpty()) {
+                idleSince = System.currentTimeMillis();
+            }
+            return blockedScreens;
+        }
+
+        /**
+         * Drop the stream when it has no screen since a time
+         *
+         * @param idleLimit The time
+         * @return True if the stream is dropped
+         */
+        private synchronized boolean closeIfIdleSince(final long idleLimit) {
+            closed = screens.isEmpty() && idleSince < idleLimit;
+            return closed;
+        }
+
+        /**
+         * Drop the stream whatever its screens
+         *
+         * @return The screens removed from the stream
+         */
+        private synchronized List<Screen> drop() {
+            closed = true;
+            List<Screen> droppedScreens = new ArrayList<>(screens);
+            screens.clear();
+            return droppedScreens;
+        }
+
+        /**
+         * Close the stream of every screen, without removing them from the clients of the project
+         */
+        private synchronized void complete() {
+            screens.forEach(screen -> {
+                screen.closed.set(true);
+                screen.emitter.complete();
+            });
+        }
+
+        /**
+         * Get the number of connected screens
+         *
+         * @return The number of screens
+         */
+        private synchronized int getScreenCount() {
+            return screens.size();
+        }
+    }
+}
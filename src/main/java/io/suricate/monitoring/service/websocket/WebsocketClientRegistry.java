@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.WebsocketClient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Registry of the connected screens, indexed by project token, websocket session id and screen code
+ * Every operation is O(1), only locks the entry it updates and runs no other code under that lock
+ * The clients of a project and of its screens are only updated under the lock of the project entry
+ */
+public class WebsocketClientRegistry {
+
+    /**
+     * The connected clients by project token
+     */
+    private final Map<String, Set<WebsocketClient>> clientsByProjectToken = new ConcurrentHashMap<>();
+
+    /**
+     * The connected clients by websocket session id
+     */
+    private final Map<String, WebsocketClient> clientsBySessionId = new ConcurrentHashMap<>();
+
+    /**
+     * The connected clients by screen, see {@link #getScreenKey(String, String)}
+     */
+    private final Map<String, Set<WebsocketClient>> clientsByScreen = new ConcurrentHashMap<>();
+
+    /**
+     * Add a client to a project
+     *
+     * @param projectToken    The project token
+     * @param websocketClient The client
+     * @return True if it is the first client of the project
+     */
+    public boolean addProjectClient(final String projectToken, final WebsocketClient websocketClient) {
+        AtomicBoolean firstClient = new AtomicBoolean();
+
+        clientsByProjectToken.compute(projectToken, (token, clients) -> {
+            if (clients == null) {
+                clients = ConcurrentHashMap.newKeySet();
+                firstClient.set(true);
+            }
+
+            clients.add(websocketClient);
+            if (websocketClient.getScreenCode() != null) {
+                clientsByScreen.computeIfAbsent(getScreenKey(token, websocketClient.getScreenCode()), key -> ConcurrentHashMap.newKeySet())
+                    .add(websocketClient);
+            }
+            return clients;
+        });
+
+        return firstClient.get();
+    }
+
+    /**
+     * Remove a client from a project
+     *
+     * @param projectToken    The project token
+     * @param websocketClient The client
+     * @return True if the project has no client anymore
+     */
+    public boolean removeProjectClient(final String projectToken, final WebsocketClient websocketClient) {
+        AtomicBoolean lastClient = new AtomicBoolean();
+
+        clientsByProjectToken.computeIfPresent(projectToken, (token, clients) -> {
+            if (!clients.remove(websocketClient)) {
+                return clients;
+            }
+
+            if (websocketClient.getScreenCode() != null) {
+                clientsByScreen.computeIfPresent(getScreenKey(token, websocketClient.getScreenCode()), (key, screenClients) -> {
+                    screenClients.remove(websocketClient);
+                    return screenClients.isEmpty() ? null : screenClients;
+                });
+            }
+
+            if (!clients.isEmpty()) {
+                return clients;
+            }
+
+            lastClient.set(true);
+            return null;
+        });
+
+        return lastClient.get();
+    }
+
+    /**
+     * Get a snapshot of the clients of a project
+     *
+     * @param projectToken The project token
+     * @return The clients
+     */
+    public List<WebsocketClient> getProjectClients(final String projectToken) {
+        Set<WebsocketClient> clients = clientsByProjectToken.get(projectToken);
+        return clients == null ? new ArrayList<>() : new ArrayList<>(clients);
+    }
+
+    /**
+     * Get a snapshot of the clients of a screen
+     *
+     * @param projectToken The project token
+     * @param screenCode   The screen code
+     * @return The clients, a screen has several clients while it reconnects or when it uses both websockets and streams
+     */
+    public List<WebsocketClient> getScreenClients(final String projectToken, final String screenCode) {
+        Set<WebsocketClient> clients = clientsByScreen.get(getScreenKey(projectToken, screenCode));
+        return clients == null ? new ArrayList<>() : new ArrayList<>(clients);
+    }
+
+    /**
+     * Get a snapshot of the projects having connected clients
+     *
+     * @return The project tokens
+     */
+    public List<String> getProjectTokens() {
+        return new ArrayList<>(clientsByProjectToken.keySet());
+    }
+
+    /**
+     * Link a websocket session to a client
+     *
+     * @param sessionId       The websocket session id
+     * @param websocketClient The client
+     */
+    public void addSessionClient(final String sessionId, final WebsocketClient websocketClient) {
+        clientsBySessionId.put(sessionId, websocketClient);
+    }
+
+    /**
+     * Unlink a websocket session
+     *
+     * @param sessionId      The websocket session id
+     * @param subscriptionId The subscription id the client must hold, null to remove the session whatever its subscription
+     * @return The client removed, null if none
+     */
+    public WebsocketClient removeSessionClient(final String sessionId, final String subscriptionId) {
+        AtomicReference<WebsocketClient> removedClient = new AtomicReference<>();
+
+        clientsBySessionId.computeIfPresent(sessionId, (id, client) -> {
+            if (subscriptionId != null && !subscriptionId.equals(client.getSubscriptionId())) {
+                return client;
+            }
+
+            removedClient.set(client);
+            return null;
+        });
+
+        return removedClient.get();
+    }
+
+    /**
+     * Get the key of a screen, the name of the user receiving its unique events
+     *
+     * @param projectToken The project token
+     * @param screenCode   The screen code
+     * @return The key of the screen
+     */
+    private static String getScreenKey(final String projectToken, final String screenCode) {
+        return projectToken.trim() + "-" + screenCode;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.async.AsyncConfiguration;
+import io.suricate.monitoring.model.dto.websocket.WebsocketOutboundQueueDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Manage the bounded outbound queues of the websocket sessions
+ */
+@Service
+public class WebsocketOutboundQueueService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketOutboundQueueService.class);
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The queues by websocket session id
+     */
+    private final Map<String, LatestWinsWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Executor writing the messages to the sessions, a session is written by one thread at a time
+     * A session blocked on a write holds its thread until the watchdog closes it
+     */
+    private final Executor websocketOutboundExecutor;
+
+    /**
+     * Scheduler of the watchdog closing the sessions blocked on a write for longer than the time limit
+     */
+    private final TaskScheduler websocketScheduler;
+
+    /**
+     * Counter of the widget events replaced by a newer event of the same widget
+     */
+    private final Counter replacedCounter;
+
+    /**
+     * Counter of the messages dropped because of the buffer size limit
+     */
+    private final Counter droppedCounter;
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties     The application properties
+     * @param websocketOutboundExecutor The executor writing the messages to the sessions
+     * @param websocketScheduler        The scheduler of the websocket tasks
+     * @param meterRegistry             The registry of the metrics
+     */
+    @Autowired
+    public WebsocketOutboundQueueService(final ApplicationProperties applicationProperties,
+                                         @Qualifier(AsyncConfiguration.WEBSOCKET_OUTBOUND_EXECUTOR) final Executor websocketOutboundExecutor,
+                                         @Qualifier(AsyncConfiguration.WEBSOCKET_SCHEDULER) final TaskScheduler websocketScheduler,
+                                         final MeterRegistry meterRegistry) {
+        this.applicationProperties = applicationProperties;
+        this.websocketOutboundExecutor = websocketOutboundExecutor;
+        this.websocketScheduler = websocketScheduler;
+
+        replacedCounter = Counter.builder("suricate.websocket.outbound.replaced")
+            .description("Widget events merged with a newer event of the same widget before being sent")
+            .register(meterRegistry);
+        droppedCounter = Counter.builder("suricate.websocket.outbound.dropped")
+            .description("Messages dropped because of the send buffer size limit")
+            .register(meterRegistry);
+        Gauge.builder("suricate.websocket.outbound.depth", sessions, queues -> queues.values().stream().mapToInt(LatestWinsWebSocketSessionDecorator::getQueueDepth).sum())
+            .description("Messages waiting to be sent to the websocket sessions")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Schedule the watchdog of the sessions
+     */
+    @PostConstruct
+    public void init() {
+        long checkInterval = Math.max(1, applicationProperties.websocket.sendTimeLimit / 2);
+        websocketScheduler.scheduleWithFixedDelay(this::checkSessions, new Date(System.currentTimeMillis() + checkInterval), checkInterval);
+    }
+
+    /**
+     * Close the sessions blocked on a write for longer than the time limit, releasing their writer thread,
+     * and write the messages of the sessions rejected by the full executor
+     */
+    void checkSessions() {
+        sessions.values().forEach(session -> {
+            try {
+                if (!session.closeIfBlocked()) {
+                    session.flushIfPending();
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Cannot check the session {}", session.getId(), e);
+            }
+        });
+    }
+
+    /**
+     * Decorate a new websocket session with a bounded outbound queue
+     * The queues are only exported in aggregate, the queue of each session is listed by the websocketsessions endpoint
+     *
+     * @param session The websocket session
+     * @return The decorated session
+     */
+    public WebSocketSession decorate(final WebSocketSession session) {
+        LatestWinsWebSocketSessionDecorator decorator = new LatestWinsWebSocketSessionDecorator(session,
+            websocketOutboundExecutor,
+            applicationProperties.websocket.sendTimeLimit,
+            applicationProperties.websocket.sendBufferSizeLimit,
+            replacedCounter,
+            droppedCounter
+        );
+
+        sessions.put(session.getId(), decorator);
+        return decorator;
+    }
+
+    /**
+     * Forget the queue of a closed websocket session
+     *
+     * @param sessionId The websocket session id
+     */
+    public void remove(final String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Get the state of the queue of every websocket session
+     *
+     * @return The list of queues
+     */
+    public List<WebsocketOutboundQueueDto> getOutboundQueues() {
+        return sessions.values()
+            .stream()
+            .map(LatestWinsWebSocketSessionDecorator::getOutboundQueue)
+            .collect(Collectors.toList());
+    }
+}
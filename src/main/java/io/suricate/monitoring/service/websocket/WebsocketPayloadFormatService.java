@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.service.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.enums.WebsocketPayloadFormat;
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Negotiate the encoding of the payloads sent to each websocket session
+ * A client connected on the binary endpoint can ask for CBOR or Smile with the payload-format header of its CONNECT frame,
+ * the JSON payloads sent to it are then transcoded and sent as binary frames holding the same header
+ */
+@Service
+public class WebsocketPayloadFormatService {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketPayloadFormatService.class);
+
+    /**
+     * The STOMP header holding the payload format, in the CONNECT frames and the binary MESSAGE frames
+     */
+    public static final String PAYLOAD_FORMAT_HEADER = "payload-format";
+
+    /**
+     * The session attribute set on the sessions able to receive binary frames
+     */
+    public static final String BINARY_TRANSPORT_ATTRIBUTE = "binaryTransport";
+
+    /**
+     * The number of transcoded payloads kept by format, a payload is shared by every session of a broadcast
+     */
+    private static final int TRANSCODED_PAYLOADS_CACHE_SIZE = 64;
+
+    /**
+     * The factory reading the JSON payloads
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * The application properties
+     */
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * The factories writing the binary payloads
+     */
+    private final Map<WebsocketPayloadFormat, JsonFactory> binaryFactories = new EnumMap<>(WebsocketPayloadFormat.class);
+
+    /**
+     * The payloads already transcoded, by format and by JSON payload instance
+     */
+    private final Map<WebsocketPayloadFormat, Cache<byte[], byte[]>> transcodedPayloads = new EnumMap<>(WebsocketPayloadFormat.class);
+
+    /**
+     * The payload format of the sessions not receiving JSON
+     */
+    private final Map<String, WebsocketPayloadFormat> sessionFormats = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     *
+     * @param applicationProperties The application properties
+     */
+    @Autowired
+    public WebsocketPayloadFormatService(final ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+
+        binaryFactories.put(WebsocketPayloadFormat.CBOR, new CBORFactory());
+        binaryFactories.put(WebsocketPayloadFormat.SMILE, new SmileFactory());
+        for (WebsocketPayloadFormat payloadFormat : binaryFactories.keySet()) {
+            // Weak keys are compared by identity, the cache is only hit by the sessions of the same broadcast
+            transcodedPayloads.put(payloadFormat, CacheBuilder.newBuilder()
+                .weakKeys()
+                .maximumSize(TRANSCODED_PAYLOADS_CACHE_SIZE)
+                .build());
+        }
+    }
+
+    /**
+     * Read the payload format asked by a client in its CONNECT frame
+     * It is ignored when the binary payloads are disabled, or when the client is connected through SockJS
+     *
+     * @param accessor The headers of the CONNECT frame
+     */
+    public void negotiate(final StompHeaderAccessor accessor) {
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (!applicationProperties.websocket.binaryPayloads
+            || sessionAttributes == null
+            || !Boolean.TRUE.equals(sessionAttributes.get(BINARY_TRANSPORT_ATTRIBUTE))) {
+            return;
+        }
+
+        WebsocketPayloadFormat payloadFormat = EnumUtils.getEnum(WebsocketPayloadFormat.class,
+            StringUtils.upperCase(accessor.getFirstNativeHeader(PAYLOAD_FORMAT_HEADER)));
+
+        if (payloadFormat != null && binaryFactories.containsKey(payloadFormat)) {
+            LOGGER.debug("Session {} receives {} payloads", accessor.getSessionId(), payloadFormat);
+            sessionFormats.put(accessor.getSessionId(), payloadFormat);
+        }
+    }
+
+    /**
+     * Forget the payload format of a disconnected session
+     *
+     * @param sessionId The websocket session id
+     */
+    public void forget(final String sessionId) {
+        if (sessionId != null) {
+            sessionFormats.remove(sessionId);
+        }
+    }
+
+    /**
+     * Encode a message sent to a session in the payload format of the session
+     *
+     * @param message The message
+     * @return The encoded message, the message itself if the session receives JSON
+     */
+    public Message<?> encode(final Message<?> message) {
+        if (sessionFormats.isEmpty() || !(message.getPayload() instanceof byte[])) {
+            return message;
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        WebsocketPayloadFormat payloadFormat = accessor.getSessionId() == null ? null : sessionFormats.get(accessor.getSessionId());
+
+        if (payloadFormat == null
+            || !StompCommand.MESSAGE.equals(accessor.getCommand())
+            || accessor.getContentType() == null
+            || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(accessor.getContentType())) {
+            return message;
+        }
+
+        byte[] payload = (byte[]) message.getPayload();
+        try {
+            byte[] encodedPayload = transcodedPayloads.get(payloadFormat).get(payload, () -> transcode(payload, binaryFactories.get(payloadFormat)));
+
+            // Only the octet-stream content type is sent as a binary websocket frame
+            accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+            accessor.setNativeHeader(PAYLOAD_FORMAT_HEADER, payloadFormat.name().toLowerCase());
+            return MessageBuilder.createMessage(encodedPayload, accessor.getMessageHeaders());
+        } catch (ExecutionException e) {
+            LOGGER.error("Cannot encode a payload in {}, sending it as JSON", payloadFormat, e.getCause());
+            return message;
+        }
+    }
+
+    /**
+     * Transcode a JSON payload in another format, without building the object tree
+     *
+     * @param payload       The JSON payload
+     * @param binaryFactory The factory of the target format
+     * @return The transcoded payload
+     * @throws IOException When the payload is not a valid JSON document
+     */
+    static byte[] transcode(final byte[] payload, final JsonFactory binaryFactory) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length);
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload);
+             JsonGenerator generator = binaryFactory.createGenerator(outputStream)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Utility class used to compress text values stored in database
+ */
+public final class CompressionUtils {
+
+    /**
+     * Class logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressionUtils.class);
+
+    /**
+     * Header added in front of every compressed value (never the first char of a JSON document)
+     */
+    public static final String DEFLATE_MARKER = "#deflate:";
+
+    /**
+     * Default size (in chars) above which a value is compressed
+     */
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    /**
+     * Size of the buffer used to deflate/inflate
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * The content codings of gzip in the Accept-Encoding header, x-gzip being its legacy alias
+     */
+    private static final List<String> GZIP_CODINGS = Arrays.asList("gzip", "x-gzip");
+
+    /**
+     * The content coding matching every coding not listed in the Accept-Encoding header
+     */
+    private static final String ANY_CODING = "*";
+
+    /**
+     * The parameter holding the quality value of a content coding
+     */
+    private static final String QUALITY_PARAMETER = "q";
+
+    /**
+     * Compress the value with deflate if it's longer than the threshold
+     * The value is returned unchanged when it's too small, already compressed, or when the compression is useless
+     *
+     * @param value     The value to compress
+     * @param threshold The minimal length of the value to compress
+     * @return The compressed value prefixed by {@link #DEFLATE_MARKER} or the value itself
+     */
+    public static String compress(final String value, final int threshold) {
+        if (value == null || value.length() <= threshold || isCompressed(value)) {
+            return value;
+        }
+
+        byte[] input = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(input.length / 4)) {
+            deflater.setInput(input);
+            deflater.finish();
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, count);
+            }
+
+            String compressed = DEFLATE_MARKER + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+            return compressed.length() < value.length() ? compressed : value;
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return value;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress a value compressed with {@link #compress(String, int)}
+     * Legacy uncompressed values are returned unchanged
+     *
+     * @param value The value to decompress
+     * @return The original value
+     */
+    public static String decompress(final String value) {
+        if (!isCompressed(value)) {
+            return value;
+        }
+
+        byte[] input = Base64.getDecoder().decode(value.substring(DEFLATE_MARKER.length()));
+        Inflater inflater = new Inflater();
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(input.length * 4)) {
+            inflater.setInput(input);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated deflate stream");
+                }
+                outputStream.write(buffer, 0, count);
+            }
+
+            return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            return value;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Compress a content with gzip, used to serve the precompressed static contents
+     *
+     * @param content The content to compress
+     * @return The gzip content
+     * @throws IOException When the content cannot be compressed
+     */
+    public static byte[] gzip(final byte[] content) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 4);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Test if an Accept-Encoding header accepts the contents compressed with gzip
+     * The codings with a quality value of 0 are refused, and gzip named explicitly takes precedence over "*"
+     *
+     * @param acceptEncoding The value of the Accept-Encoding header, null when the header is missing
+     * @return True if gzip has a quality value above 0
+     */
+    public static boolean acceptsGzip(final String acceptEncoding) {
+        if (StringUtils.isBlank(acceptEncoding)) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String acceptedCoding : acceptEncoding.split(",")) {
+            String[] parts = acceptedCoding.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = getQuality(parts);
+
+            if (GZIP_CODINGS.contains(coding)) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (ANY_CODING.equals(coding)) {
+                anyQuality = quality;
+            }
+        }
+
+        Double quality = gzipQuality != null ? gzipQuality : anyQuality;
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * Read the quality value of a content coding of the Accept-Encoding header
+     *
+     * @param parts The coding followed by its parameters
+     * @return The quality value, 1 when missing and 0 when invalid
+     */
+    private static double getQuality(final String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String[] parameter = parts[i].split("=", 2);
+            if (parameter.length == 2 && QUALITY_PARAMETER.equalsIgnoreCase(parameter[0].trim())) {
+                try {
+                    double quality = Double.parseDouble(parameter[1].trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * Check if the value has been compressed
+     *
+     * @param value The value to check
+     * @return True if the value starts with the compression marker
+     */
+    public static boolean isCompressed(final String value) {
+        return StringUtils.startsWith(value, DEFLATE_MARKER);
+    }
+
+    /**
+     * Private constructor
+     */
+    private CompressionUtils() {
+    }
+}
@@ -16,11 +16,14 @@
 
 package io.suricate.monitoring.utils;
 
+import io.suricate.monitoring.configuration.encoder.IdTokenCodec;
 import io.suricate.monitoring.utils.exception.ProjectTokenInvalidException;
-import org.jasypt.encryption.StringEncryptor;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 public final class IdUtils {
 
     /**
@@ -29,16 +32,31 @@ public final class IdUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(IdUtils.class);
 
     /**
-     * Method used to decode id without salt
+     * Separate the id token from the version of the content it identifies
+     */
+    private static final String VERSION_SEPARATOR = ".";
+
+    /**
+     * Number of characters of the content hash kept as version
+     */
+    private static final int VERSION_LENGTH = 16;
+
+    /**
+     * The codec of the id tokens, registered by the codec bean of the running application context
+     */
+    private static final AtomicReference<IdTokenCodec> ID_TOKEN_CODEC = new AtomicReference<>();
+
+    /**
+     * Method used to decode an id token, signed or encrypted without salt
+     * The version of a versioned token is ignored
      *
      * @param token token to decode
      * @return the decoded id or null
      */
     public static Long decrypt(String token) {
-        StringEncryptor stringEncryptor = (StringEncryptor) SpringContextHolder.getApplicationContext().getBean("noSaltEncrypter");
         Long id = null;
         try {
-            id = Long.parseLong(stringEncryptor.decrypt(token));
+            id = getIdTokenCodec().decode(StringUtils.substringBefore(token, VERSION_SEPARATOR));
         } catch (Exception e) {
             LOGGER.debug(e.getMessage(), e);
             throw new ProjectTokenInvalidException(token);
@@ -47,17 +65,16 @@ public final class IdUtils {
     }
 
     /**
-     * Method used to encrypt id without salt
+     * Method used to sign an id in a token
      *
      * @param id to encrypt
-     * @return the encrypted id
+     * @return the token of the id
      */
     public static String encrypt(Long id) {
-        StringEncryptor stringEncryptor = (StringEncryptor) SpringContextHolder.getApplicationContext().getBean("noSaltEncrypter");
         String token = null;
         if (id != null) {
             try {
-                token = stringEncryptor.encrypt(String.valueOf(id));
+                token = getIdTokenCodec().encode(id);
             } catch (Exception e) {
                 LOGGER.error(e.getMessage(), e);
             }
@@ -65,6 +82,75 @@ public final class IdUtils {
         return token;
     }
 
+    /**
+     * Method used to sign an id in a token holding the version of the content, the token changes with the content
+     *
+     * @param id          to encrypt
+     * @param contentHash the hash of the content identified by the id
+     * @return the versioned token of the id, not versioned when the hash is unknown
+     */
+    public static String encrypt(Long id, String contentHash) {
+        String token = encrypt(id);
+        if (token == null || StringUtils.length(contentHash) < VERSION_LENGTH) {
+            return token;
+        }
+        return token + VERSION_SEPARATOR + contentHash.substring(0, VERSION_LENGTH);
+    }
+
+    /**
+     * Method used to get the version of the content held by a token
+     *
+     * @param token the token
+     * @return the version, null when the token is not versioned
+     */
+    public static String getVersion(String token) {
+        return StringUtils.contains(token, VERSION_SEPARATOR) ? StringUtils.substringAfter(token, VERSION_SEPARATOR) : null;
+    }
+
+    /**
+     * Method used to check if a versioned token identifies the current content
+     *
+     * @param token       the token
+     * @param contentHash the hash of the current content
+     * @return true when the version of the token is the one of the content
+     */
+    public static boolean isCurrentVersion(String token, String contentHash) {
+        String version = getVersion(token);
+        return version != null && version.length() == VERSION_LENGTH && StringUtils.startsWith(contentHash, version);
+    }
+
+    /**
+     * Set the codec of the id tokens, called by the codec bean when its application context starts
+     *
+     * @param codec The codec
+     */
+    public static void setIdTokenCodec(IdTokenCodec codec) {
+        ID_TOKEN_CODEC.set(codec);
+    }
+
+    /**
+     * Clear the codec of the id tokens, called by the codec bean when its application context is closed
+     * A codec registered since by another context is kept
+     *
+     * @param codec The codec to clear
+     */
+    public static void clearIdTokenCodec(IdTokenCodec codec) {
+        ID_TOKEN_CODEC.compareAndSet(codec, null);
+    }
+
+    /**
+     * Get the codec of the id tokens, looked up in the application context while no codec is registered
+     *
+     * @return The codec
+     */
+    private static IdTokenCodec getIdTokenCodec() {
+        IdTokenCodec codec = ID_TOKEN_CODEC.get();
+        if (codec == null) {
+            codec = (IdTokenCodec) SpringContextHolder.getApplicationContext().getBean(IdTokenCodec.NAME);
+        }
+        return codec;
+    }
+
     /**
      * Private constructor
      */
@@ -16,12 +16,16 @@
 
 package io.suricate.monitoring.utils;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Map;
 
 public final class JsonUtils {
 
@@ -30,16 +34,32 @@ public final class JsonUtils {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonUtils.class);
 
+    /**
+     * The JSON mapper shared by the utilities, thread safe once configured
+     */
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The reader of the JSON objects as maps
+     */
+    private static final ObjectReader MAP_READER = OBJECT_MAPPER.readerFor(new TypeReference<Map<String, Object>>() {
+    });
+
     /**
      * Method used to isValid if the JSON in parameter is isValid
+     * The JSON is only tokenized, no tree is built
      * @param jsonInString the json string to test
      * @return true if the json is isValid false otherwise
      */
     public static boolean isJsonValid(String jsonInString) {
         if (StringUtils.isNotBlank(jsonInString)) {
-            try {
-                final ObjectMapper mapper = new ObjectMapper();
-                mapper.readTree(jsonInString);
+            try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(jsonInString)) {
+                if (parser.nextToken() == null) {
+                    return false;
+                }
+
+                // Tokenizing the children of the first value checks their syntax
+                parser.skipChildren();
                 return true;
             } catch (IOException e) {
                 // do nothing
@@ -49,6 +69,16 @@ public final class JsonUtils {
         return false;
     }
 
+    /**
+     * Read a JSON object
+     * @param json the JSON object
+     * @return the map of the object fields
+     * @throws IOException when the JSON is not a valid object
+     */
+    public static Map<String, Object> readMap(String json) throws IOException {
+        return MAP_READER.readValue(json);
+    }
+
     private JsonUtils() {
     }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.suricate.monitoring.utils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for the websocket destinations
+ */
+public final class WebsocketUtils {
+
+    /**
+     * The user destinations used by the screens, like /user/{projectToken}/queue/live
+     */
+    private static final Pattern USER_DESTINATION_PATTERN = Pattern.compile("^/user/([^/]+)/queue/([^/]+)$");
+
+    /**
+     * Convert a user destination of a screen to a destination accepted by an external broker
+     * The screens are not authenticated, so their user destinations cannot be resolved to sessions,
+     * they are mapped to topics instead: /user/{name}/queue/{queue} becomes /topic/{name}.{queue}
+     *
+     * @param destination The destination
+     * @return The broker destination, the destination itself if it is not a user destination
+     */
+    public static String toBrokerDestination(final String destination) {
+        if (destination == null) {
+            return null;
+        }
+
+        Matcher matcher = USER_DESTINATION_PATTERN.matcher(destination);
+        return matcher.matches() ? "/topic/" + matcher.group(1) + "." + matcher.group(2) : destination;
+    }
+
+    /**
+     * Private Constructor
+     */
+    private WebsocketUtils() {
+    }
+}
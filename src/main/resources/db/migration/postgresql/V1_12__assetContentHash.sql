@@ -0,0 +1 @@
+ALTER TABLE asset ADD content_hash VARCHAR(64);
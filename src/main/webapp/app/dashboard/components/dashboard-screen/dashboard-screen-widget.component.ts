@@ -21,6 +21,7 @@ import { NgGridItemConfig, NgGridItemEvent } from 'angular2-grid';
 import { takeWhile, tap } from 'rxjs/operators';
 
 import { ProjectWidget } from '../../../shared/models/backend/project-widget/project-widget';
+import { ProjectWidgetDelta } from '../../../shared/models/backend/project-widget/project-widget-delta';
 import { Widget } from '../../../shared/models/backend/widget/widget';
 import { HttpWidgetService } from '../../../shared/services/backend/http-widget.service';
 import { WidgetStateEnum } from '../../../shared/enums/widget-sate.enum';
@@ -208,6 +209,29 @@ export class DashboardScreenWidgetComponent implements OnInit, OnDestroy {
     });
   }
 
+  /**
+   * Apply the changes pushed for this project widget
+   * When a version has been missed, the last version is fetched again
+   *
+   * @param projectWidgetDelta The changes since the previous version
+   */
+  private applyProjectWidgetDelta(projectWidgetDelta: ProjectWidgetDelta): void {
+    if (this.projectWidget.sequence && projectWidgetDelta.sequence <= this.projectWidget.sequence) {
+      return;
+    }
+
+    if (this.projectWidget.sequence !== projectWidgetDelta.previousSequence) {
+      this.httpProjectWidgetService.getLastVersionById(this.projectWidget.id).subscribe(projectWidget => {
+        this.projectWidget = projectWidget;
+        this.appRunScriptDirective.ngOnInit();
+      });
+      return;
+    }
+
+    this.projectWidget = { ...this.projectWidget, ...projectWidgetDelta.changes, sequence: projectWidgetDelta.sequence };
+    this.appRunScriptDirective.ngOnInit();
+  }
+
   /**
    * Subscribe to widget events
    */
@@ -217,13 +241,23 @@ export class DashboardScreenWidgetComponent implements OnInit, OnDestroy {
     this.websocketService
       .subscribeToDestination(projectWidgetSubscriptionUrl)
       .pipe(takeWhile(() => this.isAlive))
-      .subscribe((stompMessage: Stomp.Message) => {
-        const updateEvent: WebsocketUpdateEvent = JSON.parse(stompMessage.body);
+      .subscribe((stompMessage: Stomp.Message) => this.handleUpdateEvent(JSON.parse(stompMessage.body)));
+  }
 
-        if (updateEvent.type === WebsocketUpdateTypeEnum.WIDGET) {
-          this.refreshProjectWidget();
-        }
-      });
+  /**
+   * Apply an update event pushed for this project widget
+   *
+   * @param updateEvent The update event
+   */
+  public handleUpdateEvent(updateEvent: WebsocketUpdateEvent): void {
+    if (updateEvent.type === WebsocketUpdateTypeEnum.WIDGET && updateEvent.content && updateEvent.content.sequence) {
+      this.projectWidget = updateEvent.content;
+      this.appRunScriptDirective.ngOnInit();
+    } else if (updateEvent.type === WebsocketUpdateTypeEnum.WIDGET) {
+      this.refreshProjectWidget();
+    } else if (updateEvent.type === WebsocketUpdateTypeEnum.WIDGET_DELTA) {
+      this.applyProjectWidgetDelta(updateEvent.content);
+    }
   }
 
   /**
@@ -14,7 +14,19 @@
  * limitations under the License.
  */
 
-import { Component, ElementRef, EventEmitter, HostBinding, Input, OnChanges, OnDestroy, Output, SimpleChanges } from '@angular/core';
+import {
+  Component,
+  ElementRef,
+  EventEmitter,
+  HostBinding,
+  Input,
+  OnChanges,
+  OnDestroy,
+  Output,
+  QueryList,
+  SimpleChanges,
+  ViewChildren
+} from '@angular/core';
 import { takeWhile } from 'rxjs/operators';
 import { Subscription } from 'rxjs';
 import { NgGridConfig, NgGridItemConfig } from 'angular2-grid';
@@ -33,6 +45,7 @@ import { RunScriptsDirective } from '../../../shared/directives/run-scripts.dire
 import { GridItemUtils } from '../../../shared/utils/grid-item.utils';
 import { IconEnum } from '../../../shared/enums/icon.enum';
 import { MaterialIconRecords } from '../../../shared/records/material-icon.record';
+import { DashboardScreenWidgetComponent } from './dashboard-screen-widget.component';
 
 /**
  * Display the grid stack widgets
@@ -92,6 +105,13 @@ export class DashboardScreenComponent implements OnChanges, OnDestroy {
    */
   @HostBinding('attr.appRunScripts')
   public appRunScriptDirective = new RunScriptsDirective(this.elementRef);
+  /**
+   * The components displaying the project widgets
+   * @type {QueryList<DashboardScreenWidgetComponent>}
+   * @private
+   */
+  @ViewChildren(DashboardScreenWidgetComponent)
+  private projectWidgetComponents: QueryList<DashboardScreenWidgetComponent>;
 
   /**
    * Tell to subscriptions if the component is alive
@@ -282,6 +302,11 @@ export class DashboardScreenComponent implements OnChanges, OnDestroy {
   protected getJSLibraries(): string {
     let scriptUrls = '';
 
+    if (this.project.librariesBundleToken && this.project.librariesToken) {
+      const bundleUrl = HttpAssetService.getLibrariesBundleUrl(this.project.librariesBundleToken, this.project.librariesToken);
+      return `<script src="${bundleUrl}"></script>`;
+    }
+
     if (this.project.librariesToken) {
       this.project.librariesToken.forEach(libraryToken => {
         scriptUrls = scriptUrls.concat(`<script src="${HttpAssetService.getContentUrl(libraryToken)}"></script>`);
@@ -356,8 +381,10 @@ export class DashboardScreenComponent implements OnChanges, OnDestroy {
           location.reload();
         } else if (updateEvent.type === WebsocketUpdateTypeEnum.DISPLAY_NUMBER) {
           this.displayScreenCode();
+        } else if (updateEvent.type === WebsocketUpdateTypeEnum.WIDGETS) {
+          this.dispatchProjectWidgetEvents(updateEvent.content);
         } else if (updateEvent.type === WebsocketUpdateTypeEnum.POSITION) {
-          this.refreshProjectWidget.emit();
+          this.updateProjectWidgetPositions(updateEvent);
         } else if (updateEvent.type === WebsocketUpdateTypeEnum.DISCONNECT) {
           this.disconnectFromWebsocket();
           this.disconnectEvent.emit();
@@ -367,6 +394,44 @@ export class DashboardScreenComponent implements OnChanges, OnDestroy {
       });
   }
 
+  /**
+   * Move the project widgets on the grid, without reloading them when the positions are pushed
+   *
+   * @param updateEvent The position update event
+   */
+  private updateProjectWidgetPositions(updateEvent: WebsocketUpdateEvent): void {
+    const positions: ProjectWidget[] = updateEvent.fields && Array.isArray(updateEvent.content) ? updateEvent.content : null;
+    const projectWidgets = positions && this.projectWidgets ? this.projectWidgets : null;
+
+    if (!projectWidgets || positions.some(position => !projectWidgets.find(projectWidget => projectWidget.id === position.id))) {
+      this.refreshProjectWidget.emit();
+      return;
+    }
+
+    this.projectWidgets = projectWidgets.map((projectWidget: ProjectWidget) => {
+      const position = positions.find(projectWidgetPosition => projectWidgetPosition.id === projectWidget.id);
+      return position ? { ...projectWidget, widgetPosition: position.widgetPosition } : projectWidget;
+    });
+    this.initGridStackItems();
+  }
+
+  /**
+   * Dispatch the widget updates pushed in one frame to the components displaying the widgets
+   *
+   * @param updateEvents The update events of the project widgets
+   */
+  private dispatchProjectWidgetEvents(updateEvents: WebsocketUpdateEvent[]): void {
+    updateEvents.forEach((updateEvent: WebsocketUpdateEvent) => {
+      const projectWidgetComponent = this.projectWidgetComponents.find(
+        (component: DashboardScreenWidgetComponent) => component.projectWidget.id === updateEvent.content.id
+      );
+
+      if (projectWidgetComponent) {
+        projectWidgetComponent.handleUpdateEvent(updateEvent);
+      }
+    });
+  }
+
   /**
    * Create a websocket subscription for the current screen
    */
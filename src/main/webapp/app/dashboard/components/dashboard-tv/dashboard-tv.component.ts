@@ -17,17 +17,17 @@
  */
 
 import { Component, OnDestroy, OnInit, ViewEncapsulation } from '@angular/core';
-import { flatMap, takeWhile, tap } from 'rxjs/operators';
-import { Observable, Subscription } from 'rxjs';
+import { take, takeWhile } from 'rxjs/operators';
+import { Subscription } from 'rxjs';
 import { ActivatedRoute, Params, Router } from '@angular/router';
 import * as Stomp from '@stomp/stompjs';
 
 import { Project } from '../../../shared/models/backend/project/project';
 import { WebsocketUpdateEvent } from '../../../shared/models/frontend/websocket/websocket-update-event';
 import { WebsocketUpdateTypeEnum } from '../../../shared/enums/websocket-update-type.enum';
-import { HttpProjectService } from '../../../shared/services/backend/http-project.service';
 import { WebsocketService } from '../../../shared/services/frontend/websocket.service';
 import { ProjectWidget } from '../../../shared/models/backend/project-widget/project-widget';
+import { ProjectSnapshot } from '../../../shared/models/backend/project/project-snapshot';
 import { DashboardService } from '../../services/dashboard.service';
 
 /**
@@ -90,13 +90,11 @@ export class DashboardTvComponent implements OnInit, OnDestroy {
    *
    * @param {Router} router Angular service used to manage app's route
    * @param {ActivatedRoute} activatedRoute Angular service used to manage the route activated by the component
-   * @param {HttpProjectService} httpProjectService Suricate service used to manage http calls for a project
    * @param {WebsocketService} websocketService Frontend service used to manage websocket
    */
   constructor(
     private readonly router: Router,
     private readonly activatedRoute: ActivatedRoute,
-    private readonly httpProjectService: HttpProjectService,
     private readonly websocketService: WebsocketService
   ) {}
 
@@ -150,44 +148,44 @@ export class DashboardTvComponent implements OnInit, OnDestroy {
   private initComponent(): void {
     if (this.projectToken) {
       this.isDashboardLoading = true;
-
-      this.refreshProject(this.projectToken)
-        .pipe(flatMap(() => this.refreshProjectWidgets(this.projectToken)))
-        .subscribe(
-          () => {
-            this.isDashboardLoading = false;
-          },
-          () => {
-            this.isDashboardLoading = false;
-          }
-        );
+      this.refreshSnapshot(this.projectToken);
     }
   }
 
-  /**
-   * Refresh the project
-   *
-   * @param dashboardToken The token used for the refresh
-   */
-  private refreshProject(dashboardToken: string): Observable<Project> {
-    return this.httpProjectService.getById(dashboardToken).pipe(tap((project: Project) => (this.project = project)));
-  }
-
   /**
    * Activate the action of refresh project widgets
    */
   protected refreshProjectWidgetsAction(): void {
-    this.refreshProjectWidgets(this.project.token).subscribe();
+    this.refreshSnapshot(this.project.token);
   }
+
   /**
-   * Refresh the project widget list
+   * Refresh the project and its widgets from the snapshot sent by the server on subscription
    *
    * @param dashboardToken The token used for the refresh
    */
-  private refreshProjectWidgets(dashboardToken: string): Observable<ProjectWidget[]> {
-    return this.httpProjectService
-      .getProjectProjectWidgets(dashboardToken)
-      .pipe(tap((projectWidgets: ProjectWidget[]) => (this.projectWidgets = projectWidgets)));
+  private refreshSnapshot(dashboardToken: string): void {
+    this.websocketService
+      .subscribeToDestination(`/app/projects/${dashboardToken}/snapshot`)
+      .pipe(take(1))
+      .subscribe(
+        (stompMessage: Stomp.Message) => {
+          const updateEvent: WebsocketUpdateEvent = JSON.parse(stompMessage.body);
+
+          if (updateEvent.type === WebsocketUpdateTypeEnum.SNAPSHOT) {
+            const projectSnapshot: ProjectSnapshot = updateEvent.content;
+            this.project = projectSnapshot.project;
+            this.projectWidgets = projectSnapshot.projectWidgets;
+          } else if (updateEvent.type === WebsocketUpdateTypeEnum.DISCONNECT) {
+            this.handlingDashboardDisconnect();
+          }
+
+          this.isDashboardLoading = false;
+        },
+        () => {
+          this.isDashboardLoading = false;
+        }
+      );
   }
 
   /**
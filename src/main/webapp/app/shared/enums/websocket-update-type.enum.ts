@@ -22,9 +22,12 @@
 export enum WebsocketUpdateTypeEnum {
   GRID = 'GRID',
   WIDGET = 'WIDGET',
+  WIDGET_DELTA = 'WIDGET_DELTA',
+  WIDGETS = 'WIDGETS',
   POSITION = 'POSITION',
   DISCONNECT = 'DISCONNECT',
   CONNECT = 'CONNECT',
   DISPLAY_NUMBER = 'DISPLAY_NUMBER',
-  RELOAD = 'RELOAD'
+  RELOAD = 'RELOAD',
+  SNAPSHOT = 'SNAPSHOT'
 }
@@ -25,4 +25,5 @@ export interface Project {
   gridProperties: ProjectGrid;
   screenshotToken: string;
   librariesToken: string[];
+  librariesBundleToken?: string;
 }
@@ -25,4 +25,8 @@ export class WebsocketUpdateEvent {
   date: Date;
   type: WebsocketUpdateTypeEnum;
   content: any;
+  /**
+   * The fields of the project widgets held by the content when they are projected, the other fields are unchanged
+   */
+  fields?: string[];
 }
@@ -44,4 +44,14 @@ export class HttpAssetService {
   public static getContentUrl(assetToken: string): string {
     return assetToken ? `${HttpAssetService.assetsApiEndpoint}/${assetToken}/content` : ``;
   }
+
+  /**
+   * Get the url of the bundle holding the libraries of a project
+   *
+   * @param bundleToken The bundle token
+   * @param libraryTokens The tokens of the libraries held by the bundle
+   */
+  public static getLibrariesBundleUrl(bundleToken: string, libraryTokens: string[]): string {
+    return `${HttpAssetService.assetsApiEndpoint}/libraries/${bundleToken}?libraries=${libraryTokens.join(',')}`;
+  }
 }
@@ -52,6 +52,16 @@ export class HttpProjectWidgetService {
     return this.httpClient.get<ProjectWidget>(url);
   }
 
+  /**
+   * Get the last version of a project widget pushed to the screens
+   *
+   * @param projectWidgetId The project widget id
+   */
+  public getLastVersionById(projectWidgetId: number): Observable<ProjectWidget> {
+    const url = `${HttpProjectWidgetService.projectWidgetsApiEndpoint}/${projectWidgetId}/resync`;
+    return this.httpClient.get<ProjectWidget>(url);
+  }
+
   /**
    * Update a project widget by id
    *
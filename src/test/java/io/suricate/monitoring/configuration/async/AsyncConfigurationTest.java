@@ -0,0 +1,135 @@
+package io.suricate.monitoring.configuration.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class AsyncConfigurationTest {
+
+    private final CountDownLatch blocker = new CountDownLatch(1);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AsyncConfiguration asyncConfiguration;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @Before
+    public void before() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.executors.git.queueCapacity = 1;
+        applicationProperties.executors.websocket.queueCapacity = 1;
+        applicationProperties.executors.websocketOutbound.queueCapacity = 1;
+
+        meterRegistry = new SimpleMeterRegistry();
+        asyncConfiguration = new AsyncConfiguration(applicationProperties, meterRegistry);
+    }
+
+    @After
+    public void after() {
+        blocker.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDiscardBeyondQueue() throws Exception {
+        executor = asyncConfiguration.gitExecutor();
+        executor.initialize();
+
+        executor.submit(this::block);
+        executor.submit(this::block);
+        Future<?> discarded = executor.submit(this::block);
+
+        assertThat(discarded.isCancelled()).isTrue();
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "git").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("executor.queued").tag("name", "git").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("executor.active").tag("name", "git").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testCallerRunsBeyondQueue() throws Exception {
+        executor = asyncConfiguration.websocketExecutor();
+        executor.initialize();
+
+        executor.submit(this::block);
+        executor.submit(this::block);
+
+        AtomicReference<Thread> runningThread = new AtomicReference<>();
+        executor.submit(() -> runningThread.set(Thread.currentThread()));
+
+        assertThat(runningThread.get()).isSameInstanceAs(Thread.currentThread());
+        assertThat(meterRegistry.get("executor.rejected").tag("name", "websocket").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testAbortBeyondQueue() throws Exception {
+        executor = asyncConfiguration.websocketOutboundExecutor();
+        executor.initialize();
+
+        executor.execute(this::block);
+        executor.execute(this::block);
+
+        try {
+            executor.execute(this::block);
+            throw new AssertionError("The task should have been rejected");
+        } catch (TaskRejectedException e) {
+            assertThat(meterRegistry.get("executor.rejected").tag("name", "websocket-outbound").counter().count()).isEqualTo(1.0);
+        }
+    }
+
+    @Test
+    public void testSchedulerMetrics() throws Exception {
+        executor = asyncConfiguration.asyncExecutor();
+        ThreadPoolTaskScheduler scheduler = asyncConfiguration.websocketScheduler();
+        scheduler.initialize();
+
+        try {
+            AtomicReference<String> threadName = new AtomicReference<>();
+            scheduler.submit(() -> threadName.set(Thread.currentThread().getName())).get(10, TimeUnit.SECONDS);
+
+            assertThat(threadName.get()).startsWith("websocket-scheduler-");
+            assertThat(meterRegistry.get("executor.active").tag("name", "websocket-scheduler").gauge()).isNotNull();
+            assertThat(meterRegistry.get("executor.rejected").tag("name", "websocket-scheduler").counter().count()).isEqualTo(0.0);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompletedMetric() throws Exception {
+        executor = asyncConfiguration.asyncExecutor();
+        executor.initialize();
+
+        AtomicReference<String> threadName = new AtomicReference<>();
+        executor.submit(() -> threadName.set(Thread.currentThread().getName())).get(10, TimeUnit.SECONDS);
+
+        assertThat(threadName.get()).startsWith("async-");
+
+        // The completed task count is updated by the worker after the future is done
+        long deadline = System.currentTimeMillis() + 10000;
+        while (executor.getThreadPoolExecutor().getCompletedTaskCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("executor.completed").tag("name", "async").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private void block() {
+        try {
+            blocker.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.suricate.monitoring.configuration.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.service.websocket.DashboardWebSocketService;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.jms.*;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+@ContextConfiguration(initializers = WebSocketConfigurationTest.BrokerRelayInitializer.class)
+@DirtiesContext
+public class WebSocketConfigurationTest {
+
+    private static BrokerService brokerService;
+
+    private static int brokerPort;
+
+    @Autowired
+    StompBrokerRelayMessageHandler stompBrokerRelayMessageHandler;
+
+    @Autowired
+    DashboardWebSocketService dashboardWebSocketService;
+
+    @BeforeClass
+    public static void startBroker() throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            brokerPort = serverSocket.getLocalPort();
+        }
+
+        brokerService = new BrokerService();
+        brokerService.setBrokerName("suricate-test");
+        brokerService.setPersistent(false);
+        brokerService.setUseJmx(false);
+        brokerService.addConnector("stomp://localhost:" + brokerPort);
+        brokerService.start();
+        brokerService.waitUntilStarted();
+    }
+
+    @AfterClass
+    public static void stopBroker() throws Exception {
+        brokerService.stop();
+        brokerService.waitUntilStopped();
+    }
+
+    @Test
+    public void testUpdatesRelayedToBroker() throws Exception {
+        for (int i = 0; i < 100 && !stompBrokerRelayMessageHandler.isBrokerAvailable(); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(stompBrokerRelayMessageHandler.isBrokerAvailable()).isTrue();
+
+        Connection connection = new ActiveMQConnectionFactory("vm://suricate-test?create=false").createConnection();
+        try {
+            connection.start();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createTopic("token.live"));
+
+            // No screen of this project on this node, the update is broadcast to the other nodes through the broker
+            dashboardWebSocketService.sendToUsers(Collections.singletonList("token"), "/queue/live", new UpdateEvent(UpdateType.RELOAD));
+
+            BytesMessage message = (BytesMessage) consumer.receive(10000);
+            assertThat(message).isNotNull();
+            byte[] payload = new byte[(int) message.getBodyLength()];
+            message.readBytes(payload);
+            assertThat(new String(payload, StandardCharsets.UTF_8)).contains("\"type\":\"RELOAD\"");
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Relay the broker started for the test, the initializer makes the key of this context unique in the context cache
+     */
+    static class BrokerRelayInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+        @Override
+        public void initialize(ConfigurableApplicationContext applicationContext) {
+            TestPropertyValues.of(
+                "application.websocket.brokerRelay.enabled=true",
+                "application.websocket.brokerRelay.port=" + brokerPort
+            ).applyTo(applicationContext);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.suricate.monitoring.configuration.websocket;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "application.websocket.perMessageDeflate=false")
+@ActiveProfiles("test")
+public class WebSocketPerMessageDeflateTest {
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    public void testPerMessageDeflateDisabled() throws Exception {
+        assertThat(WebSocketTransportTest.upgrade(port)).doesNotContain("sec-websocket-extensions: permessage-deflate");
+    }
+}
@@ -0,0 +1,99 @@
+package io.suricate.monitoring.configuration.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class WebSocketTransportTest {
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    public void testPerMessageDeflateNegotiated() throws Exception {
+        assertThat(upgrade(port)).contains("sec-websocket-extensions: permessage-deflate");
+    }
+
+    /**
+     * Upgrade a connection to the websocket endpoint, offering permessage-deflate
+     *
+     * @param port The server port
+     * @return The headers of the upgrade response, in lower case
+     */
+    static String upgrade(int port) throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(("GET /ws/websocket HTTP/1.1\r\n" +
+                "Host: localhost:" + port + "\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\n" +
+                "Sec-WebSocket-Version: 13\r\n" +
+                "Sec-WebSocket-Extensions: permessage-deflate; client_max_window_bits\r\n" +
+                "\r\n").getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            assertThat(reader.readLine()).contains("101");
+
+            StringBuilder headers = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                headers.append(line.toLowerCase()).append('\n');
+            }
+
+            return headers.toString();
+        }
+    }
+
+    @Test
+    public void testSubscribeToSnapshot() throws Exception {
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        StompSession stompSession = stompClient.connect("ws://localhost:" + port + "/ws/websocket", new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+
+        CompletableFuture<UpdateEvent> snapshot = new CompletableFuture<>();
+        stompSession.subscribe("/app/projects/000000/snapshot", new StompSessionHandlerAdapter() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return UpdateEvent.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                snapshot.complete((UpdateEvent) payload);
+            }
+        });
+
+        // The project does not exist, the screen is asked to disconnect
+        assertThat(snapshot.get(10, TimeUnit.SECONDS).getType()).isEqualTo(UpdateType.DISCONNECT);
+        stompSession.disconnect();
+    }
+}
@@ -0,0 +1,237 @@
+package io.suricate.monitoring.controllers.api;
+
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.entity.Asset;
+import io.suricate.monitoring.repository.AssetRepository;
+import io.suricate.monitoring.service.api.AssetService;
+import io.suricate.monitoring.service.library.LibraryBundle;
+import io.suricate.monitoring.service.library.LibraryBundleService;
+import io.suricate.monitoring.utils.IdUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AssetControllerTest {
+
+    private static final String CONTENT = "console.log('Suricate');console.log('Suricate');console.log('Suricate');";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    AssetService assetService;
+
+    @Autowired
+    LibraryBundleService libraryBundleService;
+
+    @Autowired
+    AssetRepository assetRepository;
+
+    @Autowired
+    ApplicationProperties applicationProperties;
+
+    private final ApplicationProperties.BlobStore blobStore = new ApplicationProperties.BlobStore();
+
+    @Before
+    public void before() {
+        blobStore.enabled = applicationProperties.assets.blobStore.enabled;
+        blobStore.path = applicationProperties.assets.blobStore.path;
+        applicationProperties.assets.blobStore.path = temporaryFolder.getRoot().getAbsolutePath();
+    }
+
+    @After
+    public void after() {
+        applicationProperties.assets.blobStore.enabled = blobStore.enabled;
+        applicationProperties.assets.blobStore.path = blobStore.path;
+        libraryBundleService.clearCache();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void testGetAssetRevalidation() throws Exception {
+        Asset asset = newAsset();
+        String token = IdUtils.encrypt(asset.getId());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)).andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + asset.getContentHash() + "\"");
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+
+        response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + asset.getContentHash() + "\""))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void testGetVersionedAsset() throws Exception {
+        Asset asset = newAsset();
+
+        MockHttpServletResponse response = mockMvc
+            .perform(get("/api/v1/assets/{token}/content", IdUtils.encrypt(asset.getId(), asset.getContentHash())))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=31536000, public, immutable");
+
+        // A token of a previous content is only revalidated
+        response = mockMvc
+            .perform(get("/api/v1/assets/{token}/content", IdUtils.encrypt(asset.getId(), "0123456789abcdef0123")))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+    }
+
+    @Test
+    public void testGetAssetRange() throws Exception {
+        String token = IdUtils.encrypt(newAsset().getId());
+        assertRange(token);
+
+        applicationProperties.assets.blobStore.enabled = true;
+        assertRange(IdUtils.encrypt(newAsset().getId()));
+    }
+
+    @Test
+    public void testGetDatabaseAsset() throws Exception {
+        applicationProperties.assets.blobStore.path = null;
+        String token = IdUtils.encrypt(newAsset().getId());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)).andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentLength()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+
+        assertRange(token);
+    }
+
+    @Test
+    public void testGetPrecompressedAsset() throws Exception {
+        applicationProperties.assets.blobStore.enabled = true;
+        Asset asset = newAsset();
+        String token = IdUtils.encrypt(asset.getId());
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + asset.getContentHash() + "-gz\"");
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(CONTENT);
+
+        response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)).andReturn().getResponse();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + asset.getContentHash() + "\"");
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+
+        // A cache holding the identity variant does not get it validated for a client asking for gzip
+        response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + asset.getContentHash() + "\""))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+
+        response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + asset.getContentHash() + "-gz\""))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(304);
+
+        response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate"))
+            .andReturn().getResponse();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void testGetLibraryBundle() throws Exception {
+        Asset asset = newAsset();
+        LibraryBundle libraryBundle = libraryBundleService.getLibraryBundle(Collections.singletonList(asset.getId())).get();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/assets/libraries/{hash}", libraryBundle.getHash())
+            .param("libraries", IdUtils.encrypt(asset.getId()))
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=31536000, public, immutable");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + libraryBundle.getHash() + "-gz\"");
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(CONTENT + "\n;\n");
+
+        response = mockMvc.perform(get("/api/v1/assets/libraries/{hash}", libraryBundle.getHash())
+            .param("libraries", IdUtils.encrypt(asset.getId()))
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+            .andReturn().getResponse();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + libraryBundle.getHash() + "\"");
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT + "\n;\n");
+
+        response = mockMvc.perform(get("/api/v1/assets/libraries/{hash}", libraryBundle.getHash())
+            .param("libraries", IdUtils.encrypt(asset.getId()))
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + libraryBundle.getHash() + "\""))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(304);
+
+        response = mockMvc.perform(get("/api/v1/assets/libraries/{hash}", libraryBundle.getHash())
+            .param("libraries", IdUtils.encrypt(asset.getId()))
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + libraryBundle.getHash() + "\""))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+
+        response = mockMvc.perform(get("/api/v1/assets/libraries/{hash}", asset.getContentHash())
+            .param("libraries", IdUtils.encrypt(asset.getId())))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    private void assertRange(String token) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/v1/assets/{token}/content", token)
+            .header(HttpHeaders.RANGE, "bytes=0-10"))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-10/" + CONTENT.length());
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT.substring(0, 11));
+    }
+
+    private Asset newAsset() {
+        Asset asset = new Asset();
+        asset.setContentType("application/javascript");
+        asset.setContent(CONTENT.getBytes(StandardCharsets.UTF_8));
+        return assetService.save(asset);
+    }
+
+    private static String gunzip(byte[] content) throws Exception {
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return IOUtils.toString(gzipInputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.suricate.monitoring.controllers.api;
+
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.CategoryRepository;
+import io.suricate.monitoring.repository.ProjectWidgetRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
+import io.suricate.monitoring.service.websocket.ProjectWidgetDeltaService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ProjectWidgetControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    @After
+    public void after() {
+        projectWidgetRepository.findAll().forEach(projectWidget -> projectWidgetDeltaService.forget(Collections.singleton(projectWidget.getId())));
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    public void testResyncWithoutToken() throws Exception {
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryRepository.save(category);
+
+        Widget widget = new Widget();
+        widget.setName("Widget");
+        widget.setDescription("Description");
+        widget.setTechnicalName("widget");
+        widget.setBackendJs("function run() {}");
+        widget.setHtmlContent("<div>{{value}}</div>");
+        widget.setDelay(10L);
+        widget.setCategory(category);
+        widgetRepository.save(widget);
+
+        ProjectWidget projectWidget = new ProjectWidget();
+        projectWidget.setState(WidgetState.RUNNING);
+        projectWidget.setData("{\"value\":1}");
+        projectWidget.setWidget(widget);
+        projectWidgetRepository.save(projectWidget);
+
+        ProjectWidgetResponseDto lastVersion = new ProjectWidgetResponseDto();
+        lastVersion.setId(projectWidget.getId());
+        lastVersion.setData("{\"value\":1}");
+        projectWidgetDeltaService.getLastVersion(projectWidget.getId(), () -> lastVersion);
+
+        MockHttpServletResponse response = mockMvc
+            .perform(get("/api/v1/projectWidgets/{projectWidgetId}/resync", projectWidget.getId()))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).contains("\"sequence\":1");
+        assertThat(response.getContentAsString()).contains("{\\\"value\\\":1}");
+    }
+
+    @Test
+    public void testResyncUnknownProjectWidgetWithoutToken() throws Exception {
+        MockHttpServletResponse response = mockMvc
+            .perform(get("/api/v1/projectWidgets/{projectWidgetId}/resync", 999L))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    public void testProtectedEndpointWithoutToken() throws Exception {
+        MockHttpServletResponse response = mockMvc
+            .perform(delete("/api/v1/projectWidgets/{projectWidgetId}", 1L))
+            .andReturn().getResponse();
+        assertThat(response.getStatus()).isEqualTo(403);
+    }
+}
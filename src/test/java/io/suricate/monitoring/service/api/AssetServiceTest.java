@@ -0,0 +1,223 @@
+package io.suricate.monitoring.service.api;
+
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.asset.AssetMetadataDto;
+import io.suricate.monitoring.model.entity.Asset;
+import io.suricate.monitoring.repository.AssetRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class AssetServiceTest {
+
+    private static final byte[] CONTENT = "console.log('test');".getBytes(StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    AssetService assetService;
+
+    @Autowired
+    AssetRepository assetRepository;
+
+    @Autowired
+    ApplicationProperties applicationProperties;
+
+    private final ApplicationProperties.BlobStore blobStore = new ApplicationProperties.BlobStore();
+
+    @Before
+    public void before() {
+        blobStore.enabled = applicationProperties.assets.blobStore.enabled;
+        blobStore.path = applicationProperties.assets.blobStore.path;
+        blobStore.orphanRetention = applicationProperties.assets.blobStore.orphanRetention;
+        applicationProperties.assets.blobStore.path = temporaryFolder.getRoot().getAbsolutePath();
+    }
+
+    @After
+    public void after() {
+        applicationProperties.assets.blobStore.enabled = blobStore.enabled;
+        applicationProperties.assets.blobStore.path = blobStore.path;
+        applicationProperties.assets.blobStore.orphanRetention = blobStore.orphanRetention;
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void saveInBlobStoreTest() throws IOException {
+        applicationProperties.assets.blobStore.enabled = true;
+
+        Asset asset = assetService.save(newAsset());
+        Asset sameContentAsset = assetService.save(newAsset());
+
+        Asset current = assetRepository.findById(asset.getId()).get();
+        assertThat(assetService.hasDatabaseContent(asset.getId())).isFalse();
+        assertThat(current.getSize()).isEqualTo(CONTENT.length);
+        assertThat(current.getContentHash()).hasLength(64);
+        assertThat(assetRepository.findById(sameContentAsset.getId()).get().getContentHash()).isEqualTo(current.getContentHash());
+
+        Path contentFile = assetService.getContentFile(current).get();
+        assertThat(Files.readAllBytes(contentFile)).isEqualTo(CONTENT);
+        assertThat(Files.list(contentFile.getParent()).count()).isEqualTo(1L);
+    }
+
+    @Test
+    public void precompressTextTest() throws IOException {
+        applicationProperties.assets.blobStore.enabled = true;
+        byte[] content = StringUtils.repeat("console.log('test');", 10).getBytes(StandardCharsets.UTF_8);
+
+        Asset script = newAsset();
+        script.setContent(content);
+        script = assetService.save(script);
+        assertThat(assetService.getGzipContentFile(script.getContentHash()).isPresent()).isTrue();
+
+        Asset image = newAsset();
+        image.setContentType("image/png");
+        image.setContent(Arrays.copyOf(content, content.length - 1));
+        image = assetService.save(image);
+        assertThat(assetService.getContentFile(image.getContentHash()).isPresent()).isTrue();
+        assertThat(assetService.getGzipContentFile(image.getContentHash()).isPresent()).isFalse();
+    }
+
+    @Test
+    public void copyDatabaseContentOnFirstReadTest() throws IOException {
+        Asset asset = assetService.save(newAsset());
+
+        assertThat(assetRepository.findById(asset.getId()).get().getContent()).isNull();
+        assertThat(assetService.getContentFile(asset.getContentHash()).isPresent()).isFalse();
+
+        // Nothing is copied while the blob store is disabled
+        AssetMetadataDto assetMetadata = assetService.getMetadata(asset.getId()).get();
+        assertThat(assetService.getContentFile(assetMetadata).isPresent()).isFalse();
+        assertThat(Files.list(temporaryFolder.getRoot().toPath()).count()).isEqualTo(0L);
+
+        applicationProperties.assets.blobStore.enabled = true;
+        Path contentFile = assetService.getContentFile(assetMetadata).get();
+        assertThat(Files.readAllBytes(contentFile)).isEqualTo(CONTENT);
+        assertThat(assetService.getContentFile(assetMetadata).get().equals(contentFile)).isTrue();
+        assertThat(databaseContent(asset.getId())).isEqualTo(CONTENT);
+
+        applicationProperties.assets.blobStore.path = null;
+        Asset otherAsset = newAsset();
+        otherAsset.setContent("console.log('other');".getBytes(StandardCharsets.UTF_8));
+        otherAsset = assetService.save(otherAsset);
+        assertThat(assetService.getContentFile(assetService.getMetadata(otherAsset.getId()).get()).isPresent()).isFalse();
+    }
+
+    @Test
+    public void copyContentTest() throws IOException {
+        Asset asset = assetService.save(newAsset());
+        applicationProperties.assets.blobStore.enabled = true;
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assetService.copyContent(asset.getId(), outputStream);
+        assertThat(outputStream.toByteArray()).isEqualTo(CONTENT);
+        assertThat(assetService.getContentFile(asset.getContentHash()).isPresent()).isTrue();
+
+        applicationProperties.assets.blobStore.path = null;
+        Asset databaseAsset = assetService.save(newAsset());
+        outputStream = new ByteArrayOutputStream();
+        assetService.copyContent(databaseAsset.getId(), outputStream);
+        assertThat(outputStream.toByteArray()).isEqualTo(CONTENT);
+        assertThat(assetService.hasDatabaseContent(databaseAsset.getId())).isTrue();
+    }
+
+    @Test
+    public void computeContentHashesTest() throws IOException {
+        Asset asset = assetService.save(newAsset());
+        String contentHash = asset.getContentHash();
+        asset.setContentHash(null);
+        assetRepository.save(asset);
+
+        assertThat(assetService.computeContentHashes(0L, 10)).isEqualTo(asset.getId());
+        assertThat(assetService.computeContentHashes(asset.getId(), 10)).isNull();
+        assertThat(assetService.computeContentHashes(0L, 10)).isNull();
+
+        AssetMetadataDto assetMetadata = assetService.getMetadata(asset.getId()).get();
+        assertThat(assetMetadata.getContentHash()).isEqualTo(contentHash);
+        assertThat(assetMetadata.getSize()).isEqualTo(CONTENT.length);
+        assertThat(databaseContent(asset.getId())).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void moveContentsToBlobStoreTest() throws IOException {
+        Asset asset = assetService.save(newAsset());
+        assertThat(databaseContent(asset.getId())).isEqualTo(CONTENT);
+
+        applicationProperties.assets.blobStore.enabled = true;
+        assertThat(assetService.moveContentsToBlobStore(0L, 10)).isEqualTo(asset.getId());
+        assertThat(assetService.moveContentsToBlobStore(asset.getId(), 10)).isNull();
+
+        Asset current = assetRepository.findById(asset.getId()).get();
+        assertThat(assetService.hasDatabaseContent(asset.getId())).isFalse();
+        assertThat(Files.readAllBytes(assetService.getContentFile(current).get())).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void deleteReplacedContentTest() {
+        applicationProperties.assets.blobStore.enabled = true;
+        applicationProperties.assets.blobStore.orphanRetention = 0;
+        byte[] otherContent = "console.log('other');".getBytes(StandardCharsets.UTF_8);
+
+        Asset asset = assetService.save(newAsset());
+        Asset sameContentAsset = assetService.save(newAsset());
+        Path contentFile = assetService.getContentFile(asset.getContentHash()).get();
+
+        asset.setContent(otherContent);
+        assetService.save(asset);
+        assertThat(Files.exists(contentFile)).isTrue();
+
+        sameContentAsset.setContent(otherContent);
+        assetService.save(sameContentAsset);
+        assertThat(Files.exists(contentFile)).isFalse();
+        assertThat(assetService.getContentFile(assetService.getMetadata(asset.getId()).get().getContentHash()).isPresent()).isTrue();
+    }
+
+    @Test
+    public void deleteUnreferencedContentsTest() throws IOException {
+        applicationProperties.assets.blobStore.enabled = true;
+
+        Asset asset = assetService.save(newAsset());
+        Path contentFile = assetService.getContentFile(asset.getContentHash()).get();
+        assetRepository.deleteById(asset.getId());
+
+        applicationProperties.assets.blobStore.orphanRetention = 3600000;
+        assertThat(assetService.deleteUnreferencedContents()).isEqualTo(0);
+        assertThat(Files.exists(contentFile)).isTrue();
+
+        applicationProperties.assets.blobStore.orphanRetention = 0;
+        assertThat(assetService.deleteUnreferencedContents()).isEqualTo(1);
+        assertThat(Files.exists(contentFile)).isFalse();
+    }
+
+    private byte[] databaseContent(Long id) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThat(assetService.copyDatabaseContent(id, outputStream)).isTrue();
+        return outputStream.toByteArray();
+    }
+
+    private static Asset newAsset() {
+        Asset asset = new Asset();
+        asset.setContentType("application/javascript");
+        asset.setContent(CONTENT);
+        return asset;
+    }
+}
@@ -0,0 +1,176 @@
+package io.suricate.monitoring.service.api;
+
+import io.suricate.monitoring.model.dto.api.project.ProjectResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.nashorn.NashornRequest;
+import io.suricate.monitoring.model.entity.WidgetConfiguration;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.entity.widget.WidgetParam;
+import io.suricate.monitoring.model.entity.widget.WidgetParamValue;
+import io.suricate.monitoring.model.enums.DataType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.*;
+import io.suricate.monitoring.service.CacheService;
+import io.suricate.monitoring.service.mapper.ProjectMapper;
+import io.suricate.monitoring.service.mapper.ProjectWidgetMapper;
+import io.suricate.monitoring.service.nashorn.NashornService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProjectServiceTest {
+
+    private static final int WIDGET_COUNT = 100;
+
+    @Autowired
+    ProjectService projectService;
+
+    @Autowired
+    NashornService nashornService;
+
+    @Autowired
+    ProjectMapper projectMapper;
+
+    @Autowired
+    ProjectWidgetMapper projectWidgetMapper;
+
+    @Autowired
+    CacheService cacheService;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    WidgetConfigurationRepository widgetConfigurationRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @After
+    public void after() {
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+        projectRepository.deleteAll();
+        cacheService.clearAllCache();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void getOneByTokenWithWidgetsStatementCountTest() {
+        Project project = new Project();
+        project.setName("test");
+        project.setToken("999999");
+        projectRepository.save(project);
+
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryRepository.save(category);
+
+        WidgetConfiguration widgetConfiguration = new WidgetConfiguration();
+        widgetConfiguration.setKey("WIDGET_CONFIG_TEST_URL");
+        widgetConfiguration.setValue("http://localhost");
+        widgetConfiguration.setDataType(DataType.TEXT);
+        widgetConfiguration.setCategory(category);
+        widgetConfigurationRepository.save(widgetConfiguration);
+
+        for (int i = 0; i < WIDGET_COUNT; i++) {
+            Widget widget = new Widget();
+            widget.setName("Widget " + i);
+            widget.setDescription("Description");
+            widget.setTechnicalName("widget" + i);
+            widget.setBackendJs("function run() {}");
+            widget.setHtmlContent("<div>{{SURI_MODE}} {{WIDGET_CONFIG_TEST_URL}}</div>");
+            widget.setDelay(10L);
+            widget.setCategory(category);
+            widget.addWidgetParam(widgetParam(widget, "SURI_URL", DataType.TEXT));
+            widget.addWidgetParam(widgetParam(widget, "SURI_MODE", DataType.COMBO));
+            widgetRepository.save(widget);
+
+            ProjectWidget projectWidget = new ProjectWidget();
+            projectWidget.setState(WidgetState.STOPPED);
+            projectWidget.setBackendConfig("SURI_URL=http://localhost\nSURI_MODE=full");
+            projectWidget.setData("{\"VALUE\":" + i + "}");
+            projectWidget.setRow(i);
+            projectWidget.setProject(project);
+            projectWidget.setWidget(widget);
+            projectWidgetRepository.save(projectWidget);
+        }
+
+        cacheService.clearAllCache();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            Project currentProject = projectService.getOneByTokenWithWidgets("999999").get();
+
+            List<NashornRequest> nashornRequests = nashornService.getNashornRequestsByProject(currentProject);
+            assertThat(nashornRequests).hasSize(WIDGET_COUNT);
+            assertThat(nashornRequests.get(0).getProperties()).contains("WIDGET_CONFIG_TEST_URL");
+
+            ProjectResponseDto projectResponseDto = projectMapper.toProjectDtoDefault(currentProject);
+            assertThat(projectResponseDto.getToken()).isEqualTo("999999");
+
+            List<ProjectWidgetResponseDto> projectWidgetResponseDtos = projectWidgetMapper.toProjectWidgetDtosDefault(currentProject.getWidgets());
+            assertThat(projectWidgetResponseDtos).hasSize(WIDGET_COUNT);
+            assertThat(projectWidgetResponseDtos.get(0).getInstantiateHtml()).isEqualTo("<div>full http://localhost</div>");
+            return null;
+        });
+
+        // Project graph, widget params, their values, libraries, category configurations for the requests and for the mapper
+        assertThat(statistics.getPrepareStatementCount()).isAtMost(6L);
+    }
+
+    private static WidgetParam widgetParam(Widget widget, String name, DataType type) {
+        WidgetParam widgetParam = new WidgetParam();
+        widgetParam.setName(name);
+        widgetParam.setDescription(name);
+        widgetParam.setType(type);
+        widgetParam.setWidget(widget);
+
+        if (type == DataType.COMBO) {
+            for (String value : new String[]{"full", "short"}) {
+                WidgetParamValue widgetParamValue = new WidgetParamValue();
+                widgetParamValue.setJsKey(value);
+                widgetParamValue.setValue(value);
+                widgetParamValue.setWidgetParam(widgetParam);
+                widgetParam.addPossibleValueMap(widgetParamValue);
+            }
+        }
+        return widgetParam;
+    }
+}
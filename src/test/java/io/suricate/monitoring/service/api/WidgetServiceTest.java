@@ -11,6 +11,7 @@ import io.suricate.monitoring.model.enums.WidgetAvailabilityEnum;
 import io.suricate.monitoring.model.enums.WidgetState;
 import io.suricate.monitoring.repository.*;
 import io.suricate.monitoring.utils.EntityUtils;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +22,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManagerFactory;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -65,6 +67,28 @@ public class WidgetServiceTest {
     @Autowired
     RepositoryRepository repositoryRepository;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    /**
+     * The widgets committed outside of a test transaction, deleted after each test
+     */
+    private final List<Widget> committedWidgets = new ArrayList<>();
+
+    /**
+     * The categories committed outside of a test transaction, deleted after each test
+     */
+    private final List<Category> committedCategories = new ArrayList<>();
+
+    @After
+    public void deleteCommittedRows() {
+        committedWidgets.forEach(widget -> widgetRepository.deleteById(widget.getId()));
+        committedCategories.forEach(category -> categoryRepository.deleteById(category.getId()));
+        committedWidgets.clear();
+        committedCategories.clear();
+        entityManagerFactory.getCache().evictAll();
+    }
+
     @Test
     public void updateStateTest() {
         ProjectWidget projectWidget = new ProjectWidget();
@@ -79,6 +103,31 @@ public class WidgetServiceTest {
         assertThat(currentPw.getLastExecutionDate().getTime()).isEqualTo(date.getTime());
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void secondLevelCacheTest() {
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryService.addOrUpdateCategory(category);
+        committedCategories.add(category);
+
+        Widget widget = new Widget();
+        widget.setDescription("Description");
+        widget.setTechnicalName("widget1");
+        widget.setName("Widget 1");
+        widget.setCategory(category);
+        widgetRepository.save(widget);
+        committedWidgets.add(widget);
+
+        entityManagerFactory.getCache().evictAll();
+        assertThat(widgetRepository.findById(widget.getId()).isPresent()).isTrue();
+        assertThat(entityManagerFactory.getCache().contains(Widget.class, widget.getId())).isTrue();
+
+        widgetService.updateWidgetInDatabase(Collections.emptyList(), null, null);
+        assertThat(entityManagerFactory.getCache().contains(Widget.class, widget.getId())).isFalse();
+    }
+
     @Test
     public void addOrUpdateWidgetNullTest() {
         assertThat(widgetRepository.count()).isEqualTo(0);
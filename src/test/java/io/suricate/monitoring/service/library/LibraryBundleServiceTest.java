@@ -0,0 +1,106 @@
+package io.suricate.monitoring.service.library;
+
+import io.suricate.monitoring.model.entity.Asset;
+import io.suricate.monitoring.repository.AssetRepository;
+import io.suricate.monitoring.service.api.AssetService;
+import io.suricate.monitoring.service.storage.FileSystemBlobStore;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class LibraryBundleServiceTest {
+
+    @Autowired
+    LibraryBundleService libraryBundleService;
+
+    @Autowired
+    AssetService assetService;
+
+    @Autowired
+    AssetRepository assetRepository;
+
+    @After
+    public void after() {
+        libraryBundleService.clearCache();
+        assetRepository.deleteAll();
+    }
+
+    @Test
+    public void testBuildBundle() throws IOException {
+        Long firstId = newAsset("var a = 1").getId();
+        Long secondId = newAsset("var b = 2;").getId();
+
+        LibraryBundle libraryBundle = libraryBundleService.getLibraryBundle(Arrays.asList(secondId, firstId, secondId)).get();
+
+        String expected = "var a = 1\n;\nvar b = 2;\n;\n";
+        assertThat(new String(libraryBundle.getContent(), StandardCharsets.UTF_8)).isEqualTo(expected);
+        assertThat(libraryBundle.getAssetIds()).containsExactly(firstId, secondId).inOrder();
+        assertThat(libraryBundle.getHash()).isEqualTo(FileSystemBlobStore.hash(libraryBundle.getContent()));
+
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(libraryBundle.getGzipContent()))) {
+            assertThat(IOUtils.toByteArray(gzipInputStream)).isEqualTo(libraryBundle.getContent());
+        }
+    }
+
+    @Test
+    public void testBundleIsBuiltOnce() throws IOException {
+        Long firstId = newAsset("var a = 1;").getId();
+        Long secondId = newAsset("var b = 2;").getId();
+
+        LibraryBundle libraryBundle = libraryBundleService.getLibraryBundle(Arrays.asList(firstId, secondId)).get();
+        assertThat(libraryBundleService.getLibraryBundle(Arrays.asList(secondId, firstId)).get()).isSameInstanceAs(libraryBundle);
+        assertThat(libraryBundleService.getLibraryBundle(libraryBundle.getHash(), Arrays.asList(secondId, firstId)).get()).isSameInstanceAs(libraryBundle);
+
+        libraryBundleService.clearCache();
+        LibraryBundle rebuiltBundle = libraryBundleService.getLibraryBundle(Arrays.asList(firstId, secondId)).get();
+        assertThat(rebuiltBundle).isNotSameInstanceAs(libraryBundle);
+        assertThat(rebuiltBundle.getHash()).isEqualTo(libraryBundle.getHash());
+    }
+
+    @Test
+    public void testFindBundleHashWithoutBuilding() {
+        Long firstId = newAsset("var a = 1;").getId();
+        Long secondId = newAsset("var b = 2;").getId();
+
+        assertThat(libraryBundleService.findLibraryBundleHash(Arrays.asList(firstId, secondId)).isPresent()).isFalse();
+
+        LibraryBundle libraryBundle = libraryBundleService.getLibraryBundle(Arrays.asList(firstId, secondId)).get();
+        assertThat(libraryBundleService.findLibraryBundleHash(Arrays.asList(secondId, firstId)).get()).isEqualTo(libraryBundle.getHash());
+
+        libraryBundleService.clearCache();
+        assertThat(libraryBundleService.findLibraryBundleHash(Arrays.asList(firstId, secondId)).isPresent()).isFalse();
+    }
+
+    @Test
+    public void testUnknownBundle() throws IOException {
+        Long firstId = newAsset("var a = 1;").getId();
+
+        assertThat(libraryBundleService.getLibraryBundle(Collections.emptyList()).isPresent()).isFalse();
+        assertThat(libraryBundleService.getLibraryBundle(FileSystemBlobStore.hash(new byte[0]), Collections.singletonList(firstId)).isPresent()).isFalse();
+        assertThat(libraryBundleService.getLibraryBundle(Collections.singletonList(firstId + 1)).isPresent()).isFalse();
+    }
+
+    private Asset newAsset(String content) {
+        Asset asset = new Asset();
+        asset.setContentType("application/javascript");
+        asset.setContent(content.getBytes(StandardCharsets.UTF_8));
+        return assetService.save(asset);
+    }
+}
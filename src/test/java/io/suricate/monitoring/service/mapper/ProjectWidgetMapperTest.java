@@ -0,0 +1,225 @@
+package io.suricate.monitoring.service.mapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetField;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.entity.WidgetConfiguration;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.enums.DataType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.CategoryRepository;
+import io.suricate.monitoring.repository.ProjectRepository;
+import io.suricate.monitoring.repository.ProjectWidgetRepository;
+import io.suricate.monitoring.repository.WidgetConfigurationRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
+import io.suricate.monitoring.service.CacheService;
+import io.suricate.monitoring.service.api.ProjectService;
+import io.suricate.monitoring.service.mustache.RenderedHtmlService;
+import io.suricate.monitoring.utils.exception.ApiException;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProjectWidgetMapperTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectWidgetMapperTest.class);
+
+    private static final int WIDGET_COUNT = 10;
+
+    @Autowired
+    ProjectWidgetMapper projectWidgetMapper;
+
+    @Autowired
+    ProjectService projectService;
+
+    @Autowired
+    RenderedHtmlService renderedHtmlService;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    WidgetConfigurationRepository widgetConfigurationRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    CacheService cacheService;
+
+    @After
+    public void after() {
+        renderedHtmlService.invalidateAll();
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+        projectRepository.deleteAll();
+        cacheService.clearAllCache();
+    }
+
+    @Test
+    public void toProjectWidgetDtosDefaultTest() {
+        createProject("999999", 50);
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<ProjectWidget> projectWidgets = projectService.getOneByTokenWithWidgets("999999").get().getWidgets();
+            List<ProjectWidgetResponseDto> projectWidgetResponseDtos = projectWidgetMapper.toProjectWidgetDtosDefault(projectWidgets);
+
+            assertThat(projectWidgetResponseDtos).hasSize(projectWidgets.size());
+            for (int i = 0; i < projectWidgets.size(); i++) {
+                ProjectWidget projectWidget = projectWidgets.get(i);
+                assertThat(projectWidgetResponseDtos.get(i).getId()).isEqualTo(projectWidget.getId());
+                assertThat(projectWidgetResponseDtos.get(i).getInstantiateHtml()).isEqualTo("<div>" + projectWidget.getRow() + " http://localhost</div>");
+                assertThat(projectWidgetResponseDtos.get(i).getBackendConfig()).isEqualTo("KEY=" + projectWidget.getRow());
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void toProjectWidgetDtosProjectionTest() {
+        createProject("999999", 5);
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<ProjectWidget> projectWidgets = projectService.getOneByTokenWithWidgets("999999").get().getWidgets();
+            renderedHtmlService.invalidateAll();
+
+            List<ProjectWidgetResponseDto> projectWidgetResponseDtos = projectWidgetMapper.toProjectWidgetDtos(
+                projectWidgets,
+                ProjectWidgetField.parse("widgetPosition, state")
+            );
+
+            for (int i = 0; i < projectWidgets.size(); i++) {
+                ProjectWidgetResponseDto projectWidgetResponseDto = projectWidgetResponseDtos.get(i);
+                assertThat(projectWidgetResponseDto.getId()).isEqualTo(projectWidgets.get(i).getId());
+                assertThat(projectWidgetResponseDto.getWidgetPosition().getRow()).isEqualTo(projectWidgets.get(i).getRow());
+                assertThat(projectWidgetResponseDto.getState()).isEqualTo(WidgetState.STOPPED);
+                assertThat(projectWidgetResponseDto.getData()).isNull();
+                assertThat(projectWidgetResponseDto.getInstantiateHtml()).isNull();
+                assertThat(projectWidgetResponseDto.getBackendConfig()).isNull();
+            }
+            assertThat(meterRegistry.get("cache.size").tag("cache", "renderedWidgetHtml").gauge().value()).isEqualTo(0D);
+
+            ProjectWidgetResponseDto projectWidgetResponseDto = projectWidgetMapper.toProjectWidgetDto(projectWidgets.get(0), ProjectWidgetField.parse("backendConfig"));
+            assertThat(projectWidgetResponseDto.getBackendConfig()).isEqualTo("KEY=0");
+            assertThat(projectWidgetResponseDto.getInstantiateHtml()).isNull();
+            assertThat(projectWidgetResponseDto.getWidgetPosition()).isNull();
+            return null;
+        });
+    }
+
+    @Test(expected = ApiException.class)
+    public void parseUnknownFieldTest() {
+        ProjectWidgetField.parse("widgetPosition,unknown");
+    }
+
+    /**
+     * Benchmark of the parallel rendering against the one by one mapping, too slow for the unit tests
+     */
+    @Test
+    @Ignore("Benchmark, run it by hand")
+    public void parallelRenderingTimeTest() {
+        for (int projectWidgetCount : new int[]{50, 250, 1000}) {
+            String token = String.valueOf(projectWidgetCount);
+            createProject(token, projectWidgetCount);
+
+            new TransactionTemplate(transactionManager).execute(status -> {
+                List<ProjectWidget> projectWidgets = projectService.getOneByTokenWithWidgets(token).get().getWidgets();
+
+                renderedHtmlService.invalidateAll();
+                long start = System.nanoTime();
+                List<ProjectWidgetResponseDto> sequentialDtos = projectWidgets
+                    .stream()
+                    .map(projectWidgetMapper::toProjectWidgetDtoDefault)
+                    .collect(Collectors.toList());
+                long sequentialTime = System.nanoTime() - start;
+
+                renderedHtmlService.invalidateAll();
+                start = System.nanoTime();
+                List<ProjectWidgetResponseDto> parallelDtos = projectWidgetMapper.toProjectWidgetDtosDefault(projectWidgets);
+                long parallelTime = System.nanoTime() - start;
+
+                LOGGER.info("{} widgets rendered in {} ms sequentially, {} ms in parallel",
+                    projectWidgetCount, sequentialTime / 1_000_000, parallelTime / 1_000_000);
+
+                assertThat(parallelDtos).containsExactlyElementsIn(sequentialDtos).inOrder();
+                return null;
+            });
+        }
+    }
+
+    private void createProject(String token, int projectWidgetCount) {
+        Project project = new Project();
+        project.setName("test");
+        project.setToken(token);
+        projectRepository.save(project);
+
+        Category category = new Category();
+        category.setName("test" + token);
+        category.setTechnicalName("test" + token);
+        categoryRepository.save(category);
+
+        WidgetConfiguration widgetConfiguration = new WidgetConfiguration();
+        widgetConfiguration.setKey("WIDGET_CONFIG_TEST_URL");
+        widgetConfiguration.setValue("http://localhost");
+        widgetConfiguration.setDataType(DataType.TEXT);
+        widgetConfiguration.setCategory(category);
+        widgetConfigurationRepository.save(widgetConfiguration);
+
+        Widget[] widgets = new Widget[WIDGET_COUNT];
+        for (int i = 0; i < WIDGET_COUNT; i++) {
+            widgets[i] = new Widget();
+            widgets[i].setName("Widget " + i);
+            widgets[i].setDescription("Description");
+            widgets[i].setTechnicalName("widget" + token + i);
+            widgets[i].setBackendJs("function run() {}");
+            widgets[i].setHtmlContent("<div>{{VALUE}} {{WIDGET_CONFIG_TEST_URL}}</div>");
+            widgets[i].setDelay(10L);
+            widgets[i].setCategory(category);
+            widgetRepository.save(widgets[i]);
+        }
+
+        for (int i = 0; i < projectWidgetCount; i++) {
+            ProjectWidget projectWidget = new ProjectWidget();
+            projectWidget.setState(WidgetState.STOPPED);
+            projectWidget.setBackendConfig("KEY=" + i);
+            projectWidget.setData("{\"VALUE\":" + i + "}");
+            projectWidget.setRow(i);
+            projectWidget.setProject(project);
+            projectWidget.setWidget(widgets[i % WIDGET_COUNT]);
+            projectWidgetRepository.save(projectWidget);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.suricate.monitoring.service.mustache;
+
+import com.google.common.base.Strings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class RenderedHtmlServiceTest {
+
+    private final AtomicInteger renderings = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RenderedHtmlService renderedHtmlService;
+
+    @Before
+    public void before() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.widgets.renderedHtmlCacheSize = 10000;
+
+        meterRegistry = new SimpleMeterRegistry();
+        renderedHtmlService = new RenderedHtmlService(applicationProperties, meterRegistry);
+    }
+
+    @Test
+    public void testRenderedOnceByVersion() {
+        ProjectWidget projectWidget = newProjectWidget(1L, "{\"VALUE\":1}");
+
+        assertThat(getHtml(projectWidget)).isEqualTo("<div>{\"VALUE\":1}</div>");
+        assertThat(getHtml(projectWidget)).isEqualTo("<div>{\"VALUE\":1}</div>");
+        assertThat(renderings.get()).isEqualTo(1);
+
+        projectWidget.setData("{\"VALUE\":2}");
+        assertThat(getHtml(projectWidget)).isEqualTo("<div>{\"VALUE\":2}</div>");
+        projectWidget.setBackendConfig("KEY=value");
+        getHtml(projectWidget);
+        projectWidget.getWidget().setHtmlContent("<span>{{VALUE}}</span>");
+        getHtml(projectWidget);
+        assertThat(renderings.get()).isEqualTo(4);
+
+        // Only the last version of the project widget is kept
+        assertThat(meterRegistry.get("cache.size").tag("cache", "renderedWidgetHtml").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testInvalidate() {
+        ProjectWidget projectWidget = newProjectWidget(1L, "{\"VALUE\":1}");
+        getHtml(projectWidget);
+
+        renderedHtmlService.invalidate(1L);
+        getHtml(projectWidget);
+        renderedHtmlService.invalidateAll();
+        getHtml(projectWidget);
+
+        assertThat(renderings.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testBoundedBySize() {
+        ProjectWidget largeProjectWidget = newProjectWidget(1L, Strings.repeat("x", 4000));
+        ProjectWidget otherLargeProjectWidget = newProjectWidget(2L, Strings.repeat("y", 4000));
+
+        getHtml(largeProjectWidget);
+        getHtml(otherLargeProjectWidget);
+        getHtml(largeProjectWidget);
+
+        assertThat(renderings.get()).isEqualTo(3);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "renderedWidgetHtml").functionCounter().count()).isAtLeast(1.0);
+    }
+
+    private String getHtml(ProjectWidget projectWidget) {
+        return renderedHtmlService.getHtml(projectWidget, () -> {
+            renderings.incrementAndGet();
+            return "<div>" + projectWidget.getData() + "</div>";
+        });
+    }
+
+    private static ProjectWidget newProjectWidget(Long id, String data) {
+        Widget widget = new Widget();
+        widget.setId(1L);
+        widget.setHtmlContent("<div>{{VALUE}}</div>");
+
+        ProjectWidget projectWidget = new ProjectWidget();
+        projectWidget.setId(id);
+        projectWidget.setData(data);
+        projectWidget.setWidget(widget);
+        return projectWidget;
+    }
+}
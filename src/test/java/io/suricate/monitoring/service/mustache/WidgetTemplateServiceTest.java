@@ -0,0 +1,86 @@
+package io.suricate.monitoring.service.mustache;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.Mustache;
+import com.github.mustachejava.MustacheException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+public class WidgetTemplateServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WidgetTemplateService widgetTemplateService;
+
+    @Before
+    public void before() {
+        meterRegistry = new SimpleMeterRegistry();
+        widgetTemplateService = new WidgetTemplateService(new DefaultMustacheFactory(), meterRegistry);
+    }
+
+    @Test
+    public void testTemplateCompiledOnce() {
+        Widget widget = newWidget(1L);
+
+        Mustache template = widgetTemplateService.getTemplate(widget, "<div>{{VALUE}}</div>");
+        assertThat(widgetTemplateService.getTemplate(widget, "<div>{{VALUE}}</div>")).isSameInstanceAs(template);
+        assertThat(render(template)).isEqualTo("<div>1</div>");
+
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "widgetTemplates", "result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tags("cache", "widgetTemplates", "result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void testTemplateByWidgetVersion() {
+        Widget widget = newWidget(1L);
+
+        Mustache template = widgetTemplateService.getTemplate(widget, "<div>{{VALUE}}</div>");
+        Mustache updatedTemplate = widgetTemplateService.getTemplate(widget, "<span>{{VALUE}}</span>");
+        assertThat(updatedTemplate).isNotSameInstanceAs(template);
+        assertThat(render(updatedTemplate)).isEqualTo("<span>1</span>");
+
+        assertThat(widgetTemplateService.getTemplate(newWidget(2L), "<div>{{VALUE}}</div>")).isNotSameInstanceAs(template);
+    }
+
+    @Test
+    public void testInvalidate() {
+        Mustache template = widgetTemplateService.getTemplate(newWidget(1L), "<div>{{VALUE}}</div>");
+        Mustache otherTemplate = widgetTemplateService.getTemplate(newWidget(11L), "<div>{{VALUE}}</div>");
+
+        widgetTemplateService.invalidate(1L);
+
+        assertThat(widgetTemplateService.getTemplate(newWidget(1L), "<div>{{VALUE}}</div>")).isNotSameInstanceAs(template);
+        assertThat(widgetTemplateService.getTemplate(newWidget(11L), "<div>{{VALUE}}</div>")).isSameInstanceAs(otherTemplate);
+    }
+
+    @Test
+    public void testInvalidTemplate() {
+        try {
+            widgetTemplateService.getTemplate(newWidget(1L), "<div>{{#VALUE}}</div>");
+            fail("The template should not compile");
+        } catch (MustacheException e) {
+            assertThat(e.getMessage()).contains("widget");
+        }
+    }
+
+    private static String render(Mustache template) {
+        StringWriter stringWriter = new StringWriter();
+        template.execute(stringWriter, Collections.singletonMap("VALUE", 1));
+        return stringWriter.toString();
+    }
+
+    private static Widget newWidget(Long id) {
+        Widget widget = new Widget();
+        widget.setId(id);
+        widget.setTechnicalName("widget");
+        return widget;
+    }
+}
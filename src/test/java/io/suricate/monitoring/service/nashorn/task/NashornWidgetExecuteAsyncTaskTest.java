@@ -110,6 +110,7 @@ public class NashornWidgetExecuteAsyncTaskTest {
         Assert.assertEquals(10, (long) response.getProjectId());
         Assert.assertEquals(25, (long) response.getProjectWidgetId());
         Assert.assertEquals("{}", response.getData());
+        Assert.assertTrue(response.getParsedData().isEmpty());
     }
 
     @Test
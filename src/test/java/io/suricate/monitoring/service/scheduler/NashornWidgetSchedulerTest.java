@@ -25,9 +25,11 @@ import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
 import java.io.File;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -64,6 +66,9 @@ public class NashornWidgetSchedulerTest {
     @Autowired
     ProjectWidgetService projectWidgetService;
 
+    @Autowired
+    EntityManager entityManager;
+
     private ScheduledThreadPoolExecutor scheduledExecutorService;
     private ScheduledThreadPoolExecutor scheduledExecutorServiceFuture;
     private Map<Long, Pair<WeakReference<ScheduledFuture<NashornResponse>>, WeakReference<ScheduledFuture<Void>>>> jobs;
@@ -145,6 +150,26 @@ public class NashornWidgetSchedulerTest {
         // TODO : Check behavior randomly switch from 1 to 2
     }
 
+    @Test
+    @Transactional
+    public void testScheduleListAndCancelProject() {
+        NashornRequest nashornRequest = nashornService.getNashornRequestByProjectWidgetId(projectWidget.getId());
+        nashornWidgetScheduler.scheduleList(Collections.singletonList(nashornRequest), false, true);
+
+        assertThat(jobs.get(projectWidget.getId())).isNotNull();
+        entityManager.clear();
+        assertThat(projectWidgetRepository.findById(projectWidget.getId()).get().getState()).isEqualTo(WidgetState.RUNNING);
+
+        ScheduledFuture<NashornResponse> future = jobs.get(projectWidget.getId()).getKey().get();
+        Project project = projectWidget.getProject();
+        project.setWidgets(Collections.singletonList(projectWidget));
+        nashornWidgetScheduler.cancelProjectScheduling(project);
+
+        assertThat(future.isCancelled()).isTrue();
+        entityManager.clear();
+        assertThat(projectWidgetRepository.findById(projectWidget.getId()).get().getState()).isEqualTo(WidgetState.STOPPED);
+    }
+
     @Test
     @Transactional
     public void testNotValidRequest() throws IOException, InterruptedException {
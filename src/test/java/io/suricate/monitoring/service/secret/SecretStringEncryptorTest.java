@@ -0,0 +1,205 @@
+package io.suricate.monitoring.service.secret;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.configuration.encoder.JasyptSecretCodec;
+import io.suricate.monitoring.configuration.encoder.AesGcmSecretCodec;
+import io.suricate.monitoring.model.entity.WidgetConfiguration;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.entity.widget.WidgetParam;
+import io.suricate.monitoring.model.enums.DataType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.CategoryRepository;
+import io.suricate.monitoring.repository.ProjectRepository;
+import io.suricate.monitoring.repository.ProjectWidgetRepository;
+import io.suricate.monitoring.repository.WidgetConfigurationRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
+import io.suricate.monitoring.service.CacheService;
+import io.suricate.monitoring.service.api.ProjectWidgetService;
+import io.suricate.monitoring.service.api.WidgetConfigurationService;
+import io.suricate.monitoring.service.migration.SecretReEncryptionBuilder;
+import io.suricate.monitoring.utils.PropertiesUtils;
+import org.jasypt.encryption.StringEncryptor;
+import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Base64;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "application.secrets.codec=aes-gcm")
+@ActiveProfiles("test")
+public class SecretStringEncryptorTest {
+
+    private static final String SECRET = "my secret password";
+
+    @Autowired
+    SecretStringEncryptor secretStringEncryptor;
+
+    @Autowired
+    @Qualifier("jasyptStringEncryptor")
+    StringEncryptor jasyptStringEncryptor;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    ProjectWidgetService projectWidgetService;
+
+    @Autowired
+    WidgetConfigurationService widgetConfigurationService;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    WidgetConfigurationRepository widgetConfigurationRepository;
+
+    @Autowired
+    CacheService cacheService;
+
+    @After
+    public void after() {
+        secretStringEncryptor.clearCache();
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+        projectRepository.deleteAll();
+        cacheService.clearAllCache();
+    }
+
+    @Test
+    public void encryptDecryptTest() {
+        String encrypted = secretStringEncryptor.encrypt(SECRET);
+
+        assertThat(encrypted).startsWith(AesGcmSecretCodec.PREFIX);
+        assertThat(secretStringEncryptor.encrypt(SECRET)).isNotEqualTo(encrypted);
+        assertThat(secretStringEncryptor.decrypt(encrypted)).isEqualTo(SECRET);
+        assertThat(secretStringEncryptor.isReEncryptionNeeded(encrypted)).isFalse();
+        assertThat(secretStringEncryptor.decrypt(null)).isNull();
+    }
+
+    @Test(expected = EncryptionOperationNotPossibleException.class)
+    public void decryptTamperedSecretTest() {
+        byte[] payload = Base64.getDecoder().decode(secretStringEncryptor.encrypt(SECRET).substring(AesGcmSecretCodec.PREFIX.length()));
+        payload[payload.length - 1] ^= 1;
+
+        secretStringEncryptor.decrypt(AesGcmSecretCodec.PREFIX + Base64.getEncoder().encodeToString(payload));
+    }
+
+    @Test
+    public void decryptJasyptSecretTest() {
+        String legacyEncrypted = jasyptStringEncryptor.encrypt(SECRET);
+
+        assertThat(secretStringEncryptor.decrypt(legacyEncrypted)).isEqualTo(SECRET);
+        assertThat(secretStringEncryptor.isReEncryptionNeeded(legacyEncrypted)).isTrue();
+
+        String encrypted = secretStringEncryptor.reEncrypt(legacyEncrypted);
+        assertThat(encrypted).startsWith(AesGcmSecretCodec.PREFIX);
+        assertThat(secretStringEncryptor.decrypt(encrypted)).isEqualTo(SECRET);
+    }
+
+    @Test
+    public void decryptedSecretsCacheTest() {
+        String encrypted = secretStringEncryptor.encrypt(SECRET);
+        double hits = meterRegistry.get("cache.gets").tag("cache", "decryptedSecrets").tag("result", "hit").functionCounter().count();
+
+        secretStringEncryptor.decrypt(encrypted);
+        secretStringEncryptor.decrypt(encrypted);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "decryptedSecrets").tag("result", "hit").functionCounter().count()).isEqualTo(hits + 1);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "decryptedSecrets").gauge().value()).isEqualTo(1D);
+
+        secretStringEncryptor.clearCache();
+        assertThat(meterRegistry.get("cache.size").tag("cache", "decryptedSecrets").gauge().value()).isEqualTo(0D);
+    }
+
+    @Test
+    public void reEncryptionDisabledByDefaultTest() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        assertThat(applicationProperties.secrets.codec).isEqualTo(JasyptSecretCodec.NAME);
+
+        ProjectWidgetService projectWidgetServiceMock = mock(ProjectWidgetService.class);
+        WidgetConfigurationService widgetConfigurationServiceMock = mock(WidgetConfigurationService.class);
+        new SecretReEncryptionBuilder(applicationProperties, projectWidgetServiceMock, widgetConfigurationServiceMock).onApplicationEvent(null);
+
+        verifyZeroInteractions(projectWidgetServiceMock, widgetConfigurationServiceMock);
+    }
+
+    @Test
+    public void reEncryptSecretsTest() {
+        Project project = new Project();
+        project.setName("test");
+        project.setToken("999999");
+        projectRepository.save(project);
+
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryRepository.save(category);
+
+        WidgetConfiguration widgetConfiguration = new WidgetConfiguration();
+        widgetConfiguration.setKey("WIDGET_CONFIG_TEST_PASSWORD");
+        widgetConfiguration.setValue(jasyptStringEncryptor.encrypt(SECRET));
+        widgetConfiguration.setDataType(DataType.PASSWORD);
+        widgetConfiguration.setCategory(category);
+        widgetConfigurationRepository.save(widgetConfiguration);
+
+        WidgetParam widgetParam = new WidgetParam();
+        widgetParam.setName("SURI_PASSWORD");
+        widgetParam.setDescription("Password");
+        widgetParam.setType(DataType.PASSWORD);
+
+        Widget widget = new Widget();
+        widget.setName("Widget");
+        widget.setDescription("Description");
+        widget.setTechnicalName("widget");
+        widget.setBackendJs("function run() {}");
+        widget.setDelay(10L);
+        widget.setCategory(category);
+        widget.addWidgetParam(widgetParam);
+        widgetParam.setWidget(widget);
+        widgetRepository.save(widget);
+
+        ProjectWidget projectWidget = new ProjectWidget();
+        projectWidget.setState(WidgetState.STOPPED);
+        projectWidget.setBackendConfig("SURI_LOGIN=login\nSURI_PASSWORD=" + jasyptStringEncryptor.encrypt(SECRET));
+        projectWidget.setProject(project);
+        projectWidget.setWidget(widget);
+        projectWidgetRepository.save(projectWidget);
+
+        assertThat(widgetConfigurationService.reEncryptSecrets()).isEqualTo(1);
+        assertThat(widgetConfigurationService.reEncryptSecrets()).isEqualTo(0);
+        String configurationValue = widgetConfigurationRepository.findById("WIDGET_CONFIG_TEST_PASSWORD").get().getValue();
+        assertThat(configurationValue).startsWith(AesGcmSecretCodec.PREFIX);
+        assertThat(secretStringEncryptor.decrypt(configurationValue)).isEqualTo(SECRET);
+
+        assertThat(projectWidgetService.reEncryptSecrets(0L, 10)).isEqualTo(projectWidget.getId());
+        assertThat(projectWidgetService.reEncryptSecrets(projectWidget.getId(), 10)).isNull();
+        String backendConfig = projectWidgetRepository.findById(projectWidget.getId()).get().getBackendConfig();
+        assertThat(PropertiesUtils.getMap(backendConfig).get("SURI_LOGIN")).isEqualTo("login");
+        assertThat(PropertiesUtils.getMap(backendConfig).get("SURI_PASSWORD")).startsWith(AesGcmSecretCodec.PREFIX);
+        assertThat(projectWidgetService.decryptSecretParamsIfNeeded(widget, backendConfig)).isEqualTo("SURI_LOGIN=login\nSURI_PASSWORD=" + SECRET);
+    }
+}
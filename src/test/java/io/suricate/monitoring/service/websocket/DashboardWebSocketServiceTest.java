@@ -0,0 +1,224 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.dto.websocket.WebsocketClient;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.service.api.ProjectService;
+import io.suricate.monitoring.service.nashorn.NashornService;
+import io.suricate.monitoring.service.scheduler.NashornWidgetScheduler;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DashboardWebSocketServiceTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardWebSocketServiceTest.class);
+
+    private final List<Message<?>> sentMessages = new ArrayList<>();
+
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    private DashboardWebSocketService dashboardWebSocketService;
+
+    @Before
+    public void before() {
+        simpMessagingTemplate = new SimpMessagingTemplate((message, timeout) -> sentMessages.add(message));
+        simpMessagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+
+        dashboardWebSocketService = new DashboardWebSocketService(simpMessagingTemplate, null, null, null, null, null, new ApplicationProperties(), null, null, Runnable::run, null);
+    }
+
+    @Test
+    public void testPayloadSerializedOnce() {
+        for (int screens : new int[]{10, 100, 1000}) {
+            sentMessages.clear();
+            List<String> screenCodes = IntStream.range(0, screens).mapToObj(String::valueOf).collect(Collectors.toList());
+
+            dashboardWebSocketService.sendToUsers(screenCodes, "/queue/live", new UpdateEvent(UpdateType.RELOAD));
+
+            assertThat(sentMessages).hasSize(screens);
+            Object payload = sentMessages.get(0).getPayload();
+            assertThat(new String((byte[]) payload, StandardCharsets.UTF_8)).contains("\"type\":\"RELOAD\"");
+            for (int i = 0; i < screens; i++) {
+                assertThat(sentMessages.get(i).getPayload()).isSameInstanceAs(payload);
+                assertThat(SimpMessageHeaderAccessor.getDestination(sentMessages.get(i).getHeaders())).isEqualTo("/user/" + i + "/queue/live");
+            }
+        }
+    }
+
+    @Test
+    public void testSerializationCostPerBroadcast() throws IOException {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGET);
+        updateEvent.setContent(jiraTimelineUpdate());
+
+        for (int screens : new int[]{10, 100, 1000}) {
+            List<String> screenCodes = IntStream.range(0, screens).mapToObj(String::valueOf).collect(Collectors.toList());
+
+            long[] perScreen = measureBroadcast(threadMXBean, screens,
+                () -> screenCodes.forEach(screenCode -> simpMessagingTemplate.convertAndSendToUser(screenCode, "/queue/live", updateEvent)));
+            long[] once = measureBroadcast(threadMXBean, screens,
+                () -> dashboardWebSocketService.sendToUsers(screenCodes, "/queue/live", updateEvent));
+
+            LOGGER.info("{} screens: {} us / {} KB serialized per screen, {} us / {} KB serialized once",
+                screens, perScreen[0] / 1000, perScreen[1] / 1024, once[0] / 1000, once[1] / 1024);
+            assertThat(once[1] * 2).isLessThan(perScreen[1]);
+        }
+    }
+
+    /**
+     * Measure a broadcast once warmed up
+     *
+     * @param threadMXBean The thread bean counting the allocated bytes
+     * @param screens      The number of screens the broadcast is sent to
+     * @param broadcast    The broadcast
+     * @return The time in nanoseconds and the allocated bytes of one broadcast
+     */
+    private long[] measureBroadcast(com.sun.management.ThreadMXBean threadMXBean, int screens, Runnable broadcast) {
+        int rounds = Math.max(5, 2000 / screens);
+        long threadId = Thread.currentThread().getId();
+        long time = 0;
+        long allocatedBytes = 0;
+
+        // The first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            time = 0;
+            allocatedBytes = 0;
+            for (int i = 0; i < rounds; i++) {
+                sentMessages.clear();
+                long start = System.nanoTime();
+                long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+                broadcast.run();
+                allocatedBytes += threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+                time += System.nanoTime() - start;
+            }
+        }
+        sentMessages.clear();
+
+        return new long[]{time / rounds, allocatedBytes / rounds};
+    }
+
+    /**
+     * Build the update of a Jira timeline widget listing 100 issues
+     *
+     * @return The project widget
+     */
+    private static ProjectWidgetResponseDto jiraTimelineUpdate() throws IOException {
+        StringBuilder data = new StringBuilder("[");
+        for (int i = 0; i < 100; i++) {
+            data.append(i == 0 ? "" : ",")
+                .append("{\"key\":\"SURI-").append(i)
+                .append("\",\"summary\":\"Display the widget ").append(i).append(" on the television of the open space")
+                .append("\",\"status\":\"").append(i % 3 == 0 ? "Done" : "In Progress")
+                .append("\",\"created\":").append(1546300800000L + i * 3600000L)
+                .append(",\"points\":").append(i % 8 + 0.5).append("}");
+        }
+
+        ProjectWidgetResponseDto projectWidget = new ProjectWidgetResponseDto();
+        projectWidget.setId(1L);
+        projectWidget.setData(data.append("]").toString());
+        projectWidget.setInstantiateHtml(IOUtils.toString(new ClassPathResource("widgets/jira/widgets/jiratimeline/content.html").getInputStream(), StandardCharsets.UTF_8));
+        projectWidget.setCustomStyle(IOUtils.toString(new ClassPathResource("widgets/jira/widgets/jiratimeline/style.css").getInputStream(), StandardCharsets.UTF_8));
+        projectWidget.setState(WidgetState.RUNNING);
+        return projectWidget;
+    }
+
+    @Test
+    public void testProjectClientActionsCommittedInOrder() throws InterruptedException {
+        ProjectService projectService = mock(ProjectService.class);
+        NashornService nashornService = mock(NashornService.class);
+        NashornWidgetScheduler nashornWidgetScheduler = mock(NashornWidgetScheduler.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        Map<String, AtomicInteger> scheduledProjects = new ConcurrentHashMap<>();
+        Map<String, AtomicInteger> uncommittedProjects = new ConcurrentHashMap<>();
+        ThreadLocal<String> currentProject = new ThreadLocal<>();
+        AtomicBoolean overlap = new AtomicBoolean();
+        when(projectService.getOneByTokenWithWidgets(anyString())).then(invocation -> Optional.of(project(invocation.getArgument(0))));
+        when(projectService.getOneByToken(anyString())).then(invocation -> Optional.of(project(invocation.getArgument(0))));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doAnswer(invocation -> uncommittedProjects.get(currentProject.get()).getAndSet(0)).when(transactionManager).commit(any());
+
+        // The widgets of a project are cancelled only once their scheduling is committed, and scheduled again only once cancelled
+        doAnswer(invocation -> {
+            if (scheduledProjects.computeIfAbsent(currentProject.get(), token -> new AtomicInteger()).incrementAndGet() != 1) {
+                overlap.set(true);
+            }
+            uncommittedProjects.computeIfAbsent(currentProject.get(), token -> new AtomicInteger()).incrementAndGet();
+            return null;
+        }).when(nashornWidgetScheduler).scheduleList(anyList(), anyBoolean(), anyBoolean());
+        doAnswer(invocation -> {
+            String projectToken = ((Project) invocation.getArgument(0)).getToken();
+            if (scheduledProjects.get(projectToken).decrementAndGet() != 0 || uncommittedProjects.get(projectToken).get() != 0) {
+                overlap.set(true);
+            }
+            return null;
+        }).when(nashornWidgetScheduler).cancelProjectScheduling(any());
+
+        DashboardWebSocketService service = new DashboardWebSocketService(simpMessagingTemplate, projectService, null, nashornService,
+            nashornWidgetScheduler, mock(ProjectWidgetDeltaService.class), new ApplicationProperties(), null, null, Runnable::run, transactionManager);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            WebsocketClient websocketClient = new WebsocketClient("TOKEN" + (i % 10), "session" + i, "sub" + i, String.valueOf(i));
+            executorService.execute(() -> {
+                currentProject.set(websocketClient.getProjectToken());
+                service.addProjectClient(websocketClient.getProjectToken(), websocketClient);
+                service.removeProjectClient(websocketClient.getProjectToken(), websocketClient);
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(overlap.get()).isFalse();
+        scheduledProjects.values().forEach(scheduled -> assertThat(scheduled.get()).isEqualTo(0));
+    }
+
+    private static Project project(String token) {
+        Project project = new Project();
+        project.setToken(token);
+        return project;
+    }
+}
@@ -0,0 +1,263 @@
+package io.suricate.monitoring.service.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.dto.websocket.WebsocketOutboundQueueDto;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LatestWinsWebSocketSessionDecoratorTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ProjectWidgetDeltaService projectWidgetDeltaService = new ProjectWidgetDeltaService(new ApplicationProperties());
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final List<WebSocketMessage<?>> sentMessages = new ArrayList<>();
+
+    private Counter replacedCounter;
+
+    private Counter droppedCounter;
+
+    private WebSocketSession session;
+
+    private LatestWinsWebSocketSessionDecorator decorator;
+
+    @Before
+    public void before() throws Exception {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session");
+        doAnswer(invocation -> sentMessages.add(invocation.getArgument(0))).when(session).sendMessage(any());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        replacedCounter = meterRegistry.counter("replaced");
+        droppedCounter = meterRegistry.counter("dropped");
+        decorator = new LatestWinsWebSocketSessionDecorator(session, tasks::add, 10000, 1000, replacedCounter, droppedCounter);
+    }
+
+    @Test
+    public void testReplaceProjectWidgetUpdate() throws Exception {
+        TextMessage firstUpdate = frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "first")));
+        TextMessage otherWidgetUpdate = frame("/user/TOKEN-projectWidget-2/queue/live", widgetEvent(newVersion(2L, "other")));
+        TextMessage secondUpdate = frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "second")));
+
+        decorator.sendMessage(firstUpdate);
+        decorator.sendMessage(otherWidgetUpdate);
+        decorator.sendMessage(secondUpdate);
+
+        WebsocketOutboundQueueDto outboundQueue = decorator.getOutboundQueue();
+        assertThat(outboundQueue.getSessionId()).isEqualTo("session");
+        assertThat(outboundQueue.getDepth()).isEqualTo(2);
+        assertThat(outboundQueue.getReplaced()).isEqualTo(1L);
+        assertThat(replacedCounter.count()).isEqualTo(1.0);
+
+        runTasks();
+        assertThat(sentMessages).hasSize(2);
+        assertThat(body(sentMessages.get(0)).path("content").path("data").asText()).isEqualTo("second");
+        assertThat(sentMessages.get(1)).isEqualTo(otherWidgetUpdate);
+        assertThat(decorator.getOutboundQueue().getBufferSize()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testKeepOtherMessages() throws Exception {
+        TextMessage firstMessage = frame("/user/TOKEN/queue/live", "WIDGETS", "first");
+        TextMessage secondMessage = frame("/user/TOKEN/queue/live", "WIDGETS", "second");
+
+        decorator.sendMessage(firstMessage);
+        decorator.sendMessage(secondMessage);
+        runTasks();
+
+        assertThat(sentMessages).containsExactly(firstMessage, secondMessage).inOrder();
+        assertThat(decorator.getOutboundQueue().getReplaced()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testChainProjectWidgetDeltas() throws Exception {
+        decorator.sendMessage(frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "version"))));
+        decorator.sendMessage(frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "first"))));
+        decorator.sendMessage(frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "second"))));
+
+        assertThat(decorator.getOutboundQueue().getDepth()).isEqualTo(1);
+        assertThat(decorator.getOutboundQueue().getReplaced()).isEqualTo(2L);
+
+        runTasks();
+        assertThat(sentMessages).hasSize(1);
+        assertThat(((TextMessage) sentMessages.get(0)).getPayload()).contains(DashboardWebSocketService.UPDATE_TYPE_HEADER + ":WIDGET\n");
+
+        JsonNode event = body(sentMessages.get(0));
+        assertThat(event.path("type").asText()).isEqualTo("WIDGET");
+        assertThat(event.path("content").path("data").asText()).isEqualTo("second");
+        assertThat(event.path("content").path("sequence").asLong()).isEqualTo(3L);
+    }
+
+    @Test
+    public void testKeepUnchainedDeltas() throws Exception {
+        projectWidgetDeltaService.toUpdateEvent(newVersion(1L, "version"));
+        TextMessage firstDelta = frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "first")));
+        projectWidgetDeltaService.toUpdateEvent(newVersion(1L, "missed"));
+        TextMessage secondDelta = frame("/user/TOKEN-projectWidget-1/queue/live", widgetEvent(newVersion(1L, "second")));
+
+        decorator.sendMessage(firstDelta);
+        decorator.sendMessage(secondDelta);
+        runTasks();
+
+        assertThat(sentMessages).containsExactly(firstDelta, secondDelta).inOrder();
+        assertThat(decorator.getOutboundQueue().getReplaced()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testMergeCoalescedFrames() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.websocket.coalescingWindow = 60000;
+
+        DashboardWebSocketService dashboardWebSocketService = mock(DashboardWebSocketService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(dashboardWebSocketService).executeInProjectLane(any(), any());
+        doAnswer(invocation -> {
+            decorator.sendMessage(frame("/user/TOKEN/queue/live", invocation.getArgument(1)));
+            return null;
+        }).when(dashboardWebSocketService).updateGlobalScreensByProjectToken(eq("token"), any());
+
+        ProjectWidgetUpdateCoalescingService projectWidgetUpdateCoalescingService = new ProjectWidgetUpdateCoalescingService(applicationProperties,
+            dashboardWebSocketService, projectWidgetDeltaService, mock(TaskScheduler.class), new SimpleMeterRegistry());
+        assertThat(projectWidgetUpdateCoalescingService.isEnabled()).isTrue();
+
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "first"));
+        projectWidgetUpdateCoalescingService.add(newVersion(2L, "first"));
+        projectWidgetUpdateCoalescingService.flush("token");
+        runTasks();
+
+        // The screen is slow, the next windows wait in the queue
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "second"));
+        projectWidgetUpdateCoalescingService.flush("token");
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "third"));
+        projectWidgetUpdateCoalescingService.add(newVersion(2L, "second"));
+        projectWidgetUpdateCoalescingService.flush("token");
+
+        assertThat(decorator.getOutboundQueue().getDepth()).isEqualTo(1);
+        assertThat(decorator.getOutboundQueue().getReplaced()).isEqualTo(1L);
+
+        runTasks();
+        assertThat(sentMessages).hasSize(2);
+        assertThat(((TextMessage) sentMessages.get(1)).getPayload()).contains(DashboardWebSocketService.PROJECT_WIDGET_IDS_HEADER + ":1,2\n");
+
+        JsonNode events = body(sentMessages.get(1)).path("content");
+        assertThat(events.size()).isEqualTo(2);
+        assertThat(events.get(0).path("type").asText()).isEqualTo("WIDGET_DELTA");
+        assertThat(events.get(0).path("content").path("previousSequence").asLong()).isEqualTo(1L);
+        assertThat(events.get(0).path("content").path("sequence").asLong()).isEqualTo(3L);
+        assertThat(events.get(0).path("content").path("changes").path("data").asText()).isEqualTo("third");
+        assertThat(events.get(1).path("content").path("id").asLong()).isEqualTo(2L);
+        assertThat(events.get(1).path("content").path("sequence").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testDropOldestMessages() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            decorator.sendMessage(frame("/user/TOKEN-projectWidget-" + i + "/queue/live", "WIDGET_DELTA", new String(new char[200])));
+        }
+
+        WebsocketOutboundQueueDto outboundQueue = decorator.getOutboundQueue();
+        assertThat(outboundQueue.getBufferSize()).isAtMost(1000L);
+        assertThat(outboundQueue.getDropped()).isEqualTo(10L - outboundQueue.getDepth());
+        assertThat(droppedCounter.count()).isEqualTo((double) outboundQueue.getDropped());
+
+        runTasks();
+        assertThat(sentMessages).hasSize(outboundQueue.getDepth());
+        assertThat(((TextMessage) sentMessages.get(sentMessages.size() - 1)).getPayload()).contains("projectWidget-9");
+    }
+
+    @Test
+    public void testNeverDropControlMessages() throws Exception {
+        TextMessage reload = frame("/user/TOKEN/queue/live", "RELOAD", new String(new char[400]));
+        decorator.sendMessage(reload);
+        for (int i = 0; i < 5; i++) {
+            decorator.sendMessage(frame("/user/TOKEN/queue/live", "WIDGETS", new String(new char[200])));
+        }
+
+        assertThat(decorator.getOutboundQueue().getDropped()).isGreaterThan(0L);
+        runTasks();
+        assertThat(sentMessages.get(0)).isEqualTo(reload);
+    }
+
+    @Test
+    public void testCloseSessionWhenControlMessagesOverflow() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            decorator.sendMessage(frame("/user/TOKEN/queue/live", "GRID", new String(new char[300])));
+        }
+
+        verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(decorator.getOutboundQueue().getDropped()).isEqualTo(0L);
+        runTasks();
+        assertThat(sentMessages).isEmpty();
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private UpdateEvent widgetEvent(ProjectWidgetResponseDto projectWidgetResponseDto) {
+        return projectWidgetDeltaService.toUpdateEvent(projectWidgetResponseDto);
+    }
+
+    private static ProjectWidgetResponseDto newVersion(Long id, String data) {
+        ProjectWidgetResponseDto projectWidgetResponseDto = new ProjectWidgetResponseDto();
+        projectWidgetResponseDto.setId(id);
+        projectWidgetResponseDto.setProjectToken("token");
+        projectWidgetResponseDto.setData(data);
+        return projectWidgetResponseDto;
+    }
+
+    private static TextMessage frame(String destination, UpdateEvent updateEvent) throws Exception {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setMessageId("message-0");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        DashboardWebSocketService.getNativeHeaders(updateEvent).forEach((name, values) -> values.forEach(value -> accessor.addNativeHeader(name, value)));
+
+        byte[] payload = OBJECT_MAPPER.writeValueAsBytes(updateEvent);
+        return new TextMessage(new StompEncoder().encode(MessageBuilder.createMessage(payload, accessor.getMessageHeaders())));
+    }
+
+    private static JsonNode body(WebSocketMessage<?> message) throws Exception {
+        String payload = ((TextMessage) message).getPayload();
+        return OBJECT_MAPPER.readTree(payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1));
+    }
+
+    private static TextMessage frame(String destination, String updateType, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+            + DashboardWebSocketService.UPDATE_TYPE_HEADER + ":" + updateType + "\n\n" + body + "\u0000");
+    }
+}
@@ -0,0 +1,60 @@
+package io.suricate.monitoring.service.websocket;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ProjectLaneExecutorTest {
+
+    @Test
+    public void testRunTasksOfProjectInOrder() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            ProjectLaneExecutor projectLaneExecutor = new ProjectLaneExecutor(executorService);
+            List<Integer> first = new CopyOnWriteArrayList<>();
+            List<Integer> second = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(2000);
+
+            for (int i = 0; i < 1000; i++) {
+                int value = i;
+                projectLaneExecutor.execute("first", () -> {
+                    first.add(value);
+                    latch.countDown();
+                });
+                projectLaneExecutor.execute("second", () -> {
+                    second.add(value);
+                    latch.countDown();
+                });
+            }
+
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+            List<Integer> expected = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+            assertThat(first).containsExactlyElementsIn(expected).inOrder();
+            assertThat(second).containsExactlyElementsIn(expected).inOrder();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKeepRunningAfterFailedTask() {
+        ProjectLaneExecutor projectLaneExecutor = new ProjectLaneExecutor(Runnable::run);
+        List<Integer> values = new CopyOnWriteArrayList<>();
+
+        projectLaneExecutor.execute("project", () -> {
+            throw new IllegalStateException("failure");
+        });
+        projectLaneExecutor.execute("project", () -> values.add(1));
+
+        assertThat(values).containsExactly(1);
+    }
+}
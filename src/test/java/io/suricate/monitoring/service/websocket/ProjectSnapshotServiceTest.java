@@ -0,0 +1,152 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.ProjectSnapshotDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.CategoryRepository;
+import io.suricate.monitoring.repository.ProjectRepository;
+import io.suricate.monitoring.repository.ProjectWidgetRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProjectSnapshotServiceTest {
+
+    private static final int WIDGET_COUNT = 3;
+
+    @Autowired
+    ProjectSnapshotService projectSnapshotService;
+
+    @Autowired
+    ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @After
+    public void after() {
+        projectSnapshotService.invalidateAll();
+        projectWidgetRepository.findAll().forEach(projectWidget -> projectWidgetDeltaService.forget(Collections.singleton(projectWidget.getId())));
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+        projectRepository.deleteAll();
+    }
+
+    @Test
+    public void getSnapshotTest() {
+        createProject("999999");
+
+        UpdateEvent snapshot = projectSnapshotService.getSnapshot("999999").get();
+        assertThat(snapshot.getType()).isEqualTo(UpdateType.SNAPSHOT);
+
+        ProjectSnapshotDto projectSnapshotDto = (ProjectSnapshotDto) snapshot.getContent();
+        assertThat(projectSnapshotDto.getProject().getToken()).isEqualTo("999999");
+        assertThat(projectSnapshotDto.getProjectWidgets()).hasSize(WIDGET_COUNT);
+        assertThat(projectSnapshotDto.getProjectWidgets().get(0).getSequence()).isEqualTo(1L);
+    }
+
+    @Test
+    public void getCachedSnapshotTest() {
+        createProject("999999");
+        UpdateEvent snapshot = projectSnapshotService.getSnapshot("999999").get();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(projectSnapshotService.getSnapshot("999999").get()).isSameInstanceAs(snapshot);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(0L);
+
+        projectSnapshotService.invalidate("999999");
+        assertThat(projectSnapshotService.getSnapshot("999999").get()).isNotSameInstanceAs(snapshot);
+    }
+
+    @Test
+    public void getRefreshedSnapshotTest() {
+        createProject("999999");
+        ProjectSnapshotDto projectSnapshotDto = (ProjectSnapshotDto) projectSnapshotService.getSnapshot("999999").get().getContent();
+
+        ProjectWidgetResponseDto newVersion = new ProjectWidgetResponseDto();
+        newVersion.setId(projectSnapshotDto.getProjectWidgets().get(0).getId());
+        newVersion.setData("{\"VALUE\":42}");
+        projectWidgetDeltaService.toUpdateEvent(newVersion);
+
+        ProjectSnapshotDto refreshedProjectSnapshotDto = (ProjectSnapshotDto) projectSnapshotService.getSnapshot("999999").get().getContent();
+        assertThat(refreshedProjectSnapshotDto).isNotSameInstanceAs(projectSnapshotDto);
+        assertThat(refreshedProjectSnapshotDto.getProject()).isSameInstanceAs(projectSnapshotDto.getProject());
+        assertThat(refreshedProjectSnapshotDto.getProjectWidgets().get(0).getSequence()).isEqualTo(2L);
+        assertThat(refreshedProjectSnapshotDto.getProjectWidgets().get(1)).isSameInstanceAs(projectSnapshotDto.getProjectWidgets().get(1));
+        assertThat(projectSnapshotDto.getProjectWidgets().get(0).getSequence()).isEqualTo(1L);
+    }
+
+    @Test
+    public void getUnknownSnapshotTest() {
+        assertThat(projectSnapshotService.getSnapshot("000000").isPresent()).isFalse();
+    }
+
+    private void createProject(String token) {
+        Project project = new Project();
+        project.setName("test");
+        project.setToken(token);
+        projectRepository.save(project);
+
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryRepository.save(category);
+
+        for (int i = 0; i < WIDGET_COUNT; i++) {
+            Widget widget = new Widget();
+            widget.setName("Widget " + i);
+            widget.setDescription("Description");
+            widget.setTechnicalName("widget" + i);
+            widget.setBackendJs("function run() {}");
+            widget.setHtmlContent("<div>{{VALUE}}</div>");
+            widget.setDelay(10L);
+            widget.setCategory(category);
+            widgetRepository.save(widget);
+
+            ProjectWidget projectWidget = new ProjectWidget();
+            projectWidget.setState(WidgetState.STOPPED);
+            projectWidget.setBackendConfig("");
+            projectWidget.setData("{\"VALUE\":" + i + "}");
+            projectWidget.setRow(i);
+            projectWidget.setProject(project);
+            projectWidget.setWidget(widget);
+            projectWidgetRepository.save(projectWidget);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetPositionResponseDto;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.ProjectWidgetDeltaDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class ProjectWidgetDeltaServiceTest {
+
+    private final ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private final ProjectWidgetDeltaService projectWidgetDeltaService = new ProjectWidgetDeltaService(applicationProperties);
+
+    @Test
+    public void testFirstVersionPushedEntirely() {
+        UpdateEvent updateEvent = projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"));
+
+        assertThat(updateEvent.getType()).isEqualTo(UpdateType.WIDGET);
+        assertThat(((ProjectWidgetResponseDto) updateEvent.getContent()).getSequence()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testNextVersionPushedAsDelta() {
+        projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"));
+        UpdateEvent updateEvent = projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":2}", null));
+
+        assertThat(updateEvent.getType()).isEqualTo(UpdateType.WIDGET_DELTA);
+        ProjectWidgetDeltaDto projectWidgetDeltaDto = (ProjectWidgetDeltaDto) updateEvent.getContent();
+        assertThat(projectWidgetDeltaDto.getId()).isEqualTo(1L);
+        assertThat(projectWidgetDeltaDto.getPreviousSequence()).isEqualTo(1L);
+        assertThat(projectWidgetDeltaDto.getSequence()).isEqualTo(2L);
+        assertThat(projectWidgetDeltaDto.getChanges()).containsExactly("data", "{\"value\":2}", "log", null);
+    }
+
+    @Test
+    public void testUnchangedVersionNotPushed() {
+        projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"));
+
+        assertThat(projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"))).isNull();
+    }
+
+    @Test
+    public void testResync() {
+        projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"));
+        projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":2}", "log"));
+
+        // The current version already holds the next delta, applying it again leads to the same version
+        ProjectWidgetResponseDto lastVersion = projectWidgetDeltaService.getLastVersion(1L, () -> newVersion("{\"value\":3}", "log"));
+        assertThat(lastVersion.getData()).isEqualTo("{\"value\":3}");
+        assertThat(lastVersion.getSequence()).isEqualTo(2L);
+
+        ProjectWidgetDeltaDto projectWidgetDeltaDto = (ProjectWidgetDeltaDto) projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":3}", "log")).getContent();
+        assertThat(projectWidgetDeltaDto.getPreviousSequence()).isEqualTo(2L);
+        assertThat(projectWidgetDeltaDto.getChanges()).containsExactly("data", "{\"value\":3}");
+
+        projectWidgetDeltaService.forget(Collections.singletonList(1L));
+        assertThat(projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":2}", "log")).getType()).isEqualTo(UpdateType.WIDGET);
+    }
+
+    @Test
+    public void testBrokerRelayPushesEntireVersions() {
+        applicationProperties.websocket.brokerRelay.enabled = true;
+        projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":1}", "log"));
+
+        UpdateEvent updateEvent = projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":2}", "log"));
+        assertThat(updateEvent.getType()).isEqualTo(UpdateType.WIDGET);
+        assertThat(((ProjectWidgetResponseDto) updateEvent.getContent()).getData()).isEqualTo("{\"value\":2}");
+        assertThat(((ProjectWidgetResponseDto) updateEvent.getContent()).getSequence()).isEqualTo(2L);
+        assertThat(projectWidgetDeltaService.toUpdateEvent(newVersion("{\"value\":2}", "log"))).isNull();
+    }
+
+    @Test
+    public void testPositionChangeWithSameHashCodePushed() {
+        ProjectWidgetPositionResponseDto position = new ProjectWidgetPositionResponseDto();
+        position.setCol(1);
+        ProjectWidgetResponseDto firstVersion = newVersion("{\"value\":1}", "log");
+        firstVersion.setWidgetPosition(position);
+        projectWidgetDeltaService.toUpdateEvent(firstVersion);
+
+        ProjectWidgetPositionResponseDto newPosition = new ProjectWidgetPositionResponseDto();
+        newPosition.setRow(59);
+        assertThat(newPosition.hashCode()).isEqualTo(position.hashCode());
+        ProjectWidgetResponseDto nextVersion = newVersion("{\"value\":1}", "log");
+        nextVersion.setWidgetPosition(newPosition);
+
+        ProjectWidgetDeltaDto projectWidgetDeltaDto = (ProjectWidgetDeltaDto) projectWidgetDeltaService.toUpdateEvent(nextVersion).getContent();
+        assertThat(projectWidgetDeltaDto.getChanges()).containsExactly("widgetPosition", newPosition);
+    }
+
+    private static ProjectWidgetResponseDto newVersion(String data, String log) {
+        ProjectWidgetResponseDto projectWidgetResponseDto = new ProjectWidgetResponseDto();
+        projectWidgetResponseDto.setId(1L);
+        projectWidgetResponseDto.setData(data);
+        projectWidgetResponseDto.setLog(log);
+        projectWidgetResponseDto.setState(WidgetState.RUNNING);
+        return projectWidgetResponseDto;
+    }
+}
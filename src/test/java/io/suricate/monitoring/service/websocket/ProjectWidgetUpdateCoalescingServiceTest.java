@@ -0,0 +1,94 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ProjectWidgetUpdateCoalescingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final DashboardWebSocketService dashboardWebSocketService = mock(DashboardWebSocketService.class);
+
+    private final ThreadPoolTaskScheduler websocketScheduler = new ThreadPoolTaskScheduler();
+
+    private ProjectWidgetUpdateCoalescingService projectWidgetUpdateCoalescingService;
+
+    @Before
+    public void before() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.websocket.coalescingWindow = 60000;
+        websocketScheduler.initialize();
+
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(dashboardWebSocketService).executeInProjectLane(any(), any());
+
+        projectWidgetUpdateCoalescingService = new ProjectWidgetUpdateCoalescingService(applicationProperties,
+            dashboardWebSocketService, new ProjectWidgetDeltaService(applicationProperties), websocketScheduler, meterRegistry);
+    }
+
+    @After
+    public void after() {
+        websocketScheduler.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdatesMergedInOneFrame() {
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "{\"value\":1}"));
+        projectWidgetUpdateCoalescingService.add(newVersion(2L, "{\"value\":1}"));
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "{\"value\":2}"));
+        verify(dashboardWebSocketService, never()).updateGlobalScreensByProjectToken(any(), any());
+
+        projectWidgetUpdateCoalescingService.flush("token");
+
+        ArgumentCaptor<UpdateEvent> updateEventCaptor = ArgumentCaptor.forClass(UpdateEvent.class);
+        verify(dashboardWebSocketService).updateGlobalScreensByProjectToken(eq("token"), updateEventCaptor.capture());
+        assertThat(updateEventCaptor.getValue().getType()).isEqualTo(UpdateType.WIDGETS);
+
+        List<UpdateEvent> updateEvents = (List<UpdateEvent>) updateEventCaptor.getValue().getContent();
+        assertThat(updateEvents).hasSize(2);
+        assertThat(((ProjectWidgetResponseDto) updateEvents.get(0).getContent()).getId()).isEqualTo(1L);
+        assertThat(((ProjectWidgetResponseDto) updateEvents.get(0).getContent()).getData()).isEqualTo("{\"value\":2}");
+        assertThat(((ProjectWidgetResponseDto) updateEvents.get(1).getContent()).getId()).isEqualTo(2L);
+
+        DistributionSummary batchSizeSummary = meterRegistry.get("suricate.websocket.batch.size").summary();
+        assertThat(batchSizeSummary.count()).isEqualTo(1L);
+        assertThat(batchSizeSummary.totalAmount()).isEqualTo(2.0);
+    }
+
+    @Test
+    public void testUnchangedUpdatesNotPushed() {
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "{\"value\":1}"));
+        projectWidgetUpdateCoalescingService.flush("token");
+        projectWidgetUpdateCoalescingService.add(newVersion(1L, "{\"value\":1}"));
+        projectWidgetUpdateCoalescingService.flush("token");
+
+        verify(dashboardWebSocketService, times(1)).updateGlobalScreensByProjectToken(eq("token"), any());
+    }
+
+    private static ProjectWidgetResponseDto newVersion(Long id, String data) {
+        ProjectWidgetResponseDto projectWidgetResponseDto = new ProjectWidgetResponseDto();
+        projectWidgetResponseDto.setId(id);
+        projectWidgetResponseDto.setProjectToken("token");
+        projectWidgetResponseDto.setData(data);
+        return projectWidgetResponseDto;
+    }
+}
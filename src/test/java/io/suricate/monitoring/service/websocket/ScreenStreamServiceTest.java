@@ -0,0 +1,342 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.api.projectwidget.ProjectWidgetResponseDto;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.entity.project.Project;
+import io.suricate.monitoring.model.entity.project.ProjectWidget;
+import io.suricate.monitoring.model.entity.widget.Category;
+import io.suricate.monitoring.model.entity.widget.Widget;
+import io.suricate.monitoring.model.enums.UpdateType;
+import io.suricate.monitoring.model.enums.WidgetState;
+import io.suricate.monitoring.repository.CategoryRepository;
+import io.suricate.monitoring.repository.ProjectRepository;
+import io.suricate.monitoring.repository.ProjectWidgetRepository;
+import io.suricate.monitoring.repository.WidgetRepository;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+public class ScreenStreamServiceTest {
+
+    private static final int CONCURRENT_STREAMS = 5000;
+
+    private static final long BROADCAST_TIME_LIMIT = TimeUnit.SECONDS.toMillis(10);
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ScreenStreamService screenStreamService;
+
+    @Autowired
+    DashboardWebSocketService dashboardWebSocketService;
+
+    @Autowired
+    ProjectWidgetDeltaService projectWidgetDeltaService;
+
+    @Autowired
+    ProjectSnapshotService projectSnapshotService;
+
+    @Autowired
+    ProjectRepository projectRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    WidgetRepository widgetRepository;
+
+    @Autowired
+    ProjectWidgetRepository projectWidgetRepository;
+
+    @Autowired
+    ApplicationProperties applicationProperties;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @After
+    public void after() {
+        screenStreamService.reset();
+        projectSnapshotService.invalidateAll();
+        projectWidgetRepository.findAll().forEach(projectWidget -> projectWidgetDeltaService.forget(Collections.singleton(projectWidget.getId())));
+        projectWidgetRepository.deleteAll();
+        widgetRepository.deleteAll();
+        categoryRepository.deleteAll();
+        projectRepository.deleteAll();
+    }
+
+    @Test
+    public void testStreamStartsWithSnapshot() throws Exception {
+        createProject("999999");
+
+        try (Stream stream = new Stream("999999", null)) {
+            String[] event = stream.readEvent();
+            assertThat(event[0]).isNotNull();
+            assertThat(event[1]).contains("\"SNAPSHOT\"");
+
+            dashboardWebSocketService.updateGlobalScreensByProjectToken("999999", new UpdateEvent(UpdateType.GRID));
+            String[] gridEvent = stream.readEvent();
+            assertThat(Long.parseLong(gridEvent[0])).isGreaterThan(Long.parseLong(event[0]));
+            assertThat(gridEvent[1]).contains("\"GRID\"");
+        }
+    }
+
+    @Test
+    public void testResumeWithMissedWidgets() throws Exception {
+        Project project = createProject("999999");
+
+        try (Stream stream = new Stream("999999", null)) {
+            String lastEventId = stream.readEvent()[0];
+            // Added once the screen is connected, so that it is not run by the scheduler of the project
+            Long projectWidgetId = createProjectWidget(project, "{\"VALUE\":2}");
+
+            dashboardWebSocketService.updateGlobalScreensByProjectTokenAndProjectWidgetId("999999", projectWidgetId, projectWidgetDeltaService.toUpdateEvent(newProjectWidget(projectWidgetId, 1)));
+            stream.readEvent();
+
+            dashboardWebSocketService.updateGlobalScreensByProjectTokenAndProjectWidgetId("999999", projectWidgetId, projectWidgetDeltaService.toUpdateEvent(newProjectWidget(projectWidgetId, 2)));
+            String[] widgetEvent = stream.readEvent();
+            assertThat(widgetEvent[1]).contains("\"WIDGET_DELTA\"");
+            String widgetEventId = widgetEvent[0];
+
+            dashboardWebSocketService.updateGlobalScreensByProjectToken("999999", new UpdateEvent(UpdateType.GRID));
+            String gridEventId = stream.readEvent()[0];
+
+            try (Stream resumedStream = new Stream("999999", lastEventId)) {
+                String[] widgetsEvent = resumedStream.readEvent();
+                assertThat(widgetsEvent[0]).isEqualTo(widgetEventId);
+                assertThat(widgetsEvent[1]).contains("\"WIDGETS\"");
+                assertThat(widgetsEvent[1]).contains("\"sequence\":2");
+                assertThat(widgetsEvent[1]).contains("VALUE\\\":2");
+
+                String[] gridEvent = resumedStream.readEvent();
+                assertThat(gridEvent[0]).isEqualTo(gridEventId);
+                assertThat(gridEvent[1]).contains("\"GRID\"");
+            }
+        }
+    }
+
+    @Test
+    public void testResumeUnknownEventWithSnapshot() throws Exception {
+        createProject("999999");
+
+        try (Stream stream = new Stream("999999", "1")) {
+            assertThat(stream.readEvent()[1]).contains("\"SNAPSHOT\"");
+        }
+    }
+
+    @Test
+    public void testEvictBlockedStream() throws Exception {
+        createProject("999999");
+        long sendTimeLimit = applicationProperties.screenStream.sendTimeLimit;
+        double blockedScreens = meterRegistry.get("suricate.screens.streams.blocked").counter().count();
+        applicationProperties.screenStream.sendTimeLimit = 100;
+
+        try (Stream stream = new Stream("999999", null)) {
+            stream.readEvent();
+
+            // The stream is no longer read, a send ends up blocked once the socket buffers are full
+            String data = StringUtils.repeat('x', 256 * 1024);
+            for (int i = 0; i < 50; i++) {
+                screenStreamService.publish("999999", data);
+            }
+
+            long timeLimit = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+            while (screenStreamService.getScreenCount() > 0 && System.currentTimeMillis() < timeLimit) {
+                Thread.sleep(200);
+                screenStreamService.heartbeat();
+            }
+
+            assertThat(screenStreamService.getScreenCount()).isEqualTo(0);
+            assertThat(dashboardWebSocketService.getWebsocketClientsByProjectToken("999999")).hasSize(1);
+            assertThat(meterRegistry.get("suricate.screens.streams.blocked").counter().count()).isEqualTo(blockedScreens + 1);
+        } finally {
+            applicationProperties.screenStream.sendTimeLimit = sendTimeLimit;
+        }
+    }
+
+    @Test
+    public void testUnknownProject() throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + "/api/v1/screens/000000/stream").openConnection();
+        assertThat(connection.getResponseCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void testConcurrentStreams() throws Exception {
+        createProject("999999");
+
+        ExecutorService executorService = Executors.newFixedThreadPool(100);
+        List<Stream> streams = new CopyOnWriteArrayList<>();
+        try {
+            List<Future<?>> snapshots = new ArrayList<>();
+            for (int i = 0; i < CONCURRENT_STREAMS; i++) {
+                snapshots.add(executorService.submit(() -> {
+                    Stream stream = new Stream("999999", null);
+                    streams.add(stream);
+                    return stream.readEvent();
+                }));
+            }
+            for (Future<?> snapshot : snapshots) {
+                snapshot.get(120, TimeUnit.SECONDS);
+            }
+
+            assertThat(screenStreamService.getScreenCount()).isEqualTo(CONCURRENT_STREAMS);
+            assertThat(dashboardWebSocketService.getWebsocketClientsByProjectToken("999999")).hasSize(CONCURRENT_STREAMS + 1);
+
+            long start = System.currentTimeMillis();
+            dashboardWebSocketService.updateGlobalScreensByProjectToken("999999", new UpdateEvent(UpdateType.GRID));
+            List<Future<String[]>> events = new ArrayList<>();
+            for (Stream stream : streams) {
+                events.add(executorService.submit(stream::readEvent));
+            }
+            for (Future<String[]> event : events) {
+                assertThat(event.get(30, TimeUnit.SECONDS)[1]).contains("\"GRID\"");
+            }
+            assertThat(System.currentTimeMillis() - start).isLessThan(BROADCAST_TIME_LIMIT);
+        } finally {
+            for (Stream stream : streams) {
+                stream.close();
+            }
+            executorService.shutdownNow();
+        }
+    }
+
+    private static ProjectWidgetResponseDto newProjectWidget(Long projectWidgetId, int value) {
+        ProjectWidgetResponseDto projectWidgetResponseDto = new ProjectWidgetResponseDto();
+        projectWidgetResponseDto.setId(projectWidgetId);
+        projectWidgetResponseDto.setData("{\"VALUE\":" + value + "}");
+        return projectWidgetResponseDto;
+    }
+
+    private Project createProject(String token) {
+        Project project = new Project();
+        project.setName("test");
+        project.setToken(token);
+        return projectRepository.save(project);
+    }
+
+    private Long createProjectWidget(Project project, String data) {
+        Category category = new Category();
+        category.setName("test");
+        category.setTechnicalName("test");
+        categoryRepository.save(category);
+
+        Widget widget = new Widget();
+        widget.setName("Widget");
+        widget.setDescription("Description");
+        widget.setTechnicalName("widget");
+        widget.setBackendJs("function run() {}");
+        widget.setHtmlContent("<div>{{VALUE}}</div>");
+        widget.setDelay(10L);
+        widget.setCategory(category);
+        widgetRepository.save(widget);
+
+        ProjectWidget projectWidget = new ProjectWidget();
+        projectWidget.setState(WidgetState.STOPPED);
+        projectWidget.setBackendConfig("");
+        projectWidget.setData(data);
+        projectWidget.setProject(project);
+        projectWidget.setWidget(widget);
+        return projectWidgetRepository.save(projectWidget).getId();
+    }
+
+    /**
+     * A stream read from a plain socket with small buffers, so that thousands of them fit in the memory of the tests
+     * The request is sent in HTTP/1.0, the events are then read without chunked encoding until the connection is closed
+     */
+    private class Stream implements AutoCloseable {
+
+        private final Socket socket;
+
+        private final InputStream inputStream;
+
+        private Stream(String projectToken, String lastEventId) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setSoTimeout(60000);
+            socket.setReceiveBufferSize(4096);
+            inputStream = new BufferedInputStream(socket.getInputStream(), 256);
+
+            String request = "GET /api/v1/screens/" + projectToken + "/stream HTTP/1.0\r\n"
+                + "Host: localhost\r\n"
+                + "Accept: text/event-stream\r\n"
+                + (lastEventId != null ? "Last-Event-ID: " + lastEventId + "\r\n" : "")
+                + "\r\n";
+            OutputStream outputStream = socket.getOutputStream();
+            outputStream.write(request.getBytes(StandardCharsets.US_ASCII));
+            outputStream.flush();
+
+            String statusLine = readLine();
+            assertThat(statusLine).contains(" 200");
+            String header;
+            do {
+                header = readLine();
+            } while (header != null && !header.isEmpty());
+        }
+
+        /**
+         * @return The id and the data of the next event
+         */
+        private String[] readEvent() throws IOException {
+            String[] event = new String[2];
+            String line;
+            while ((line = readLine()) != null) {
+                if (line.isEmpty() && event[1] != null) {
+                    return event;
+                } else if (line.startsWith("id:")) {
+                    event[0] = line.substring(3);
+                } else if (line.startsWith("data:")) {
+                    event[1] = line.substring(5);
+                }
+            }
+
+            throw new IOException("End of stream");
+        }
+
+        /**
+         * @return The next line without its end of line, null at the end of the stream
+         */
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = inputStream.read()) != -1 && b != '\n') {
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+
+            return b == -1 && line.size() == 0 ? null : new String(line.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
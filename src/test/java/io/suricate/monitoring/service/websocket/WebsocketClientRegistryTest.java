@@ -0,0 +1,93 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.suricate.monitoring.model.dto.websocket.WebsocketClient;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class WebsocketClientRegistryTest {
+
+    private final WebsocketClientRegistry websocketClientRegistry = new WebsocketClientRegistry();
+
+    @Test
+    public void testProjectClients() {
+        WebsocketClient firstClient = new WebsocketClient("TOKEN", "session1", "sub1", "1");
+        WebsocketClient secondClient = new WebsocketClient("TOKEN", "session2", "sub2", "2");
+
+        assertThat(websocketClientRegistry.addProjectClient("TOKEN", firstClient)).isTrue();
+        assertThat(websocketClientRegistry.addProjectClient("TOKEN", secondClient)).isFalse();
+        assertThat(websocketClientRegistry.getProjectClients("TOKEN")).containsExactly(firstClient, secondClient);
+        assertThat(websocketClientRegistry.getProjectTokens()).containsExactly("TOKEN");
+
+        assertThat(websocketClientRegistry.removeProjectClient("TOKEN", firstClient)).isFalse();
+        assertThat(websocketClientRegistry.removeProjectClient("TOKEN", secondClient)).isTrue();
+        assertThat(websocketClientRegistry.removeProjectClient("TOKEN", secondClient)).isFalse();
+        assertThat(websocketClientRegistry.getProjectClients("TOKEN")).isEmpty();
+        assertThat(websocketClientRegistry.getProjectTokens()).isEmpty();
+    }
+
+    @Test
+    public void testScreenClients() {
+        WebsocketClient firstClient = new WebsocketClient("TOKEN", "session1", "sub1", "1");
+        WebsocketClient reconnectedClient = new WebsocketClient("TOKEN", "session2", "sub2", "1");
+        WebsocketClient otherClient = new WebsocketClient("TOKEN", "session3", "sub3", "2");
+
+        websocketClientRegistry.addProjectClient("TOKEN", firstClient);
+        websocketClientRegistry.addProjectClient("TOKEN", reconnectedClient);
+        websocketClientRegistry.addProjectClient("TOKEN", otherClient);
+        assertThat(websocketClientRegistry.getScreenClients("TOKEN", "1")).containsExactly(firstClient, reconnectedClient);
+        assertThat(websocketClientRegistry.getScreenClients("TOKEN", "2")).containsExactly(otherClient);
+        assertThat(websocketClientRegistry.getScreenClients("OTHER", "1")).isEmpty();
+
+        websocketClientRegistry.removeProjectClient("TOKEN", firstClient);
+        assertThat(websocketClientRegistry.getScreenClients("TOKEN", "1")).containsExactly(reconnectedClient);
+
+        websocketClientRegistry.removeProjectClient("TOKEN", reconnectedClient);
+        assertThat(websocketClientRegistry.getScreenClients("TOKEN", "1")).isEmpty();
+    }
+
+    @Test
+    public void testSessionClients() {
+        WebsocketClient firstClient = new WebsocketClient("TOKEN", "session1", "sub1", "1");
+        WebsocketClient reconnectedClient = new WebsocketClient("TOKEN", "session2", "sub2", "1");
+
+        websocketClientRegistry.addSessionClient("session1", firstClient);
+        websocketClientRegistry.addSessionClient("session2", reconnectedClient);
+
+        assertThat(websocketClientRegistry.removeSessionClient("session1", "otherSubscription")).isNull();
+        assertThat(websocketClientRegistry.removeSessionClient("session1", "sub1")).isEqualTo(firstClient);
+        assertThat(websocketClientRegistry.removeSessionClient("session1", null)).isNull();
+
+        assertThat(websocketClientRegistry.removeSessionClient("session2", null)).isEqualTo(reconnectedClient);
+        assertThat(websocketClientRegistry.removeSessionClient("session2", null)).isNull();
+    }
+
+    @Test
+    public void testConcurrentProjectClients() throws InterruptedException {
+        AtomicInteger firstClients = new AtomicInteger();
+        AtomicInteger lastClients = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1000; i++) {
+            WebsocketClient websocketClient = new WebsocketClient("TOKEN" + (i % 10), "session" + i, "sub" + i, String.valueOf(i));
+            executorService.execute(() -> {
+                if (websocketClientRegistry.addProjectClient(websocketClient.getProjectToken(), websocketClient)) {
+                    firstClients.incrementAndGet();
+                }
+                if (websocketClientRegistry.removeProjectClient(websocketClient.getProjectToken(), websocketClient)) {
+                    lastClients.incrementAndGet();
+                }
+            });
+        }
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(websocketClientRegistry.getProjectTokens()).isEmpty();
+        assertThat(firstClients.get()).isEqualTo(lastClients.get());
+    }
+}
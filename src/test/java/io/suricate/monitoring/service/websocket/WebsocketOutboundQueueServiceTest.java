@@ -0,0 +1,42 @@
+package io.suricate.monitoring.service.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import org.junit.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class WebsocketOutboundQueueServiceTest {
+
+    @Test
+    public void testSessionQueues() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.websocket.sendTimeLimit = 10000;
+        applicationProperties.websocket.sendBufferSizeLimit = 1000;
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        WebsocketOutboundQueueService websocketOutboundQueueService = new WebsocketOutboundQueueService(applicationProperties,
+            Runnable::run, mock(TaskScheduler.class), meterRegistry);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session");
+
+        // The meters are global, a session adds no meter
+        int meterCount = meterRegistry.getMeters().size();
+        websocketOutboundQueueService.decorate(session);
+
+        assertThat(meterRegistry.getMeters()).hasSize(meterCount);
+        assertThat(meterRegistry.find("suricate.websocket.outbound.depth").gauge()).isNotNull();
+        assertThat(meterRegistry.find("suricate.websocket.outbound.replaced").counter()).isNotNull();
+        assertThat(meterRegistry.find("suricate.websocket.outbound.dropped").counter()).isNotNull();
+        assertThat(websocketOutboundQueueService.getOutboundQueues()).hasSize(1);
+
+        websocketOutboundQueueService.remove("session");
+
+        assertThat(websocketOutboundQueueService.getOutboundQueues()).isEmpty();
+    }
+}
@@ -0,0 +1,250 @@
+package io.suricate.monitoring.service.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.suricate.monitoring.configuration.ApplicationProperties;
+import io.suricate.monitoring.model.dto.websocket.UpdateEvent;
+import io.suricate.monitoring.model.enums.UpdateType;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class WebsocketPayloadFormatServiceTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebsocketPayloadFormatServiceTest.class);
+
+    private static final String WIDGET_PATH = "src/test/resources/widgets/jira/widgets/jiratimeline/";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ApplicationProperties applicationProperties;
+
+    private WebsocketPayloadFormatService websocketPayloadFormatService;
+
+    private byte[] payload;
+
+    @Before
+    public void before() throws Exception {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.websocket.binaryPayloads = true;
+        websocketPayloadFormatService = new WebsocketPayloadFormatService(applicationProperties);
+        payload = objectMapper.writeValueAsBytes(widgetUpdateEvent());
+    }
+
+    @Test
+    public void testEncodeCbor() throws Exception {
+        websocketPayloadFormatService.negotiate(connect("session", "cbor", true));
+
+        Message<?> encoded = websocketPayloadFormatService.encode(message("session"));
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(encoded);
+
+        assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(accessor.getFirstNativeHeader(WebsocketPayloadFormatService.PAYLOAD_FORMAT_HEADER)).isEqualTo("cbor");
+        assertThat(new ObjectMapper(new CBORFactory()).readTree((byte[]) encoded.getPayload())).isEqualTo(objectMapper.readTree(payload));
+    }
+
+    @Test
+    public void testEncodeSmileOncePerPayload() throws Exception {
+        websocketPayloadFormatService.negotiate(connect("first", "smile", true));
+        websocketPayloadFormatService.negotiate(connect("second", "SMILE", true));
+
+        Object firstPayload = websocketPayloadFormatService.encode(message("first")).getPayload();
+        Object secondPayload = websocketPayloadFormatService.encode(message("second")).getPayload();
+
+        assertThat(secondPayload).isSameInstanceAs(firstPayload);
+        assertThat(new ObjectMapper(new SmileFactory()).readTree((byte[]) firstPayload)).isEqualTo(objectMapper.readTree(payload));
+    }
+
+    @Test
+    public void testKeepJson() {
+        applicationProperties.websocket.binaryPayloads = false;
+        websocketPayloadFormatService.negotiate(connect("disabled", "cbor", true));
+        applicationProperties.websocket.binaryPayloads = true;
+        websocketPayloadFormatService.negotiate(connect("sockjs", "cbor", false));
+        websocketPayloadFormatService.negotiate(connect("json", "json", true));
+        websocketPayloadFormatService.negotiate(connect("forgotten", "cbor", true));
+        websocketPayloadFormatService.forget("forgotten");
+
+        for (String sessionId : new String[]{"disabled", "sockjs", "json", "forgotten", "unknown"}) {
+            Message<?> message = message(sessionId);
+            assertThat(websocketPayloadFormatService.encode(message)).isSameInstanceAs(message);
+        }
+    }
+
+    @Test
+    public void testPayloadSizes() throws Exception {
+        byte[] cbor = WebsocketPayloadFormatService.transcode(payload, new CBORFactory());
+        byte[] smile = WebsocketPayloadFormatService.transcode(payload, new SmileFactory());
+        byte[] deflated = deflate(payload);
+
+        assertThat(cbor.length).isLessThan(payload.length);
+        assertThat(smile.length).isLessThan(payload.length);
+        assertThat(deflated.length).isLessThan(payload.length / 4);
+    }
+
+    /**
+     * Benchmark of the CPU spent per frame by permessage-deflate and by the binary formats, run it by hand
+     * As Tomcat does, the deflater of a session is kept between the frames and flushed with SYNC_FLUSH at the end of each one
+     */
+    @Test
+    @Ignore("Benchmark, run it by hand")
+    public void compressionCpuTest() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        byte[] delta = objectMapper.writeValueAsBytes(widgetDeltaEvent());
+
+        for (byte[] frame : new byte[][]{payload, delta}) {
+            int iterations = Math.max(2000, 20_000_000 / frame.length);
+            byte[] deflated = new byte[frame.length + 1024];
+            byte[] inflated = new byte[frame.length + 1024];
+            int firstSize = 0;
+            int size = 0;
+            long deflateTime = 0;
+            long inflateTime = 0;
+            long transcodeTime = 0;
+            long length = 0;
+
+            // The first rounds warm up the JIT
+            for (int round = 0; round < 3; round++) {
+                Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+                Inflater inflater = new Inflater(true);
+                deflateTime = 0;
+                inflateTime = 0;
+
+                for (int i = 0; i < iterations; i++) {
+                    long start = threadMXBean.getCurrentThreadCpuTime();
+                    deflater.setInput(frame);
+                    size = deflater.deflate(deflated, 0, deflated.length, Deflater.SYNC_FLUSH);
+                    deflateTime += threadMXBean.getCurrentThreadCpuTime() - start;
+
+                    start = threadMXBean.getCurrentThreadCpuTime();
+                    inflater.setInput(deflated, 0, size);
+                    length += inflater.inflate(inflated);
+                    inflateTime += threadMXBean.getCurrentThreadCpuTime() - start;
+
+                    if (i == 0) {
+                        firstSize = size;
+                    }
+                }
+                deflater.end();
+                inflater.end();
+
+                long start = threadMXBean.getCurrentThreadCpuTime();
+                for (int i = 0; i < iterations; i++) {
+                    length += WebsocketPayloadFormatService.transcode(frame, new SmileFactory()).length;
+                }
+                transcodeTime = threadMXBean.getCurrentThreadCpuTime() - start;
+            }
+
+            LOGGER.info("{} bytes deflated in {} bytes on the first frame, {} bytes on the repeated frames, deflate {} ns, inflate {} ns, smile {} ns ({})",
+                frame.length, firstSize, size, deflateTime / iterations, inflateTime / iterations, transcodeTime / iterations, length);
+        }
+    }
+
+    private static StompHeaderAccessor connect(String sessionId, String payloadFormat, boolean binaryTransport) {
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        if (binaryTransport) {
+            sessionAttributes.put(WebsocketPayloadFormatService.BINARY_TRANSPORT_ATTRIBUTE, true);
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.setSessionAttributes(sessionAttributes);
+        accessor.setNativeHeader(WebsocketPayloadFormatService.PAYLOAD_FORMAT_HEADER, payloadFormat);
+        return accessor;
+    }
+
+    private Message<?> message(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/user/TOKEN/queue/live");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * The update of a Jira timeline widget, with its real template and style and a data set of 100 issues
+     */
+    private static UpdateEvent widgetUpdateEvent() throws Exception {
+        List<Map<String, Object>> issues = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> issue = new LinkedHashMap<>();
+            issue.put("key", "SURI-" + i);
+            issue.put("summary", "Display the widget " + i + " on the television of the open space");
+            issue.put("status", i % 3 == 0 ? "Done" : "In Progress");
+            issue.put("created", 1546300800000L + i * 3600000L);
+            issue.put("points", i % 8 + 0.5);
+            issues.add(issue);
+        }
+
+        LinkedHashMap<String, Object> projectWidget = new LinkedHashMap<>();
+        projectWidget.put("id", 1L);
+        projectWidget.put("data", new ObjectMapper().writeValueAsString(issues));
+        projectWidget.put("instantiateHtml", new String(Files.readAllBytes(Paths.get(WIDGET_PATH, "content.html")), StandardCharsets.UTF_8));
+        projectWidget.put("customStyle", new String(Files.readAllBytes(Paths.get(WIDGET_PATH, "style.css")), StandardCharsets.UTF_8));
+        projectWidget.put("state", "RUNNING");
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGET);
+        updateEvent.setContent(projectWidget);
+        return updateEvent;
+    }
+
+    /**
+     * The delta of a widget whose value changed, as pushed for most of the updates
+     */
+    private static UpdateEvent widgetDeltaEvent() {
+        LinkedHashMap<String, Object> changes = new LinkedHashMap<>();
+        changes.put("lastExecutionDate", 1546300800000L);
+        changes.put("data", "{\"value\":1234,\"previous\":1200}");
+        changes.put("instantiateHtml", "<div class=\"number\">1234</div><div class=\"previous\">1200</div>");
+
+        LinkedHashMap<String, Object> projectWidgetDelta = new LinkedHashMap<>();
+        projectWidgetDelta.put("id", 1L);
+        projectWidgetDelta.put("previousSequence", 41L);
+        projectWidgetDelta.put("sequence", 42L);
+        projectWidgetDelta.put("changes", changes);
+
+        UpdateEvent updateEvent = new UpdateEvent(UpdateType.WIDGET_DELTA);
+        updateEvent.setContent(projectWidgetDelta);
+        return updateEvent;
+    }
+
+    private static byte[] deflate(byte[] content) {
+        // permessage-deflate uses raw deflate blocks
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(content);
+        deflater.finish();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            outputStream.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,134 @@
+package io.suricate.monitoring.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class CompressionUtilsTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressionUtilsTest.class);
+
+    private static final String LARGE_JSON = "{\"values\":[" + StringUtils.repeat("{\"key\":\"élément\",\"value\":42}", ",", 500) + "]}";
+
+    @Test
+    public void testCompressNull() {
+        assertThat(CompressionUtils.compress(null, 0)).isNull();
+        assertThat(CompressionUtils.decompress(null)).isNull();
+    }
+
+    @Test
+    public void testCompressUnderThreshold() {
+        String json = "{\"test\":0}";
+        assertThat(CompressionUtils.compress(json, CompressionUtils.DEFAULT_THRESHOLD)).isEqualTo(json);
+    }
+
+    @Test
+    public void testCompressDecompress() {
+        String compressed = CompressionUtils.compress(LARGE_JSON, CompressionUtils.DEFAULT_THRESHOLD);
+
+        assertThat(CompressionUtils.isCompressed(compressed)).isTrue();
+        assertThat(compressed.length()).isLessThan(LARGE_JSON.length());
+        assertThat(CompressionUtils.decompress(compressed)).isEqualTo(LARGE_JSON);
+    }
+
+    @Test
+    public void testStoredSizeOfWidgetData() {
+        String data = widgetData(1500);
+        assertThat(data.length()).isGreaterThan(200_000);
+
+        String stored = CompressionUtils.compress(data, CompressionUtils.DEFAULT_THRESHOLD);
+
+        LOGGER.info("{} chars stored in {} chars", data.length(), stored.length());
+        assertThat(stored.length() * 5).isLessThan(data.length());
+        assertThat(CompressionUtils.decompress(stored)).isEqualTo(data);
+    }
+
+    /**
+     * Benchmark of the compression and decompression of the widget data, run it by hand
+     */
+    @Test
+    @Ignore("Benchmark, run it by hand")
+    public void compressionTimeTest() {
+        for (int issueCount : new int[]{40, 500, 5000}) {
+            String data = widgetData(issueCount);
+            String stored = CompressionUtils.compress(data, CompressionUtils.DEFAULT_THRESHOLD);
+            int iterations = Math.max(200, 2_000_000 / data.length());
+            long length = 0;
+            long compressTime = 0;
+            long decompressTime = 0;
+
+            // The first rounds warm up the JIT
+            for (int round = 0; round < 3; round++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    length += CompressionUtils.compress(data, CompressionUtils.DEFAULT_THRESHOLD).length();
+                }
+                compressTime = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    length += CompressionUtils.decompress(stored).length();
+                }
+                decompressTime = System.nanoTime() - start;
+            }
+
+            LOGGER.info("{} chars stored in {} chars, compressed in {} us, decompressed in {} us ({})",
+                data.length(), stored.length(), compressTime / 1000 / iterations, decompressTime / 1000 / iterations, length);
+        }
+    }
+
+    @Test
+    public void testCompressTwice() {
+        String compressed = CompressionUtils.compress(LARGE_JSON, CompressionUtils.DEFAULT_THRESHOLD);
+        assertThat(CompressionUtils.compress(compressed, 0)).isEqualTo(compressed);
+    }
+
+    @Test
+    public void testDecompressLegacyValue() {
+        assertThat(CompressionUtils.decompress(LARGE_JSON)).isEqualTo(LARGE_JSON);
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertThat(CompressionUtils.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(CompressionUtils.acceptsGzip("deflate;q=0.5, GZIP;q=0.8")).isTrue();
+        assertThat(CompressionUtils.acceptsGzip("x-gzip")).isTrue();
+        assertThat(CompressionUtils.acceptsGzip("*")).isTrue();
+        assertThat(CompressionUtils.acceptsGzip("br, *;q=0.1")).isTrue();
+    }
+
+    @Test
+    public void testRefusesGzip() {
+        assertThat(CompressionUtils.acceptsGzip(null)).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("identity")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("gzip ; q=0.000, deflate")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("*, gzip;q=0")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("*;q=0")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("gzip;q=abc")).isFalse();
+        assertThat(CompressionUtils.acceptsGzip("not-gzip, gzipped")).isFalse();
+    }
+
+    /**
+     * Build the data of a Jira like widget
+     *
+     * @param issueCount The number of issues listed
+     * @return The widget data
+     */
+    private static String widgetData(int issueCount) {
+        StringBuilder data = new StringBuilder("{\"title\":\"Sprint\",\"issues\":[");
+        for (int i = 0; i < issueCount; i++) {
+            data.append(i == 0 ? "" : ",")
+                .append("{\"key\":\"SURI-").append(i)
+                .append("\",\"summary\":\"Display the widget ").append(i).append(" on the television of the open space")
+                .append("\",\"status\":\"").append(i % 3 == 0 ? "Done" : "In Progress")
+                .append("\",\"created\":").append(1546300800000L + i * 3600000L).append("}");
+        }
+        return data.append("]}").toString();
+    }
+}
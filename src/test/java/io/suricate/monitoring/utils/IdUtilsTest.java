@@ -1,8 +1,14 @@
 package io.suricate.monitoring.utils;
 
+import io.suricate.monitoring.configuration.encoder.IdTokenCodec;
 import io.suricate.monitoring.utils.exception.ApiException;
+import org.jasypt.encryption.StringEncryptor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -14,6 +20,17 @@ import static com.google.common.truth.Truth.assertThat;
 @SpringBootTest
 public class IdUtilsTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdUtilsTest.class);
+
+    private static final int BENCHMARK_ITERATIONS = 2000;
+
+    @Autowired
+    @Qualifier("noSaltEncrypter")
+    StringEncryptor noSaltEncrypter;
+
+    @Autowired
+    IdTokenCodec idTokenCodec;
+
     @Test
     public void testEncryptNull() throws Exception {
         assertThat(IdUtils.encrypt(null)).isNull();
@@ -35,4 +52,73 @@ public class IdUtilsTest {
         assertThat(IdUtils.decrypt(IdUtils.encrypt(id))).isEqualTo(12L);
     }
 
+    @Test
+    public void testEncryptIsStable() throws Exception {
+        assertThat(IdUtils.encrypt(12L)).isEqualTo(IdUtils.encrypt(12L));
+        assertThat(IdUtils.encrypt(12L)).hasLength(22);
+        assertThat(IdUtils.encrypt(13L)).isNotEqualTo(IdUtils.encrypt(12L));
+    }
+
+    @Test
+    public void testVersionedToken() throws Exception {
+        String contentHash = "0123456789abcdef0123456789abcdef";
+        String token = IdUtils.encrypt(12L, contentHash);
+
+        assertThat(token).isEqualTo(IdUtils.encrypt(12L) + ".0123456789abcdef");
+        assertThat(IdUtils.decrypt(token)).isEqualTo(12L);
+        assertThat(IdUtils.isCurrentVersion(token, contentHash)).isTrue();
+        assertThat(IdUtils.isCurrentVersion(token, "f" + contentHash)).isFalse();
+        assertThat(IdUtils.isCurrentVersion(IdUtils.encrypt(12L), contentHash)).isFalse();
+        assertThat(IdUtils.encrypt(12L, null)).isEqualTo(IdUtils.encrypt(12L));
+    }
+
+    @Test
+    public void testCodecOfTheLastContext() throws Exception {
+        String token = IdUtils.encrypt(12L);
+        IdTokenCodec otherCodec = new IdTokenCodec("other", noSaltEncrypter);
+        otherCodec.register();
+        try {
+            // The codec of a context closed after another one started is not the current one anymore
+            idTokenCodec.unregister();
+            assertThat(IdUtils.encrypt(12L)).isEqualTo(otherCodec.encode(12L));
+            assertThat(IdUtils.encrypt(12L)).isNotEqualTo(token);
+        } finally {
+            otherCodec.unregister();
+            idTokenCodec.register();
+        }
+        assertThat(IdUtils.encrypt(12L)).isEqualTo(token);
+    }
+
+    @Test
+    public void testDecryptLegacyToken() throws Exception {
+        String legacyToken = noSaltEncrypter.encrypt("12");
+        assertThat(IdUtils.decrypt(legacyToken)).isEqualTo(12L);
+        assertThat(IdUtils.decrypt(legacyToken)).isEqualTo(12L);
+    }
+
+    @Test(expected = ApiException.class)
+    public void testDecryptForgedToken() throws Exception {
+        String token = IdUtils.encrypt(12L);
+        IdUtils.decrypt((token.charAt(0) == 'd' ? "e" : "d") + token.substring(1));
+    }
+
+    @Test
+    public void testTokenThroughput() throws Exception {
+        long start = System.nanoTime();
+        for (long id = 0; id < BENCHMARK_ITERATIONS; id++) {
+            IdUtils.decrypt(IdUtils.encrypt(id));
+        }
+        long signedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (long id = 0; id < BENCHMARK_ITERATIONS; id++) {
+            Long.parseLong(noSaltEncrypter.decrypt(noSaltEncrypter.encrypt(String.valueOf(id))));
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        LOGGER.info("{} tokens encoded and decoded: {} per second signed, {} per second encrypted",
+            BENCHMARK_ITERATIONS, BENCHMARK_ITERATIONS * 1_000_000_000L / signedTime, BENCHMARK_ITERATIONS * 1_000_000_000L / legacyTime);
+
+        assertThat(signedTime).isLessThan(legacyTime);
+    }
 }
@@ -1,11 +1,24 @@
 package io.suricate.monitoring.utils;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.suricate.monitoring.model.dto.nashorn.NashornResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 public class JsonUtilsTest {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JsonUtilsTest.class);
+
     @Test
     public void testJsonValidNull(){
         Assert.assertFalse(JsonUtils.isJsonValid(null));
@@ -25,4 +38,115 @@ public class JsonUtilsTest {
     public void testJsonValid(){
         Assert.assertTrue(JsonUtils.isJsonValid("{\"test\":0}"));
     }
+
+    @Test
+    public void testNestedJsonInvalid(){
+        Assert.assertFalse(JsonUtils.isJsonValid("{\"test\":[{\"a\":1},{\"b\":}]}"));
+    }
+
+    @Test
+    public void testNestedJsonValid(){
+        Assert.assertTrue(JsonUtils.isJsonValid("{\"test\":[{\"a\":1},{\"b\":\"c\"}]}"));
+    }
+
+    @Test
+    public void testReadMap() throws IOException {
+        Map<String, Object> map = JsonUtils.readMap("{\"test\":0,\"values\":[1,2]}");
+        Assert.assertEquals(0, map.get("test"));
+        Assert.assertEquals(2, ((java.util.List<?>) map.get("values")).size());
+    }
+
+    @Test
+    public void testValidationAllocatesLessThanTree() throws IOException {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        StringBuilder json = new StringBuilder("{\"values\":[");
+        for (int i = 0; i < 20000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"label\":\"value ").append(i).append("\"}");
+        }
+        String payload = json.append("]}").toString();
+
+        // Warm up both paths
+        JsonUtils.isJsonValid(payload);
+        new ObjectMapper().readTree(payload);
+
+        long threadId = Thread.currentThread().getId();
+        long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        Assert.assertTrue(JsonUtils.isJsonValid(payload));
+        long streamingBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        start = threadMXBean.getThreadAllocatedBytes(threadId);
+        new ObjectMapper().readTree(payload);
+        long treeBytes = threadMXBean.getThreadAllocatedBytes(threadId) - start;
+
+        Assert.assertTrue("streaming " + streamingBytes + " bytes, tree " + treeBytes + " bytes", streamingBytes * 10 < treeBytes);
+    }
+
+    @Test
+    public void testWidgetDataReadOnce() throws Exception {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled());
+
+        for (int valueCount : new int[]{20, 2000}) {
+            StringBuilder json = new StringBuilder("{\"title\":\"t\",\"values\":[");
+            for (int i = 0; i < valueCount; i++) {
+                json.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"label\":\"value ").append(i).append("\"}");
+            }
+            String payload = json.append("]}").toString();
+
+            // Before: three validations with a new tree each, then a new mapper reads the map for the rendering
+            Callable<Object> treesThenMap = () -> {
+                for (int i = 0; i < 3; i++) {
+                    new ObjectMapper().readTree(payload);
+                }
+                return new ObjectMapper().readValue(payload, new TypeReference<Map<String, Object>>() {
+                });
+            };
+            // Now: the validation reads the map once, the rendering reuses it
+            Callable<Object> mapOnce = () -> {
+                NashornResponse nashornResponse = new NashornResponse();
+                nashornResponse.setData(payload);
+                Assert.assertTrue(nashornResponse.isDataValid());
+                return nashornResponse.getParsedData();
+            };
+
+            int iterations = valueCount == 20 ? 5000 : 100;
+            long[] before = measure(threadMXBean, treesThenMap, iterations);
+            long[] now = measure(threadMXBean, mapOnce, iterations);
+
+            LOGGER.info("{} bytes: {}/s and {} bytes per execution before, {}/s and {} bytes now",
+                payload.length(), before[0], before[1], now[0], now[1]);
+            Assert.assertTrue("before " + before[1] + " bytes, now " + now[1] + " bytes", now[1] * 2 < before[1]);
+        }
+    }
+
+    /**
+     * Measure an operation once warmed up
+     *
+     * @param threadMXBean The thread bean counting the allocated bytes
+     * @param operation    The operation
+     * @param iterations   The number of calls measured
+     * @return The calls per second and the allocated bytes per call
+     */
+    private static long[] measure(com.sun.management.ThreadMXBean threadMXBean, Callable<Object> operation, int iterations) throws Exception {
+        long threadId = Thread.currentThread().getId();
+        long time = 0;
+        long allocatedBytes = 0;
+
+        // The first rounds warm up the JIT
+        for (int round = 0; round < 3; round++) {
+            long startBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                Assert.assertNotNull(operation.call());
+            }
+            time = System.nanoTime() - start;
+            allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+
+        return new long[]{iterations * 1_000_000_000L / time, allocatedBytes / iterations};
+    }
 }
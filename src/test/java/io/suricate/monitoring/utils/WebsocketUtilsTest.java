@@ -0,0 +1,22 @@
+package io.suricate.monitoring.utils;
+
+import org.junit.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class WebsocketUtilsTest {
+
+    @Test
+    public void testToBrokerDestination() {
+        assertThat(WebsocketUtils.toBrokerDestination("/user/TOKEN/queue/live")).isEqualTo("/topic/TOKEN.live");
+        assertThat(WebsocketUtils.toBrokerDestination("/user/TOKEN-projectWidget-1/queue/live")).isEqualTo("/topic/TOKEN-projectWidget-1.live");
+        assertThat(WebsocketUtils.toBrokerDestination("/user/TOKEN-ABCD/queue/unique")).isEqualTo("/topic/TOKEN-ABCD.unique");
+    }
+
+    @Test
+    public void testToBrokerDestinationUnchanged() {
+        assertThat(WebsocketUtils.toBrokerDestination(null)).isNull();
+        assertThat(WebsocketUtils.toBrokerDestination("/queue/connect")).isEqualTo("/queue/connect");
+        assertThat(WebsocketUtils.toBrokerDestination("/user/a/b/queue/live")).isEqualTo("/user/a/b/queue/live");
+    }
+}